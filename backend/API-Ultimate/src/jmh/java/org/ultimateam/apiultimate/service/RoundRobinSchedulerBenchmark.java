@@ -0,0 +1,114 @@
+package org.ultimateam.apiultimate.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.ultimateam.apiultimate.DTO.ScheduleResult;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Indisponibilite;
+import org.ultimateam.apiultimate.model.IndisponibiliteTerrain;
+import org.ultimateam.apiultimate.model.Terrain;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH de {@link RoundRobinSchedulerService#generateSchedule}.
+ *
+ * Chaque combinaison de paramètres construit une compétition synthétique : la période est dimensionnée pour
+ * que la vérification de capacité du planificateur passe (au plus deux matchs par équipe et par jour, quatre
+ * créneaux par terrain), et une proportion {@code densiteIndispos} des couples (équipe, jour) et (terrain, jour)
+ * est déclarée indisponible, tirée avec une graine fixe.
+ *
+ * Lancement (profil Maven {@code jmh}, débit + taux d'allocation via le profileur gc) :
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="-prof gc -p nbEquipes=128 -p mode=BITSET,SLOT_PACKING"
+ * </pre>
+ * Les grandes tailles en mode INTERVAL sont très longues : restreindre les paramètres avec {@code -p}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundRobinSchedulerBenchmark {
+
+    private static final LocalDate DEBUT = LocalDate.of(2025, 1, 1);
+    private static final int CRENEAUX_PAR_JOUR = 4;
+
+    @Param({"8", "32", "128", "512", "1024"})
+    public int nbEquipes;
+
+    @Param({"1", "4", "16", "64"})
+    public int nbTerrains;
+
+    @Param({"false", "true"})
+    public boolean homeAndAway;
+
+    @Param({"0.0", "0.1", "0.3"})
+    public double densiteIndispos;
+
+    @Param({"INTERVAL", "BITSET", "SLOT_PACKING"})
+    public RoundRobinSchedulerService.Mode mode;
+
+    private RoundRobinSchedulerService scheduler;
+    private List<Equipe> equipes;
+    private List<Terrain> terrains;
+    private List<Indisponibilite> indisponibilites;
+    private List<IndisponibiliteTerrain> indisponibilitesTerrains;
+    private LocalDate fin;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scheduler = new RoundRobinSchedulerService();
+        Random random = new Random(42);
+
+        equipes = new ArrayList<>(nbEquipes);
+        for (long i = 0; i < nbEquipes; i++) {
+            Equipe e = new Equipe("E" + i);
+            e.setIdEquipe(i + 1);
+            equipes.add(e);
+        }
+        terrains = new ArrayList<>(nbTerrains);
+        for (long i = 0; i < nbTerrains; i++) {
+            Terrain t = new Terrain();
+            t.setIdTerrain(i + 1);
+            t.setNom("T" + i);
+            terrains.add(t);
+        }
+
+        long matchs = (long) nbEquipes * (nbEquipes - 1) / 2 * (homeAndAway ? 2 : 1);
+        long capaciteJour = Math.min((long) CRENEAUX_PAR_JOUR * nbTerrains, nbEquipes);
+        // Marge pour les indisponibilités et le repos entre deux matchs
+        long jours = (long) Math.ceil(matchs / (double) capaciteJour * (1.5 + 2 * densiteIndispos)) + 1;
+        fin = DEBUT.plusDays(jours - 1);
+
+        indisponibilites = new ArrayList<>();
+        indisponibilitesTerrains = new ArrayList<>();
+        if (densiteIndispos > 0) {
+            for (int j = 0; j < jours; j++) {
+                LocalDateTime jour = DEBUT.plusDays(j).atStartOfDay();
+                for (Equipe e : equipes) {
+                    if (random.nextDouble() < densiteIndispos) {
+                        indisponibilites.add(new Indisponibilite(jour, jour.plusHours(23).plusMinutes(59), e));
+                    }
+                }
+                for (Terrain t : terrains) {
+                    if (random.nextDouble() < densiteIndispos) {
+                        indisponibilitesTerrains.add(new IndisponibiliteTerrain(jour, jour.plusHours(23).plusMinutes(59), t, null));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public ScheduleResult generateSchedule() {
+        return scheduler.generateSchedule(equipes, terrains, DEBUT, fin, homeAndAway,
+                indisponibilites, indisponibilitesTerrains, mode);
+    }
+}
@@ -0,0 +1,13 @@
+package org.ultimateam.apiultimate.DTO;
+
+import org.ultimateam.apiultimate.model.Match;
+
+/**
+ * Résultat de l'envoi d'un lot d'actions saisies hors ligne.
+ *
+ * @param match        le match après application du lot
+ * @param enregistrees nombre d'actions enregistrées
+ * @param doublons     nombre d'actions ignorées car déjà reçues (même clé)
+ */
+public record ActionBatchResult(Match match, int enregistrees, int doublons) {
+}
@@ -5,8 +5,16 @@ package org.ultimateam.apiultimate.DTO;
  *
  * Cette énumération est utilisée pour distinguer les actions de type **point** (marqué par un joueur)
  * et les actions de type **faute** (commise par un joueur ou une équipe).
+ *
+ * Les changements d'état du match sont aussi journalisés comme actions, sans joueur : {@code DEBUT}, {@code PAUSE},
+ * {@code REPRISE} et {@code FIN} (l'équipe de l'action {@code FIN} est le vainqueur). Le journal des actions suffit
+ * ainsi à reconstruire le score, le statut et le vainqueur d'un match.
  */
 public enum ActionTypeDTO {
     POINT,
-    FAUTE
+    FAUTE,
+    DEBUT,
+    PAUSE,
+    REPRISE,
+    FIN
 }
@@ -0,0 +1,28 @@
+package org.ultimateam.apiultimate.DTO;
+
+import java.util.List;
+
+/**
+ * Évolution du classement d'une compétition, sous forme de séries prêtes à tracer.
+ *
+ * Chaque série a une valeur par période, dans l'ordre de {@code periodes} ; la valeur est null si l'équipe
+ * n'était pas classée à cette période.
+ *
+ * @param idCompetition identifiant de la compétition
+ * @param periodes      libellés des périodes (journées ou rondes), de la plus ancienne à la plus récente
+ * @param series        une série par équipe
+ */
+public record ClassementHistoryDTO(long idCompetition, List<String> periodes, List<Serie> series) {
+
+    /**
+     * Évolution d'une équipe.
+     *
+     * @param idEquipe    identifiant de l'équipe
+     * @param nomEquipe   nom de l'équipe
+     * @param rangs       rang à chaque période
+     * @param scores      points de classement à chaque période
+     * @param differences différence de points à chaque période
+     */
+    public record Serie(long idEquipe, String nomEquipe, List<Long> rangs, List<Long> scores, List<Long> differences) {
+    }
+}
@@ -0,0 +1,15 @@
+package org.ultimateam.apiultimate.DTO;
+
+import java.util.List;
+
+/**
+ * Résultat d'un recalcul complet des classements.
+ *
+ * @param competitions nombre de compétitions recalculées
+ * @param equipes      nombre de classements réécrits
+ * @param matchs       nombre de matchs terminés pris en compte
+ * @param echecs       compétitions dont le recalcul a échoué (classement inchangé)
+ * @param dureeMs      durée du recalcul, en millisecondes
+ */
+public record ClassementRebuildResult(int competitions, int equipes, int matchs, List<Long> echecs, long dureeMs) {
+}
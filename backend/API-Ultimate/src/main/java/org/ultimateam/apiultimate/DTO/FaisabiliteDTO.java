@@ -0,0 +1,40 @@
+package org.ultimateam.apiultimate.DTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Estimation de faisabilité d'une compétition, calculée avant toute génération.
+ *
+ * Les valeurs sont des bornes de capacité (conditions nécessaires) : une compétition jugée infaisable ne peut
+ * pas être planifiée entièrement ; une compétition jugée faisable le sera en général, sans garantie absolue.
+ *
+ * @param faisable                  vrai si toutes les bornes sont respectées sur la période de la compétition
+ * @param matchsAJouer              nombre total de matchs du round robin
+ * @param capaciteMatchs            nombre maximal de matchs jouables sur la période (terrains libres et équipes disponibles, créneau par créneau)
+ * @param dateFinMinimale           première date de fin pour laquelle les bornes sont respectées, {@code null} si aucune dans l'horizon étudié
+ * @param terrainsMinimum           nombre minimal de terrains nécessaires sur la période (au-delà des terrains inscrits, terrains supposés toujours libres),
+ *                                  {@code null} si les disponibilités des équipes rendent la période insuffisante quel que soit le nombre de terrains
+ * @param equipesLimitantes         équipes qui n'ont pas assez de créneaux disponibles pour jouer tous leurs matchs
+ * @param pairesSansCreneauCommun   nombre de rencontres dont les deux équipes n'ont pas assez de créneaux libres en commun
+ */
+public record FaisabiliteDTO(
+        boolean faisable,
+        long matchsAJouer,
+        long capaciteMatchs,
+        LocalDate dateFinMinimale,
+        Integer terrainsMinimum,
+        List<EquipeCapacite> equipesLimitantes,
+        long pairesSansCreneauCommun
+) {
+
+    /**
+     * Capacité d'une équipe sur la période.
+     *
+     * @param idEquipe          identifiant de l'équipe
+     * @param nomEquipe         nom de l'équipe
+     * @param matchsAJouer      nombre de matchs que l'équipe doit jouer
+     * @param matchsJouables    nombre maximal de matchs qu'elle peut jouer (créneaux libres, repos entre deux matchs compris)
+     */
+    public record EquipeCapacite(Long idEquipe, String nomEquipe, long matchsAJouer, long matchsJouables) {}
+}
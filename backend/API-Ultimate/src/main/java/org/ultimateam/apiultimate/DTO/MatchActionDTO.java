@@ -0,0 +1,26 @@
+package org.ultimateam.apiultimate.DTO;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Action (point ou faute) saisie hors ligne par l'appareil d'un arbitre, envoyée dans un lot.
+ *
+ * La clé {@link #cle} identifie l'action de façon unique pour le match (par exemple
+ * {@code "<appareil>:<numéro de séquence>"}) : un lot renvoyé après une coupure réseau n'enregistre que les
+ * actions encore inconnues.
+ *
+ * @see org.ultimateam.apiultimate.controller.MatchController#addActions(Long, java.util.List)
+ */
+@Data
+public class MatchActionDTO {
+    private String cle;
+    private ActionTypeDTO type;
+    private long idEquipe;
+    private long idJoueur;
+    /** Points marqués (actions POINT uniquement). */
+    private long point;
+    /** Heure de saisie sur l'appareil ; heure de réception si absente. */
+    private LocalDateTime dateAction;
+}
@@ -0,0 +1,80 @@
+package org.ultimateam.apiultimate.DTO;
+
+import org.ultimateam.apiultimate.model.Match;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Évènement du flux SSE d'un match ({@code GET /api/match/{id}/stream}).
+ *
+ * Chaque évènement porte l'état courant du match (scores, statut, dates utiles au chronomètre) et, pour un point
+ * ou une faute, l'équipe et le joueur concernés : le client met son affichage à jour sans recharger le
+ * {@link Match} complet. Le nom SSE de l'évènement est {@link #type()} :
+ * {@code etat} (envoyé à l'abonnement), {@code debut}, {@code point}, {@code faute}, {@code pause},
+ * {@code reprise} et {@code fin}.
+ *
+ * Le même évènement alimente le tableau des scores en direct de la compétition
+ * ({@code GET /api/competition/{id}/stream}), où seul le dernier état de chaque match est diffusé.
+ *
+ * @see org.ultimateam.apiultimate.controller.MatchController#suivreMatch(Long)
+ */
+public record MatchEventDTO(
+        String type,
+        Long idMatch,
+        Long idCompetition,
+        Match.Status status,
+        long scoreEquipe1,
+        long scoreEquipe2,
+        LocalDateTime dateDebut,
+        LocalDateTime datePause,
+        LocalDateTime dateFin,
+        Duration dureePauseTotale,
+        Long idWinner,
+        Long idEquipe,
+        Long idJoueur,
+        Long points,
+        LocalDateTime dateEvenement
+) {
+
+    /**
+     * Évènement de changement d'état (début, pause, reprise, fin) ou état initial.
+     */
+    public static MatchEventDTO etat(String type, Match match) {
+        return of(type, match, null, null, null);
+    }
+
+    /**
+     * Évènement de point marqué.
+     */
+    public static MatchEventDTO point(Match match, long idEquipe, long idJoueur, long points) {
+        return of("point", match, idEquipe, idJoueur, points);
+    }
+
+    /**
+     * Évènement de faute.
+     */
+    public static MatchEventDTO faute(Match match, long idEquipe, long idJoueur) {
+        return of("faute", match, idEquipe, idJoueur, null);
+    }
+
+    private static MatchEventDTO of(String type, Match match, Long idEquipe, Long idJoueur, Long points) {
+        return new MatchEventDTO(
+                type,
+                match.getIdMatch(),
+                match.getIdCompetition() != null ? match.getIdCompetition().getIdCompetition() : null,
+                match.getStatus(),
+                match.getScoreEquipe1(),
+                match.getScoreEquipe2(),
+                match.getDateDebut(),
+                match.getDatePause(),
+                match.getDateFin(),
+                match.getDureePauseTotale(),
+                match.getWinner() != null ? match.getWinner().getIdEquipe() : null,
+                idEquipe,
+                idJoueur,
+                points,
+                LocalDateTime.now()
+        );
+    }
+}
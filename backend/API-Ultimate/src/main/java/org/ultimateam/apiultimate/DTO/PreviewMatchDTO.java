@@ -0,0 +1,38 @@
+package org.ultimateam.apiultimate.DTO;
+
+import org.ultimateam.apiultimate.model.Match;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne "match" de la prévisualisation en flux d'un planning (une ligne NDJSON par match placé).
+ *
+ * Seuls les identifiants et noms utiles à l'affichage sont transmis : le match n'est pas persisté
+ * et n'a donc pas encore d'identifiant.
+ *
+ * @see org.ultimateam.apiultimate.controller.CompetitionController#previsualiserMatchs(Long)
+ */
+public record PreviewMatchDTO(
+        String type,
+        Long idEquipe1,
+        String nomEquipe1,
+        Long idEquipe2,
+        String nomEquipe2,
+        Long idTerrain,
+        String nomTerrain,
+        LocalDateTime dateMatch
+) {
+
+    public static PreviewMatchDTO of(Match match) {
+        return new PreviewMatchDTO(
+                "match",
+                match.getEquipe1().getIdEquipe(),
+                match.getEquipe1().getNomEquipe(),
+                match.getEquipe2().getIdEquipe(),
+                match.getEquipe2().getNomEquipe(),
+                match.getTerrain() != null ? match.getTerrain().getIdTerrain() : null,
+                match.getTerrain() != null ? match.getTerrain().getNom() : null,
+                match.getDateMatch()
+        );
+    }
+}
@@ -0,0 +1,22 @@
+package org.ultimateam.apiultimate.DTO;
+
+import java.util.List;
+
+/**
+ * Dernière ligne de la prévisualisation en flux d'un planning : bilan de la génération.
+ *
+ * @param type         toujours {@code "resume"}
+ * @param matchsPlaces nombre de matchs placés
+ * @param nonPlaces    rencontres pour lesquelles aucun créneau n'a été trouvé
+ */
+public record PreviewResumeDTO(String type, int matchsPlaces, List<PaireNonPlacee> nonPlaces) {
+
+    /**
+     * Rencontre restée sans créneau.
+     */
+    public record PaireNonPlacee(Long idEquipe1, String nomEquipe1, Long idEquipe2, String nomEquipe2) {}
+
+    public PreviewResumeDTO(int matchsPlaces, List<PaireNonPlacee> nonPlaces) {
+        this("resume", matchsPlaces, nonPlaces);
+    }
+}
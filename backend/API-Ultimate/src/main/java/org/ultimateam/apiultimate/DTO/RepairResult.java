@@ -0,0 +1,19 @@
+package org.ultimateam.apiultimate.DTO;
+
+import org.ultimateam.apiultimate.model.Match;
+
+import java.util.List;
+
+/**
+ * Résultat d'une réparation incrémentale du planning après l'ajout d'une indisponibilité.
+ *
+ * @param deplaces   matchs en attente déplacés sur un nouveau créneau (et éventuellement un nouveau terrain)
+ * @param nonResolus matchs en attente en conflit avec l'indisponibilité pour lesquels aucun créneau libre
+ *                   n'a été trouvé dans la période de la compétition ; ils sont laissés à leur place
+ */
+public record RepairResult(List<Match> deplaces, List<Match> nonResolus) {
+
+    public boolean isComplete() {
+        return nonResolus.isEmpty();
+    }
+}
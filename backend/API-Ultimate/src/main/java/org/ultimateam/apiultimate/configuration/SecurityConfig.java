@@ -85,6 +85,8 @@ public class SecurityConfig {
                         ).permitAll()
 
                         // ... reste de tes règles existantes (GET, PATCH, etc.)
+                        // Prévisualisation et faisabilité lancent le planificateur : réservées aux administrateurs
+                        .requestMatchers(HttpMethod.GET, "/api/competition/{idCompetition}/preview", "/api/competition/{idCompetition}/faisabilite").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/participation/**", "/api/equipe/**", "/api/competition/**", "/api/joueur/**", "/api/match/**", "/api/terrain/**", "/api/classement/**", "/api/action-match/**").permitAll()
                         .requestMatchers(HttpMethod.PATCH, "/api/joueur/{idJoueur}").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/upload/**").permitAll()
@@ -9,12 +9,17 @@ import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
 import org.ultimateam.apiultimate.DTO.MatchFauteDTO;
 import org.ultimateam.apiultimate.DTO.MatchPointDTO;
 import org.ultimateam.apiultimate.model.ActionMatch;
+import org.ultimateam.apiultimate.model.Match;
 import org.ultimateam.apiultimate.service.ActionMatchService;
+import org.ultimateam.apiultimate.service.MatchService;
 
 import java.util.List;
 
 /**
  * Contrôleur REST pour la gestion des actions liées aux matchs (points et fautes).
+ *
+ * Les ajouts passent par {@link MatchService}, comme ceux de {@link MatchController} : le score du match,
+ * sa copie en mémoire et sa file d'écriture restent cohérents avec les actions enregistrées.
  */
 @RestController
 @RequestMapping("/api/action-match")
@@ -23,6 +28,7 @@ import java.util.List;
 public class ActionMatchController {
 
     private final ActionMatchService actionMatchService;
+    private final MatchService matchService;
 
     /**
      * Récupère toutes les actions (points et fautes) de tous les matchs.
@@ -125,13 +131,13 @@ public class ActionMatchController {
      * @param idMatch Identifiant unique du match.
      * @param idEquipe Identifiant unique de l'équipe.
      * @param matchPointDTO Objet contenant les informations sur le point.
-     * @return L'{@link ActionMatch} créée.
+     * @return Le {@link Match} mis à jour.
      */
     @Operation(summary = "Ajouter un point", description = "Ajoute un point au match. Réservé aux administrateurs.")
     @PostMapping("/{idMatch}/equipe/{idEquipe}/point")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ActionMatch addPoint(@PathVariable Long idMatch, @PathVariable Long idEquipe, @RequestBody MatchPointDTO matchPointDTO) {
-        return actionMatchService.addPoint(idMatch, idEquipe, matchPointDTO);
+    public Match addPoint(@PathVariable Long idMatch, @PathVariable Long idEquipe, @RequestBody MatchPointDTO matchPointDTO) {
+        return matchService.ajouterPoint(idMatch, idEquipe, matchPointDTO);
     }
 
     /**
@@ -141,12 +147,12 @@ public class ActionMatchController {
      * @param idMatch Identifiant unique du match.
      * @param idEquipe Identifiant unique de l'équipe.
      * @param matchFauteDTO Objet contenant les informations sur la faute.
-     * @return L'{@link ActionMatch} créée.
+     * @return Le {@link Match} mis à jour.
      */
     @Operation(summary = "Ajouter une faute", description = "Ajoute une faute au match. Réservé aux administrateurs.")
     @PostMapping("/{idMatch}/equipe/{idEquipe}/faute")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ActionMatch addFaute(@PathVariable Long idMatch, @PathVariable Long idEquipe, @RequestBody MatchFauteDTO matchFauteDTO) {
-        return actionMatchService.addFaute(idMatch, idEquipe, matchFauteDTO);
+    public Match addFaute(@PathVariable Long idMatch, @PathVariable Long idEquipe, @RequestBody MatchFauteDTO matchFauteDTO) {
+        return matchService.ajouterFaute(idMatch, idEquipe, matchFauteDTO);
     }
 }
\ No newline at end of file
@@ -5,7 +5,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.ultimateam.apiultimate.DTO.ClassementHistoryDTO;
+import org.ultimateam.apiultimate.DTO.ClassementRebuildResult;
 import org.ultimateam.apiultimate.model.Classement;
+import org.ultimateam.apiultimate.service.ClassementHistoryService;
+import org.ultimateam.apiultimate.service.ClassementRebuildService;
 import org.ultimateam.apiultimate.service.ClassementService;
 
 import java.util.List;
@@ -20,18 +24,35 @@ import java.util.List;
 public class ClassementController {
 
     private final ClassementService classementService;
+    private final ClassementRebuildService classementRebuildService;
+    private final ClassementHistoryService classementHistoryService;
 
     /**
      * Récupère le classement trié pour une compétition spécifique.
      *
      * @param idCompetition Identifiant unique de la compétition.
+     * @param top Nombre d'équipes à renvoyer (toutes si absent).
      * @return Une liste de {@link Classement} triée pour la compétition.
      */
-    @Operation(summary = "Lister le classement d'une compétition", description = "Retourne le classement trié (Points > Différence de buts > Buts marqués) pour une compétition donnée.")
+    @Operation(summary = "Lister le classement d'une compétition", description = "Retourne le classement trié (Points > Différence de buts > Buts marqués) pour une compétition donnée, éventuellement limité aux premières équipes.")
     @GetMapping("/competition/{idCompetition}")
     @PreAuthorize("permitAll()")
-    public List<Classement> getClassementByCompetition(@PathVariable Long idCompetition) {
-        return classementService.triClassement(idCompetition);
+    public List<Classement> getClassementByCompetition(@PathVariable Long idCompetition, @RequestParam(required = false) Integer top) {
+        if (top == null) return classementService.triClassement(idCompetition);
+        return classementService.triClassement(idCompetition, Math.max(top, 0));
+    }
+
+    /**
+     * Récupère l'évolution du classement d'une compétition, journée par journée (ou ronde par ronde).
+     *
+     * @param idCompetition Identifiant unique de la compétition.
+     * @return Les périodes et, pour chaque équipe, ses rangs, scores et différences de points.
+     */
+    @Operation(summary = "Historique du classement d'une compétition", description = "Retourne, pour chaque équipe, son rang, son score et sa différence de points à la fin de chaque journée ou ronde terminée, pour tracer l'évolution du classement.")
+    @GetMapping("/competition/{idCompetition}/historique")
+    @PreAuthorize("permitAll()")
+    public ClassementHistoryDTO getHistoriqueClassement(@PathVariable Long idCompetition) {
+        return classementHistoryService.historique(idCompetition);
     }
 
     /**
@@ -47,7 +68,7 @@ public class ClassementController {
     }
 
     /**
-     * Supprime tous les classements associés à une compétition spécifique.
+     * Supprime tous les classements associés à une compétition spécifique, ainsi que leur historique.
      * Réservé aux administrateurs.
      *
      * @param idCompetition Identifiant unique de la compétition.
@@ -57,5 +78,33 @@ public class ClassementController {
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public void deleteClassementCompetition(@PathVariable Long idCompetition) {
         classementService.deleteByIdCompetition(idCompetition);
+        classementHistoryService.supprimer(idCompetition);
+    }
+
+    /**
+     * Recalcule le classement d'une compétition à partir de ses matchs terminés.
+     * Réservé aux administrateurs.
+     *
+     * @param idCompetition Identifiant unique de la compétition.
+     * @return Le bilan du recalcul.
+     */
+    @Operation(summary = "Recalculer le classement d'une compétition", description = "Recalcule tous les classements de la compétition à partir des matchs terminés, avec les règles de points en vigueur. Réservé aux administrateurs.")
+    @PostMapping("/competition/{idCompetition}/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ClassementRebuildResult rebuildClassementCompetition(@PathVariable Long idCompetition) {
+        return classementRebuildService.reconstruire(idCompetition);
+    }
+
+    /**
+     * Recalcule les classements de toutes les compétitions, en parallèle.
+     * Réservé aux administrateurs.
+     *
+     * @return Le bilan du recalcul, avec les compétitions en échec.
+     */
+    @Operation(summary = "Recalculer tous les classements", description = "Recalcule en parallèle les classements de toutes les compétitions à partir des matchs terminés. Réservé aux administrateurs.")
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ClassementRebuildResult rebuildAllClassements() {
+        return classementRebuildService.reconstruireTout();
     }
-}
\ No newline at end of file
+}
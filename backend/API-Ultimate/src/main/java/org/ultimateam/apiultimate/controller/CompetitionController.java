@@ -3,8 +3,13 @@ package org.ultimateam.apiultimate.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.ultimateam.apiultimate.DTO.FaisabiliteDTO;
 import org.ultimateam.apiultimate.model.Championnat;
 import org.ultimateam.apiultimate.model.Competition;
 import org.ultimateam.apiultimate.model.Match;
@@ -109,6 +114,55 @@ public class CompetitionController {
         return competitionService.genererCompetition(idCompetition);
     }
 
+    /**
+     * Estime la faisabilité du calendrier d'une compétition sans le générer.
+     * Réservé aux administrateurs.
+     *
+     * @param idCompetition Identifiant de la compétition.
+     * @return Les bornes de capacité calculées.
+     */
+    @Operation(summary = "Estimer la faisabilité", description = "Calcule, sans lancer la génération, si la période et les terrains suffisent, la date de fin minimale et le nombre minimal de terrains. Réservé aux administrateurs.")
+    @GetMapping("/{idCompetition}/faisabilite")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public FaisabiliteDTO estimerFaisabilite(@PathVariable Long idCompetition) {
+        return competitionService.estimerFaisabilite(idCompetition);
+    }
+
+    /**
+     * Suit en direct les scores de tous les matchs en cours d'une compétition (Server-Sent Events).
+     *
+     * Le flux envoie d'abord l'état des matchs en cours (évènement {@code etat}), puis, au plus toutes les
+     * 250 ms, le dernier état des matchs modifiés (évènement {@code scores}).
+     *
+     * @param idCompetition Identifiant de la compétition.
+     * @return Le flux SSE du tableau des scores.
+     */
+    @Operation(summary = "Suivre les scores d'une compétition", description = "Flux Server-Sent Events : état des matchs en cours, puis envois groupés du dernier état des matchs modifiés.")
+    @GetMapping(value = "/{idCompetition}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("permitAll()")
+    public SseEmitter suivreCompetition(@PathVariable Long idCompetition) {
+        return competitionService.suivreCompetition(idCompetition);
+    }
+
+    /**
+     * Prévisualise les matchs d'une compétition sans les enregistrer.
+     * Réservé aux administrateurs.
+     *
+     * La réponse est un flux NDJSON : une ligne par match dès qu'il est placé, puis une ligne de bilan
+     * listant les rencontres sans créneau.
+     *
+     * @param idCompetition Identifiant de la compétition.
+     * @return Le flux des matchs proposés.
+     */
+    @Operation(summary = "Prévisualiser les matchs", description = "Génère un calendrier sans l'enregistrer et le renvoie en flux NDJSON. Réservé aux administrateurs.")
+    @GetMapping(value = "/{idCompetition}/preview", produces = "application/x-ndjson")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> previsualiserMatchs(@PathVariable Long idCompetition) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(competitionService.previsualiserCompetition(idCompetition));
+    }
+
     /**
      * Supprime une compétition.
      * Réservé aux administrateurs.
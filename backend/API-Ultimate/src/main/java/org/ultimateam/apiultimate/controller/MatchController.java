@@ -3,12 +3,19 @@ package org.ultimateam.apiultimate.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.ultimateam.apiultimate.DTO.ActionBatchResult;
+import org.ultimateam.apiultimate.DTO.MatchActionDTO;
 import org.ultimateam.apiultimate.DTO.MatchDTO;
 import org.ultimateam.apiultimate.DTO.MatchFauteDTO;
 import org.ultimateam.apiultimate.DTO.MatchPointDTO;
+import org.ultimateam.apiultimate.model.ActionMatch;
 import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.model.MatchSnapshot;
+import org.ultimateam.apiultimate.service.MatchEventLogService;
 import org.ultimateam.apiultimate.service.MatchService;
 
 import java.util.List;
@@ -23,6 +30,7 @@ import java.util.List;
 public class MatchController {
 
     private final MatchService matchService;
+    private final MatchEventLogService matchEventLogService;
 
     /**
      * Récupère la liste complète de tous les matchs.
@@ -49,6 +57,22 @@ public class MatchController {
         return matchService.getById(id);
     }
 
+    /**
+     * Suit un match en direct (Server-Sent Events).
+     *
+     * Le flux envoie d'abord l'état courant du match (évènement {@code etat}), puis un évènement par point,
+     * faute, pause, reprise et fin, sans avoir à recharger le match.
+     *
+     * @param id Identifiant unique du match.
+     * @return Le flux SSE des évènements du match.
+     */
+    @Operation(summary = "Suivre un match en direct", description = "Flux Server-Sent Events : état courant puis scores, actions, pause, reprise et fin du match.")
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("permitAll()")
+    public SseEmitter suivreMatch(@PathVariable Long id) {
+        return matchService.suivreMatch(id);
+    }
+
     /**
      * Récupère la liste des matchs 'commencés'.
      *
@@ -213,6 +237,62 @@ public class MatchController {
         return matchService.ajouterFaute(idMatch, idEquipe, matchFauteDTO);
     }
 
+    /**
+     * Enregistre un lot de points et de fautes saisis hors ligne par un arbitre.
+     * Chaque action porte une clé d'idempotence : un lot renvoyé n'est enregistré qu'une fois.
+     * Seuls les types POINT et FAUTE sont acceptés (400 sinon). Réservé aux administrateurs.
+     *
+     * @param id Identifiant du match.
+     * @param actions Actions dans l'ordre de saisie.
+     * @return Le {@link Match} mis à jour et le nombre d'actions enregistrées et ignorées.
+     */
+    @Operation(summary = "Envoyer un lot d'actions", description = "Enregistre en une fois des points et fautes saisis hors ligne ; les actions déjà reçues sont ignorées ; tout autre type que POINT ou FAUTE est refusé (400). Réservé aux administrateurs.")
+    @PostMapping("/{id}/actions:batch")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ActionBatchResult addActions(@PathVariable Long id, @RequestBody List<MatchActionDTO> actions) {
+        return matchService.ajouterActions(id, actions);
+    }
+
+    /**
+     * Récupère le journal complet d'un match : points, fautes et changements d'état, dans l'ordre.
+     *
+     * @param id Identifiant du match.
+     * @return Les {@link ActionMatch} du match.
+     */
+    @Operation(summary = "Journal d'un match", description = "Retourne toutes les actions du match (points, fautes, début, pause, reprise, fin) dans l'ordre d'enregistrement.")
+    @GetMapping("/{id}/journal")
+    @PreAuthorize("permitAll()")
+    public List<ActionMatch> getJournal(@PathVariable Long id) {
+        return matchEventLogService.journal(id);
+    }
+
+    /**
+     * Calcule l'état d'un match (scores, statut, vainqueur) en rejouant son journal, sans rien enregistrer.
+     *
+     * @param id Identifiant du match.
+     * @return L'état déduit du journal.
+     */
+    @Operation(summary = "Rejouer un match", description = "Retourne les scores, le statut et le vainqueur déduits du journal des actions.")
+    @GetMapping("/{id}/replay")
+    @PreAuthorize("permitAll()")
+    public MatchSnapshot replayMatch(@PathVariable Long id) {
+        return matchEventLogService.rejouer(id);
+    }
+
+    /**
+     * Recalcule les scores, le statut et le vainqueur d'un match terminé à partir de son journal.
+     * Réservé aux administrateurs.
+     *
+     * @param id Identifiant du match.
+     * @return Le {@link Match} mis à jour.
+     */
+    @Operation(summary = "Reconstruire un match", description = "Recalcule le match à partir de son journal, par exemple après un litige. Réservé aux administrateurs.")
+    @PostMapping("/{id}/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public Match rebuildMatch(@PathVariable Long id) {
+        return matchEventLogService.reconstruire(id);
+    }
+
     /**
      * Supprime un match.
      * Réservé aux administrateurs.
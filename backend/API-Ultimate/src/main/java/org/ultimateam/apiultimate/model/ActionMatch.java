@@ -16,9 +16,13 @@ import java.time.LocalDateTime;
  * l'action. Le type de l'action est stocké dans {@link ActionTypeDTO} (enum ou DTO selon
  * l'implémentation) et la date/heure de l'action est conservée dans {@link #dateAction}.
  *
+ * Les actions forment le journal du match, en ajout seul et ordonné par {@link #id} : le score, le statut et le
+ * vainqueur s'en déduisent (voir {@code MatchEventLogService}), l'entité {@link Match} n'en est qu'une projection.
+ *
  * Les accesseurs (getters/setters) sont fournis automatiquement par Lombok (@Getter/@Setter).
  */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_action_match_cle_client", columnNames = {"idMatch", "cleClient"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -44,7 +48,7 @@ public class ActionMatch {
     private Match match;
 
     /**
-     * Joueur ayant réalisé l'action.
+     * Joueur ayant réalisé l'action (null pour un changement d'état du match).
      *
      * Association ManyToOne vers l'entité {@link Joueur}.
      */
@@ -70,4 +74,35 @@ public class ActionMatch {
 
     private LocalDateTime datePause;
 
+    /**
+     * Équipe créditée de l'action : équipe qui marque pour un point, vainqueur pour la fin du match.
+     * Null pour les actions antérieures au journal (l'équipe du joueur est alors retenue).
+     */
+    private Long idEquipe;
+
+    /**
+     * Points marqués (actions POINT ; null pour les actions antérieures au journal, qui valent 1 point).
+     */
+    private Long points;
+
+    /**
+     * Date d'écriture en base, qui peut suivre {@link #dateAction} de loin (saisie hors ligne, écriture différée).
+     */
+    @JsonIgnore
+    private LocalDateTime dateEnregistrement;
+
+    /**
+     * Clé d'idempotence fournie par l'appareil de l'arbitre pour une action saisie hors ligne
+     * (null pour une action saisie en direct). Unique par match : un lot renvoyé n'est enregistré qu'une fois.
+     */
+    @JsonIgnore
+    private String cleClient;
+
+    /**
+     * Date d'écriture renseignée à l'insertion par JPA (les lots JDBC la fournissent eux-mêmes).
+     */
+    @PrePersist
+    void avantEnregistrement() {
+        if (dateEnregistrement == null) dateEnregistrement = LocalDateTime.now();
+    }
 }
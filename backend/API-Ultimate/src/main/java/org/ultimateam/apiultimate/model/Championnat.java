@@ -3,6 +3,8 @@ package org.ultimateam.apiultimate.model;
 
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -28,6 +30,23 @@ import java.time.LocalDate;
 @Getter
 @Setter
 public class Championnat extends Competition{
+    /**
+     * Format de génération des matchs d'un championnat.
+     *
+     * ROUND_ROBIN : toutes les équipes se rencontrent une fois (n(n-1)/2 matchs).
+     * SUISSE      : rondes successives, chaque équipe rencontrant un adversaire de même niveau au classement
+     *               (n/2 matchs par ronde, environ log2(n) rondes).
+     */
+    public enum FormatChampionnat {ROUND_ROBIN, SUISSE}
+
+    @Enumerated(EnumType.STRING)
+    private FormatChampionnat formatChampionnat = FormatChampionnat.ROUND_ROBIN;
+
+    /**
+     * Nombre de rondes du système suisse ; si null, le plus petit nombre de rondes qui départage les équipes (log2(n) arrondi au supérieur).
+     */
+    private Integer nombreRondes;
+
     /*
     public Championnat(Genre genre, Format format, LocalDate date_debut, LocalDate date_fin, String nomCompetition, String descriptionCompetition) {
         super(genre, format, date_debut, date_fin,nomCompetition, descriptionCompetition);
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
  * utilisées pour calculer le rang et le score d'une équipe : points marqués,
  * points encaissés, victoires, défaites, égalités, etc.
  *
- * Règle de score métier (convention utilisée) :
+ * Règle de score métier (par défaut, configurable par {@code app.classement.points-victoire},
+ * {@code points-egalite} et {@code points-defaite}) :
  * - victoire = +3 points
  * - égalité = +1 point
  * - défaite = +0 point
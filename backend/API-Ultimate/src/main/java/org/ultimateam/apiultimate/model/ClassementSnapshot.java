@@ -0,0 +1,135 @@
+package org.ultimateam.apiultimate.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.Length;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Instantané du classement d'une compétition à la fin d'une période (journée ou ronde).
+ *
+ * Une seule ligne par période, quel que soit le nombre d'équipes : les équipes sont rangées dans l'ordre du
+ * classement (le rang est la position + 1) et leurs identifiants, scores et différences de points sont encodés
+ * colonne par colonne dans {@link #donnees}, chaque valeur en entier variable (zigzag) ; les identifiants sont
+ * stockés en écart avec le précédent. Un classement de quelques dizaines d'équipes tient en une centaine d'octets.
+ *
+ * L'instantané ne sert qu'à tracer l'évolution du classement : il n'est jamais relu pour calculer le classement
+ * courant.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_classement_snapshot_periode", columnNames = {"idCompetition", "periode"}),
+        indexes = @Index(name = "idx_classement_snapshot_competition", columnList = "idCompetition, ordre"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ClassementSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Compétition classée.
+     */
+    private Long idCompetition;
+
+    /**
+     * Libellé de la période (date de la journée, ou « Ronde n »).
+     */
+    private String periode;
+
+    /**
+     * Position de la période dans le temps (numéro de ronde, ou jour depuis l'époque), pour trier les instantanés.
+     */
+    private long ordre;
+
+    private LocalDateTime dateSnapshot;
+
+    /**
+     * Nombre d'équipes classées.
+     */
+    private int nbEquipes;
+
+    /**
+     * Colonnes encodées (identifiants, scores, différences de points). Sans limite de taille : le nombre d'équipes
+     * d'une compétition n'est pas borné.
+     */
+    @JsonIgnore
+    @Column(length = Length.LONG32)
+    private byte[] donnees;
+
+    /**
+     * Colonnes décodées d'un instantané, dans l'ordre du classement.
+     *
+     * @param equipes     identifiants des équipes
+     * @param scores      points de classement
+     * @param differences différences de points
+     */
+    public record Colonnes(long[] equipes, long[] scores, long[] differences) {
+    }
+
+    /**
+     * Encode le classement fourni, déjà trié.
+     *
+     * @param classements lignes du classement, dans l'ordre des rangs
+     */
+    public void encoder(List<Classement> classements) {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(classements.size() * 4);
+        long precedent = 0;
+        for (Classement classement : classements) {
+            long idEquipe = classement.getIdClassement().getIdEquipe();
+            ecrire(sortie, idEquipe - precedent);
+            precedent = idEquipe;
+        }
+        for (Classement classement : classements) ecrire(sortie, classement.getScore());
+        for (Classement classement : classements) ecrire(sortie, classement.getDifference_points());
+        nbEquipes = classements.size();
+        donnees = sortie.toByteArray();
+    }
+
+    /**
+     * @return les colonnes de l'instantané
+     */
+    public Colonnes decoder() {
+        ByteBuffer entree = ByteBuffer.wrap(donnees == null ? new byte[0] : donnees);
+        long[] equipes = new long[nbEquipes];
+        long[] scores = new long[nbEquipes];
+        long[] differences = new long[nbEquipes];
+        long precedent = 0;
+        for (int i = 0; i < nbEquipes; i++) {
+            precedent += lire(entree);
+            equipes[i] = precedent;
+        }
+        for (int i = 0; i < nbEquipes; i++) scores[i] = lire(entree);
+        for (int i = 0; i < nbEquipes; i++) differences[i] = lire(entree);
+        return new Colonnes(equipes, scores, differences);
+    }
+
+    private static void ecrire(ByteArrayOutputStream sortie, long valeur) {
+        long zigzag = (valeur << 1) ^ (valeur >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            sortie.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        sortie.write((int) zigzag);
+    }
+
+    private static long lire(ByteBuffer entree) {
+        long zigzag = 0;
+        int decalage = 0;
+        byte octet;
+        do {
+            octet = entree.get();
+            zigzag |= (long) (octet & 0x7F) << decalage;
+            decalage += 7;
+        } while ((octet & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
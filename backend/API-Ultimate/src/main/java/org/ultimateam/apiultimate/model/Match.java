@@ -35,6 +35,9 @@ import java.util.Map;
  * @see Competition
  */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_match_tableau_position",
+        columnNames = {"idCompetition", "tableau", "tour", "position"}),
+        indexes = @Index(name = "idx_match_competition_date", columnList = "idCompetition, dateMatch"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -49,6 +52,16 @@ public class Match {
      */
     public enum Status {WAITING, FINISHED, ONGOING, PAUSED}
 
+    /**
+     * Partie d'un tournoi à élimination à laquelle appartient un match.
+     *
+     * POULE      : match de poule (format poules puis élimination).
+     * PRINCIPAL  : tableau principal (vainqueurs).
+     * CONSOLANTE : tableau des perdants (double élimination).
+     * FINALE     : finale entre les vainqueurs des deux tableaux (double élimination).
+     */
+    public enum Tableau {POULE, PRINCIPAL, CONSOLANTE, FINALE}
+
     /**
      * Identifiant unique du match (clé primaire).
      */
@@ -59,9 +72,10 @@ public class Match {
     /**
      * Liste des actions enregistrées pour ce match (buts, cartons, remplacements, ...).
      *
-     * Relation OneToMany vers {@link ActionMatch}.
+     * Relation OneToMany vers {@link ActionMatch}. Les actions sont créées de leur côté (écriture différée) :
+     * retirer une action de cette liste ne la supprime pas, seule la suppression du match les supprime en cascade.
      */
-    @OneToMany(mappedBy = "match", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "match", cascade = CascadeType.ALL)
     private List<ActionMatch> actions = new ArrayList<>();
 
     /**
@@ -143,10 +157,55 @@ public class Match {
      */
     private Duration dureePauseTotale = Duration.ZERO;
 
+    /**
+     * Échéance de fin du match en cours (null hors match en cours ou pendant une pause). Persistée pour que les
+     * minuteurs soient recréés après un redémarrage, par n'importe quel nœud de l'API.
+     */
+    private LocalDateTime dateFinPrevue;
+
+    /**
+     * Nœud qui a pris en charge l'échéance ({@code app.timer.node-id}), jusqu'à {@link #bailExpiration}.
+     */
+    @JsonIgnore
+    private String bailProprietaire;
+
+    /**
+     * Fin du bail sur l'échéance : passé ce délai, un autre nœud peut la reprendre (nœud tombé en cours de traitement).
+     */
+    @JsonIgnore
+    private LocalDateTime bailExpiration;
+
+    /**
+     * Version de la ligne (verrou optimiste) : une sauvegarde à partir d'une copie périmée, modifiée entre-temps par
+     * un autre nœud, échoue au lieu d'écraser ses changements. Les mises à jour ciblées (scores différés, bail)
+     * ne l'incrémentent pas.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     /**
      * Statut courant du match (WAITING, ONGOING, PAUSED, FINISHED).
      */
     @Enumerated(EnumType.STRING)
     private Status status = Status.WAITING;
 
+    /**
+     * Tableau du match dans un tournoi à élimination (null pour un match de round robin).
+     */
+    @Enumerated(EnumType.STRING)
+    private Tableau tableau;
+
+    /**
+     * Tour du match dans son tableau (1 = premier tour). Pour un match de poule, numéro de la poule ;
+     * pour un championnat en système suisse, numéro de la ronde.
+     */
+    private Integer tour;
+
+    /**
+     * Position du match dans son tour (0 = premier match du tour), ou rang du match dans sa poule ou sa ronde.
+     * Unique par (compétition, tableau, tour) pour les matchs de tableau.
+     */
+    private Integer position;
+
 }
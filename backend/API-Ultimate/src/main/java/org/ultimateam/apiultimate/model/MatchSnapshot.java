@@ -0,0 +1,71 @@
+package org.ultimateam.apiultimate.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Instantané de l'état d'un match déduit de son journal d'{@link ActionMatch}.
+ *
+ * L'instantané résume les actions jusqu'à {@link #derniereAction} incluse : pour reconstruire le match, il suffit
+ * de rejouer les actions suivantes. Il ne sert qu'à accélérer la relecture et peut être supprimé à tout moment
+ * (par exemple après un changement des règles de calcul) ; le journal reste la seule source de vérité.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_match_snapshot_match", columnList = "idMatch, derniereAction"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class MatchSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Match résumé.
+     */
+    private Long idMatch;
+
+    /**
+     * Identifiant de la dernière action prise en compte (0 si aucune).
+     */
+    private long derniereAction;
+
+    /**
+     * Nombre d'actions prises en compte.
+     */
+    private long nbActions;
+
+    private long scoreEquipe1;
+
+    private long scoreEquipe2;
+
+    @Enumerated(EnumType.STRING)
+    private Match.Status status = Match.Status.WAITING;
+
+    /**
+     * Équipe gagnante (null si le match n'est pas terminé ou sans vainqueur).
+     */
+    private Long idWinner;
+
+    private LocalDateTime dateSnapshot;
+
+    /**
+     * Copie de l'état, pour continuer la relecture sans modifier l'instantané d'origine.
+     */
+    public MatchSnapshot copie() {
+        MatchSnapshot copie = new MatchSnapshot();
+        copie.idMatch = idMatch;
+        copie.derniereAction = derniereAction;
+        copie.nbActions = nbActions;
+        copie.scoreEquipe1 = scoreEquipe1;
+        copie.scoreEquipe2 = scoreEquipe2;
+        copie.status = status;
+        copie.idWinner = idWinner;
+        return copie;
+    }
+}
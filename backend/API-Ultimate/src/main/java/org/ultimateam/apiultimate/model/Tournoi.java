@@ -3,6 +3,8 @@ package org.ultimateam.apiultimate.model;
 
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -15,6 +17,29 @@ import lombok.Setter;
 
 
 public class Tournoi extends Competition{
+    /**
+     * Format de génération des matchs d'un tournoi.
+     *
+     * ROUND_ROBIN           : toutes les équipes se rencontrent en aller-retour (n(n-1) matchs).
+     * ELIMINATION_DIRECTE   : tableau à élimination directe (n-1 matchs).
+     * DOUBLE_ELIMINATION    : tableau principal, tableau des perdants et finale (2n-2 matchs).
+     * POULES_ELIMINATION    : poules en round robin simple, puis élimination directe des qualifiés.
+     */
+    public enum FormatTournoi {ROUND_ROBIN, ELIMINATION_DIRECTE, DOUBLE_ELIMINATION, POULES_ELIMINATION}
+
+    @Enumerated(EnumType.STRING)
+    private FormatTournoi formatTournoi = FormatTournoi.ROUND_ROBIN;
+
+    /**
+     * Nombre maximal d'équipes par poule (format POULES_ELIMINATION).
+     */
+    private int tailleGroupe = 4;
+
+    /**
+     * Nombre d'équipes qualifiées par poule pour la phase finale (format POULES_ELIMINATION).
+     */
+    private int qualifiesParGroupe = 2;
+
     /**
     public Tournois(Genre genre, Format format, LocalDate date_debut, LocalDate date_fin, String nomCompetition, String descriptionCompetition) {
         super(genre, format, date_debut, date_fin, nomCompetition, descriptionCompetition);
@@ -0,0 +1,73 @@
+package org.ultimateam.apiultimate.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.ultimateam.apiultimate.model.ActionMatch;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Écriture JDBC des lots d'{@link ActionMatch} saisis hors ligne.
+ *
+ * Les actions sont insérées par {@link JdbcTemplate#batchUpdate} (un aller-retour par paquet de
+ * {@code app.live.batch-size} lignes) et le score du match est incrémenté une seule fois pour tout le lot,
+ * dans la même transaction : un lot est enregistré en entier ou pas du tout. L'incrément fait avancer la version
+ * du match, comme toute autre écriture : une copie du match chargée avant le lot n'écrase pas ses points. Une clé d'idempotence déjà
+ * présente fait échouer le lot ({@link org.springframework.dao.DuplicateKeyException}).
+ */
+@Repository
+public class ActionMatchBatchRepository {
+
+    private static final String INSERT_ACTION = """
+            INSERT INTO action_match (id_match, id_joueur, type, id_equipe, points, date_action, date_pause,
+                                      date_enregistrement, cle_client)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INCREMENT_SCORES = """
+            UPDATE match SET score_equipe1 = score_equipe1 + ?, score_equipe2 = score_equipe2 + ?, version = version + 1
+            WHERE id_match = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Nombre maximum de lignes par paquet JDBC ({@code app.live.batch-size}). */
+    @Value("${app.live.batch-size:100}")
+    private int batchSize = 100;
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public ActionMatchBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insère un lot d'actions d'un match et ajoute les points du lot à son score (la version avance de 1 si des
+     * points sont ajoutés).
+     *
+     * @param idMatch identifiant du match
+     * @param actions actions à insérer, dans l'ordre de saisie
+     * @param points1 points à ajouter à l'équipe 1
+     * @param points2 points à ajouter à l'équipe 2
+     */
+    @Transactional
+    public void enregistrerLot(long idMatch, List<ActionMatch> actions, long points1, long points2) {
+        jdbcTemplate.batchUpdate(INSERT_ACTION, actions, batchSize, (ps, action) -> {
+            ps.setLong(1, idMatch);
+            ps.setLong(2, action.getJoueur().getIdJoueur());
+            ps.setString(3, action.getType().name());
+            ps.setObject(4, action.getIdEquipe(), Types.BIGINT);
+            ps.setObject(5, action.getPoints(), Types.BIGINT);
+            ps.setTimestamp(6, Timestamp.valueOf(action.getDateAction()));
+            ps.setTimestamp(7, action.getDatePause() != null ? Timestamp.valueOf(action.getDatePause()) : null);
+            ps.setTimestamp(8, Timestamp.valueOf(action.getDateEnregistrement()));
+            ps.setString(9, action.getCleClient());
+        });
+        if (points1 != 0 || points2 != 0) jdbcTemplate.update(INCREMENT_SCORES, points1, points2, idMatch);
+    }
+}
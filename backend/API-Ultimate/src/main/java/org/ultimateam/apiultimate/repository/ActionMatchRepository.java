@@ -1,11 +1,15 @@
 package org.ultimateam.apiultimate.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
 import org.ultimateam.apiultimate.model.ActionMatch;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Repository Spring Data JPA pour l'entité {@link ActionMatch}.
@@ -59,4 +63,32 @@ public interface ActionMatchRepository extends JpaRepository<ActionMatch, Long>
      * @return liste des actions correspondant aux critères
      */
     List<ActionMatch> findByTypeAndJoueur_IdJoueurAndMatch_IdMatch(ActionTypeDTO typeDTO,Long idJoueur, Long idMatch);
+
+    /**
+     * Parmi des clés d'idempotence, renvoie celles déjà enregistrées pour un match (actions d'un lot déjà reçu).
+     *
+     * @param idMatch identifiant du match
+     * @param cles    clés du lot reçu
+     * @return clés déjà présentes en base
+     */
+    @Query("SELECT a.cleClient FROM ActionMatch a WHERE a.match.idMatch = :idMatch AND a.cleClient IN :cles")
+    Set<String> findClesClient(@Param("idMatch") Long idMatch, @Param("cles") Collection<String> cles);
+
+    /**
+     * Actions d'un match de certains types (par exemple les seules actions de jeu, sans les changements d'état).
+     *
+     * @param matchId identifiant du match
+     * @param types   types retenus
+     * @return liste des actions correspondantes
+     */
+    List<ActionMatch> findByMatch_IdMatchAndTypeIn(Long matchId, Collection<ActionTypeDTO> types);
+
+    /**
+     * Journal d'un match à partir d'une action exclue, dans l'ordre d'enregistrement.
+     *
+     * @param matchId identifiant du match
+     * @param apres   identifiant de la dernière action déjà prise en compte (0 pour tout le journal)
+     * @return actions suivantes, ordonnées par identifiant croissant
+     */
+    List<ActionMatch> findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(Long matchId, Long apres);
 }
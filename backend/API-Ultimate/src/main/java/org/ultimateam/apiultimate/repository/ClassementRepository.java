@@ -1,9 +1,11 @@
 package org.ultimateam.apiultimate.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.ultimateam.apiultimate.model.Classement;
 import org.ultimateam.apiultimate.model.ParticipationId;
 
@@ -65,5 +67,19 @@ public interface ClassementRepository extends JpaRepository<Classement, Particip
      */
     List<Classement> findAllByEquipe_IdEquipe(Long idEquipe);
 
+    /**
+     * Met à jour le rang d'une équipe sans toucher à ses statistiques.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @param idEquipe      identifiant de l'équipe
+     * @param rang          nouveau rang
+     * @return nombre de lignes modifiées
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Classement c SET c.rang = :rang " +
+            "WHERE c.idClassement.idCompetition = :idCompetition AND c.idClassement.idEquipe = :idEquipe")
+    int updateRang(@Param("idCompetition") long idCompetition, @Param("idEquipe") long idEquipe, @Param("rang") long rang);
+
 
 }
@@ -0,0 +1,41 @@
+package org.ultimateam.apiultimate.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.ultimateam.apiultimate.model.ClassementSnapshot;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository Spring Data JPA pour l'historique des classements ({@link ClassementSnapshot}).
+ */
+@Repository
+public interface ClassementSnapshotRepository extends JpaRepository<ClassementSnapshot, Long> {
+
+    /**
+     * Renvoie l'historique d'une compétition, dans l'ordre des périodes.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @return les instantanés de la compétition, du plus ancien au plus récent
+     */
+    List<ClassementSnapshot> findByIdCompetitionOrderByOrdreAsc(Long idCompetition);
+
+    /**
+     * Renvoie l'instantané d'une période, s'il a déjà été pris.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @param periode       libellé de la période
+     * @return l'instantané de la période
+     */
+    Optional<ClassementSnapshot> findByIdCompetitionAndPeriode(Long idCompetition, String periode);
+
+    /**
+     * Supprime l'historique d'une compétition.
+     *
+     * @param idCompetition identifiant de la compétition
+     */
+    @Transactional
+    void deleteByIdCompetition(Long idCompetition);
+}
@@ -0,0 +1,122 @@
+package org.ultimateam.apiultimate.repository;
+
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.ultimateam.apiultimate.model.Classement;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Mise à jour atomique des statistiques de {@link Classement} à la fin d'un match.
+ *
+ * Les compteurs sont incrémentés par la base ({@code victoires = victoires + ?}, ...) au lieu d'être lus,
+ * modifiés puis réécrits : deux matchs d'une même équipe terminés en même temps ne perdent aucune mise à jour.
+ * Les lignes des deux équipes sont modifiées par un seul lot JDBC, dans la même transaction, toujours dans
+ * l'ordre des identifiants d'équipe (deux transactions concurrentes verrouillent les lignes dans le même ordre).
+ */
+@Repository
+public class ClassementStatsRepository {
+
+    private static final String INCREMENT_STATS = """
+            UPDATE classement SET point_marque = point_marque + ?, point_encaisse = point_encaisse + ?,
+                                  difference_points = difference_points + ?,
+                                  victoires = victoires + ?, egalites = egalites + ?, defaites = defaites + ?,
+                                  score = score + ?
+            WHERE id_competition = ? AND id_equipe = ?
+            """;
+
+    /**
+     * Statistiques à ajouter au classement d'une équipe.
+     *
+     * @param idEquipe  équipe concernée
+     * @param marques   points marqués
+     * @param encaisses points encaissés
+     * @param victoires victoires (0 ou 1 pour un match)
+     * @param egalites  égalités
+     * @param defaites  défaites
+     * @param score     points de classement
+     */
+    public record Increment(long idEquipe, long marques, long encaisses, long victoires, long egalites, long defaites, long score) {
+    }
+
+    private static final String REMPLACER_STATS = """
+            UPDATE classement SET point_marque = ?, point_encaisse = ?, difference_points = ?,
+                                  victoires = ?, egalites = ?, defaites = ?, score = ?
+            WHERE id_competition = ? AND id_equipe = ?
+            """;
+
+    private static final String VERROUILLER = "SELECT id_equipe FROM classement WHERE id_competition = ? ORDER BY id_equipe FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public ClassementStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Ajoute des statistiques aux classements de plusieurs équipes d'une compétition, en un aller-retour.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @param increments    statistiques à ajouter, une entrée par équipe
+     * @throws JdbcUpdateAffectedIncorrectNumberOfRowsException si une équipe n'a pas de classement dans la
+     * compétition ; rien n'est alors modifié
+     */
+    @Transactional
+    public void ajouter(long idCompetition, List<Increment> increments) {
+        if (increments.isEmpty()) return;
+        List<Increment> ordonnes = increments.stream().sorted(Comparator.comparingLong(Increment::idEquipe)).toList();
+        int[][] resultats = jdbcTemplate.batchUpdate(INCREMENT_STATS, ordonnes, ordonnes.size(), (ps, increment) -> {
+            ps.setLong(1, increment.marques());
+            ps.setLong(2, increment.encaisses());
+            ps.setLong(3, increment.marques() - increment.encaisses());
+            ps.setLong(4, increment.victoires());
+            ps.setLong(5, increment.egalites());
+            ps.setLong(6, increment.defaites());
+            ps.setLong(7, increment.score());
+            ps.setLong(8, idCompetition);
+            ps.setLong(9, increment.idEquipe());
+        });
+        for (int lignes : resultats[0]) {
+            // SUCCESS_NO_INFO : le pilote ne donne pas le nombre de lignes
+            if (lignes == 0) throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(INCREMENT_STATS, 1, 0);
+        }
+    }
+
+    /**
+     * Verrouille les classements d'une compétition jusqu'à la fin de la transaction courante : les fins de match
+     * de la compétition attendent que le recalcul complet soit enregistré.
+     *
+     * @param idCompetition identifiant de la compétition
+     */
+    public void verrouiller(long idCompetition) {
+        jdbcTemplate.queryForList(VERROUILLER, Long.class, idCompetition);
+    }
+
+    /**
+     * Remplace les statistiques des classements d'une compétition par des valeurs recalculées, en un lot
+     * (le rang n'est pas modifié).
+     *
+     * @param idCompetition identifiant de la compétition
+     * @param classements   classements recalculés
+     */
+    public void remplacer(long idCompetition, List<Classement> classements) {
+        if (classements.isEmpty()) return;
+        jdbcTemplate.batchUpdate(REMPLACER_STATS, classements, classements.size(), (ps, classement) -> {
+            ps.setLong(1, classement.getPoint_marque());
+            ps.setLong(2, classement.getPoint_encaisse());
+            ps.setLong(3, classement.getDifference_points());
+            ps.setLong(4, classement.getVictoires());
+            ps.setLong(5, classement.getEgalites());
+            ps.setLong(6, classement.getDefaites());
+            ps.setLong(7, classement.getScore());
+            ps.setLong(8, idCompetition);
+            ps.setLong(9, classement.getIdClassement().getIdEquipe());
+        });
+    }
+}
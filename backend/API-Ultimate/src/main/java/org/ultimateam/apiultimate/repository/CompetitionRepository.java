@@ -1,11 +1,16 @@
 package org.ultimateam.apiultimate.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.ultimateam.apiultimate.model.Competition;
 import org.ultimateam.apiultimate.model.Tournoi;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository Spring Data JPA pour l'entité {@link Competition}.
@@ -27,4 +32,15 @@ public interface CompetitionRepository extends JpaRepository<Competition, Long>
      * @return liste des tournois associés (peut être vide)
      */
     List<Tournoi> findAllByIdCompetition(long idCompetition);
+
+    /**
+     * Lit la compétition en verrouillant sa ligne jusqu'à la fin de la transaction courante ({@code SELECT ... FOR UPDATE}) :
+     * sert de verrou par compétition entre les nœuds de l'API.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @return la compétition verrouillée, ou vide si elle n'existe pas
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Competition c WHERE c.idCompetition = :idCompetition")
+    Optional<Competition> verrouiller(@Param("idCompetition") long idCompetition);
 }
@@ -1,12 +1,15 @@
 package org.ultimateam.apiultimate.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.ultimateam.apiultimate.model.Match;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -69,4 +72,126 @@ public interface MatchRepository extends JpaRepository<Match, Long> {
     List<Match> findByTerrain_Id_terrain(@Param("idTerrain") Long idTerrain);
 
     List<Match>findByIdCompetition_IdCompetition(Long idCompetition);
-}
\ No newline at end of file
+
+    /**
+     * Indique si une ronde de championnat (matchs hors tableau du même tour) a encore un match non terminé,
+     * en dehors du match donné.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @param tour          numéro de la ronde
+     * @param idMatch       match exclu (celui qui vient de se terminer)
+     * @return vrai si la ronde n'est pas terminée
+     */
+    @Query("""
+        SELECT CASE WHEN COUNT(m) > 0 THEN true ELSE false END FROM Match m
+        WHERE m.idCompetition.idCompetition = :idCompetition AND m.tour = :tour AND m.tableau IS NULL
+          AND m.status <> org.ultimateam.apiultimate.model.Match.Status.FINISHED AND m.idMatch <> :idMatch
+    """)
+    boolean existsNonTermineDansRonde(@Param("idCompetition") long idCompetition, @Param("tour") int tour,
+                                      @Param("idMatch") long idMatch);
+
+    /**
+     * Indique si une journée d'une compétition a encore un match non terminé, en dehors du match donné.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @param debut         début de la journée (inclus)
+     * @param fin           début du jour suivant (exclu)
+     * @param idMatch       match exclu (celui qui vient de se terminer)
+     * @return vrai si la journée n'est pas terminée
+     */
+    @Query("""
+        SELECT CASE WHEN COUNT(m) > 0 THEN true ELSE false END FROM Match m
+        WHERE m.idCompetition.idCompetition = :idCompetition AND m.dateMatch >= :debut AND m.dateMatch < :fin
+          AND m.status <> org.ultimateam.apiultimate.model.Match.Status.FINISHED AND m.idMatch <> :idMatch
+    """)
+    boolean existsNonTermineDansJournee(@Param("idCompetition") long idCompetition, @Param("debut") LocalDateTime debut,
+                                        @Param("fin") LocalDateTime fin, @Param("idMatch") long idMatch);
+
+    /**
+     * Retourne les matchs d'une compétition dans un statut donné (matchs terminés pour recalculer un classement).
+     *
+     * @param idCompetition identifiant de la compétition
+     * @param status        statut recherché
+     * @return liste des {@link Match} correspondants
+     */
+    List<Match> findByIdCompetition_IdCompetitionAndStatus(Long idCompetition, Match.Status status);
+
+    /**
+     * Version d'un match en cours (projection de {@link #findVersionsEnCours}).
+     */
+    interface VersionEnCours {
+        Long getIdMatch();
+
+        Long getVersion();
+    }
+
+    /**
+     * Met à jour les seuls scores d'un match en cours, sans charger l'entité ni toucher à ses autres colonnes
+     * (écriture différée du {@code LiveMatchRegistry}). Comme une sauvegarde de l'entité, l'écriture respecte le
+     * verrou optimiste : elle n'a lieu que si la version est celle attendue, et l'incrémente.
+     *
+     * @param idMatch identifiant du match
+     * @param version version connue du match
+     * @param score1  score de l'équipe 1
+     * @param score2  score de l'équipe 2
+     * @return nombre de lignes modifiées (0 si le match n'existe plus, n'est plus en cours ou a été modifié
+     * depuis, par exemple par un autre nœud)
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Match m SET m.scoreEquipe1 = :score1, m.scoreEquipe2 = :score2, m.version = m.version + 1
+        WHERE m.idMatch = :idMatch
+          AND m.version = :version
+          AND m.status IN (org.ultimateam.apiultimate.model.Match.Status.ONGOING, org.ultimateam.apiultimate.model.Match.Status.PAUSED)
+    """)
+    int updateScores(@Param("idMatch") long idMatch, @Param("version") long version,
+                     @Param("score1") long score1, @Param("score2") long score2);
+
+    /**
+     * Parmi les matchs donnés, ceux qui sont toujours en cours (ONGOING ou PAUSED) en base, avec leur version.
+     *
+     * @param ids identifiants des matchs ouverts dans le registre d'un nœud
+     * @return l'identifiant et la version des matchs encore en cours
+     */
+    @Query("""
+        SELECT m.idMatch AS idMatch, m.version AS version FROM Match m
+        WHERE m.idMatch IN :ids
+          AND m.status IN (org.ultimateam.apiultimate.model.Match.Status.ONGOING, org.ultimateam.apiultimate.model.Match.Status.PAUSED)
+    """)
+    List<VersionEnCours> findVersionsEnCours(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Matchs d'un statut donné dont l'échéance de fin est renseignée (rechargement des minuteurs au démarrage).
+     */
+    List<Match> findByStatusAndDateFinPrevueIsNotNull(Match.Status status);
+
+    /**
+     * Matchs d'un statut donné dont l'échéance de fin tombe avant {@code horizon} (balayage périodique).
+     */
+    List<Match> findByStatusAndDateFinPrevueBefore(Match.Status status, LocalDateTime horizon);
+
+    /**
+     * Prend le bail sur l'échéance d'un match, en une seule mise à jour conditionnelle : la ligne est verrouillée
+     * le temps de l'UPDATE, si bien qu'un seul nœud peut réussir pour une même échéance. Échoue si le match n'est
+     * plus au statut attendu, si l'échéance a changé (pause, reprise) ou si un autre nœud tient un bail non expiré.
+     *
+     * @param idMatch    identifiant du match
+     * @param status     statut attendu (en cours)
+     * @param echeance   échéance planifiée par l'appelant
+     * @param noeud      identifiant du nœud appelant
+     * @param expiration fin du bail
+     * @param maintenant instant courant
+     * @return 1 si le bail est pris, 0 sinon
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Match m SET m.bailProprietaire = :noeud, m.bailExpiration = :expiration
+        WHERE m.idMatch = :idMatch AND m.status = :status AND m.dateFinPrevue = :echeance
+          AND (m.bailExpiration IS NULL OR m.bailExpiration < :maintenant)
+    """)
+    int acquerirEcheance(@Param("idMatch") long idMatch, @Param("status") Match.Status status,
+                         @Param("echeance") LocalDateTime echeance, @Param("noeud") String noeud,
+                         @Param("expiration") LocalDateTime expiration, @Param("maintenant") LocalDateTime maintenant);
+}
@@ -0,0 +1,31 @@
+package org.ultimateam.apiultimate.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.ultimateam.apiultimate.model.MatchSnapshot;
+
+import java.util.Optional;
+
+/**
+ * Repository Spring Data JPA pour les instantanés de match ({@link MatchSnapshot}).
+ */
+@Repository
+public interface MatchSnapshotRepository extends JpaRepository<MatchSnapshot, Long> {
+
+    /**
+     * Renvoie l'instantané le plus récent d'un match.
+     *
+     * @param idMatch identifiant du match
+     * @return l'instantané couvrant le plus d'actions, s'il existe
+     */
+    Optional<MatchSnapshot> findFirstByIdMatchOrderByDerniereActionDesc(Long idMatch);
+
+    /**
+     * Supprime tous les instantanés d'un match (reconstruction complète depuis le journal).
+     *
+     * @param idMatch identifiant du match
+     */
+    @Transactional
+    void deleteByIdMatch(Long idMatch);
+}
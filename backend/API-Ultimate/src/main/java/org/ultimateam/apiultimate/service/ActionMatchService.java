@@ -1,32 +1,46 @@
 package org.ultimateam.apiultimate.service;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
+import org.ultimateam.apiultimate.DTO.MatchActionDTO;
 import org.ultimateam.apiultimate.DTO.MatchFauteDTO;
 import org.ultimateam.apiultimate.DTO.MatchPointDTO;
 import org.ultimateam.apiultimate.model.*;
+import org.ultimateam.apiultimate.repository.ActionMatchBatchRepository;
 import org.ultimateam.apiultimate.repository.ActionMatchRepository;
 import org.ultimateam.apiultimate.repository.MatchRepository;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 @Service
 public class ActionMatchService {
 
+    /** Actions réalisées par un joueur, par opposition aux changements d'état journalisés. */
+    private static final List<ActionTypeDTO> ACTIONS_DE_JEU = List.of(ActionTypeDTO.POINT, ActionTypeDTO.FAUTE);
+
     private final ActionMatchRepository actionMatchRepository;
     private final MatchRepository matchRepository;
     private final EquipeService equipeService;
     private final JoueurService joueurService;
+    private final ActionMatchBatchRepository actionMatchBatchRepository;
 
     public ActionMatchService(ActionMatchRepository actionMatchRepository, MatchRepository matchRepository,
-                              EquipeService equipeService, JoueurService joueurService) {
+                              EquipeService equipeService, JoueurService joueurService,
+                              ActionMatchBatchRepository actionMatchBatchRepository) {
         this.actionMatchRepository = actionMatchRepository;
         this.matchRepository = matchRepository;
         this.equipeService = equipeService;
         this.joueurService = joueurService;
+        this.actionMatchBatchRepository = actionMatchBatchRepository;
+    }
+
+    /**
+     * Bilan de l'enregistrement d'un lot : actions nouvelles, doublons ignorés et points ajoutés à chaque équipe.
+     */
+    public record Lot(int enregistrees, int doublons, long points1, long points2) {
     }
 
     /**
@@ -45,12 +59,12 @@ public class ActionMatchService {
     public ActionMatch findById(Long id){ return actionMatchRepository.findById(id).orElse(null);}
 
     /**
-     * Récupère toutes les actions liées à un match donné.
+     * Récupère toutes les actions de jeu (points et fautes) liées à un match donné.
      *
      * @param matchId identifiant du match.
      * @return liste des {@link ActionMatch} associés au match.
      */
-    public List<ActionMatch> findByMatchId(Long matchId){ return actionMatchRepository.findByMatch_IdMatch(matchId);}
+    public List<ActionMatch> findByMatchId(Long matchId){ return actionMatchRepository.findByMatch_IdMatchAndTypeIn(matchId, ACTIONS_DE_JEU);}
 
     /**
      * Récupère les actions par type d'action.
@@ -93,7 +107,9 @@ public class ActionMatchService {
     public ActionMatch addPoint(long id_match, long id_equipe, MatchPointDTO matchPointDTO) {
         Match match = matchRepository.findById(id_match).orElse(null);
         if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
-        return addAction(id_match, id_equipe, matchPointDTO.getIdJoueur(), ActionTypeDTO.POINT, match.getDatePause());
+        ActionMatch action = creerAction(id_match, id_equipe, matchPointDTO.getIdJoueur(), ActionTypeDTO.POINT);
+        action.setPoints(matchPointDTO.getPoint());
+        return actionMatchRepository.save(action);
     }
 
     /**
@@ -112,6 +128,13 @@ public class ActionMatchService {
     }
 
     public ActionMatch addAction(long id_match, long id_equipe, long id_joueur, ActionTypeDTO type, LocalDateTime datePause) {
+        if (!ACTIONS_DE_JEU.contains(type)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Seuls les points et les fautes peuvent être envoyés");
+        }
+        return actionMatchRepository.save(creerAction(id_match, id_equipe, id_joueur, type));
+    }
+
+    private ActionMatch creerAction(long id_match, long id_equipe, long id_joueur, ActionTypeDTO type) {
         Match match = matchRepository.findById(id_match).orElse(null);
         Equipe equipe = equipeService.getById(id_equipe);
         Joueur joueur = joueurService.getById(id_joueur);
@@ -131,13 +154,30 @@ public class ActionMatchService {
         }
 
         ActionMatch action = new ActionMatch();
-        action.setDatePause(datePause);
         action.setMatch(match);
         action.setJoueur(joueur);
         action.setType(type);
+        action.setIdEquipe(id_equipe);
         action.setDateAction(LocalDateTime.now());
         action.setDatePause(match.getDatePause());
+        return action;
+    }
 
+    /**
+     * Journalise un changement d'état du match (début, pause, reprise, fin), sans joueur.
+     *
+     * @param match    le match concerné
+     * @param type     {@code DEBUT}, {@code PAUSE}, {@code REPRISE} ou {@code FIN}
+     * @param idEquipe vainqueur pour la fin du match, null sinon
+     * @return l'action enregistrée
+     */
+    public ActionMatch journaliser(Match match, ActionTypeDTO type, Long idEquipe) {
+        ActionMatch action = new ActionMatch();
+        action.setMatch(match);
+        action.setType(type);
+        action.setIdEquipe(idEquipe);
+        action.setDateAction(LocalDateTime.now());
+        action.setDatePause(match.getDatePause());
         return actionMatchRepository.save(action);
     }
 
@@ -160,4 +200,88 @@ public class ActionMatchService {
         }
     }
 
+    /**
+     * Enregistre un lot d'actions saisies hors ligne pour un match en cours.
+     *
+     * Les actions dont la clé est déjà connue (lot renvoyé après une coupure) sont ignorées. Le lot est validé
+     * en une fois, effectifs des deux équipes chargés une seule fois, avec les mêmes règles qu'une action seule ;
+     * la moindre action invalide rejette tout le lot. Les actions nouvelles sont ensuite insérées par un batch JDBC
+     * et le score du match est incrémenté une seule fois en base ; l'appelant met à jour l'entité {@link Match}.
+     *
+     * @param match le match concerné (en cours)
+     * @param lot   actions dans l'ordre de saisie
+     * @return le bilan du lot
+     * @throws ResponseStatusException si le lot est vide ou mal formé, ou contient autre chose qu'un point ou une faute
+     * (BAD_REQUEST), si une équipe n'est pas du match
+     * (NOT_FOUND), si un joueur n'est d'aucune des deux équipes ou si un score deviendrait négatif (FORBIDDEN), ou si
+     * le même lot est enregistré en parallèle (CONFLICT)
+     */
+    public Lot enregistrerLot(Match match, List<MatchActionDTO> lot) {
+        if (lot == null || lot.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Le lot d'actions est vide");
+
+        // Une clé répétée dans le lot n'est prise qu'une fois
+        Map<String, MatchActionDTO> parCle = new LinkedHashMap<>();
+        for (MatchActionDTO dto : lot) {
+            if (dto.getCle() == null || dto.getCle().isBlank() || dto.getType() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chaque action doit avoir une clé et un type");
+            }
+            // Les changements d'état (début, pause, reprise, fin) ne sont journalisés que par le serveur
+            if (!ACTIONS_DE_JEU.contains(dto.getType())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Seuls les points et les fautes peuvent être envoyés");
+            }
+            parCle.putIfAbsent(dto.getCle(), dto);
+        }
+        Set<String> connues = actionMatchRepository.findClesClient(match.getIdMatch(), parCle.keySet());
+        parCle.keySet().removeAll(connues);
+        int doublons = lot.size() - parCle.size();
+        if (parCle.isEmpty()) return new Lot(0, doublons, 0, 0);
+
+        Map<Long, Joueur> joueurs = new HashMap<>();
+        for (Joueur j : joueurService.getJoueurByEquipe(match.getEquipe1().getIdEquipe())) joueurs.put(j.getIdJoueur(), j);
+        for (Joueur j : joueurService.getJoueurByEquipe(match.getEquipe2().getIdEquipe())) joueurs.put(j.getIdJoueur(), j);
+
+        long score1 = match.getScoreEquipe1();
+        long score2 = match.getScoreEquipe2();
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<ActionMatch> actions = new ArrayList<>(parCle.size());
+        for (MatchActionDTO dto : parCle.values()) {
+            boolean equipe1 = Objects.equals(dto.getIdEquipe(), match.getEquipe1().getIdEquipe());
+            if (!equipe1 && !Objects.equals(dto.getIdEquipe(), match.getEquipe2().getIdEquipe())) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cette équipe ne fait pas partie du match");
+            }
+            Joueur joueur = joueurs.get(dto.getIdJoueur());
+            if (joueur == null) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Le joueur ne fait partie d'aucune des deux équipes de ce match");
+            }
+            if (dto.getType() == ActionTypeDTO.POINT) {
+                if (dto.getPoint() == 0) throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible d'ajouter 0 point");
+                if (equipe1) score1 += dto.getPoint(); else score2 += dto.getPoint();
+                if ((equipe1 ? score1 : score2) <= 0) {
+                    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible de mettre des points négatifs");
+                }
+            }
+
+            ActionMatch action = new ActionMatch();
+            action.setMatch(match);
+            action.setJoueur(joueur);
+            action.setType(dto.getType());
+            action.setIdEquipe(dto.getIdEquipe());
+            if (dto.getType() == ActionTypeDTO.POINT) action.setPoints(dto.getPoint());
+            action.setDateAction(dto.getDateAction() != null ? dto.getDateAction() : maintenant);
+            action.setDateEnregistrement(maintenant);
+            action.setDatePause(match.getDatePause());
+            action.setCleClient(dto.getCle());
+            actions.add(action);
+        }
+
+        long points1 = score1 - match.getScoreEquipe1();
+        long points2 = score2 - match.getScoreEquipe2();
+        try {
+            actionMatchBatchRepository.enregistrerLot(match.getIdMatch(), actions, points1, points2);
+        } catch (DuplicateKeyException e) {
+            // Le même lot vient d'être enregistré par une autre requête : le client peut le renvoyer sans risque
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Lot déjà en cours d'enregistrement");
+        }
+        return new Lot(actions.size(), doublons, points1, points2);
+    }
 }
@@ -0,0 +1,244 @@
+package org.ultimateam.apiultimate.service;
+
+import org.ultimateam.apiultimate.model.Match;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structure d'un tableau à élimination, calculée sans accès à la base à partir du nombre d'entrants.
+ *
+ * Chaque rencontre du tableau est un {@link Noeud} identifié par (tableau, tour, position) et alimenté par
+ * deux {@link Source} : une tête de série, le vainqueur ou le perdant d'une autre rencontre. Le tableau est
+ * dimensionné à la puissance de deux supérieure ; les places vides (exempts) sont attribuées aux meilleures
+ * têtes de série, qui passent directement au tour suivant.
+ *
+ * Selon ses entrées, un nœud est :
+ * <ul>
+ *     <li>un vrai match (deux entrants), le seul cas persisté en {@link Match} ;</li>
+ *     <li>un passage direct (un seul entrant, qui est aussi le vainqueur) ;</li>
+ *     <li>vide (aucun entrant, possible dans le tableau des perdants).</li>
+ * </ul>
+ * Les tours suivants ne sont jamais matérialisés à l'avance : {@link BracketService} crée un match dès que
+ * ses deux entrants sont connus.
+ */
+final class BracketPlan {
+
+    /** Origine d'un entrant. */
+    enum TypeSource {TETE_DE_SERIE, VAINQUEUR, PERDANT}
+
+    /**
+     * Entrant d'une rencontre.
+     *
+     * @param type  origine de l'entrant
+     * @param seed  indice de tête de série (0 = meilleure, -1 = exempt), pour {@link TypeSource#TETE_DE_SERIE}
+     * @param noeud rencontre d'origine, pour {@link TypeSource#VAINQUEUR} et {@link TypeSource#PERDANT}
+     */
+    record Source(TypeSource type, int seed, Noeud noeud) {
+        static Source teteDeSerie(int seed) { return new Source(TypeSource.TETE_DE_SERIE, seed, null); }
+        static Source vainqueur(Noeud noeud) { return new Source(TypeSource.VAINQUEUR, -1, noeud); }
+        static Source perdant(Noeud noeud) { return new Source(TypeSource.PERDANT, -1, noeud); }
+    }
+
+    /**
+     * Rencontre du tableau.
+     *
+     * @param tableau  partie du tableau
+     * @param tour     tour (à partir de 1)
+     * @param position position dans le tour (à partir de 0)
+     * @param source1  premier entrant (équipe 1 du match)
+     * @param source2  second entrant (équipe 2 du match)
+     * @param entrants nombre d'entrants effectifs : 2 = vrai match, 1 = passage direct, 0 = vide
+     */
+    record Noeud(Match.Tableau tableau, int tour, int position, Source source1, Source source2, int entrants) {
+
+        boolean estMatch() { return entrants == 2; }
+
+        /**
+         * @return la seule source qui produit un entrant d'un passage direct
+         */
+        Source sourceUnique() {
+            return produit(source1) ? source1 : source2;
+        }
+    }
+
+    private final int nbEntrants;
+    private final Map<String, Noeud> noeuds = new LinkedHashMap<>();
+
+    private BracketPlan(int nbEntrants) {
+        this.nbEntrants = nbEntrants;
+    }
+
+    /**
+     * Tableau à élimination directe : le vainqueur du dernier tour du tableau principal remporte le tournoi.
+     *
+     * @param nbEntrants nombre d'équipes (au moins 2)
+     */
+    static BracketPlan eliminationDirecte(int nbEntrants) {
+        BracketPlan plan = new BracketPlan(nbEntrants);
+        plan.construirePrincipal();
+        return plan;
+    }
+
+    /**
+     * Tableau à double élimination : une équipe est éliminée à sa deuxième défaite. Le perdant de chaque tour du
+     * tableau principal rejoint le tableau des perdants ; la finale oppose les vainqueurs des deux tableaux
+     * (sans match d'appui si le vainqueur du tableau des perdants l'emporte).
+     *
+     * @param nbEntrants nombre d'équipes (au moins 2)
+     */
+    static BracketPlan doubleElimination(int nbEntrants) {
+        BracketPlan plan = new BracketPlan(nbEntrants);
+        int tours = plan.construirePrincipal();
+        int taille = 1 << tours;
+
+        Source finaliste;
+        if (tours == 1) {
+            finaliste = Source.perdant(plan.get(Match.Tableau.PRINCIPAL, 1, 0));
+        } else {
+            // Tour 1 : les perdants du premier tour principal s'affrontent deux à deux
+            for (int p = 0; p < taille / 4; p++) {
+                plan.ajouter(Match.Tableau.CONSOLANTE, 1, p,
+                        Source.perdant(plan.get(Match.Tableau.PRINCIPAL, 1, 2 * p)),
+                        Source.perdant(plan.get(Match.Tableau.PRINCIPAL, 1, 2 * p + 1)));
+            }
+            for (int j = 1; j < tours; j++) {
+                // Tour pair : les survivants rencontrent les perdants du tour j+1 principal, dans l'ordre inverse
+                // pour éviter de rejouer tout de suite une rencontre du tableau principal
+                int nb = taille >> (j + 1);
+                for (int p = 0; p < nb; p++) {
+                    plan.ajouter(Match.Tableau.CONSOLANTE, 2 * j, p,
+                            Source.vainqueur(plan.get(Match.Tableau.CONSOLANTE, 2 * j - 1, p)),
+                            Source.perdant(plan.get(Match.Tableau.PRINCIPAL, j + 1, nb - 1 - p)));
+                }
+                // Tour impair : les survivants s'affrontent entre eux
+                if (j < tours - 1) {
+                    for (int p = 0; p < nb / 2; p++) {
+                        plan.ajouter(Match.Tableau.CONSOLANTE, 2 * j + 1, p,
+                                Source.vainqueur(plan.get(Match.Tableau.CONSOLANTE, 2 * j, 2 * p)),
+                                Source.vainqueur(plan.get(Match.Tableau.CONSOLANTE, 2 * j, 2 * p + 1)));
+                    }
+                }
+            }
+            finaliste = Source.vainqueur(plan.get(Match.Tableau.CONSOLANTE, 2 * (tours - 1), 0));
+        }
+        plan.ajouter(Match.Tableau.FINALE, 1, 0, Source.vainqueur(plan.get(Match.Tableau.PRINCIPAL, tours, 0)), finaliste);
+        return plan;
+    }
+
+    /**
+     * Construit le tableau principal à élimination directe.
+     *
+     * @return le nombre de tours
+     */
+    private int construirePrincipal() {
+        int tours = 1;
+        while ((1 << tours) < nbEntrants) tours++;
+        int taille = 1 << tours;
+
+        List<Integer> ordre = ordreTetesDeSerie(taille);
+        for (int p = 0; p < taille / 2; p++) {
+            ajouter(Match.Tableau.PRINCIPAL, 1, p, teteDeSerie(ordre.get(2 * p)), teteDeSerie(ordre.get(2 * p + 1)));
+        }
+        for (int tour = 2; tour <= tours; tour++) {
+            for (int p = 0; p < taille >> tour; p++) {
+                ajouter(Match.Tableau.PRINCIPAL, tour, p,
+                        Source.vainqueur(get(Match.Tableau.PRINCIPAL, tour - 1, 2 * p)),
+                        Source.vainqueur(get(Match.Tableau.PRINCIPAL, tour - 1, 2 * p + 1)));
+            }
+        }
+        return tours;
+    }
+
+    /**
+     * Ordre classique des têtes de série : la 1 et la 2 ne peuvent se rencontrer qu'en finale,
+     * et chaque exempt (indice {@code >= nbEntrants}) est opposé à une tête de série réelle.
+     */
+    static List<Integer> ordreTetesDeSerie(int taille) {
+        List<Integer> ordre = new ArrayList<>(List.of(0));
+        while (ordre.size() < taille) {
+            int n = ordre.size() * 2;
+            List<Integer> suivant = new ArrayList<>(n);
+            for (int seed : ordre) {
+                suivant.add(seed);
+                suivant.add(n - 1 - seed);
+            }
+            ordre = suivant;
+        }
+        return ordre;
+    }
+
+    /**
+     * @return la source de la tête de série, ou un exempt (indice -1) au-delà du nombre d'entrants
+     */
+    private Source teteDeSerie(int seed) {
+        return Source.teteDeSerie(seed < nbEntrants ? seed : -1);
+    }
+
+    private void ajouter(Match.Tableau tableau, int tour, int position, Source source1, Source source2) {
+        int entrants = (produit(source1) ? 1 : 0) + (produit(source2) ? 1 : 0);
+        noeuds.put(cle(tableau, tour, position), new Noeud(tableau, tour, position, source1, source2, entrants));
+    }
+
+    /**
+     * @return vrai si la source fournira une équipe (tête de série réelle, vainqueur d'une rencontre non vide,
+     * perdant d'un vrai match)
+     */
+    private static boolean produit(Source source) {
+        return switch (source.type()) {
+            case TETE_DE_SERIE -> source.seed() >= 0;
+            case VAINQUEUR -> source.noeud().entrants() > 0;
+            case PERDANT -> source.noeud().estMatch();
+        };
+    }
+
+    /**
+     * @return la rencontre (tableau, tour, position), ou {@code null} si elle n'existe pas
+     */
+    Noeud get(Match.Tableau tableau, int tour, int position) {
+        return noeuds.get(cle(tableau, tour, position));
+    }
+
+    /**
+     * @return toutes les rencontres, dans l'ordre des tours
+     */
+    List<Noeud> noeuds() {
+        return Collections.unmodifiableList(new ArrayList<>(noeuds.values()));
+    }
+
+    /**
+     * @return nombre de vrais matchs du tableau
+     */
+    int nbMatchs() {
+        return (int) noeuds.values().stream().filter(Noeud::estMatch).count();
+    }
+
+    /**
+     * @return nombre maximal de vrais matchs joués par une même équipe, du premier tour à la finale
+     * (en passant par le tableau des perdants pour la double élimination)
+     */
+    int maxMatchsParEquipe() {
+        // Les nœuds sont ajoutés après leurs sources : un seul parcours suffit
+        Map<String, Integer> joues = new HashMap<>();
+        int max = 0;
+        for (Noeud noeud : noeuds.values()) {
+            int nb = Math.max(joues(noeud.source1(), joues), joues(noeud.source2(), joues)) + (noeud.estMatch() ? 1 : 0);
+            joues.put(cle(noeud.tableau(), noeud.tour(), noeud.position()), nb);
+            max = Math.max(max, nb);
+        }
+        return max;
+    }
+
+    private static int joues(Source source, Map<String, Integer> joues) {
+        if (source.type() == TypeSource.TETE_DE_SERIE) return 0;
+        return joues.get(cle(source.noeud().tableau(), source.noeud().tour(), source.noeud().position()));
+    }
+
+    static String cle(Match.Tableau tableau, int tour, int position) {
+        return tableau + "/" + tour + "/" + position;
+    }
+}
@@ -0,0 +1,337 @@
+package org.ultimateam.apiultimate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.ScheduleResult;
+import org.ultimateam.apiultimate.model.*;
+import org.ultimateam.apiultimate.repository.IndisponibiliteRepository;
+import org.ultimateam.apiultimate.repository.IndisponibiliteTerrainRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+import org.ultimateam.apiultimate.repository.ParticipationRepository;
+
+import java.util.*;
+
+/**
+ * Génération et progression des tournois à élimination (directe, double, poules puis élimination).
+ *
+ * Contrairement au round robin, seul ce qui est jouable est créé : à la génération, les matchs du premier tour
+ * (ou les matchs de poule) ; ensuite, à chaque match terminé ({@link MatchService#finirMatch(long)}), les
+ * rencontres dont les deux équipes viennent d'être connues sont créées et placées sur le premier créneau libre.
+ * Un tournoi de n équipes produit ainsi O(n) matchs au lieu de n(n-1).
+ *
+ * La structure du tableau ({@link BracketPlan}) n'est pas persistée : elle est recalculée à partir du nombre
+ * d'entrants, et l'état du tableau se lit dans les matchs déjà créés, identifiés par (tableau, tour, position).
+ * Ce triplet est unique par compétition en base : quand les deux matchs qui mènent au même match (les deux
+ * demi-finales) se terminent en même temps, un seul des deux appels le crée, l'autre l'ignore.
+ * Les têtes de série sont les équipes inscrites triées par identifiant.
+ *
+ * Les matchs sont placés par {@link RoundRobinSchedulerService} (mode BITSET) avec les mêmes règles de
+ * disponibilité que la génération d'un championnat.
+ */
+@Slf4j
+@Service
+public class BracketService {
+
+    private final MatchRepository matchRepository;
+    private final ParticipationRepository participationRepository;
+    private final EquipeService equipeService;
+    private final IndisponibiliteRepository indisponibiliteRepository;
+    private final IndisponibiliteTerrainRepository indisponibiliteTerrainRepository;
+    private final RoundRobinSchedulerService scheduler;
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public BracketService(MatchRepository matchRepository,
+                          ParticipationRepository participationRepository,
+                          EquipeService equipeService,
+                          IndisponibiliteRepository indisponibiliteRepository,
+                          IndisponibiliteTerrainRepository indisponibiliteTerrainRepository,
+                          RoundRobinSchedulerService scheduler) {
+        this.matchRepository = matchRepository;
+        this.participationRepository = participationRepository;
+        this.equipeService = equipeService;
+        this.indisponibiliteRepository = indisponibiliteRepository;
+        this.indisponibiliteTerrainRepository = indisponibiliteTerrainRepository;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return vrai si la compétition se joue sous forme de tableau plutôt qu'en round robin
+     */
+    public static boolean estTableau(Competition competition) {
+        return competition instanceof Tournoi tournoi
+                && tournoi.getFormatTournoi() != null
+                && tournoi.getFormatTournoi() != Tournoi.FormatTournoi.ROUND_ROBIN;
+    }
+
+    /**
+     * Matchs d'un tournoi à élimination, pour l'estimation de faisabilité : tout le tableau (et les poules),
+     * sans connaître les paires des tours suivants.
+     *
+     * @param tournoi   tournoi à élimination
+     * @param nbEquipes nombre d'équipes inscrites
+     * @return le nombre de matchs et le nombre maximal de matchs d'une équipe
+     * @throws ResponseStatusException si la configuration des poules est invalide
+     */
+    static FeasibilityEstimatorService.Charge charge(Tournoi tournoi, int nbEquipes) {
+        // Moins de 2 équipes : refusé ensuite par l'estimation
+        if (nbEquipes < 2) return new FeasibilityEstimatorService.Charge(0, 0, 0);
+        if (tournoi.getFormatTournoi() != Tournoi.FormatTournoi.POULES_ELIMINATION) {
+            BracketPlan plan = plan(tournoi, nbEquipes);
+            return new FeasibilityEstimatorService.Charge(plan.nbMatchs(), plan.maxMatchsParEquipe(), 0);
+        }
+
+        // Répartition en serpentin : les poules ont toutes la même taille, à une équipe près
+        int nbPoules = nbPoules(tournoi, nbEquipes);
+        long matchs = 0;
+        int qualifies = 0;
+        int plusGrande = 0;
+        for (int g = 0; g < nbPoules; g++) {
+            int taille = nbEquipes / nbPoules + (g < nbEquipes % nbPoules ? 1 : 0);
+            matchs += (long) taille * (taille - 1) / 2;
+            qualifies += Math.min(tournoi.getQualifiesParGroupe(), taille);
+            plusGrande = Math.max(plusGrande, taille);
+        }
+        BracketPlan phaseFinale = BracketPlan.eliminationDirecte(qualifies);
+        return new FeasibilityEstimatorService.Charge(matchs + phaseFinale.nbMatchs(),
+                plusGrande - 1 + phaseFinale.maxMatchsParEquipe(), 0);
+    }
+
+    /**
+     * Crée et place les premiers matchs d'un tournoi à élimination : le premier tour du tableau,
+     * ou tous les matchs de poule pour le format {@link Tournoi.FormatTournoi#POULES_ELIMINATION}.
+     *
+     * Les anciens matchs du tournoi doivent avoir été supprimés au préalable.
+     *
+     * @param tournoi tournoi à générer
+     * @return les matchs créés
+     * @throws ResponseStatusException si moins de 2 équipes sont inscrites ou si la configuration des poules est invalide
+     */
+    public List<Match> genererTableau(Tournoi tournoi) {
+        List<Equipe> equipes = tetesDeSerie(tournoi);
+        if (equipes.size() < 2) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Il faut au moins 2 équipes.");
+        }
+        PlanificationCompetition planification = nouvellePlanification(tournoi);
+
+        if (tournoi.getFormatTournoi() == Tournoi.FormatTournoi.POULES_ELIMINATION) {
+            return genererPoules(tournoi, equipes, planification);
+        }
+        return avancer(plan(tournoi, equipes.size()), equipes, new HashMap<>(), planification);
+    }
+
+    /**
+     * Fait progresser le tableau après la fin d'un match : crée et place les rencontres dont les deux équipes
+     * sont maintenant connues. Sans effet pour un match hors tableau.
+     *
+     * @param match match qui vient de se terminer
+     * @return les matchs créés (éventuellement aucun)
+     */
+    public List<Match> avancer(Match match) {
+        if (match.getTableau() == null || !estTableau(match.getIdCompetition())) return List.of();
+        Tournoi tournoi = (Tournoi) match.getIdCompetition();
+
+        List<Match> existants = matchRepository.findByIdCompetition_IdCompetition(tournoi.getIdCompetition());
+        List<Equipe> entrants = tetesDeSerie(tournoi);
+
+        if (tournoi.getFormatTournoi() == Tournoi.FormatTournoi.POULES_ELIMINATION) {
+            List<Match> matchsPoules = existants.stream().filter(m -> m.getTableau() == Match.Tableau.POULE).toList();
+            // La phase finale attend la fin de toutes les poules
+            if (matchsPoules.stream().anyMatch(m -> m.getStatus() != Match.Status.FINISHED)) return List.of();
+            entrants = qualifies(tournoi, entrants, matchsPoules);
+        }
+
+        Map<String, Match> joues = new HashMap<>();
+        for (Match m : existants) {
+            if (m.getTableau() != null && m.getTableau() != Match.Tableau.POULE && m.getTour() != null && m.getPosition() != null) {
+                joues.put(BracketPlan.cle(m.getTableau(), m.getTour(), m.getPosition()), m);
+            }
+        }
+        return avancer(plan(tournoi, entrants.size()), entrants, joues, nouvellePlanification(tournoi));
+    }
+
+    /**
+     * Crée les matchs du tableau non encore joués dont les deux équipes sont connues.
+     */
+    private List<Match> avancer(BracketPlan plan, List<Equipe> entrants, Map<String, Match> joues, PlanificationCompetition planification) {
+        List<Match> crees = new ArrayList<>();
+        for (BracketPlan.Noeud noeud : plan.noeuds()) {
+            String cle = BracketPlan.cle(noeud.tableau(), noeud.tour(), noeud.position());
+            if (!noeud.estMatch() || joues.containsKey(cle)) continue;
+
+            Equipe equipe1 = equipe(noeud.source1(), entrants, joues);
+            Equipe equipe2 = equipe(noeud.source2(), entrants, joues);
+            if (equipe1 == null || equipe2 == null) continue;
+
+            ScheduleResult result = planification.placer(List.of(equipe1, equipe2));
+            for (Match m : result.getMatchs()) {
+                m.setTableau(noeud.tableau());
+                m.setTour(noeud.tour());
+                m.setPosition(noeud.position());
+            }
+            try {
+                planification.enregistrer(result);
+            } catch (DataIntegrityViolationException e) {
+                // Déjà créé par la fin simultanée de l'autre match qui y mène (contrainte uk_match_tableau_position)
+                log.info("Match {} du tableau déjà créé par un autre appel", cle);
+                continue;
+            }
+            for (Match m : result.getMatchs()) {
+                joues.put(cle, m);
+                crees.add(m);
+            }
+        }
+        return crees;
+    }
+
+    /**
+     * Équipe fournie par une source, ou {@code null} si elle n'est pas encore connue.
+     */
+    private static Equipe equipe(BracketPlan.Source source, List<Equipe> entrants, Map<String, Match> joues) {
+        BracketPlan.Noeud noeud = source.noeud();
+        return switch (source.type()) {
+            case TETE_DE_SERIE -> source.seed() < 0 ? null : entrants.get(source.seed());
+            case VAINQUEUR -> noeud.estMatch()
+                    ? gagnant(joues.get(BracketPlan.cle(noeud.tableau(), noeud.tour(), noeud.position())))
+                    : equipe(noeud.sourceUnique(), entrants, joues);
+            case PERDANT -> perdant(joues.get(BracketPlan.cle(noeud.tableau(), noeud.tour(), noeud.position())));
+        };
+    }
+
+    /**
+     * Vainqueur d'un match terminé : l'équipe désignée, sinon celle qui a le plus de points.
+     * En cas d'égalité, l'équipe 1 (la mieux classée) est qualifiée.
+     */
+    static Equipe gagnant(Match match) {
+        if (match == null || match.getStatus() != Match.Status.FINISHED) return null;
+        if (match.getWinner() != null) return match.getWinner();
+        return match.getScoreEquipe2() > match.getScoreEquipe1() ? match.getEquipe2() : match.getEquipe1();
+    }
+
+    /**
+     * Perdant d'un match terminé (l'équipe qui n'est pas {@link #gagnant(Match)}).
+     */
+    static Equipe perdant(Match match) {
+        Equipe gagnant = gagnant(match);
+        if (gagnant == null) return null;
+        return Objects.equals(gagnant.getIdEquipe(), match.getEquipe1().getIdEquipe()) ? match.getEquipe2() : match.getEquipe1();
+    }
+
+    private PlanificationCompetition nouvellePlanification(Tournoi tournoi) {
+        return new PlanificationCompetition(tournoi, matchRepository, indisponibiliteRepository, indisponibiliteTerrainRepository, scheduler);
+    }
+
+    private static BracketPlan plan(Tournoi tournoi, int nbEntrants) {
+        return tournoi.getFormatTournoi() == Tournoi.FormatTournoi.DOUBLE_ELIMINATION
+                ? BracketPlan.doubleElimination(nbEntrants)
+                : BracketPlan.eliminationDirecte(nbEntrants);
+    }
+
+    /**
+     * Équipes inscrites, dans l'ordre des têtes de série (identifiant croissant).
+     */
+    private List<Equipe> tetesDeSerie(Tournoi tournoi) {
+        return participationRepository.findById_idCompetition(tournoi.getIdCompetition()).stream()
+                .map(p -> equipeService.getById(p.getId().getIdEquipe()))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(Equipe::getIdEquipe))
+                .toList();
+    }
+
+    // --------------------- POULES ---------------------
+
+    /**
+     * Répartit les têtes de série en serpentin : la poule 1 reçoit les têtes de série 1, 2n, 2n+1, ...
+     */
+    static List<List<Equipe>> composerPoules(List<Equipe> equipes, int nbPoules) {
+        List<List<Equipe>> poules = new ArrayList<>();
+        for (int g = 0; g < nbPoules; g++) poules.add(new ArrayList<>());
+        for (int i = 0; i < equipes.size(); i++) {
+            int rangee = i / nbPoules;
+            int g = rangee % 2 == 0 ? i % nbPoules : nbPoules - 1 - i % nbPoules;
+            poules.get(g).add(equipes.get(i));
+        }
+        return poules;
+    }
+
+    private static int nbPoules(Tournoi tournoi, int nbEquipes) {
+        if (tournoi.getTailleGroupe() < 2 || tournoi.getQualifiesParGroupe() < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Taille de poule ou nombre de qualifiés invalide");
+        }
+        int nbPoules = (nbEquipes + tournoi.getTailleGroupe() - 1) / tournoi.getTailleGroupe();
+        if (nbPoules * Math.min(tournoi.getQualifiesParGroupe(), nbEquipes / nbPoules) < 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Il faut au moins 2 qualifiés pour la phase finale");
+        }
+        return nbPoules;
+    }
+
+    private List<Match> genererPoules(Tournoi tournoi, List<Equipe> equipes, PlanificationCompetition planification) {
+        List<List<Equipe>> poules = composerPoules(equipes, nbPoules(tournoi, equipes.size()));
+        List<Match> crees = new ArrayList<>();
+        for (int g = 0; g < poules.size(); g++) {
+            if (poules.get(g).size() < 2) continue;
+            ScheduleResult result = planification.placer(poules.get(g));
+            List<Match> matchs = result.getMatchs();
+            for (int i = 0; i < matchs.size(); i++) {
+                matchs.get(i).setTableau(Match.Tableau.POULE);
+                matchs.get(i).setTour(g + 1);
+                matchs.get(i).setPosition(i);
+            }
+            planification.enregistrer(result);
+            crees.addAll(matchs);
+        }
+        return crees;
+    }
+
+    /**
+     * Qualifiés de la phase finale, dans l'ordre des têtes de série : tous les premiers de poule (poule 1 d'abord),
+     * puis tous les deuxièmes, etc. Classement de poule : points (3/1/0), différence, points marqués, tête de série.
+     */
+    private static List<Equipe> qualifies(Tournoi tournoi, List<Equipe> equipes, List<Match> matchsPoules) {
+        List<List<Equipe>> poules = composerPoules(equipes, nbPoules(tournoi, equipes.size()));
+        Map<Long, long[]> bilans = new HashMap<>();
+        for (Match m : matchsPoules) {
+            long[] b1 = bilans.computeIfAbsent(m.getEquipe1().getIdEquipe(), id -> new long[3]);
+            long[] b2 = bilans.computeIfAbsent(m.getEquipe2().getIdEquipe(), id -> new long[3]);
+            Equipe gagnant = m.getWinner();
+            if (gagnant == null && m.getScoreEquipe1() != m.getScoreEquipe2()) {
+                gagnant = m.getScoreEquipe1() > m.getScoreEquipe2() ? m.getEquipe1() : m.getEquipe2();
+            }
+            if (gagnant == null) {
+                b1[0] += 1;
+                b2[0] += 1;
+            } else if (Objects.equals(gagnant.getIdEquipe(), m.getEquipe1().getIdEquipe())) {
+                b1[0] += 3;
+            } else {
+                b2[0] += 3;
+            }
+            b1[1] += m.getScoreEquipe1() - m.getScoreEquipe2();
+            b2[1] += m.getScoreEquipe2() - m.getScoreEquipe1();
+            b1[2] += m.getScoreEquipe1();
+            b2[2] += m.getScoreEquipe2();
+        }
+
+        long[] zero = new long[3];
+        List<List<Equipe>> classements = new ArrayList<>();
+        for (List<Equipe> poule : poules) {
+            List<Equipe> classement = new ArrayList<>(poule);
+            // Le tri est stable : à égalité parfaite, l'ordre des têtes de série est conservé
+            classement.sort(Comparator.<Equipe>comparingLong(e -> -bilans.getOrDefault(e.getIdEquipe(), zero)[0])
+                    .thenComparingLong(e -> -bilans.getOrDefault(e.getIdEquipe(), zero)[1])
+                    .thenComparingLong(e -> -bilans.getOrDefault(e.getIdEquipe(), zero)[2]));
+            classements.add(classement);
+        }
+
+        List<Equipe> qualifies = new ArrayList<>();
+        for (int rang = 0; rang < tournoi.getQualifiesParGroupe(); rang++) {
+            for (List<Equipe> classement : classements) {
+                if (rang < classement.size()) qualifies.add(classement.get(rang));
+            }
+        }
+        return qualifies;
+    }
+}
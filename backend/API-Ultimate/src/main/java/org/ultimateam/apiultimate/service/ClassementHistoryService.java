@@ -0,0 +1,177 @@
+package org.ultimateam.apiultimate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.ultimateam.apiultimate.DTO.ClassementHistoryDTO;
+import org.ultimateam.apiultimate.model.Championnat;
+import org.ultimateam.apiultimate.model.ClassementSnapshot;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.repository.ClassementSnapshotRepository;
+import org.ultimateam.apiultimate.repository.EquipeRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Historique des classements : un {@link ClassementSnapshot} est enregistré à la fin de chaque période d'une
+ * compétition, et l'évolution des rangs est relue depuis ces instantanés sans rejouer les matchs.
+ *
+ * Une période est la ronde d'un championnat (matchs de même {@code tour} hors tableau) ou, à défaut, la journée
+ * ({@code dateMatch}) du match. Elle est terminée quand tous ses matchs sont FINISHED, ce que vérifie une seule
+ * requête d'existence ; si un match de la période est terminé à nouveau (reconstruction), ou si deux fins de match
+ * closent la même période en même temps, l'instantané est réécrit.
+ */
+@Slf4j
+@Service
+public class ClassementHistoryService {
+
+    private final ClassementSnapshotRepository classementSnapshotRepository;
+    private final MatchRepository matchRepository;
+    private final EquipeRepository equipeRepository;
+    private final ClassementService classementService;
+
+    /**
+     * Période de compétition d'un match : une ronde ({@code tour} renseigné) ou une journée ({@code jour}).
+     *
+     * @param libelle libellé de la période
+     * @param ordre   position de la période dans le temps
+     * @param tour    numéro de la ronde, null pour une journée
+     * @param jour    jour de la journée, null pour une ronde
+     */
+    record Periode(String libelle, long ordre, Integer tour, LocalDate jour) {
+    }
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public ClassementHistoryService(ClassementSnapshotRepository classementSnapshotRepository, MatchRepository matchRepository,
+                                    EquipeRepository equipeRepository, ClassementService classementService) {
+        this.classementSnapshotRepository = classementSnapshotRepository;
+        this.matchRepository = matchRepository;
+        this.equipeRepository = equipeRepository;
+        this.classementService = classementService;
+    }
+
+    /**
+     * Enregistre le classement si le match terminé clôt sa période. Appelé après la mise à jour du classement ;
+     * un échec est journalisé sans empêcher la fin du match.
+     *
+     * @param match match terminé
+     */
+    public void apresMatch(Match match) {
+        try {
+            if (match.getIdCompetition() == null) return;
+            Periode periode = periode(match);
+            if (periode == null) return;
+
+            long idCompetition = match.getIdCompetition().getIdCompetition();
+            boolean enCours = periode.tour() != null
+                    ? matchRepository.existsNonTermineDansRonde(idCompetition, periode.tour(), match.getIdMatch())
+                    : matchRepository.existsNonTermineDansJournee(idCompetition, periode.jour().atStartOfDay(),
+                            periode.jour().plusDays(1).atStartOfDay(), match.getIdMatch());
+            if (!enCours) enregistrer(idCompetition, periode.libelle(), periode.ordre());
+        } catch (RuntimeException e) {
+            log.warn("Instantané du classement non enregistré après le match {}", match.getIdMatch(), e);
+        }
+    }
+
+    /**
+     * Enregistre le classement courant d'une compétition comme celui d'une période (remplace l'instantané
+     * existant de cette période). Si l'instantané de la période est créé en même temps par une autre fin de
+     * match ({@code uk_classement_snapshot_periode}), c'est cette ligne qui est réécrite.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @param periode       libellé de la période
+     * @param ordre         position de la période dans le temps
+     * @return l'instantané enregistré
+     */
+    public ClassementSnapshot enregistrer(long idCompetition, String periode, long ordre) {
+        ClassementSnapshot snapshot = classementSnapshotRepository.findByIdCompetitionAndPeriode(idCompetition, periode)
+                .orElseGet(ClassementSnapshot::new);
+        try {
+            return classementSnapshotRepository.save(remplir(snapshot, idCompetition, periode, ordre));
+        } catch (DataIntegrityViolationException e) {
+            if (snapshot.getId() != null) throw e;
+            ClassementSnapshot existant = classementSnapshotRepository.findByIdCompetitionAndPeriode(idCompetition, periode)
+                    .orElseThrow(() -> e);
+            return classementSnapshotRepository.save(remplir(existant, idCompetition, periode, ordre));
+        }
+    }
+
+    private ClassementSnapshot remplir(ClassementSnapshot snapshot, long idCompetition, String periode, long ordre) {
+        snapshot.setIdCompetition(idCompetition);
+        snapshot.setPeriode(periode);
+        snapshot.setOrdre(ordre);
+        snapshot.setDateSnapshot(LocalDateTime.now());
+        snapshot.encoder(classementService.triClassement(idCompetition));
+        return snapshot;
+    }
+
+    /**
+     * Renvoie l'évolution du classement d'une compétition, une série par équipe.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @return les périodes et, pour chaque équipe, son rang, son score et sa différence de points à chacune
+     */
+    public ClassementHistoryDTO historique(long idCompetition) {
+        List<ClassementSnapshot> snapshots = classementSnapshotRepository.findByIdCompetitionOrderByOrdreAsc(idCompetition);
+        int n = snapshots.size();
+        List<String> periodes = new ArrayList<>(n);
+        Map<Long, Long[][]> parEquipe = new LinkedHashMap<>();
+
+        for (int p = 0; p < n; p++) {
+            periodes.add(snapshots.get(p).getPeriode());
+            ClassementSnapshot.Colonnes colonnes = snapshots.get(p).decoder();
+            for (int i = 0; i < colonnes.equipes().length; i++) {
+                Long[][] valeurs = parEquipe.computeIfAbsent(colonnes.equipes()[i], id -> new Long[3][n]);
+                valeurs[0][p] = (long) i + 1;
+                valeurs[1][p] = colonnes.scores()[i];
+                valeurs[2][p] = colonnes.differences()[i];
+            }
+        }
+
+        Map<Long, String> noms = new HashMap<>();
+        for (Equipe equipe : equipeRepository.findAllById(parEquipe.keySet())) noms.put(equipe.getIdEquipe(), equipe.getNomEquipe());
+
+        List<ClassementHistoryDTO.Serie> series = new ArrayList<>(parEquipe.size());
+        parEquipe.forEach((idEquipe, valeurs) -> series.add(new ClassementHistoryDTO.Serie(idEquipe, noms.get(idEquipe),
+                Arrays.asList(valeurs[0]), Arrays.asList(valeurs[1]), Arrays.asList(valeurs[2]))));
+        return new ClassementHistoryDTO(idCompetition, periodes, series);
+    }
+
+    /**
+     * Supprime l'historique d'une compétition.
+     *
+     * @param idCompetition identifiant de la compétition
+     */
+    public void supprimer(long idCompetition) {
+        classementSnapshotRepository.deleteByIdCompetition(idCompetition);
+    }
+
+    /**
+     * @return la période du match, ou null s'il n'est ni dans une ronde ni daté
+     */
+    static Periode periode(Match match) {
+        if (match.getIdCompetition() instanceof Championnat && match.getTour() != null && match.getTableau() == null) {
+            int tour = match.getTour();
+            return new Periode("Ronde " + tour, tour, tour, null);
+        }
+        LocalDate jour = jour(match);
+        if (jour == null) return null;
+        return new Periode(jour.toString(), jour.toEpochDay(), null, jour);
+    }
+
+    private static LocalDate jour(Match match) {
+        if (match.getDateMatch() != null) return match.getDateMatch().toLocalDate();
+        return match.getDateFin() != null ? match.getDateFin().toLocalDate() : null;
+    }
+}
@@ -0,0 +1,118 @@
+package org.ultimateam.apiultimate.service;
+
+import org.ultimateam.apiultimate.model.Classement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Classement en mémoire d'une compétition, toujours trié.
+ *
+ * Les lignes sont rangées dans un {@link TreeSet} selon l'ordre de
+ * {@link org.ultimateam.apiultimate.repository.ClassementRepository#findAllByCompetitionIdOrderByRank} : score,
+ * nombre de rencontres jouées, différence de points et points marqués décroissants (puis identifiant de l'équipe,
+ * pour départager deux lignes identiques). Modifier la ligne d'une équipe coûte O(log n) ; les rangs sont
+ * ensuite recalculés en un parcours et seules les lignes dont le rang a changé sont renvoyées, pour être
+ * enregistrées. Lire les k premiers coûte O(k).
+ *
+ * Une ligne ne doit pas être modifiée directement tant qu'elle est dans l'arbre (sa position en dépend) : on passe
+ * par {@link #modifier(long, Consumer)}. Toutes les méthodes sont synchronisées sur l'instance.
+ */
+class ClassementLeaderboard {
+
+    static final Comparator<Classement> ORDRE = Comparator
+            .comparingLong(Classement::getScore).reversed()
+            .thenComparing(Comparator.comparingLong(ClassementLeaderboard::rencontres).reversed())
+            .thenComparing(Comparator.comparingLong(Classement::getDifference_points).reversed())
+            .thenComparing(Comparator.comparingLong(Classement::getPoint_marque).reversed())
+            .thenComparingLong(ClassementLeaderboard::idEquipe);
+
+    private final TreeSet<Classement> lignes = new TreeSet<>(ORDRE);
+    private final Map<Long, Classement> parEquipe = new HashMap<>();
+    private final long chargeLe;
+
+    /**
+     * Construit le classement à partir des lignes d'une compétition, dans n'importe quel ordre.
+     *
+     * @param classements lignes de la compétition
+     * @param chargeLe    instant du chargement (ms), pour l'expiration
+     */
+    ClassementLeaderboard(List<Classement> classements, long chargeLe) {
+        for (Classement classement : classements) {
+            lignes.add(classement);
+            parEquipe.put(idEquipe(classement), classement);
+        }
+        this.chargeLe = chargeLe;
+    }
+
+    private static long rencontres(Classement classement) {
+        return classement.getVictoires() + classement.getEgalites() + classement.getDefaites();
+    }
+
+    private static long idEquipe(Classement classement) {
+        if (classement.getIdClassement() != null && classement.getIdClassement().getIdEquipe() != null) {
+            return classement.getIdClassement().getIdEquipe();
+        }
+        return classement.getEquipe() != null && classement.getEquipe().getIdEquipe() != null ? classement.getEquipe().getIdEquipe() : 0;
+    }
+
+    long chargeLe() {
+        return chargeLe;
+    }
+
+    /**
+     * Modifie la ligne d'une équipe : elle est retirée de l'arbre, modifiée, puis remise à sa nouvelle place.
+     *
+     * @param idEquipe     équipe concernée
+     * @param modification modification de la ligne
+     * @return les lignes dont le rang a changé (aucune si l'équipe n'est pas dans le classement)
+     */
+    synchronized List<Classement> modifier(long idEquipe, Consumer<Classement> modification) {
+        Classement classement = parEquipe.get(idEquipe);
+        if (classement == null) return List.of();
+        lignes.remove(classement);
+        modification.accept(classement);
+        lignes.add(classement);
+        return reclasser();
+    }
+
+    /**
+     * Affecte les rangs 1..n dans l'ordre courant.
+     *
+     * @return les lignes dont le rang a changé
+     */
+    synchronized List<Classement> reclasser() {
+        List<Classement> modifies = new ArrayList<>();
+        long rang = 1;
+        for (Classement classement : lignes) {
+            if (classement.getRang() != rang) {
+                classement.setRang(rang);
+                modifies.add(classement);
+            }
+            rang++;
+        }
+        return modifies;
+    }
+
+    /**
+     * @param k nombre de lignes voulues
+     * @return les k premières lignes (toutes si k dépasse leur nombre), dans l'ordre du classement
+     */
+    synchronized List<Classement> premiers(int k) {
+        List<Classement> premiers = new ArrayList<>(Math.min(k, lignes.size()));
+        for (Classement classement : lignes) {
+            if (premiers.size() == k) break;
+            premiers.add(classement);
+        }
+        return premiers;
+    }
+
+    synchronized int taille() {
+        return lignes.size();
+    }
+}
@@ -0,0 +1,162 @@
+package org.ultimateam.apiultimate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.ClassementRebuildResult;
+import org.ultimateam.apiultimate.model.Classement;
+import org.ultimateam.apiultimate.model.Competition;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.repository.ClassementRepository;
+import org.ultimateam.apiultimate.repository.ClassementStatsRepository;
+import org.ultimateam.apiultimate.repository.CompetitionRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Recalcul complet des classements à partir des matchs terminés.
+ *
+ * Sert à corriger une dérive (match corrigé après coup, incident pendant une fin de match) ou à appliquer de
+ * nouvelles règles de points ({@code app.classement.points-victoire}, ...) en cours de saison, sans rejouer les
+ * matchs un par un. Chaque compétition est recalculée dans sa propre transaction : ses classements sont
+ * verrouillés, repartent de zéro, sont cumulés sur ses matchs FINISHED puis réécrits en un lot. Les compétitions sont
+ * traitées en parallèle sur un {@link ForkJoinPool} de {@code app.classement.rebuild-parallelism} threads ;
+ * l'échec de l'une n'empêche pas les autres.
+ *
+ * Les classements sont verrouillés avant la lecture des matchs. Une fin de match ajoute son résultat au classement
+ * et enregistre le match FINISHED dans une même transaction ({@link MatchService}) : validée avant le verrou, elle
+ * est comptée par le recalcul ; sinon elle attend la fin du recalcul pour s'ajouter, et le match n'était pas
+ * encore FINISHED en base pendant la lecture. Dans les deux cas, le match est compté une fois.
+ */
+@Slf4j
+@Service
+public class ClassementRebuildService {
+
+    private final CompetitionRepository competitionRepository;
+    private final MatchRepository matchRepository;
+    private final ClassementRepository classementRepository;
+    private final ClassementStatsRepository classementStatsRepository;
+    private final ClassementService classementService;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Nombre de compétitions recalculées en parallèle ({@code app.classement.rebuild-parallelism}, 0 = nombre de processeurs). */
+    @Value("${app.classement.rebuild-parallelism:0}")
+    private int parallelisme = 0;
+
+    /**
+     * Bilan du recalcul d'une compétition.
+     */
+    record Bilan(int equipes, int matchs) {
+    }
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public ClassementRebuildService(CompetitionRepository competitionRepository, MatchRepository matchRepository,
+                                    ClassementRepository classementRepository, ClassementStatsRepository classementStatsRepository,
+                                    ClassementService classementService, PlatformTransactionManager transactionManager) {
+        this.competitionRepository = competitionRepository;
+        this.matchRepository = matchRepository;
+        this.classementRepository = classementRepository;
+        this.classementStatsRepository = classementStatsRepository;
+        this.classementService = classementService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Recalcule les classements d'une compétition.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @return le bilan du recalcul
+     * @throws ResponseStatusException si la compétition n'existe pas
+     */
+    public ClassementRebuildResult reconstruire(long idCompetition) {
+        if (!competitionRepository.existsById(idCompetition)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Compétition n'existe pas");
+        }
+        long debut = System.currentTimeMillis();
+        Bilan bilan = reconstruireCompetition(idCompetition);
+        return new ClassementRebuildResult(1, bilan.equipes(), bilan.matchs(), List.of(), System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Recalcule les classements de toutes les compétitions, en parallèle.
+     *
+     * @return le bilan du recalcul, avec les compétitions en échec
+     */
+    public ClassementRebuildResult reconstruireTout() {
+        long debut = System.currentTimeMillis();
+        List<Long> ids = competitionRepository.findAll().stream().map(Competition::getIdCompetition).toList();
+
+        ForkJoinPool pool = parallelisme > 0 ? new ForkJoinPool(parallelisme) : new ForkJoinPool();
+        try {
+            Map<Long, ForkJoinTask<Bilan>> taches = new HashMap<>();
+            for (Long id : ids) taches.put(id, pool.submit(() -> reconstruireCompetition(id)));
+
+            int equipes = 0;
+            int matchs = 0;
+            List<Long> echecs = new ArrayList<>();
+            for (Long id : ids) {
+                try {
+                    Bilan bilan = taches.get(id).join();
+                    equipes += bilan.equipes();
+                    matchs += bilan.matchs();
+                } catch (RuntimeException e) {
+                    log.error("Échec du recalcul du classement de la compétition {}", id, e);
+                    echecs.add(id);
+                }
+            }
+            return new ClassementRebuildResult(ids.size() - echecs.size(), equipes, matchs, echecs, System.currentTimeMillis() - debut);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Recalcule et réécrit les classements d'une compétition, dans une transaction.
+     */
+    Bilan reconstruireCompetition(long idCompetition) {
+        Bilan bilan = transactionTemplate.execute(status -> {
+            classementStatsRepository.verrouiller(idCompetition);
+
+            // Copies à zéro : les entités lues ne sont pas modifiées (pas de seconde écriture au commit)
+            Map<Long, Classement> parEquipe = new HashMap<>();
+            for (Classement classement : classementRepository.findAllByCompetition_IdCompetition(idCompetition)) {
+                parEquipe.put(classement.getIdClassement().getIdEquipe(), new Classement(classement.getIdClassement()));
+            }
+
+            List<Match> matchs = matchRepository.findByIdCompetition_IdCompetitionAndStatus(idCompetition, Match.Status.FINISHED);
+            for (Match match : matchs) {
+                long score1 = match.getScoreEquipe1();
+                long score2 = match.getScoreEquipe2();
+                cumuler(parEquipe, classementService.increment(match.getEquipe1().getIdEquipe(), score1, score2));
+                cumuler(parEquipe, classementService.increment(match.getEquipe2().getIdEquipe(), score2, score1));
+            }
+
+            classementStatsRepository.remplacer(idCompetition, new ArrayList<>(parEquipe.values()));
+            return new Bilan(parEquipe.size(), matchs.size());
+        });
+        // Classement en mémoire et rangs recalculés à la prochaine lecture
+        classementService.invalider(idCompetition);
+        return bilan;
+    }
+
+    private static void cumuler(Map<Long, Classement> parEquipe, ClassementStatsRepository.Increment increment) {
+        Classement classement = parEquipe.get(increment.idEquipe());
+        if (classement == null) {
+            log.warn("Match terminé d'une équipe sans classement (équipe {}), ignoré", increment.idEquipe());
+            return;
+        }
+        ClassementService.appliquer(classement, increment);
+    }
+}
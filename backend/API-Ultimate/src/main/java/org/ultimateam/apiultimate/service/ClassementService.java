@@ -1,31 +1,66 @@
 package org.ultimateam.apiultimate.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.ultimateam.apiultimate.model.*;
 import org.ultimateam.apiultimate.repository.ClassementRepository;
+import org.ultimateam.apiultimate.repository.ClassementStatsRepository;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service responsable de la gestion des classements des compétitions.
  *
  * <p>Ce service expose des opérations pour récupérer, sauvegarder, supprimer
  * et mettre à jour les {@link Classement} liés à des compétitions et équipes.</p>
+ *
+ * <p>Le classement trié de chaque compétition consultée est gardé en mémoire ({@link ClassementLeaderboard}) :
+ * une lecture ne fait ni requête ni écriture, et la fin d'un match ne replace que les deux équipes concernées.
+ * Seuls les rangs qui changent sont écrits en base. Le classement en mémoire est relu en base au plus tard
+ * après {@code app.classement.cache-ttl-ms} millisecondes, pour suivre les matchs terminés sur un autre nœud.</p>
  */
 @Service
 public class ClassementService {
 
     private final ClassementRepository classementRepository;
+    private final ClassementStatsRepository classementStatsRepository;
+
+    /** Classements triés en mémoire, par compétition. */
+    private final Map<Long, ClassementLeaderboard> leaderboards = new ConcurrentHashMap<>();
+
+    /** Points de classement d'une victoire ({@code app.classement.points-victoire}). */
+    @Value("${app.classement.points-victoire:3}")
+    private long pointsVictoire = 3;
+
+    /** Points de classement d'une égalité ({@code app.classement.points-egalite}). */
+    @Value("${app.classement.points-egalite:1}")
+    private long pointsEgalite = 1;
+
+    /** Points de classement d'une défaite ({@code app.classement.points-defaite}). */
+    @Value("${app.classement.points-defaite:0}")
+    private long pointsDefaite = 0;
+
+    /** Durée de validité d'un classement en mémoire ({@code app.classement.cache-ttl-ms}). */
+    @Value("${app.classement.cache-ttl-ms:30000}")
+    private long dureeCacheMs = 30_000;
 
     /**
      * Constructeur pour l'injection du repository de classement.
      *
      * @param classementRepository repository utilisé pour accéder aux données de classement
+     * @param classementStatsRepository mise à jour atomique des statistiques en fin de match
      */
-    public ClassementService(ClassementRepository classementRepository ) {
+    public ClassementService(ClassementRepository classementRepository, ClassementStatsRepository classementStatsRepository) {
         this.classementRepository = classementRepository;
+        this.classementStatsRepository = classementStatsRepository;
     }
 
     /**
@@ -62,6 +97,7 @@ public class ClassementService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Classement not found");
         }
         classementRepository.deleteAll(classements);
+        invalider(idCompetition);
         return classements;
     }
 
@@ -81,18 +117,30 @@ public class ClassementService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Equipe not found");
         }
         classementRepository.deleteAll(classements);
+        // Suppression rare : toutes les compétitions seront relues
+        leaderboards.clear();
         return classements;
 
     }
 
+    /**
+     * Oublie le classement en mémoire d'une compétition, relu en base à la prochaine lecture
+     * (lignes créées ou supprimées en dehors de ce service).
+     *
+     * @param idCompetition identifiant de la compétition
+     */
+    public void invalider(Long idCompetition) {
+        if (idCompetition != null) leaderboards.remove(idCompetition);
+    }
+
 
     /**
      * Met à jour les statistiques de classement en fonction du résultat d'un {@link Match} terminé.
      *
-     * <p>La méthode vérifie que le match existe et qu'il est terminé. Elle récupère ensuite la
-     * compétition et les deux équipes impliquées, récupère leurs entrées de classement existantes
-     * et met à jour leurs statistiques (points marqués/encaissés, différence, victoires/égalité/défaites,
-     * points de classement).</p>
+     * <p>La méthode vérifie que le match existe et qu'il est terminé, puis ajoute aux classements des deux équipes
+     * les points marqués/encaissés, la victoire, l'égalité ou la défaite et les points de classement. L'ajout est
+     * fait par la base ({@link ClassementStatsRepository}), sans relire les classements : deux matchs d'une même
+     * équipe terminés en même temps sont tous deux comptés.</p>
      *
      * @param match le {@link Match} utilisé pour mettre à jour les classements
      * @throws ResponseStatusException si le match ou la compétition ou un classement attendu n'existe pas
@@ -109,76 +157,101 @@ public class ClassementService {
         if (competition == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le competition n'existe pas.");
         }
-        Equipe equipe1 = match.getEquipe1();
-        Equipe equipe2 = match.getEquipe2();
-
-        Classement classement1 = classementRepository.findClassementByCompetition_IdCompetitionAndEquipe_IdEquipe(competition.getIdCompetition(),equipe1.getIdEquipe());
-        if (classement1 == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le classement n'existe pas.");
-        }
-        Classement classement2 = classementRepository.findClassementByCompetition_IdCompetitionAndEquipe_IdEquipe(competition.getIdCompetition(),equipe2.getIdEquipe());
-        if (classement2 == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le classement n'existe pas.");
-        }
 
         long score1 = match.getScoreEquipe1();
         long score2 = match.getScoreEquipe2();
+        List<ClassementStatsRepository.Increment> increments = List.of(
+                increment(match.getEquipe1().getIdEquipe(), score1, score2),
+                increment(match.getEquipe2().getIdEquipe(), score2, score1));
 
-        updateStats(classement1, score1, score2);
-        updateStats(classement2, score2, score1);
-
+        try {
+            classementStatsRepository.ajouter(competition.getIdCompetition(), increments);
+        } catch (JdbcUpdateAffectedIncorrectNumberOfRowsException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le classement n'existe pas.");
+        }
 
+        ClassementLeaderboard leaderboard = leaderboards.get(competition.getIdCompetition());
+        if (leaderboard != null) {
+            Set<Classement> rangsModifies = new LinkedHashSet<>();
+            for (ClassementStatsRepository.Increment increment : increments) {
+                rangsModifies.addAll(leaderboard.modifier(increment.idEquipe(), classement -> appliquer(classement, increment)));
+            }
+            enregistrerRangs(rangsModifies);
+        }
     }
 
     /**
-     * Met à jour les statistiques d'un {@link Classement} donné en fonction des points marqués et encaissés.
-     *
-     * <p>Cette méthode modifie le nombre de points marqués/encaissés, la différence de points,
-     * ainsi que le nombre de victoires, égalités ou défaites et le score de classement.
-     * Le classement est ensuite persisté en base.</p>
+     * Statistiques gagnées par une équipe sur un match. Les points de classement suivent
+     * {@code app.classement.points-victoire}, {@code points-egalite} et {@code points-defaite} (3, 1 et 0 par défaut).
      *
-     * @param classement l'entité {@link Classement} à mettre à jour
+     * @param idEquipe l'équipe considérée
      * @param score1 le nombre de points marqués par l'équipe considérée
      * @param score2 le nombre de points marqués par l'adversaire
+     * @return les statistiques à ajouter à son classement
      */
-    private void updateStats(Classement classement, long score1, long score2) {
-        classement.setPoint_marque(classement.getPoint_marque() + score1);
-        classement.setPoint_encaisse(classement.getPoint_encaisse() + score2);
-        classement.setDifference_points(classement.getPoint_marque() - classement.getPoint_encaisse());
+    ClassementStatsRepository.Increment increment(long idEquipe, long score1, long score2) {
+        if (score1 > score2) return new ClassementStatsRepository.Increment(idEquipe, score1, score2, 1, 0, 0, pointsVictoire);
+        if (score1 == score2) return new ClassementStatsRepository.Increment(idEquipe, score1, score2, 0, 1, 0, pointsEgalite);
+        return new ClassementStatsRepository.Increment(idEquipe, score1, score2, 0, 0, 1, pointsDefaite);
+    }
 
-        if (score1 > score2) {
-            classement.setScore(classement.getScore() + 3 );
-            classement.setVictoires(classement.getVictoires() +1);
-        }
-        else if (score2 == score1) {
-            classement.setScore(classement.getScore() +1 );
-            classement.setEgalites(classement.getEgalites() + 1);
-        } else {
-            classement.setDefaites(classement.getDefaites() + 1);
-        }
-        classementRepository.save(classement);
+    /**
+     * Reporte sur le classement en mémoire les statistiques ajoutées en base.
+     */
+    static void appliquer(Classement classement, ClassementStatsRepository.Increment increment) {
+        classement.setPoint_marque(classement.getPoint_marque() + increment.marques());
+        classement.setPoint_encaisse(classement.getPoint_encaisse() + increment.encaisses());
+        classement.setDifference_points(classement.getPoint_marque() - classement.getPoint_encaisse());
+        classement.setVictoires(classement.getVictoires() + increment.victoires());
+        classement.setEgalites(classement.getEgalites() + increment.egalites());
+        classement.setDefaites(classement.getDefaites() + increment.defaites());
+        classement.setScore(classement.getScore() + increment.score());
     }
 
 
     /**
-     * Trie les classements d'une compétition par rang et réaffecte les rangs séquentiels.
+     * Renvoie les classements d'une compétition triés, avec leurs rangs (1..N).
      *
-     * <p>La méthode récupère la liste des {@link Classement} ordonnée par rang pour la compétition,
-     * met à jour le champ de rang (1..N) en fonction de l'ordre courant, persiste les modifications
-     * et renvoie la liste mise à jour.</p>
+     * <p>Le classement vient de la mémoire ; il n'est relu en base qu'à la première lecture ou après expiration,
+     * et seuls les rangs qui ont changé sont alors enregistrés.</p>
      *
      * @param idCompetition l'identifiant de la compétition dont on veut trier les classements
      * @return la liste des {@link Classement} triés et avec rangs recalculés
      */
     public List<Classement> triClassement(Long idCompetition) {
-        List<Classement> classements = classementRepository.findAllByCompetitionIdOrderByRank(idCompetition);
-        for(int i=0; i<classements.size(); i++) {
-            classements.get(i).setRang(i+1);
-        }
+        return triClassement(idCompetition, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Renvoie les {@code k} premiers du classement d'une compétition, en O(k).
+     *
+     * @param idCompetition l'identifiant de la compétition
+     * @param k             nombre d'équipes voulues
+     * @return les {@code k} premiers {@link Classement}, dans l'ordre
+     */
+    public List<Classement> triClassement(Long idCompetition, int k) {
+        return leaderboard(idCompetition).premiers(k);
+    }
 
-        classementRepository.saveAll(classements);
+    private ClassementLeaderboard leaderboard(Long idCompetition) {
+        long maintenant = System.currentTimeMillis();
+        ClassementLeaderboard leaderboard = leaderboards.get(idCompetition);
+        if (leaderboard != null && maintenant - leaderboard.chargeLe() < dureeCacheMs) return leaderboard;
 
-        return classements;
+        leaderboard = new ClassementLeaderboard(classementRepository.findAllByCompetitionIdOrderByRank(idCompetition), maintenant);
+        enregistrerRangs(leaderboard.reclasser());
+        leaderboards.put(idCompetition, leaderboard);
+        return leaderboard;
+    }
+
+    /**
+     * Écrit le rang des lignes dont il a changé, par une mise à jour ciblée qui ne touche pas aux statistiques.
+     */
+    private void enregistrerRangs(Collection<Classement> modifies) {
+        for (Classement classement : modifies) {
+            classementRepository.updateRang(classement.getIdClassement().getIdCompetition(),
+                    classement.getIdClassement().getIdEquipe(), classement.getRang());
+        }
     }
 
 
@@ -0,0 +1,142 @@
+package org.ultimateam.apiultimate.service;
+
+import java.util.Arrays;
+
+/**
+ * Couplage maximum dans un graphe quelconque (algorithme d'Edmonds, "blossom").
+ *
+ * Utilisé par le placement {@code SLOT_PACKING} du planificateur : pour un créneau donné, les sommets sont
+ * les équipes libres et chaque arête une rencontre encore à jouer entre deux d'entre elles. Un couplage est
+ * un ensemble de rencontres deux à deux compatibles (aucune équipe commune) ; on cherche le plus grand,
+ * dans la limite du nombre de terrains libres.
+ *
+ * Le couplage initial (glouton, dans l'ordre de priorité des rencontres) est fourni par l'appelant et n'est
+ * complété que par des chemins augmentants : les rencontres prioritaires restent donc privilégiées et, en
+ * pratique, très peu d'augmentations sont nécessaires.
+ *
+ * Une instance réutilise ses tableaux de travail d'un créneau à l'autre ; elle n'est pas thread-safe.
+ */
+class CompatiblePairMatcher {
+
+    private int[] match = new int[0];
+    private int[] parent = new int[0];
+    private int[] base = new int[0];
+    private int[] queue = new int[0];
+    private boolean[] used = new boolean[0];
+    private boolean[] blossom = new boolean[0];
+    private boolean[] lcaMark = new boolean[0];
+    private int[][] adj;
+    private int size;
+
+    /**
+     * Complète un couplage jusqu'à atteindre {@code limit} arêtes ou le maximum possible.
+     *
+     * @param adj     listes d'adjacence des sommets 0..n-1
+     * @param mate    couplage initial ({@code mate[v]} = sommet apparié ou -1) ; modifié en place
+     * @param matched nombre d'arêtes du couplage initial
+     * @param limit   nombre d'arêtes au-delà duquel il est inutile de chercher
+     * @return nombre d'arêtes du couplage final
+     */
+    int augment(int[][] adj, int[] mate, int matched, int limit) {
+        int n = adj.length;
+        ensureCapacity(n);
+        this.adj = adj;
+        this.size = n;
+        System.arraycopy(mate, 0, match, 0, n);
+
+        for (int root = 0; root < n && matched < limit; root++) {
+            if (match[root] != -1 || adj[root].length == 0) continue;
+            int v = findPath(root);
+            if (v == -1) continue;
+            // Inversion du chemin augmentant
+            while (v != -1) {
+                int pv = parent[v];
+                int ppv = match[pv];
+                match[v] = pv;
+                match[pv] = v;
+                v = ppv;
+            }
+            matched++;
+        }
+
+        System.arraycopy(match, 0, mate, 0, n);
+        this.adj = null;
+        return matched;
+    }
+
+    private void ensureCapacity(int n) {
+        if (match.length >= n) return;
+        match = new int[n];
+        parent = new int[n];
+        base = new int[n];
+        queue = new int[n];
+        used = new boolean[n];
+        blossom = new boolean[n];
+        lcaMark = new boolean[n];
+    }
+
+    private int findPath(int root) {
+        Arrays.fill(used, 0, size, false);
+        Arrays.fill(parent, 0, size, -1);
+        for (int i = 0; i < size; i++) base[i] = i;
+
+        used[root] = true;
+        int head = 0, tail = 0;
+        queue[tail++] = root;
+
+        while (head < tail) {
+            int v = queue[head++];
+            for (int to : adj[v]) {
+                if (base[v] == base[to] || match[v] == to) continue;
+                if (to == root || (match[to] != -1 && parent[match[to]] != -1)) {
+                    // Cycle impair : contraction de la fleur
+                    int curBase = lca(v, to);
+                    Arrays.fill(blossom, 0, size, false);
+                    markPath(v, curBase, to);
+                    markPath(to, curBase, v);
+                    for (int i = 0; i < size; i++) {
+                        if (blossom[base[i]]) {
+                            base[i] = curBase;
+                            if (!used[i]) {
+                                used[i] = true;
+                                queue[tail++] = i;
+                            }
+                        }
+                    }
+                } else if (parent[to] == -1) {
+                    parent[to] = v;
+                    if (match[to] == -1) return to;
+                    int next = match[to];
+                    used[next] = true;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int lca(int a, int b) {
+        Arrays.fill(lcaMark, 0, size, false);
+        while (true) {
+            a = base[a];
+            lcaMark[a] = true;
+            if (match[a] == -1) break;
+            a = parent[match[a]];
+        }
+        while (true) {
+            b = base[b];
+            if (lcaMark[b]) return b;
+            b = parent[match[b]];
+        }
+    }
+
+    private void markPath(int v, int b, int child) {
+        while (base[v] != b) {
+            blossom[base[v]] = true;
+            blossom[base[match[v]]] = true;
+            parent[v] = child;
+            child = match[v];
+            v = parent[match[v]];
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package org.ultimateam.apiultimate.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springdoc.core.properties.SwaggerUiConfigProperties;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.ultimateam.apiultimate.DTO.FaisabiliteDTO;
+import org.ultimateam.apiultimate.DTO.MatchEventDTO;
+import org.ultimateam.apiultimate.DTO.PreviewMatchDTO;
+import org.ultimateam.apiultimate.DTO.PreviewResumeDTO;
 import org.ultimateam.apiultimate.DTO.ScheduleResult;
 import org.ultimateam.apiultimate.model.*;
 import org.ultimateam.apiultimate.repository.*;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Year;
@@ -36,6 +48,13 @@ public class CompetitionService {
     private final TerrainService terrainService;
     private final IndisponibiliteTerrainRepository indisponibiliteTerrainRepository;
     private final IndisponibiliteTerrainService indisponibiliteTerrainService;
+    private final ObjectMapper objectMapper;
+    private final FeasibilityEstimatorService feasibilityEstimator;
+    private final BracketService bracketService;
+    private final SwissSystemService swissSystemService;
+    private final LiveMatchRegistry liveMatchRegistry;
+    private final CompetitionStreamService competitionStreamService;
+    private final ClassementService classementService;
 
     /**
      * Constructeur pour l'injection de toutes les dépendances nécessaires à la gestion des compétitions.
@@ -49,7 +68,11 @@ public class CompetitionService {
             IndisponibiliteRepository indisponibiliteRepository,
             ClassementRepository classementRepository,
             TerrainService terrainService,
-            IndisponibiliteTerrainRepository indisponibiliteTerrainRepository, IndisponibiliteTerrainService indisponibiliteTerrainService) {
+            IndisponibiliteTerrainRepository indisponibiliteTerrainRepository, IndisponibiliteTerrainService indisponibiliteTerrainService,
+            ObjectMapper objectMapper, FeasibilityEstimatorService feasibilityEstimator, BracketService bracketService,
+            SwissSystemService swissSystemService,
+            LiveMatchRegistry liveMatchRegistry, CompetitionStreamService competitionStreamService,
+            ClassementService classementService) {
 
         this.competitionRepository = competitionRepository;
         this.matchRepository = matchRepository;
@@ -61,6 +84,13 @@ public class CompetitionService {
         this.terrainService = terrainService;
         this.indisponibiliteTerrainRepository = indisponibiliteTerrainRepository;
         this.indisponibiliteTerrainService = indisponibiliteTerrainService;
+        this.objectMapper = objectMapper;
+        this.feasibilityEstimator = feasibilityEstimator;
+        this.bracketService = bracketService;
+        this.swissSystemService = swissSystemService;
+        this.liveMatchRegistry = liveMatchRegistry;
+        this.competitionStreamService = competitionStreamService;
+        this.classementService = classementService;
     }
 
     /**
@@ -112,7 +142,9 @@ public class CompetitionService {
      * 1. Le nettoyage des anciens matchs et indisponibilités.
      * 2. La collecte des équipes participantes et de leurs contraintes.
      * 3. L'initialisation du classement.
-     * 4. L'appel au {@link RoundRobinSchedulerService} selon le type (Tournoi/Championnat).
+     * 4. L'appel au {@link RoundRobinSchedulerService} selon le type (Tournoi/Championnat), ou à
+     *    {@link BracketService} pour un tournoi à élimination (premier tour ou poules uniquement), ou à
+     *    {@link SwissSystemService} pour un championnat en système suisse (première ronde uniquement).
      * 5. La persistence des matchs et des nouvelles indisponibilités générées.</p>
      *
      * @param idCompetition identifiant de la compétition à générer
@@ -128,41 +160,29 @@ public class CompetitionService {
 
         nettoyerMatchsEtIndispos(idCompetition);
 
-        List<Terrain> terrains = competition.getTerrains()
-                .stream()
-                .map(t -> terrainService.getById(t.getIdTerrain()))
-                .toList();
-        if (terrains.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Impossible de générer la compétition : aucun terrain trouvé");
-        }
+        DonneesGeneration donnees = collecterDonneesGeneration(competition);
 
-        List<Participation> participations = participationRepository.findById_idCompetition(idCompetition);
-        List<Equipe> equipes = new ArrayList<>();
-        List<Indisponibilite> indispo = new ArrayList<>();
-
-        for (Participation participation : participations) {
-            Equipe equipe = equipeService.getById(participation.getId().getIdEquipe());
-            equipes.add(equipe);
-            indispo.addAll(equipeService.getIndisponibilites(equipe.getIdEquipe()));
-            Classement classement = new Classement(participation.getId());
+        // participations() et equipes() sont alignées : une équipe par participation
+        for (int i = 0; i < donnees.participations().size(); i++) {
+            Classement classement = new Classement(donnees.participations().get(i).getId());
             classement.setCompetition(competition);
-            classement.setEquipe(equipe);
+            classement.setEquipe(donnees.equipes().get(i));
             classementRepository.save(classement);
-
         }
+        classementService.invalider(idCompetition);
 
-        List<IndisponibiliteTerrain> indispoTerrains = indisponibiliteTerrainRepository.findAll();
-
-        ScheduleResult scheduleResult;
-        if (Objects.equals(competition.getTypeCompetition(), "Tournoi")) {
-            scheduleResult = scheduler.generateSchedule(equipes, terrains, competition.getDateDebut(), competition.getDateFin(), true, indispo, indispoTerrains);
+        // Tournoi à élimination : seuls les premiers matchs sont créés, la suite au fil des résultats
+        if (BracketService.estTableau(competition)) {
+            return bracketService.genererTableau((Tournoi) competition);
         }
-        else if (Objects.equals(competition.getTypeCompetition(), "Championnat")){
-            scheduleResult = scheduler.generateSchedule(equipes, terrains, competition.getDateDebut(), competition.getDateFin(), false, indispo, indispoTerrains);
-        }
-        else{
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "pas une competition valide");
+        // Championnat en système suisse : seule la première ronde est créée, les suivantes au fil des résultats
+        if (SwissSystemService.estSuisse(competition)) {
+            return swissSystemService.genererPremiereRonde((Championnat) competition);
         }
+
+        ScheduleResult scheduleResult = scheduler.generateSchedule(donnees.equipes(), donnees.terrains(),
+                competition.getDateDebut(), competition.getDateFin(), donnees.homeAndAway(),
+                donnees.indisponibilites(), donnees.indisponibilitesTerrains());
         List<Match> matchs = scheduleResult.getMatchs();
         for (Match match : matchs) {
             if (match.getTerrain() == null) {
@@ -178,12 +198,193 @@ public class CompetitionService {
 
         matchRepository.saveAll(matchs);
         indisponibiliteRepository.saveAll(indisponibilites);
-        indisponibiliteTerrainRepository.saveAll(indispoTerrains);
+        indisponibiliteTerrainRepository.saveAll(scheduleResult.getIndisponibiliteTerrains());
 
 
         return matchs;
     }
 
+    /**
+     * Données d'entrée du planificateur pour une compétition.
+     */
+    private record DonneesGeneration(
+            List<Participation> participations,
+            List<Equipe> equipes,
+            List<Terrain> terrains,
+            List<Indisponibilite> indisponibilites,
+            List<IndisponibiliteTerrain> indisponibilitesTerrains,
+            boolean homeAndAway
+    ) {}
+
+    /**
+     * Rassemble, sans rien modifier en base, les équipes, terrains et indisponibilités d'une compétition.
+     *
+     * Les indisponibilités générées par les matchs déjà planifiés de cette compétition sont écartées :
+     * elles disparaîtraient lors d'une régénération.
+     *
+     * @throws ResponseStatusException si la compétition n'a pas de terrain ou si son type est invalide
+     */
+    private DonneesGeneration collecterDonneesGeneration(Competition competition) {
+        Long idCompetition = competition.getIdCompetition();
+
+        List<Terrain> terrains = competition.getTerrains()
+                .stream()
+                .map(t -> terrainService.getById(t.getIdTerrain()))
+                .toList();
+        if (terrains.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Impossible de générer la compétition : aucun terrain trouvé");
+        }
+
+        boolean homeAndAway;
+        if (Objects.equals(competition.getTypeCompetition(), "Tournoi")) {
+            homeAndAway = true;
+        }
+        else if (Objects.equals(competition.getTypeCompetition(), "Championnat")){
+            homeAndAway = false;
+        }
+        else{
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "pas une competition valide");
+        }
+
+        List<Participation> participations = participationRepository.findById_idCompetition(idCompetition);
+        List<Equipe> equipes = new ArrayList<>();
+        List<Indisponibilite> indispo = new ArrayList<>();
+
+        for (Participation participation : participations) {
+            Equipe equipe = equipeService.getById(participation.getId().getIdEquipe());
+            equipes.add(equipe);
+            for (Indisponibilite ind : equipeService.getIndisponibilites(equipe.getIdEquipe())) {
+                if (!appartientA(ind.getMatch(), idCompetition)) indispo.add(ind);
+            }
+        }
+
+        List<IndisponibiliteTerrain> indispoTerrains = indisponibiliteTerrainRepository.findAll().stream()
+                .filter(ind -> !appartientA(ind.getMatch(), idCompetition))
+                .toList();
+
+        return new DonneesGeneration(participations, equipes, terrains, indispo, indispoTerrains, homeAndAway);
+    }
+
+    private static boolean appartientA(Match match, Long idCompetition) {
+        return match != null && match.getIdCompetition() != null
+                && Objects.equals(match.getIdCompetition().getIdCompetition(), idCompetition);
+    }
+
+    /**
+     * Prévisualise le calendrier d'une compétition sans rien enregistrer.
+     *
+     * Les vérifications et la collecte des données sont faites immédiatement (les erreurs sont donc renvoyées
+     * avec leur statut HTTP), puis la génération s'exécute pendant l'écriture de la réponse : chaque match est
+     * écrit sur une ligne JSON dès qu'il est placé ({@link PreviewMatchDTO}), et la dernière ligne donne le bilan
+     * avec les rencontres restées sans créneau ({@link PreviewResumeDTO}). Aucun match, classement ni
+     * indisponibilité n'est persisté.
+     *
+     * @param idCompetition identifiant de la compétition à prévisualiser
+     * @return le corps de réponse NDJSON
+     * @throws ResponseStatusException si la compétition n'existe pas, n'est pas un round robin, n'a pas de terrain,
+     *                                 a moins de 2 équipes, une période trop courte, ou si le type est invalide
+     */
+    public StreamingResponseBody previsualiserCompetition(Long idCompetition) {
+        Competition competition = getCompetitionById(idCompetition);
+        if (competition == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Compétition n'existe pas");
+        }
+        // Les tours suivants d'un tableau ou d'un système suisse dépendent des résultats : seul un round robin
+        // se prévisualise
+        if (BracketService.estTableau(competition) || SwissSystemService.estSuisse(competition)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "La prévisualisation n'est disponible que pour les compétitions en round robin.");
+        }
+        DonneesGeneration donnees = collecterDonneesGeneration(competition);
+        // Avant l'envoi des en-têtes : une fois le flux commencé, l'erreur ne peut plus changer le statut HTTP
+        RoundRobinSchedulerService.verifierPeriode(donnees.equipes().size(), donnees.terrains().size(),
+                competition.getDateDebut(), competition.getDateFin(), donnees.homeAndAway());
+
+        return out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            ScheduleResult result = scheduler.generateSchedule(donnees.equipes(), donnees.terrains(),
+                    competition.getDateDebut(), competition.getDateFin(), donnees.homeAndAway(),
+                    donnees.indisponibilites(), donnees.indisponibilitesTerrains(),
+                    match -> ecrireLigne(writer, PreviewMatchDTO.of(match)));
+
+            List<PreviewResumeDTO.PaireNonPlacee> nonPlaces = RoundRobinSchedulerService
+                    .findUnplacedPairs(donnees.equipes(), donnees.homeAndAway(), result.getMatchs())
+                    .stream()
+                    .map(p -> new PreviewResumeDTO.PaireNonPlacee(p.getLeft().getIdEquipe(), p.getLeft().getNomEquipe(),
+                            p.getRight().getIdEquipe(), p.getRight().getNomEquipe()))
+                    .toList();
+            ecrireLigne(writer, new PreviewResumeDTO(result.getMatchs().size(), nonPlaces));
+        };
+    }
+
+    /**
+     * Abonne un spectateur au tableau des scores en direct d'une compétition. L'état initial contient tous les
+     * matchs en cours ou en pause, avec les scores du {@link LiveMatchRegistry} lorsqu'ils y sont.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @return le flux SSE du spectateur
+     * @throws ResponseStatusException si la compétition n'existe pas
+     */
+    public SseEmitter suivreCompetition(Long idCompetition) {
+        if (getCompetitionById(idCompetition) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Compétition n'existe pas");
+        }
+        // Lu après l'abonnement : une modification concurrente part avec l'envoi groupé suivant
+        return competitionStreamService.abonner(idCompetition, () -> matchRepository.findByIdCompetition_IdCompetition(idCompetition).stream()
+                .filter(m -> m.getStatus() == Match.Status.ONGOING || m.getStatus() == Match.Status.PAUSED)
+                .map(m -> {
+                    Match live = liveMatchRegistry.enCours(m.getIdMatch());
+                    return MatchEventDTO.etat("etat", live != null ? live : m);
+                })
+                .toList());
+    }
+
+    /**
+     * Estime si la compétition peut être planifiée sur sa période, sans lancer la génération.
+     *
+     * Les données utilisées sont celles de {@link #genererCompetition(Long)} (équipes inscrites, terrains,
+     * indisponibilités hors matchs de cette compétition), et le nombre de matchs dépend du format de la même façon ;
+     * rien n'est persisté.
+     *
+     * @param idCompetition identifiant de la compétition
+     * @return les bornes de capacité : faisabilité, date de fin et nombre de terrains minimaux, équipes limitantes
+     * @throws ResponseStatusException si la compétition n'existe pas, n'a pas de terrain, ou si le type est invalide
+     */
+    public FaisabiliteDTO estimerFaisabilite(Long idCompetition) {
+        Competition competition = getCompetitionById(idCompetition);
+        if (competition == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Compétition n'existe pas");
+        }
+        DonneesGeneration donnees = collecterDonneesGeneration(competition);
+        return feasibilityEstimator.estimer(donnees.equipes(), donnees.terrains(),
+                competition.getDateDebut(), competition.getDateFin(), charge(competition, donnees),
+                donnees.indisponibilites(), donnees.indisponibilitesTerrains());
+    }
+
+    /**
+     * Matchs à placer selon le format, comme {@link #genererCompetition(Long)} : tout le tableau pour un tournoi
+     * à élimination, toutes les rondes d'un système suisse, sinon toutes les rencontres du round robin.
+     */
+    private static FeasibilityEstimatorService.Charge charge(Competition competition, DonneesGeneration donnees) {
+        int nbEquipes = donnees.equipes().size();
+        if (BracketService.estTableau(competition)) return BracketService.charge((Tournoi) competition, nbEquipes);
+        if (SwissSystemService.estSuisse(competition)) return SwissSystemService.charge((Championnat) competition, nbEquipes);
+        return FeasibilityEstimatorService.Charge.roundRobin(nbEquipes, donnees.homeAndAway());
+    }
+
+    /**
+     * Écrit un objet sur une ligne NDJSON et l'envoie immédiatement au client.
+     */
+    private void ecrireLigne(Writer writer, Object ligne) {
+        try {
+            writer.write(objectMapper.writeValueAsString(ligne));
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Récupère tous les matchs d'une compétition triés par date ascendante.
      *
@@ -0,0 +1,261 @@
+package org.ultimateam.apiultimate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.ultimateam.apiultimate.DTO.MatchEventDTO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Tableau des scores en direct d'une compétition, diffusé en Server-Sent Events à tous ses spectateurs.
+ *
+ * Les évènements des matchs ({@link MatchService}) ne sont pas relayés un par un : pour chaque compétition suivie,
+ * seul le dernier état de chaque match est retenu, et un envoi groupé a lieu au plus toutes les
+ * {@code app.live.scoreboard-tick-ms} millisecondes (évènement {@code scores}, tableau JSON des matchs modifiés).
+ * Le JSON est produit une seule fois par compétition et par envoi, puis écrit tel quel sur chaque connexion :
+ * le coût d'un envoi ne dépend que du nombre de matchs modifiés, pas du nombre de spectateurs.
+ *
+ * Chaque spectateur a sa file d'envois bornée ({@code app.live.scoreboard-queue}), vidée par un thread virtuel :
+ * le thread de diffusion ne fait que déposer le JSON dans les files et n'attend jamais une connexion. Un spectateur
+ * dont la file est pleine ne suit plus le rythme : il est déconnecté, et son navigateur ({@code EventSource}) se
+ * reconnecte avec un état complet.
+ *
+ * À l'abonnement, le client reçoit l'état de tous les matchs en cours (évènement {@code etat}).
+ * Rien n'est retenu pour une compétition sans spectateur.
+ */
+@Slf4j
+@Service
+public class CompetitionStreamService {
+
+    private final ObjectMapper objectMapper;
+
+    /** Intervalle minimal entre deux envois d'une même compétition ({@code app.live.scoreboard-tick-ms}). */
+    @Value("${app.live.scoreboard-tick-ms:250}")
+    private long tickMs = 250;
+
+    /** Durée de vie d'une connexion SSE ({@code app.live.sse-timeout-ms}). */
+    @Value("${app.live.sse-timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    /** Envois en attente au-delà desquels un spectateur est déconnecté ({@code app.live.scoreboard-queue}). */
+    @Value("${app.live.scoreboard-queue:8}")
+    private int capaciteFile = 8;
+
+    private final Map<Long, List<Spectateur>> abonnes = new ConcurrentHashMap<>();
+    private final Executor envoi;
+
+    /**
+     * Dernier état de chaque match modifié depuis l'envoi précédent, par compétition. Les tables internes ne sont
+     * modifiées que dans {@link ConcurrentHashMap#compute} et lues après leur retrait : un état publié pendant un
+     * envoi part avec l'envoi suivant, jamais perdu.
+     */
+    private final Map<Long, Map<Long, MatchEventDTO>> enAttente = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService diffuseur;
+
+    /**
+     * Constructeur pour l'injection des dépendances : un thread virtuel par envoi.
+     */
+    public CompetitionStreamService(ObjectMapper objectMapper) {
+        this(objectMapper, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    CompetitionStreamService(ObjectMapper objectMapper, Executor envoi) {
+        this.objectMapper = objectMapper;
+        this.envoi = envoi;
+    }
+
+    /**
+     * Connexion d'un spectateur et ses envois en attente, écrits dans l'ordre, un seul à la fois.
+     */
+    private final class Spectateur {
+        private final long idCompetition;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> file;
+        private final AtomicBoolean envoiEnCours = new AtomicBoolean();
+
+        Spectateur(long idCompetition, SseEmitter emitter) {
+            this.idCompetition = idCompetition;
+            this.emitter = emitter;
+            this.file = new ArrayBlockingQueue<>(capaciteFile);
+        }
+
+        /**
+         * Ajoute un envoi à la file ; une file pleine déconnecte le spectateur.
+         */
+        void proposer(String nom, String json) {
+            if (!file.offer(SseEmitter.event().name(nom).data(json, MediaType.APPLICATION_JSON))) {
+                log.info("Spectateur de la compétition {} trop lent : déconnecté", idCompetition);
+                retirer(this);
+                // Hors du thread de diffusion : la fermeture attend la fin d'un envoi bloqué
+                envoi.execute(emitter::complete);
+                return;
+            }
+            if (envoiEnCours.compareAndSet(false, true)) envoi.execute(this::vider);
+        }
+
+        private void vider() {
+            try {
+                SseEmitter.SseEventBuilder evenement;
+                while ((evenement = file.poll()) != null) {
+                    if (!envoyer(this, evenement)) return;
+                }
+            } finally {
+                envoiEnCours.set(false);
+            }
+            // Envoi déposé entre la dernière lecture et la libération
+            if (!file.isEmpty() && envoiEnCours.compareAndSet(false, true)) envoi.execute(this::vider);
+        }
+    }
+
+    /**
+     * Lance l'envoi périodique.
+     */
+    @PostConstruct
+    void demarrer() {
+        diffuseur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "competition-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        diffuseur.scheduleWithFixedDelay(this::diffuserSafe, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abonne un spectateur au tableau des scores d'une compétition.
+     *
+     * Le spectateur est enregistré avant la lecture de l'état initial : un match modifié pendant cette lecture
+     * part avec l'envoi groupé suivant au lieu d'être perdu.
+     *
+     * @param idCompetition compétition suivie
+     * @param enCours       lecture de l'état des matchs en cours, envoyé immédiatement
+     * @return le flux SSE du spectateur
+     */
+    public SseEmitter abonner(long idCompetition, Supplier<List<MatchEventDTO>> enCours) {
+        Spectateur spectateur = new Spectateur(idCompetition, nouvelEmetteur());
+        abonnes.compute(idCompetition, (id, spectateurs) -> {
+            if (spectateurs == null) spectateurs = new CopyOnWriteArrayList<>();
+            spectateurs.add(spectateur);
+            return spectateurs;
+        });
+
+        Runnable retirer = () -> retirer(spectateur);
+        spectateur.emitter.onCompletion(retirer);
+        spectateur.emitter.onTimeout(retirer);
+        spectateur.emitter.onError(e -> retirer.run());
+
+        spectateur.proposer("etat", serialiser(enCours.get()));
+        return spectateur.emitter;
+    }
+
+    SseEmitter nouvelEmetteur() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /**
+     * Retient le dernier état d'un match pour le prochain envoi de sa compétition.
+     * Sans effet pour un match hors compétition ou une compétition sans spectateur.
+     *
+     * @param evenement état du match
+     */
+    public void publier(MatchEventDTO evenement) {
+        Long idCompetition = evenement.idCompetition();
+        if (idCompetition == null || !abonnes.containsKey(idCompetition)) return;
+        enAttente.compute(idCompetition, (id, etats) -> {
+            if (etats == null) etats = new HashMap<>();
+            etats.put(evenement.idMatch(), evenement);
+            return etats;
+        });
+    }
+
+    /**
+     * Dépose dans la file de chaque spectateur les états retenus depuis l'envoi précédent.
+     */
+    void diffuser() {
+        for (Long idCompetition : new ArrayList<>(enAttente.keySet())) {
+            Map<Long, MatchEventDTO> etats = enAttente.remove(idCompetition);
+            List<Spectateur> spectateurs = abonnes.get(idCompetition);
+            if (etats == null || etats.isEmpty() || spectateurs == null) continue;
+
+            List<MatchEventDTO> lot = new ArrayList<>(etats.values());
+            lot.sort(Comparator.comparing(MatchEventDTO::idMatch));
+            String json = serialiser(lot);
+            for (Spectateur spectateur : spectateurs) spectateur.proposer("scores", json);
+        }
+    }
+
+    private void diffuserSafe() {
+        try {
+            diffuser();
+        } catch (RuntimeException e) {
+            log.error("Échec de la diffusion du tableau des scores", e);
+        }
+    }
+
+    /**
+     * @return nombre de spectateurs de la compétition
+     */
+    public int nbAbonnes(long idCompetition) {
+        List<Spectateur> spectateurs = abonnes.get(idCompetition);
+        return spectateurs == null ? 0 : spectateurs.size();
+    }
+
+    private String serialiser(List<MatchEventDTO> etats) {
+        try {
+            return objectMapper.writeValueAsString(etats);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return faux si le spectateur est parti (ou son flux déjà terminé) : il est alors oublié
+     */
+    private boolean envoyer(Spectateur spectateur, SseEmitter.SseEventBuilder evenement) {
+        try {
+            spectateur.emitter.send(evenement);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            retirer(spectateur);
+            return false;
+        }
+    }
+
+    private void retirer(Spectateur spectateur) {
+        abonnes.computeIfPresent(spectateur.idCompetition, (id, spectateurs) -> {
+            spectateurs.remove(spectateur);
+            return spectateurs.isEmpty() ? null : spectateurs;
+        });
+    }
+
+    /**
+     * Arrête l'envoi périodique et ferme tous les flux.
+     */
+    @PreDestroy
+    void arreter() {
+        if (diffuseur != null) diffuseur.shutdown();
+        if (envoi instanceof ExecutorService service) service.shutdown();
+        abonnes.values().forEach(spectateurs -> spectateurs.forEach(s -> s.emitter.complete()));
+        abonnes.clear();
+    }
+}
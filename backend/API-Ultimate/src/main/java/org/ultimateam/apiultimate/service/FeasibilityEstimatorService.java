@@ -0,0 +1,329 @@
+package org.ultimateam.apiultimate.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.FaisabiliteDTO;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Indisponibilite;
+import org.ultimateam.apiultimate.model.IndisponibiliteTerrain;
+import org.ultimateam.apiultimate.model.Terrain;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Estimation rapide de la faisabilité d'une compétition, sans lancer le planificateur.
+ *
+ * Les disponibilités sont projetées sur la même grille de créneaux que le mode {@code BITSET}
+ * ({@link SlotGrid}), puis trois bornes de capacité sont calculées jour par jour :
+ * <ul>
+ *     <li>par créneau, au plus {@code min(terrains libres, équipes libres / 2)} matchs ;</li>
+ *     <li>par équipe et par jour, au plus le nombre de créneaux libres deux à deux non consécutifs
+ *     (une équipe ne joue jamais deux créneaux qui se touchent) ;</li>
+ *     <li>par journée, au plus la moitié de la somme des capacités des équipes.</li>
+ * </ul>
+ * Ce sont des conditions nécessaires : si l'une échoue, aucun planning complet n'existe ; si toutes passent,
+ * la génération aboutit en général, mais l'ordre du round robin peut encore laisser quelques rencontres non placées.
+ *
+ * La charge à placer dépend du format ({@link Charge}) : toutes les rencontres d'un round robin, ou le nombre de
+ * matchs d'un tableau à élimination ou des rondes d'un système suisse, dont les paires ne sont pas connues d'avance.
+ *
+ * Le coût est linéaire en nombre de créneaux × (équipes + terrains), plus un ET de calendriers par rencontre
+ * pour détecter les paires sans créneau commun.
+ */
+@Service
+public class FeasibilityEstimatorService {
+
+    /** Horizon maximal exploré pour la date de fin minimale (environ dix ans). */
+    private static final int HORIZON_MAX_JOURS = 3660;
+
+    /** Marge ajoutée à l'horizon au-delà de la borne théorique, pour absorber les indisponibilités. */
+    private static final int MARGE_HORIZON_JOURS = 30;
+
+    private final RoundRobinSchedulerService scheduler;
+
+    /**
+     * Matchs à placer pendant la compétition.
+     *
+     * @param matchs          nombre total de matchs
+     * @param matchsParEquipe nombre maximal de matchs d'une même équipe
+     * @param rencontres      nombre de rencontres de chaque paire d'équipes, ou 0 si les paires dépendent
+     *                        des résultats (elles ne sont alors pas vérifiées)
+     */
+    public record Charge(long matchs, long matchsParEquipe, int rencontres) {
+
+        /**
+         * @return la charge d'un round robin entre {@code nbEquipes} équipes
+         */
+        public static Charge roundRobin(int nbEquipes, boolean homeAndAway) {
+            int rencontres = homeAndAway ? 2 : 1;
+            return new Charge((long) nbEquipes * (nbEquipes - 1) / 2 * rencontres, (long) (nbEquipes - 1) * rencontres, rencontres);
+        }
+    }
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public FeasibilityEstimatorService(RoundRobinSchedulerService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Estime la faisabilité d'une compétition round robin sur la période donnée.
+     *
+     * @param equipes                  équipes participantes
+     * @param terrains                 terrains de la compétition
+     * @param startDate                premier jour de la compétition (inclus)
+     * @param endDate                  dernier jour de la compétition (inclus)
+     * @param homeAndAway              vrai pour des rencontres aller-retour
+     * @param indisponibilites         indisponibilités déclarées des équipes
+     * @param indisponibilitesTerrains indisponibilités déclarées des terrains
+     * @return les bornes calculées
+     * @throws ResponseStatusException si moins de 2 équipes ou si la période est vide
+     */
+    public FaisabiliteDTO estimer(
+            List<Equipe> equipes,
+            List<Terrain> terrains,
+            LocalDate startDate,
+            LocalDate endDate,
+            boolean homeAndAway,
+            List<Indisponibilite> indisponibilites,
+            List<IndisponibiliteTerrain> indisponibilitesTerrains
+    ) {
+        return estimer(equipes, terrains, startDate, endDate, Charge.roundRobin(equipes.size(), homeAndAway),
+                indisponibilites, indisponibilitesTerrains);
+    }
+
+    /**
+     * Estime la faisabilité d'une compétition sur la période donnée, pour une charge de matchs quelconque.
+     *
+     * @param equipes                  équipes participantes
+     * @param terrains                 terrains de la compétition
+     * @param startDate                premier jour de la compétition (inclus)
+     * @param endDate                  dernier jour de la compétition (inclus)
+     * @param charge                   matchs à placer
+     * @param indisponibilites         indisponibilités déclarées des équipes
+     * @param indisponibilitesTerrains indisponibilités déclarées des terrains
+     * @return les bornes calculées
+     * @throws ResponseStatusException si moins de 2 équipes ou si la période est vide
+     */
+    public FaisabiliteDTO estimer(
+            List<Equipe> equipes,
+            List<Terrain> terrains,
+            LocalDate startDate,
+            LocalDate endDate,
+            Charge charge,
+            List<Indisponibilite> indisponibilites,
+            List<IndisponibiliteTerrain> indisponibilitesTerrains
+    ) {
+        if (equipes.size() < 2) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Il faut au moins 2 équipes.");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La date de fin précède la date de début.");
+        }
+
+        int n = equipes.size();
+        int nbTerrains = terrains.size();
+        int rencontres = charge.rencontres();
+        long matchsParEquipe = charge.matchsParEquipe();
+        long matchsAJouer = charge.matchs();
+
+        // Une seule grille couvre la compétition puis l'horizon de recherche de la date de fin :
+        // la période de la compétition en est un préfixe.
+        int joursCompetition = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        int slotsParJour = RoundRobinSchedulerService.generateTimeSlots().size();
+        long borneJours = Math.max(
+                nbTerrains == 0 ? 0 : ceilDiv(matchsAJouer, (long) slotsParJour * nbTerrains),
+                ceilDiv(matchsParEquipe, 2));
+        int horizon = (int) Math.min(HORIZON_MAX_JOURS, Math.max(joursCompetition, 2 * borneJours + MARGE_HORIZON_JOURS));
+        horizon = Math.max(horizon, joursCompetition);
+
+        SchedulingContext ctx = SchedulingContext.of(equipes, terrains, startDate, startDate.plusDays(horizon - 1L), rencontres == 2,
+                RoundRobinSchedulerService.generateTimeSlots(), indisponibilites, indisponibilitesTerrains);
+        SlotGrid grid = scheduler.buildSlotGrid(ctx);
+
+        Capacites capacites = Capacites.of(grid);
+        int[] terrainsLibres = new int[grid.slotCount()];
+        for (int t = 0; t < nbTerrains; t++) ajouterTerrain(grid, terrainsLibres, t);
+
+        // Capacité sur la période de la compétition
+        long capacite = capacite(capacites, terrainsLibres, joursCompetition);
+        List<FaisabiliteDTO.EquipeCapacite> limitantes = new ArrayList<>();
+        for (int e = 0; e < n; e++) {
+            long jouables = somme(capacites.equipeJour()[e], joursCompetition);
+            if (jouables < matchsParEquipe) {
+                Equipe equipe = equipes.get(e);
+                limitantes.add(new FaisabiliteDTO.EquipeCapacite(equipe.getIdEquipe(), equipe.getNomEquipe(), matchsParEquipe, jouables));
+            }
+        }
+        long pairesSansCreneau = pairesSansCreneauCommun(grid, n, rencontres, joursCompetition * slotsParJour);
+
+        boolean faisable = capacite >= matchsAJouer && limitantes.isEmpty() && pairesSansCreneau == 0;
+
+        return new FaisabiliteDTO(
+                faisable,
+                matchsAJouer,
+                capacite,
+                dateFinMinimale(capacites, terrainsLibres, startDate, matchsAJouer, matchsParEquipe),
+                terrainsMinimum(grid, capacites, joursCompetition, matchsAJouer, limitantes.isEmpty()),
+                limitantes,
+                pairesSansCreneau
+        );
+    }
+
+    /**
+     * Disponibilités des équipes résumées une fois pour toute la grille.
+     *
+     * @param slotsParJour  nombre de créneaux d'une journée
+     * @param equipesLibres nombre d'équipes libres sur chaque créneau
+     * @param equipeJour    capacité de chaque équipe pour chaque jour ({@code [equipe][jour]})
+     * @param equipesParJour somme des capacités des équipes pour chaque jour
+     */
+    private record Capacites(int slotsParJour, int[] equipesLibres, int[][] equipeJour, long[] equipesParJour) {
+
+        /**
+         * La capacité d'une équipe sur un jour est le nombre maximal de créneaux libres sans deux créneaux qui se
+         * touchent. Le choix glouton du premier créneau compatible est optimal, les créneaux étant triés par heure.
+         */
+        static Capacites of(SlotGrid grid) {
+            int n = grid.equipeCount();
+            int[] equipesLibres = new int[grid.slotCount()];
+            int[][] equipeJour = new int[n][grid.dayCount()];
+            long[] equipesParJour = new long[grid.dayCount()];
+            for (int e = 0; e < n; e++) {
+                for (int jour = 0; jour < grid.dayCount(); jour++) {
+                    int dernierBloque = -1;
+                    int nb = 0;
+                    for (int slot = jour * grid.slotsPerDay(); slot < (jour + 1) * grid.slotsPerDay(); slot++) {
+                        if (!grid.isEquipeFree(e, slot)) continue;
+                        equipesLibres[slot]++;
+                        if (slot > dernierBloque) {
+                            nb++;
+                            dernierBloque = grid.touchTo(slot);
+                        }
+                    }
+                    equipeJour[e][jour] = nb;
+                    equipesParJour[jour] += nb;
+                }
+            }
+            return new Capacites(grid.slotsPerDay(), equipesLibres, equipeJour, equipesParJour);
+        }
+    }
+
+    private static void ajouterTerrain(SlotGrid grid, int[] terrainsLibres, int terrain) {
+        for (int slot = 0; slot < terrainsLibres.length; slot++) {
+            if (grid.isTerrainFree(terrain, slot)) terrainsLibres[slot]++;
+        }
+    }
+
+    /**
+     * Nombre maximal de matchs jouables sur un jour, compte tenu des terrains et des équipes libres.
+     */
+    private static long capaciteJour(Capacites c, int[] terrainsLibres, int jour) {
+        long parCreneaux = 0;
+        for (int slot = jour * c.slotsParJour(); slot < (jour + 1) * c.slotsParJour(); slot++) {
+            parCreneaux += Math.min(terrainsLibres[slot], c.equipesLibres()[slot] / 2);
+        }
+        return Math.min(parCreneaux, c.equipesParJour()[jour] / 2);
+    }
+
+    private static long capacite(Capacites c, int[] terrainsLibres, int nbJours) {
+        long total = 0;
+        for (int jour = 0; jour < nbJours; jour++) total += capaciteJour(c, terrainsLibres, jour);
+        return total;
+    }
+
+    /**
+     * Premier jour à partir duquel la capacité cumulée couvre tous les matchs et chaque équipe peut jouer
+     * tous les siens, ou {@code null} si l'horizon exploré ne suffit pas.
+     */
+    private static LocalDate dateFinMinimale(Capacites c, int[] terrainsLibres,
+                                             LocalDate startDate, long matchsAJouer, long matchsParEquipe) {
+        int n = c.equipeJour().length;
+        long[] cumulEquipes = new long[n];
+        int equipesCouvertes = 0;
+        long cumul = 0;
+        for (int jour = 0; jour < c.equipesParJour().length; jour++) {
+            cumul += capaciteJour(c, terrainsLibres, jour);
+            for (int e = 0; e < n; e++) {
+                long avant = cumulEquipes[e];
+                cumulEquipes[e] += c.equipeJour()[e][jour];
+                if (avant < matchsParEquipe && cumulEquipes[e] >= matchsParEquipe) equipesCouvertes++;
+            }
+            if (cumul >= matchsAJouer && equipesCouvertes == n) return startDate.plusDays(jour);
+        }
+        return null;
+    }
+
+    /**
+     * Plus petit nombre de terrains suffisant sur la période de la compétition. Les terrains inscrits sont
+     * ajoutés du plus disponible au moins disponible, puis, si besoin, des terrains supposés toujours libres,
+     * jusqu'à ce que la capacité ne progresse plus (elle est alors limitée par les équipes).
+     *
+     * @return le nombre de terrains, ou {@code null} si les équipes seules rendent la période insuffisante
+     */
+    private static Integer terrainsMinimum(SlotGrid grid, Capacites c, int nbJours,
+                                           long matchsAJouer, boolean equipesSuffisantes) {
+        if (!equipesSuffisantes) return null;
+
+        int nbSlots = nbJours * grid.slotsPerDay();
+        int[] disponibilites = new int[grid.terrainCount()];
+        for (int t = 0; t < grid.terrainCount(); t++) {
+            for (int slot = 0; slot < nbSlots; slot++) {
+                if (grid.isTerrainFree(t, slot)) disponibilites[t]++;
+            }
+        }
+        int[] ordre = IntStream.range(0, grid.terrainCount()).boxed()
+                .sorted(Comparator.comparingInt(t -> -disponibilites[t]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        int[] terrainsLibres = new int[grid.slotCount()];
+        // Au-delà de n/2 terrains libres sur chaque créneau, un terrain de plus n'apporte plus rien
+        int maxTerrains = grid.terrainCount() + grid.equipeCount() / 2;
+        long precedente = -1;
+        for (int k = 1; k <= maxTerrains; k++) {
+            if (k <= ordre.length) {
+                ajouterTerrain(grid, terrainsLibres, ordre[k - 1]);
+            } else {
+                for (int slot = 0; slot < nbSlots; slot++) terrainsLibres[slot]++;
+            }
+            long capacite = capacite(c, terrainsLibres, nbJours);
+            if (capacite >= matchsAJouer) return k;
+            if (k > ordre.length && capacite == precedente) return null;
+            precedente = capacite;
+        }
+        return null;
+    }
+
+    /**
+     * Nombre de rencontres dont les deux équipes n'ont pas assez de créneaux libres en commun dans la période
+     * (aucune si les paires ne sont pas connues d'avance).
+     */
+    private static long pairesSansCreneauCommun(SlotGrid grid, int n, int rencontres, int nbSlots) {
+        long nb = 0;
+        if (rencontres == 0) return nb;
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                if (grid.commonFreeSlots(a, b, nbSlots) < rencontres) nb++;
+            }
+        }
+        return nb;
+    }
+
+    private static long somme(int[] valeurs, int nbJours) {
+        long total = 0;
+        for (int jour = 0; jour < nbJours; jour++) total += valeurs[jour];
+        return total;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return (a + b - 1) / b;
+    }
+}
@@ -22,16 +22,20 @@ import java.util.List;
 public class IndisponibiliteService {
     public final IndisponibiliteRepository indisponibiliteRepository;
     public final EquipeService equipeService;
+    private final ScheduleRepairService scheduleRepairService;
 
     /**
      * Constructeur pour l'injection des dépendances du service.
      *
      * @param indisponibiliteRepository repository pour accéder aux indisponibilités
      * @param equipeService service pour accéder aux informations des équipes
+     * @param scheduleRepairService service déplaçant les matchs en attente qui entrent en conflit avec une indisponibilité
      */
-    public IndisponibiliteService(IndisponibiliteRepository indisponibiliteRepository, EquipeService equipeService) {
+    public IndisponibiliteService(IndisponibiliteRepository indisponibiliteRepository, EquipeService equipeService,
+                                  ScheduleRepairService scheduleRepairService) {
         this.indisponibiliteRepository = indisponibiliteRepository;
         this.equipeService = equipeService;
+        this.scheduleRepairService = scheduleRepairService;
     }
 
     /**
@@ -107,8 +111,9 @@ public class IndisponibiliteService {
      * Crée une nouvelle indisponibilité à partir d'un DTO et la persiste en base.
      *
      * <p>La méthode valide la présence d'une équipe associée, convertit les dates,
-     * associe l'entité Equipe et sauvegarde l'indisponibilité. Elle renvoie ensuite le DTO
-     * représentant l'entité persistée.</p>
+     * associe l'entité Equipe et sauvegarde l'indisponibilité. Les matchs en attente de l'équipe qui entrent
+     * en conflit avec la nouvelle période sont ensuite déplacés (voir {@link ScheduleRepairService}).
+     * Elle renvoie enfin le DTO représentant l'entité persistée.</p>
      *
      * @param dto DTO contenant les informations de l'indisponibilité à créer
      * @return le {@link IndisponibiliteDTO} de l'entité créée
@@ -126,6 +131,7 @@ public class IndisponibiliteService {
         indispo.setEquipe(equipe);
 
         Indisponibilite saved = indisponibiliteRepository.save(indispo);
+        scheduleRepairService.reparerPourIndisponibilite(saved);
 
         return new IndisponibiliteDTO(
                 saved.getIdIndisponibilite(),
@@ -180,8 +186,9 @@ public class IndisponibiliteService {
      * Met à jour une indisponibilité existante à partir d'un DTO.
      *
      * <p>La méthode récupère l'entité existante, vérifie son existence, met à jour
-     * les dates via {@link #checkDate(IndisponibiliteDTO, Indisponibilite)} et persiste
-     * l'entité mise à jour. Elle renvoie ensuite le DTO correspondant.</p>
+     * les dates via {@link #checkDate(IndisponibiliteDTO, Indisponibilite)}, persiste l'entité mise à jour et
+     * déplace les matchs en attente qui entrent en conflit avec la nouvelle période.
+     * Elle renvoie ensuite le DTO correspondant.</p>
      *
      * @param indisponibiliteDTO DTO contenant les nouvelles valeurs
      * @param indisponibiliteId identifiant de l'indisponibilité à mettre à jour
@@ -196,6 +203,7 @@ public class IndisponibiliteService {
         checkDate(indisponibiliteDTO, indisponibilite);
 
         Indisponibilite saved = save(indisponibilite);
+        scheduleRepairService.reparerPourIndisponibilite(saved);
 
         return new IndisponibiliteDTO(
                 saved.getIdIndisponibilite(),
@@ -14,10 +14,13 @@ public class IndisponibiliteTerrainService {
 
     private final IndisponibiliteTerrainRepository repository;
     private final TerrainService terrainService;
+    private final ScheduleRepairService scheduleRepairService;
 
-    public IndisponibiliteTerrainService(IndisponibiliteTerrainRepository repository, TerrainService terrainService) {
+    public IndisponibiliteTerrainService(IndisponibiliteTerrainRepository repository, TerrainService terrainService,
+                                         ScheduleRepairService scheduleRepairService) {
         this.repository = repository;
         this.terrainService = terrainService;
+        this.scheduleRepairService = scheduleRepairService;
     }
 
     public List<IndisponibiliteTerrain> findAll() {
@@ -46,7 +49,10 @@ public class IndisponibiliteTerrainService {
         }
 
         indispo.setTerrain(terrain);
-        return repository.save(indispo);
+        IndisponibiliteTerrain saved = repository.save(indispo);
+        // Les matchs en attente programmés sur le terrain pendant cette période sont déplacés
+        scheduleRepairService.reparerPourIndisponibiliteTerrain(saved);
+        return saved;
     }
 
     public void deleteById(Long id) {
@@ -0,0 +1,85 @@
+package org.ultimateam.apiultimate.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index d'intervalles de temps utilisé par le planificateur pour tester rapidement
+ * si un créneau chevauche une indisponibilité.
+ *
+ * Les intervalles ajoutés sont fusionnés dès qu'ils se touchent ou se chevauchent :
+ * l'index ne contient donc que des blocs disjoints, triés par date de début dans un {@link TreeMap}.
+ * Une recherche de chevauchement se limite alors au bloc dont le début est immédiatement
+ * inférieur (ou égal) à la fin du créneau testé, soit O(log n).
+ *
+ * Cette classe n'est pas thread-safe : une instance est construite pour une seule génération.
+ */
+class IntervalIndex {
+
+    /**
+     * Blocs disjoints : clé = début, valeur = fin.
+     */
+    private final TreeMap<LocalDateTime, LocalDateTime> blocs = new TreeMap<>();
+
+    /**
+     * Ajoute l'intervalle [debut, fin] à l'index en le fusionnant avec les blocs qu'il touche.
+     *
+     * @param debut début de l'intervalle
+     * @param fin   fin de l'intervalle
+     */
+    void add(LocalDateTime debut, LocalDateTime fin) {
+        if (debut == null || fin == null || fin.isBefore(debut)) return;
+
+        // Fusion avec le bloc précédent s'il touche le nouvel intervalle
+        Map.Entry<LocalDateTime, LocalDateTime> precedent = blocs.floorEntry(debut);
+        if (precedent != null && !precedent.getValue().isBefore(debut)) {
+            debut = precedent.getKey();
+            if (precedent.getValue().isAfter(fin)) fin = precedent.getValue();
+            blocs.remove(precedent.getKey());
+        }
+
+        // Absorption des blocs suivants qui commencent avant la fin du nouvel intervalle
+        Map.Entry<LocalDateTime, LocalDateTime> suivant = blocs.ceilingEntry(debut);
+        while (suivant != null && !suivant.getKey().isAfter(fin)) {
+            if (suivant.getValue().isAfter(fin)) fin = suivant.getValue();
+            blocs.remove(suivant.getKey());
+            suivant = blocs.ceilingEntry(debut);
+        }
+
+        blocs.put(debut, fin);
+    }
+
+    /**
+     * Indique si le créneau [debut, fin] touche ou chevauche un bloc de l'index
+     * (bornes incluses : un bloc qui se termine exactement au début du créneau est considéré comme conflictuel).
+     *
+     * @param debut début du créneau
+     * @param fin   fin du créneau
+     * @return true si un bloc touche le créneau
+     */
+    boolean touches(LocalDateTime debut, LocalDateTime fin) {
+        Map.Entry<LocalDateTime, LocalDateTime> candidat = blocs.floorEntry(fin);
+        return candidat != null && !candidat.getValue().isBefore(debut);
+    }
+
+    /**
+     * Indique si le créneau [debut, fin) chevauche strictement un bloc de l'index
+     * (deux intervalles qui se touchent seulement à une borne ne sont pas en conflit).
+     *
+     * @param debut début du créneau
+     * @param fin   fin du créneau
+     * @return true si un bloc chevauche le créneau
+     */
+    boolean overlaps(LocalDateTime debut, LocalDateTime fin) {
+        Map.Entry<LocalDateTime, LocalDateTime> candidat = blocs.lowerEntry(fin);
+        return candidat != null && candidat.getValue().isAfter(debut);
+    }
+
+    /**
+     * @return nombre de blocs disjoints de l'index
+     */
+    int size() {
+        return blocs.size();
+    }
+}
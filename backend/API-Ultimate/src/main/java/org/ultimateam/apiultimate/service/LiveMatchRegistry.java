@@ -0,0 +1,390 @@
+package org.ultimateam.apiultimate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
+import org.ultimateam.apiultimate.model.ActionMatch;
+import org.ultimateam.apiultimate.model.Joueur;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.repository.ActionMatchRepository;
+import org.ultimateam.apiultimate.repository.JoueurRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Registre en mémoire des matchs en cours (ONGOING ou PAUSED).
+ *
+ * Un match est ouvert au démarrage ({@link MatchService#commencerMatch(long)}) ou, après un redémarrage de
+ * l'application, au premier point marqué ; il est fermé à la fin du match. Pour chaque match ouvert, le registre
+ * garde l'entité {@link Match} (scores, horloge) et les effectifs des deux équipes : un point ou une faute est
+ * validé et appliqué en mémoire, sans lecture en base.
+ *
+ * L'écriture est différée : les {@link ActionMatch} créées et les scores modifiés sont enregistrés par une tâche
+ * de fond toutes les {@code app.live.flush-interval-ms} millisecondes, par lots de {@code app.live.batch-size}
+ * actions. Les scores sont écrits par une requête de mise à jour ciblée, qui ne touche ni au statut ni aux dates
+ * du match. En cas d'échec, les actions restent en file et sont retentées à la tâche suivante.
+ *
+ * Les changements d'état (pause, reprise, fin) restent écrits immédiatement par {@link MatchService}, qui
+ * travaille sur l'entité du registre. Avec {@code app.live.enabled=false}, le registre ne retient aucun match
+ * et {@link MatchService} reste sur le chemin base de données.
+ *
+ * Avec plusieurs nœuds, un match ouvert ici peut être modifié ou terminé ailleurs (échéance prise par un autre
+ * nœud). Les scores ne sont écrits que si le match est encore en cours en base et à la version de la copie
+ * (verrou optimiste, comme une sauvegarde de l'entité) ; sinon, et à chaque vérification
+ * ({@code app.live.verify-interval-ms}) qui trouve le match terminé ou à une version plus récente, la copie
+ * périmée est retirée du registre et le point suivant repasse par la base.
+ */
+@Slf4j
+@Service
+public class LiveMatchRegistry {
+
+    private final MatchRepository matchRepository;
+    private final ActionMatchRepository actionMatchRepository;
+    private final JoueurRepository joueurRepository;
+
+    /** Active le registre ({@code app.live.enabled}). */
+    @Value("${app.live.enabled:true}")
+    private boolean enabled = true;
+
+    /** Intervalle entre deux écritures différées ({@code app.live.flush-interval-ms}). */
+    @Value("${app.live.flush-interval-ms:200}")
+    private long flushIntervalMs = 200;
+
+    /** Nombre maximum d'actions par insertion ({@code app.live.batch-size}). */
+    @Value("${app.live.batch-size:100}")
+    private int batchSize = 100;
+
+    /** Intervalle entre deux vérifications des matchs ouverts en base ({@code app.live.verify-interval-ms}). */
+    @Value("${app.live.verify-interval-ms:1000}")
+    private long verificationMs = 1000;
+
+    /**
+     * Match en cours et effectifs de ses équipes. Toute lecture ou modification se fait sous le verrou de l'instance.
+     */
+    private static final class LiveMatch {
+        private final Match match;
+        private final Map<Long, Joueur> joueursEquipe1;
+        private final Map<Long, Joueur> joueursEquipe2;
+
+        private LiveMatch(Match match, Map<Long, Joueur> joueursEquipe1, Map<Long, Joueur> joueursEquipe2) {
+            this.match = match;
+            this.joueursEquipe1 = joueursEquipe1;
+            this.joueursEquipe2 = joueursEquipe2;
+        }
+    }
+
+    private final Map<Long, LiveMatch> matchs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<ActionMatch> actionsEnAttente = new ConcurrentLinkedDeque<>();
+    private final Set<Long> matchsModifies = ConcurrentHashMap.newKeySet();
+    private final Object verrouFlush = new Object();
+    private ScheduledExecutorService flusher;
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public LiveMatchRegistry(MatchRepository matchRepository,
+                             ActionMatchRepository actionMatchRepository,
+                             JoueurRepository joueurRepository) {
+        this.matchRepository = matchRepository;
+        this.actionMatchRepository = actionMatchRepository;
+        this.joueurRepository = joueurRepository;
+    }
+
+    /**
+     * Lance la tâche d'écriture différée.
+     */
+    @PostConstruct
+    void demarrer() {
+        if (!enabled) return;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "live-match-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafe, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::verifierSafe, verificationMs, verificationMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arrête la tâche d'écriture différée et écrit ce qui reste en attente.
+     */
+    @PreDestroy
+    void arreter() {
+        if (flusher != null) flusher.shutdown();
+        flushSafe();
+    }
+
+    /**
+     * @return l'entité du match s'il est ouvert dans le registre, {@code null} sinon
+     */
+    public Match enCours(long idMatch) {
+        LiveMatch live = matchs.get(idMatch);
+        return live == null ? null : live.match;
+    }
+
+    /**
+     * Ouvre un match dans le registre et charge les effectifs de ses deux équipes.
+     * Sans effet si le registre est désactivé ou si le match est déjà ouvert.
+     *
+     * @param match match qui vient de démarrer
+     */
+    public void ouvrir(Match match) {
+        if (!enabled || match == null || match.getIdMatch() == null || matchs.containsKey(match.getIdMatch())) return;
+        LiveMatch live = new LiveMatch(match, effectif(match.getEquipe1().getIdEquipe()), effectif(match.getEquipe2().getIdEquipe()));
+        matchs.putIfAbsent(match.getIdMatch(), live);
+    }
+
+    private Map<Long, Joueur> effectif(Long idEquipe) {
+        Map<Long, Joueur> joueurs = new HashMap<>();
+        for (Joueur joueur : joueurRepository.findAllByEquipe_IdEquipe(idEquipe)) joueurs.put(joueur.getIdJoueur(), joueur);
+        return joueurs;
+    }
+
+    /**
+     * Ferme un match : écrit ce qui est en attente puis le retire du registre.
+     * Le match lui-même (statut, vainqueur, scores finaux) est enregistré par l'appelant.
+     *
+     * @param idMatch identifiant du match terminé ou supprimé
+     */
+    public void fermer(long idMatch) {
+        if (matchs.remove(idMatch) == null) return;
+        matchsModifies.remove(idMatch);
+        flushSafe();
+    }
+
+    /**
+     * Renvoie le match ouvert, en l'ouvrant depuis la base s'il est en cours mais absent du registre
+     * (redémarrage de l'application).
+     */
+    private LiveMatch charger(long idMatch) {
+        LiveMatch live = matchs.get(idMatch);
+        if (live != null || !enabled) return live;
+
+        Match match = matchRepository.findById(idMatch).orElse(null);
+        if (match == null || (match.getStatus() != Match.Status.ONGOING && match.getStatus() != Match.Status.PAUSED)) return null;
+        ouvrir(match);
+        return matchs.get(idMatch);
+    }
+
+    /**
+     * Ajoute des points à une équipe d'un match ouvert, avec les mêmes règles que
+     * {@link MatchService#ajouterPoint(long, long, org.ultimateam.apiultimate.DTO.MatchPointDTO)}.
+     *
+     * @return le match mis à jour, ou {@code null} si le match n'est pas dans le registre
+     * (l'appelant passe alors par la base)
+     * @throws ResponseStatusException si le match n'est pas en jeu, si l'équipe ou le joueur n'en fait pas partie,
+     * ou si le nombre de points est invalide
+     */
+    public Match ajouterPoint(long idMatch, long idEquipe, long idJoueur, long points) {
+        LiveMatch live = charger(idMatch);
+        if (live == null) return null;
+
+        synchronized (live) {
+            if (matchs.get(idMatch) != live) return null;
+            Match match = live.match;
+            verifierEnJeu(match);
+            if (points == 0) throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible d'ajouter 0 point");
+            Joueur joueur = joueur(live, idEquipe, idJoueur);
+
+            if (Objects.equals(idEquipe, match.getEquipe1().getIdEquipe())) {
+                if (match.getScoreEquipe1() + points <= 0)
+                    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible de mettre des points négatifs");
+                match.setScoreEquipe1(match.getScoreEquipe1() + points);
+            } else {
+                if (match.getScoreEquipe2() + points <= 0)
+                    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible de mettre des points négatifs");
+                match.setScoreEquipe2(match.getScoreEquipe2() + points);
+            }
+            enregistrerAction(match, joueur, ActionTypeDTO.POINT, idEquipe, points);
+            matchsModifies.add(idMatch);
+            return match;
+        }
+    }
+
+    /**
+     * Enregistre une faute d'un joueur dans un match ouvert.
+     *
+     * @return le match, ou {@code null} si le match n'est pas dans le registre
+     * @throws ResponseStatusException si le match n'est pas en jeu ou si l'équipe ou le joueur n'en fait pas partie
+     */
+    public Match ajouterFaute(long idMatch, long idEquipe, long idJoueur) {
+        LiveMatch live = charger(idMatch);
+        if (live == null) return null;
+
+        synchronized (live) {
+            if (matchs.get(idMatch) != live) return null;
+            verifierEnJeu(live.match);
+            enregistrerAction(live.match, joueur(live, idEquipe, idJoueur), ActionTypeDTO.FAUTE, idEquipe, null);
+            return live.match;
+        }
+    }
+
+    /**
+     * Ajoute aux scores d'un match ouvert des points déjà enregistrés en base (lot d'actions saisies hors ligne),
+     * sans nouvelle écriture ; la version suit celle de la base, incrémentée par le lot.
+     *
+     * @return le match mis à jour, ou {@code null} si le match n'est pas dans le registre
+     */
+    public Match ajouterScores(long idMatch, long points1, long points2) {
+        LiveMatch live = matchs.get(idMatch);
+        if (live == null) return null;
+        synchronized (live) {
+            live.match.setScoreEquipe1(live.match.getScoreEquipe1() + points1);
+            live.match.setScoreEquipe2(live.match.getScoreEquipe2() + points2);
+            if ((points1 != 0 || points2 != 0) && live.match.getVersion() != null) live.match.setVersion(live.match.getVersion() + 1);
+            return live.match;
+        }
+    }
+
+    /**
+     * Exécute une écriture d'un match sous le verrou de sa copie en mémoire : l'écriture différée des scores ne
+     * peut pas faire avancer la version entre la lecture de la copie et sa sauvegarde.
+     *
+     * @param idMatch  identifiant du match
+     * @param ecriture écriture à exécuter
+     * @return le résultat de l'écriture
+     */
+    public <T> T sousVerrou(long idMatch, Supplier<T> ecriture) {
+        LiveMatch live = matchs.get(idMatch);
+        if (live == null) return ecriture.get();
+        synchronized (live) {
+            return ecriture.get();
+        }
+    }
+
+    private static void verifierEnJeu(Match match) {
+        if (match.getStatus() != Match.Status.ONGOING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Match n'est pas en jeu");
+    }
+
+    /**
+     * Vérifie que l'équipe joue le match et que le joueur appartient à l'une des deux équipes.
+     */
+    private static Joueur joueur(LiveMatch live, long idEquipe, long idJoueur) {
+        Match match = live.match;
+        if (!Objects.equals(idEquipe, match.getEquipe1().getIdEquipe()) && !Objects.equals(idEquipe, match.getEquipe2().getIdEquipe())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cette équipe ne fait pas partie du match");
+        }
+        Joueur joueur = live.joueursEquipe1.get(idJoueur);
+        if (joueur == null) joueur = live.joueursEquipe2.get(idJoueur);
+        if (joueur == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Le joueur ne fait partie d'aucune des deux équipes de ce match");
+        }
+        return joueur;
+    }
+
+    private void enregistrerAction(Match match, Joueur joueur, ActionTypeDTO type, long idEquipe, Long points) {
+        ActionMatch action = new ActionMatch();
+        action.setMatch(match);
+        action.setJoueur(joueur);
+        action.setType(type);
+        action.setIdEquipe(idEquipe);
+        action.setPoints(points);
+        action.setDateAction(LocalDateTime.now());
+        action.setDatePause(match.getDatePause());
+        actionsEnAttente.addLast(action);
+    }
+
+    /**
+     * Écrit en base les actions en attente (par lots) puis les scores des matchs modifiés.
+     *
+     * @throws RuntimeException si une écriture échoue ; ce qui n'a pas été écrit reste en attente
+     */
+    public void flush() {
+        synchronized (verrouFlush) {
+            List<ActionMatch> lot = new ArrayList<>(batchSize);
+            while (!actionsEnAttente.isEmpty()) {
+                lot.clear();
+                ActionMatch action;
+                while (lot.size() < batchSize && (action = actionsEnAttente.pollFirst()) != null) lot.add(action);
+                try {
+                    actionMatchRepository.saveAll(lot);
+                } catch (RuntimeException e) {
+                    for (int i = lot.size() - 1; i >= 0; i--) actionsEnAttente.addFirst(lot.get(i));
+                    throw e;
+                }
+            }
+
+            for (Long idMatch : new ArrayList<>(matchsModifies)) {
+                matchsModifies.remove(idMatch);
+                LiveMatch live = matchs.get(idMatch);
+                if (live == null) continue; // match fermé : enregistré en entier par MatchService
+                // Sous le verrou du match : la valeur écrite est la plus récente, jamais écrasée par une plus ancienne
+                synchronized (live) {
+                    Long version = live.match.getVersion();
+                    int lignes;
+                    try {
+                        lignes = version == null ? 0
+                                : matchRepository.updateScores(idMatch, version, live.match.getScoreEquipe1(), live.match.getScoreEquipe2());
+                    } catch (RuntimeException e) {
+                        matchsModifies.add(idMatch);
+                        throw e;
+                    }
+                    if (lignes == 0) retirerPerime(idMatch, live);
+                    else live.match.setVersion(version + 1);
+                }
+            }
+        }
+    }
+
+    private void flushSafe() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Échec de l'écriture différée des matchs en cours, nouvel essai au prochain passage", e);
+        }
+    }
+
+    /**
+     * Retire du registre les matchs qui ne sont plus en cours en base (terminés ou supprimés par un autre nœud) ou
+     * dont la base a une version plus récente que la copie (modifiés par un autre nœud). Une version plus ancienne
+     * en base n'est qu'une écriture de ce nœud validée après la lecture.
+     */
+    public void verifier() {
+        List<Long> ouverts = new ArrayList<>(matchs.keySet());
+        if (ouverts.isEmpty()) return;
+        Map<Long, Long> versions = new HashMap<>();
+        for (MatchRepository.VersionEnCours v : matchRepository.findVersionsEnCours(ouverts)) versions.put(v.getIdMatch(), v.getVersion());
+        for (Long idMatch : ouverts) {
+            LiveMatch live = matchs.get(idMatch);
+            if (live == null) continue;
+            synchronized (live) {
+                Long enBase = versions.get(idMatch);
+                Long locale = live.match.getVersion();
+                boolean perime = !versions.containsKey(idMatch)
+                        || (enBase != null && (locale == null || enBase > locale));
+                if (perime) retirerPerime(idMatch, live);
+            }
+        }
+    }
+
+    private void verifierSafe() {
+        try {
+            verifier();
+        } catch (RuntimeException e) {
+            log.error("Échec de la vérification des matchs en cours", e);
+        }
+    }
+
+    /**
+     * Retire une copie périmée, sous le verrou du match : les scores qu'elle porte ne sont pas écrits.
+     */
+    private void retirerPerime(long idMatch, LiveMatch live) {
+        if (matchs.remove(idMatch, live)) {
+            matchsModifies.remove(idMatch);
+            log.warn("Match {} retiré du registre : terminé ou modifié en base par un autre nœud", idMatch);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.ultimateam.apiultimate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
+import org.ultimateam.apiultimate.model.ActionMatch;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.model.MatchSnapshot;
+import org.ultimateam.apiultimate.repository.ActionMatchRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+import org.ultimateam.apiultimate.repository.MatchSnapshotRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Relecture du journal d'un match : le score, le statut et le vainqueur sont déduits des {@link ActionMatch}
+ * (points, et changements d'état {@code DEBUT}, {@code PAUSE}, {@code REPRISE}, {@code FIN}).
+ *
+ * La relecture part du dernier {@link MatchSnapshot} et ne rejoue que les actions suivantes ; elle n'écrit rien.
+ * Les instantanés sont enregistrés sur le chemin d'écriture du match ({@link #instantaner(Match)}, à la pause et à
+ * la fin), dès qu'au moins {@code app.events.snapshot-interval} actions les séparent du précédent. Un instantané ne
+ * couvre que les actions écrites depuis plus de {@code app.events.snapshot-delay-ms} : une action à l'identifiant
+ * plus petit dont la transaction n'est pas encore validée ne peut pas être oubliée par l'instantané.
+ *
+ * L'entité {@link Match} (scores, statut, vainqueur) n'est qu'une projection du journal :
+ * {@link #reconstruire(long)} la recalcule entièrement, sans instantané, par exemple après un litige ou un
+ * changement des règles de calcul.
+ */
+@Slf4j
+@Service
+public class MatchEventLogService {
+
+    private final ActionMatchRepository actionMatchRepository;
+    private final MatchSnapshotRepository matchSnapshotRepository;
+    private final MatchRepository matchRepository;
+    private final LiveMatchRegistry liveMatchRegistry;
+
+    /** Nombre minimal d'actions rejouées avant d'enregistrer un nouvel instantané ({@code app.events.snapshot-interval}). */
+    @Value("${app.events.snapshot-interval:50}")
+    private int intervalleSnapshot = 50;
+
+    /** Âge minimal d'une action pour entrer dans un instantané ({@code app.events.snapshot-delay-ms}). */
+    @Value("${app.events.snapshot-delay-ms:60000}")
+    private long delaiSnapshotMs = 60_000;
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public MatchEventLogService(ActionMatchRepository actionMatchRepository, MatchSnapshotRepository matchSnapshotRepository,
+                                MatchRepository matchRepository, LiveMatchRegistry liveMatchRegistry) {
+        this.actionMatchRepository = actionMatchRepository;
+        this.matchSnapshotRepository = matchSnapshotRepository;
+        this.matchRepository = matchRepository;
+        this.liveMatchRegistry = liveMatchRegistry;
+    }
+
+    /**
+     * Journal complet d'un match, dans l'ordre d'enregistrement (audit, relecture d'un match contesté).
+     *
+     * @param idMatch identifiant du match
+     * @return toutes les actions du match, changements d'état compris
+     */
+    public List<ActionMatch> journal(long idMatch) {
+        return actionMatchRepository.findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(idMatch, 0L);
+    }
+
+    /**
+     * Résultat d'une relecture.
+     *
+     * @param etat   état après toutes les actions
+     * @param stable état après la dernière action assez ancienne pour un instantané, null s'il n'y en a pas
+     */
+    private record Relecture(MatchSnapshot etat, MatchSnapshot stable) {
+    }
+
+    /**
+     * État du match déduit de son journal, à partir du dernier instantané. Lecture seule.
+     *
+     * @param idMatch identifiant du match
+     * @return l'état courant (non persisté)
+     * @throws ResponseStatusException si le match n'existe pas
+     */
+    public MatchSnapshot rejouer(long idMatch) {
+        return rejouer(trouver(idMatch), dernier(idMatch)).etat();
+    }
+
+    /**
+     * Enregistre un nouvel instantané du match si assez d'actions stables ont été journalisées depuis le précédent.
+     * Appelé sur le chemin d'écriture du match ; un échec est journalisé sans interrompre l'écriture.
+     *
+     * @param match le match concerné
+     */
+    public void instantaner(Match match) {
+        try {
+            MatchSnapshot depart = dernier(match.getIdMatch());
+            MatchSnapshot stable = rejouer(match, depart).stable();
+            if (stable != null && stable.getNbActions() - depart.getNbActions() >= intervalleSnapshot) {
+                stable.setDateSnapshot(LocalDateTime.now());
+                matchSnapshotRepository.save(stable);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Instantané du journal non enregistré pour le match {}", match.getIdMatch(), e);
+        }
+    }
+
+    /**
+     * Recalcule la projection {@link Match} à partir du journal entier, en supprimant les instantanés existants
+     * (calculés avec d'anciennes règles, ou sur un journal corrigé). Refusé pour un match en cours dans le registre
+     * en mémoire, dont l'état n'est pas encore entièrement écrit.
+     *
+     * @param idMatch identifiant du match
+     * @return le match mis à jour
+     * @throws ResponseStatusException si le match n'existe pas (NOT_FOUND) ou est en cours (CONFLICT)
+     */
+    public Match reconstruire(long idMatch) {
+        if (liveMatchRegistry.enCours(idMatch) != null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Match en cours : reconstruction impossible");
+        }
+        Match match = trouver(idMatch);
+        matchSnapshotRepository.deleteByIdMatch(idMatch);
+        MatchSnapshot etat = rejouer(match, vide(idMatch)).etat();
+
+        match.setScoreEquipe1(etat.getScoreEquipe1());
+        match.setScoreEquipe2(etat.getScoreEquipe2());
+        match.setStatus(etat.getStatus());
+        match.setWinner(equipe(match, etat.getIdWinner()));
+        return matchRepository.save(match);
+    }
+
+    private Match trouver(long idMatch) {
+        Match match = matchRepository.findById(idMatch).orElse(null);
+        if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
+        return match;
+    }
+
+    private MatchSnapshot dernier(long idMatch) {
+        return matchSnapshotRepository.findFirstByIdMatchOrderByDerniereActionDesc(idMatch).orElseGet(() -> vide(idMatch));
+    }
+
+    private static MatchSnapshot vide(long idMatch) {
+        MatchSnapshot etat = new MatchSnapshot();
+        etat.setIdMatch(idMatch);
+        return etat;
+    }
+
+    private Relecture rejouer(Match match, MatchSnapshot depart) {
+        List<ActionMatch> actions = actionMatchRepository.findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(
+                match.getIdMatch(), depart.getDerniereAction());
+
+        LocalDateTime limite = LocalDateTime.now().minusNanos(delaiSnapshotMs * 1_000_000);
+        MatchSnapshot etat = depart.copie();
+        MatchSnapshot stable = null;
+        for (ActionMatch action : actions) {
+            appliquer(match, etat, action);
+            if (action.getDateEnregistrement() != null && action.getDateEnregistrement().isBefore(limite)) {
+                stable = etat.copie();
+            }
+        }
+        return new Relecture(etat, stable);
+    }
+
+    /**
+     * Applique une action à l'état du match.
+     */
+    static void appliquer(Match match, MatchSnapshot etat, ActionMatch action) {
+        switch (action.getType()) {
+            case POINT -> {
+                // Point enregistré après la fin (copie périmée d'un autre nœud) : conservé au journal, non compté
+                if (etat.getStatus() == Match.Status.FINISHED) break;
+                long points = action.getPoints() != null ? action.getPoints() : 1;
+                Long idEquipe = equipeCreditee(action);
+                if (idEquipe != null && Objects.equals(idEquipe, idEquipe(match.getEquipe1()))) {
+                    etat.setScoreEquipe1(etat.getScoreEquipe1() + points);
+                } else if (idEquipe != null && Objects.equals(idEquipe, idEquipe(match.getEquipe2()))) {
+                    etat.setScoreEquipe2(etat.getScoreEquipe2() + points);
+                }
+            }
+            case DEBUT, REPRISE -> etat.setStatus(Match.Status.ONGOING);
+            case PAUSE -> etat.setStatus(Match.Status.PAUSED);
+            case FIN -> {
+                etat.setStatus(Match.Status.FINISHED);
+                etat.setIdWinner(action.getIdEquipe());
+            }
+            case FAUTE -> { }
+        }
+        etat.setDerniereAction(action.getId());
+        etat.setNbActions(etat.getNbActions() + 1);
+    }
+
+    /**
+     * Équipe créditée d'un point ; pour une action antérieure au journal, l'équipe du joueur.
+     */
+    private static Long equipeCreditee(ActionMatch action) {
+        if (action.getIdEquipe() != null) return action.getIdEquipe();
+        if (action.getType() == ActionTypeDTO.POINT && action.getJoueur() != null && action.getJoueur().getEquipe() != null) {
+            return action.getJoueur().getEquipe().getIdEquipe();
+        }
+        return null;
+    }
+
+    private static Long idEquipe(Equipe equipe) {
+        return equipe == null ? null : equipe.getIdEquipe();
+    }
+
+    private static Equipe equipe(Match match, Long idEquipe) {
+        if (idEquipe == null) return null;
+        if (Objects.equals(idEquipe, idEquipe(match.getEquipe1()))) return match.getEquipe1();
+        if (Objects.equals(idEquipe, idEquipe(match.getEquipe2()))) return match.getEquipe2();
+        return null;
+    }
+}
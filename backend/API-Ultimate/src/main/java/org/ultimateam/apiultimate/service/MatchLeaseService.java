@@ -0,0 +1,59 @@
+package org.ultimateam.apiultimate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Bail sur les échéances de fin de match, pour qu'une seule instance de l'API traite chaque échéance.
+ *
+ * Tous les nœuds peuvent planifier un minuteur pour un même match (celui qui l'a démarré, et les autres via
+ * {@link MatchTimerRecoveryService}) ; à l'échéance, chacun tente de prendre le bail par une mise à jour
+ * conditionnelle de la ligne du match ({@link MatchRepository#acquerirEcheance}) et seul celui qui réussit
+ * termine le match. Le bail expire après {@code app.timer.lease-ms} : si le nœud qui l'a pris tombe avant
+ * d'avoir traité l'échéance, un autre la reprend au balayage suivant.
+ */
+@Service
+public class MatchLeaseService {
+
+    private final MatchRepository matchRepository;
+
+    /** Identifiant de ce nœud ({@code app.timer.node-id}, aléatoire par défaut). */
+    @Value("${app.timer.node-id:#{T(java.util.UUID).randomUUID().toString()}}")
+    private String noeud = UUID.randomUUID().toString();
+
+    /** Durée du bail sur une échéance ({@code app.timer.lease-ms}). */
+    @Value("${app.timer.lease-ms:60000}")
+    private long bailMs = 60_000;
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public MatchLeaseService(MatchRepository matchRepository) {
+        this.matchRepository = matchRepository;
+    }
+
+    /**
+     * Tente de prendre en charge l'échéance d'un match.
+     *
+     * @param idMatch  identifiant du match
+     * @param echeance échéance planifiée (doit toujours être celle du match en base)
+     * @return {@code true} si ce nœud doit traiter l'échéance
+     */
+    public boolean acquerir(long idMatch, LocalDateTime echeance) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        return matchRepository.acquerirEcheance(idMatch, Match.Status.ONGOING, echeance, noeud,
+                maintenant.plusNanos(bailMs * 1_000_000), maintenant) == 1;
+    }
+
+    /**
+     * @return identifiant de ce nœud
+     */
+    public String noeud() {
+        return noeud;
+    }
+}
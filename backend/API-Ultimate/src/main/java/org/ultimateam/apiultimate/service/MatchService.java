@@ -1,9 +1,17 @@
 package org.ultimateam.apiultimate.service;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.ultimateam.apiultimate.DTO.ActionBatchResult;
+import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
+import org.ultimateam.apiultimate.DTO.MatchActionDTO;
 import org.ultimateam.apiultimate.DTO.MatchDTO;
+import org.ultimateam.apiultimate.DTO.MatchEventDTO;
 import org.ultimateam.apiultimate.DTO.MatchFauteDTO;
 import org.ultimateam.apiultimate.DTO.MatchPointDTO;
 import org.ultimateam.apiultimate.model.*;
@@ -14,14 +22,10 @@ import org.ultimateam.apiultimate.repository.TerrainRepository;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Service gérant la logique métier des matchs.
@@ -29,7 +33,7 @@ import java.util.concurrent.TimeUnit;
  * Ce service fournit des opérations CRUD sur {@link Match} ainsi que les
  * transitions d'état (démarrer, mettre en pause, reprendre, terminer), la gestion
  * des points/faute, la vérification de la victoire, et la planification de la
- * fin de match via un scheduler.
+ * fin de match via {@link MatchTimerService}.
  */
 @Service
 public class MatchService {
@@ -46,8 +50,6 @@ public class MatchService {
      */
     private final MatchRepository matchRepository;
     private final EquipeService equipeService;
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
-    private final Map<Long, ScheduledFuture<?>> matchSchedulers = new HashMap<>();
     private final TournoisService tournoisService;
     private final ClassementService classementService;
     private final JoueurRepository joueurRepository;
@@ -55,6 +57,17 @@ public class MatchService {
     private final ActionMatchService actionMatchService;
     private final TerrainRepository terrainRepository;
     private final TerrainService terrainService;
+    private final BracketService bracketService;
+    private final SwissSystemService swissSystemService;
+    private final LiveMatchRegistry liveMatchRegistry;
+    private final MatchStreamService matchStreamService;
+    private final CompetitionStreamService competitionStreamService;
+    private final MatchTimerService matchTimerService;
+    private final MatchLeaseService matchLeaseService;
+    private final MatchWriteExecutor matchWriteExecutor;
+    private final ClassementHistoryService classementHistoryService;
+    private final MatchEventLogService matchEventLogService;
+    private final TransactionTemplate transactionTemplate;
 
 
     /**
@@ -67,8 +80,19 @@ public class MatchService {
      * @param joueurRepository repository des joueurs
      * @param joueurService service de gestion des joueurs
      * @param actionMatchService service gérant les actions de match (points/faute)
+     * @param bracketService service de progression des tournois à élimination
+     * @param swissSystemService service de progression des championnats en système suisse
+     * @param liveMatchRegistry registre en mémoire des matchs en cours
+     * @param matchStreamService diffusion SSE des évènements des matchs
+     * @param competitionStreamService tableau des scores en direct des compétitions
+     * @param matchTimerService minuteurs de fin de match
+     * @param matchLeaseService bail garantissant qu'un seul nœud traite chaque échéance
+     * @param matchWriteExecutor file d'écriture propre à chaque match
+     * @param classementHistoryService historique des classements par journée ou ronde
+     * @param matchEventLogService relecture et instantanés du journal des matchs
+     * @param transactionManager transactions de fin de match (classement et statut écrits ensemble)
      */
-    public MatchService(MatchRepository matchRepository, EquipeService equipeService, TournoisService tournoisService, ClassementService classementService, JoueurRepository joueurRepository, JoueurService joueurservice, JoueurService joueurService, ActionMatchService actionMatchService, TerrainRepository terrainRepository, TerrainService terrainService) {
+    public MatchService(MatchRepository matchRepository, EquipeService equipeService, TournoisService tournoisService, ClassementService classementService, JoueurRepository joueurRepository, JoueurService joueurservice, JoueurService joueurService, ActionMatchService actionMatchService, TerrainRepository terrainRepository, TerrainService terrainService, BracketService bracketService, SwissSystemService swissSystemService, LiveMatchRegistry liveMatchRegistry, MatchStreamService matchStreamService, CompetitionStreamService competitionStreamService, MatchTimerService matchTimerService, MatchLeaseService matchLeaseService, MatchWriteExecutor matchWriteExecutor, ClassementHistoryService classementHistoryService, MatchEventLogService matchEventLogService, PlatformTransactionManager transactionManager) {
         this.matchRepository = matchRepository;
         this.equipeService = equipeService;
         this.tournoisService = tournoisService;
@@ -78,25 +102,74 @@ public class MatchService {
         this.actionMatchService = actionMatchService;
         this.terrainRepository = terrainRepository;
         this.terrainService = terrainService;
+        this.bracketService = bracketService;
+        this.swissSystemService = swissSystemService;
+        this.liveMatchRegistry = liveMatchRegistry;
+        this.matchStreamService = matchStreamService;
+        this.competitionStreamService = competitionStreamService;
+        this.matchTimerService = matchTimerService;
+        this.matchLeaseService = matchLeaseService;
+        this.matchWriteExecutor = matchWriteExecutor;
+        this.classementHistoryService = classementHistoryService;
+        this.matchEventLogService = matchEventLogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     // --------------------- BASIC CRUD ---------------------
 
     /**
-     * Récupère un match par son identifiant.
+     * Récupère un match par son identifiant : l'entité du {@link LiveMatchRegistry} pour un match en cours
+     * (scores à jour même si l'écriture différée n'a pas encore eu lieu), la base sinon.
      *
      * @param id identifiant du match
      * @return l'entité {@link Match} trouvée ou {@code null} si inexistante
      */
-    public Match getById(Long id) { return matchRepository.findById(id).orElse(null); }
+    public Match getById(Long id) {
+        Match live = liveMatchRegistry.enCours(id);
+        if (live != null) return live;
+        return matchRepository.findById(id).orElse(null);
+    }
 
     /**
      * Persiste un {@link Match} en base (création ou mise à jour).
+     * La version enregistrée est reportée sur l'entité passée, qui peut être celle du {@link LiveMatchRegistry}
+     * et servir aux modifications suivantes ; la sauvegarde se fait alors sous le verrou de la copie, pour que
+     * l'écriture différée des scores ne change pas la version entre-temps.
      *
      * @param match l'entité match à sauvegarder
      * @return le match persisté
      */
-    public Match save(Match match) { return matchRepository.save(match); }
+    public Match save(Match match) {
+        if (match.getIdMatch() == null) return matchRepository.save(match);
+        return liveMatchRegistry.sousVerrou(match.getIdMatch(), () -> {
+            Match enregistre = matchRepository.save(match);
+            if (enregistre != null && enregistre != match) match.setVersion(enregistre.getVersion());
+            return enregistre;
+        });
+    }
+
+    /**
+     * Exécute une modification d'un match dans sa file d'écriture ({@link MatchWriteExecutor}) : les modifications
+     * d'un même match ne se chevauchent jamais. Si le match a été modifié entre-temps par un autre nœud (verrou
+     * optimiste), la copie en mémoire est abandonnée et la requête est refusée (CONFLICT), à renvoyer telle quelle.
+     */
+    private <T> T ecrire(long idMatch, Supplier<T> mutation) {
+        return matchWriteExecutor.executer(idMatch, () -> {
+            try {
+                return mutation.get();
+            } catch (OptimisticLockingFailureException e) {
+                liveMatchRegistry.fermer(idMatch);
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Match modifié simultanément, réessayez", e);
+            }
+        });
+    }
+
+    private void ecrire(long idMatch, Runnable mutation) {
+        ecrire(idMatch, () -> {
+            mutation.run();
+            return null;
+        });
+    }
 
     /**
      * Supprime un match par son identifiant.
@@ -105,10 +178,13 @@ public class MatchService {
      * @throws ResponseStatusException si le match n'existe pas
      */
     public void deleteById(Long id) {
-        if (!matchRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
-        }
-        matchRepository.deleteById(id);
+        ecrire(id, () -> {
+            if (!matchRepository.existsById(id)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
+            }
+            liveMatchRegistry.fermer(id);
+            matchRepository.deleteById(id);
+        });
     }
 
     /**
@@ -153,6 +229,27 @@ public class MatchService {
     public List<Match> getMatchesByTerrain(long idTerrain) { return matchRepository.findByTerrain_Id_terrain(idTerrain); }
 
 
+    /**
+     * Abonne un client au flux SSE d'un match : état courant, puis chaque point, faute, pause, reprise et fin.
+     *
+     * @param id identifiant du match
+     * @return le flux SSE du client
+     * @throws ResponseStatusException si le match n'existe pas
+     */
+    public SseEmitter suivreMatch(long id) {
+        Match match = getById(id);
+        if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
+        return matchStreamService.abonner(match);
+    }
+
+    /**
+     * Diffuse un évènement aux spectateurs du match et au tableau des scores de sa compétition.
+     */
+    private void publierEvenement(MatchEventDTO evenement) {
+        matchStreamService.publier(evenement);
+        competitionStreamService.publier(evenement);
+    }
+
     // --------------------- MATCH CREATION ---------------------
 
     /**
@@ -186,15 +283,21 @@ public class MatchService {
      * @throws ResponseStatusException si le match n'existe pas ou n'est pas en état WAITING
      */
     public Match commencerMatch(long id) {
-        Match match = getById(id);
-        if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
-        if (match.getStatus() != Match.Status.WAITING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Match déjà commencé ou terminé");
+        return ecrire(id, () -> {
+            Match match = getById(id);
+            if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
+            if (match.getStatus() != Match.Status.WAITING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Match déjà commencé ou terminé");
 
-        match.setDateDebut(LocalDateTime.now());
-        match.setStatus(Match.Status.ONGOING);
-        match.setDureePauseTotale(Duration.ZERO);
-        lancerScheduler(match, Duration.ofMinutes(100));
-        return save(match);
+            match.setDateDebut(LocalDateTime.now());
+            match.setStatus(Match.Status.ONGOING);
+            match.setDureePauseTotale(Duration.ZERO);
+            lancerScheduler(match, Duration.ofMinutes(100));
+            Match demarre = save(match);
+            liveMatchRegistry.ouvrir(demarre);
+            actionMatchService.journaliser(demarre, ActionTypeDTO.DEBUT, null);
+            publierEvenement(MatchEventDTO.etat("debut", demarre));
+            return demarre;
+        });
     }
 
     /**
@@ -205,14 +308,20 @@ public class MatchService {
      * @throws ResponseStatusException si le match n'existe pas ou n'est pas en cours
      */
     public Match mettreEnPause(long id) {
-        Match match = getById(id);
-        if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
-        if (match.getStatus() != Match.Status.ONGOING) throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Match pas en cours");
-
-        match.setDatePause(LocalDateTime.now());
-        match.setStatus(Match.Status.PAUSED);
-        annulerScheduler(match);
-        return save(match);
+        return ecrire(id, () -> {
+            Match match = getById(id);
+            if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
+            if (match.getStatus() != Match.Status.ONGOING) throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Match pas en cours");
+
+            match.setDatePause(LocalDateTime.now());
+            match.setStatus(Match.Status.PAUSED);
+            annulerScheduler(match);
+            Match enPause = save(match);
+            actionMatchService.journaliser(enPause, ActionTypeDTO.PAUSE, null);
+            matchEventLogService.instantaner(enPause);
+            publierEvenement(MatchEventDTO.etat("pause", enPause));
+            return enPause;
+        });
     }
 
     /**
@@ -224,24 +333,28 @@ public class MatchService {
      * @throws ResponseStatusException si le match n'existe pas ou n'est pas en pause
      */
     public Match reprendreMatch(long id) {
-        Match match = getById(id);
-        if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
-        if (match.getStatus() != Match.Status.PAUSED) throw new ResponseStatusException(HttpStatus.CONFLICT, "Match pas en pause");
-
-        Duration pause = Duration.between(match.getDatePause(), LocalDateTime.now());
-        match.setDureePauseTotale(match.getDureePauseTotale().plus(pause));
-        match.setDatePause(null);
-        match.setStatus(Match.Status.ONGOING);
-
-        Duration dureeJouee = Duration.between(match.getDateDebut(), LocalDateTime.now()).minus(match.getDureePauseTotale());
-        Duration remaining = Duration.ofMinutes(100).minus(dureeJouee);
-
-        if (remaining.isNegative() || remaining.isZero()) {
-            finirMatchSafe(match);
-        } else {
-            lancerScheduler(match, remaining);
-        }
-        return save(match);
+        return ecrire(id, () -> {
+            Match match = getById(id);
+            if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
+            if (match.getStatus() != Match.Status.PAUSED) throw new ResponseStatusException(HttpStatus.CONFLICT, "Match pas en pause");
+
+            Duration pause = Duration.between(match.getDatePause(), LocalDateTime.now());
+            match.setDureePauseTotale(match.getDureePauseTotale().plus(pause));
+            match.setDatePause(null);
+            match.setStatus(Match.Status.ONGOING);
+
+            Duration dureeJouee = Duration.between(match.getDateDebut(), LocalDateTime.now()).minus(match.getDureePauseTotale());
+            Duration remaining = Duration.ofMinutes(100).minus(dureeJouee);
+
+            if (remaining.isNegative() || remaining.isZero()) {
+                finirMatchSafe(match);
+            } else {
+                lancerScheduler(match, remaining);
+                actionMatchService.journaliser(match, ActionTypeDTO.REPRISE, null);
+                publierEvenement(MatchEventDTO.etat("reprise", match));
+            }
+            return save(match);
+        });
     }
 
     /**
@@ -257,28 +370,39 @@ public class MatchService {
      * @throws ResponseStatusException en cas d'incohérences (match/équipe inexistants, match non en cours, points invalides)
      */
     public Match ajouterPoint(long id_match, long id_equipe, MatchPointDTO dto) {
-        Match match = getById(id_match);
-        Equipe equipe = equipeService.getById(id_equipe);
-
-        if (match == null || equipe == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match/équipe n'existe pas");;
-        if (match.getStatus() != Match.Status.ONGOING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Match n'est pas en jeu");
-        if (dto.getPoint() == 0) throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible d'ajouter 0 point");
-
-
-        if (Objects.equals(equipe.getIdEquipe(), match.getEquipe1().getIdEquipe())) {
-            if (match.getScoreEquipe1() + dto.getPoint() <=0)
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible de mettre des points négatifs");
-            match.setScoreEquipe1(match.getScoreEquipe1() + dto.getPoint());
-        } else if (Objects.equals(equipe.getIdEquipe(), match.getEquipe2().getIdEquipe())) {
-            if (match.getScoreEquipe2() + dto.getPoint() <=0)
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible de mettre des points négatifs");
-            match.setScoreEquipe2(match.getScoreEquipe2() + dto.getPoint());
-        } else throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cette équipe ne fait pas partie du match");
-
-        actionMatchService.addPoint(id_match, id_equipe, dto);
-
-        checkVictory(match);
-        return save(match);
+        return ecrire(id_match, () -> {
+            // Match en cours : point appliqué en mémoire, enregistré en base par écriture différée
+            Match live = liveMatchRegistry.ajouterPoint(id_match, id_equipe, dto.getIdJoueur(), dto.getPoint());
+            if (live != null) {
+                publierEvenement(MatchEventDTO.point(live, id_equipe, dto.getIdJoueur(), dto.getPoint()));
+                checkVictory(live);
+                return live;
+            }
+
+            Match match = getById(id_match);
+            Equipe equipe = equipeService.getById(id_equipe);
+
+            if (match == null || equipe == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match/équipe n'existe pas");;
+            if (match.getStatus() != Match.Status.ONGOING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Match n'est pas en jeu");
+            if (dto.getPoint() == 0) throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible d'ajouter 0 point");
+
+
+            if (Objects.equals(equipe.getIdEquipe(), match.getEquipe1().getIdEquipe())) {
+                if (match.getScoreEquipe1() + dto.getPoint() <=0)
+                    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible de mettre des points négatifs");
+                match.setScoreEquipe1(match.getScoreEquipe1() + dto.getPoint());
+            } else if (Objects.equals(equipe.getIdEquipe(), match.getEquipe2().getIdEquipe())) {
+                if (match.getScoreEquipe2() + dto.getPoint() <=0)
+                    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Impossible de mettre des points négatifs");
+                match.setScoreEquipe2(match.getScoreEquipe2() + dto.getPoint());
+            } else throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cette équipe ne fait pas partie du match");
+
+            actionMatchService.addPoint(id_match, id_equipe, dto);
+            publierEvenement(MatchEventDTO.point(match, id_equipe, dto.getIdJoueur(), dto.getPoint()));
+
+            checkVictory(match);
+            return save(match);
+        });
     }
 
     /**
@@ -291,13 +415,63 @@ public class MatchService {
      * @throws ResponseStatusException si le match/équipe n'existe pas ou si le match n'est pas en cours
      */
     public Match ajouterFaute(long idMatch, long idEquipe, MatchFauteDTO fauteDTO) {
-        Match match = getById(idMatch);
-        Equipe equipe = equipeService.getById(idEquipe);
-        if (match == null || equipe == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match/équipe n'existe pas");;
-        if (match.getStatus() != Match.Status.ONGOING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Match n'est pas en jeu");
+        return ecrire(idMatch, () -> {
+            Match live = liveMatchRegistry.ajouterFaute(idMatch, idEquipe, fauteDTO.getIdJoueur());
+            if (live != null) {
+                publierEvenement(MatchEventDTO.faute(live, idEquipe, fauteDTO.getIdJoueur()));
+                return live;
+            }
+
+            Match match = getById(idMatch);
+            Equipe equipe = equipeService.getById(idEquipe);
+            if (match == null || equipe == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match/équipe n'existe pas");;
+            if (match.getStatus() != Match.Status.ONGOING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Match n'est pas en jeu");
+
+            actionMatchService.addFaute(idMatch, idEquipe, fauteDTO);
+            publierEvenement(MatchEventDTO.faute(match, idEquipe, fauteDTO.getIdJoueur()));
+            return getById(idMatch);
+        });
+    }
 
-        actionMatchService.addFaute(idMatch, idEquipe, fauteDTO);
-        return getById(idMatch);
+    /**
+     * Enregistre un lot d'actions (points et fautes) saisies hors ligne par un arbitre, dans l'ordre de saisie.
+     *
+     * Le lot est validé et inséré en une fois par {@link ActionMatchService#enregistrerLot}, le score est mis à jour
+     * une seule fois et un seul évènement {@code etat} est diffusé. Un lot renvoyé (même clés) n'est pas
+     * compté deux fois.
+     *
+     * @param idMatch identifiant du match
+     * @param lot     actions saisies hors ligne
+     * @return le match mis à jour et le nombre d'actions enregistrées et ignorées
+     * @throws ResponseStatusException si le match n'existe pas (NOT_FOUND), n'est pas en jeu (CONFLICT) ou si le
+     * lot est invalide
+     */
+    public ActionBatchResult ajouterActions(long idMatch, List<MatchActionDTO> lot) {
+        return ecrire(idMatch, () -> {
+            Match match = getById(idMatch);
+            if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
+            if (match.getStatus() != Match.Status.ONGOING) throw new ResponseStatusException(HttpStatus.CONFLICT, "Match n'est pas en jeu");
+
+            // Sous le verrou de la copie en mémoire : l'écriture différée ne peut pas lire la version entre
+            // l'incrément du lot en base et sa prise en compte en mémoire
+            ActionMatchService.Lot enregistre = liveMatchRegistry.sousVerrou(idMatch, () -> {
+                ActionMatchService.Lot resultat = actionMatchService.enregistrerLot(match, lot);
+                if (resultat.enregistrees() == 0) return resultat;
+                // Score et version déjà incrémentés en base : seule l'entité en mémoire est mise à jour
+                if (liveMatchRegistry.ajouterScores(idMatch, resultat.points1(), resultat.points2()) == null) {
+                    match.setScoreEquipe1(match.getScoreEquipe1() + resultat.points1());
+                    match.setScoreEquipe2(match.getScoreEquipe2() + resultat.points2());
+                    if ((resultat.points1() != 0 || resultat.points2() != 0) && match.getVersion() != null) {
+                        match.setVersion(match.getVersion() + 1);
+                    }
+                }
+                return resultat;
+            });
+            if (enregistre.enregistrees() == 0) return new ActionBatchResult(match, 0, enregistre.doublons());
+            publierEvenement(MatchEventDTO.etat("etat", match));
+            checkVictory(match);
+            return new ActionBatchResult(match, enregistre.enregistrees(), enregistre.doublons());
+        });
     }
 
     // --------------------- CHECK VICTORY ---------------------
@@ -328,7 +502,9 @@ public class MatchService {
 
     /**
      * Termine un match en toute sécurité : met le statut FINISHED, enregistre la date de fin,
-     * annule le scheduler, met à jour le classement et sauvegarde le match.
+     * annule le scheduler, met à jour le classement et sauvegarde le match dans une même transaction, enregistre
+     * l'historique du classement si la période du match est terminée et fait progresser le tableau
+     * s'il s'agit d'un tournoi à élimination (ou la ronde d'un système suisse).
      *
      * @param match le {@link Match} à terminer
      */
@@ -338,8 +514,37 @@ public class MatchService {
         match.setStatus(Match.Status.FINISHED);
         match.setDateFin(LocalDateTime.now());
         annulerScheduler(match);
-        classementService.mettreAJourClassement(match);
-        save(match);
+        enregistrerFin(match);
+        // Dernier match de sa journée ou de sa ronde : instantané du classement pour l'historique
+        classementHistoryService.apresMatch(match);
+        liveMatchRegistry.fermer(match.getIdMatch());
+        actionMatchService.journaliser(match, ActionTypeDTO.FIN, match.getWinner() != null ? match.getWinner().getIdEquipe() : null);
+        matchEventLogService.instantaner(match);
+        publierEvenement(MatchEventDTO.etat("fin", match));
+        // Tournoi à élimination : crée les rencontres du tour suivant dont les équipes sont maintenant connues
+        bracketService.avancer(match);
+        // Système suisse : apparie la ronde suivante quand la ronde courante est terminée
+        swissSystemService.avancer(match);
+    }
+
+    /**
+     * Ajoute le match au classement et l'enregistre FINISHED dans une même transaction : un recalcul du classement
+     * ({@link ClassementRebuildService}) voit soit les deux, soit aucun. En cas d'échec, rien n'est écrit et le
+     * classement en mémoire, déjà modifié, est relu en base.
+     */
+    private void enregistrerFin(Match match) {
+        try {
+            transactionTemplate.executeWithoutResult(statut -> {
+                classementService.mettreAJourClassement(match);
+                Match enregistre = save(match);
+                // Version attribuée à l'écriture : reportée sur l'entité, qui peut encore être sauvegardée
+                matchRepository.flush();
+                if (enregistre != null && enregistre != match) match.setVersion(enregistre.getVersion());
+            });
+        } catch (RuntimeException e) {
+            if (match.getIdCompetition() != null) classementService.invalider(match.getIdCompetition().getIdCompetition());
+            throw e;
+        }
     }
 
     /**
@@ -350,34 +555,67 @@ public class MatchService {
      * @throws ResponseStatusException si le match n'existe pas
      */
     public Match finirMatch(long id) {
-        Match match = getById(id);
-        if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
-        finirMatchSafe(match);
+        return ecrire(id, () -> {
+            Match match = getById(id);
+            if (match == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Le match n'existe pas");
+            finirMatchSafe(match);
 
-        return match;
+            return match;
+        });
     }
 
     // --------------------- SCHEDULER ---------------------
 
     /**
      * Lance un scheduler qui exécutera la vérification/fin du match après une durée donnée.
+     * L'échéance est enregistrée dans le match (sauvegardé par l'appelant) pour survivre à un redémarrage.
      *
      * @param match le {@link Match} pour lequel planifier la tâche
      * @param duree durée restante avant exécution
      */
     private void lancerScheduler(Match match, Duration duree) {
-        ScheduledFuture<?> future = scheduler.schedule(() -> checkTime(match.getIdMatch()), duree.toSeconds(), TimeUnit.SECONDS);
-        matchSchedulers.put(match.getIdMatch(), future);
+        // À la seconde : l'échéance en mémoire doit rester égale à celle relue en base
+        match.setDateFinPrevue(LocalDateTime.now().plus(duree).truncatedTo(ChronoUnit.SECONDS));
+        match.setBailProprietaire(null);
+        match.setBailExpiration(null);
+        planifierEcheance(match);
+    }
+
+    /**
+     * Planifie sur ce nœud le minuteur de l'échéance persistée d'un match en cours
+     * (au démarrage du match, ou au rechargement par {@link MatchTimerRecoveryService}).
+     *
+     * @param match le {@link Match} dont l'échéance est à surveiller
+     */
+    public void planifierEcheance(Match match) {
+        LocalDateTime echeance = match.getDateFinPrevue();
+        if (match.getStatus() != Match.Status.ONGOING || echeance == null) return;
+        long idMatch = match.getIdMatch();
+        Duration delai = Duration.between(LocalDateTime.now(), echeance);
+        matchTimerService.planifier(idMatch, delai.isNegative() ? Duration.ZERO : delai, () -> declencherEcheance(idMatch, echeance));
     }
 
     /**
-     * Annule le scheduler associé à un match si présent.
+     * Traite une échéance si ce nœud en obtient le bail ; sinon un autre nœud s'en charge (ou l'échéance a changé).
+     *
+     * @param idMatch  identifiant du match
+     * @param echeance échéance planifiée
+     */
+    void declencherEcheance(long idMatch, LocalDateTime echeance) {
+        if (!matchLeaseService.acquerir(idMatch, echeance)) return;
+        checkTime(idMatch);
+    }
+
+    /**
+     * Annule le scheduler associé à un match si présent et efface son échéance.
      *
      * @param match le {@link Match} dont on souhaite annuler la tâche planifiée
      */
     private void annulerScheduler(Match match) {
-        ScheduledFuture<?> future = matchSchedulers.remove(match.getIdMatch());
-        if (future != null) future.cancel(false);
+        matchTimerService.annuler(match.getIdMatch());
+        match.setDateFinPrevue(null);
+        match.setBailProprietaire(null);
+        match.setBailExpiration(null);
     }
 
     /**
@@ -387,14 +625,16 @@ public class MatchService {
      * @param idMatch identifiant du match à vérifier
      */
     public void checkTime(long idMatch) {
-        Match match = getById(idMatch);
-        if (!match.getDureePauseTotale().isZero()) {
-            Duration compens = match.getDureePauseTotale();
-            match.setDureePauseTotale(Duration.ZERO);
-            save(match);
-            lancerScheduler(match, compens);
-            return;
-        }
-        finirMatchSafe(match);
+        ecrire(idMatch, () -> {
+            Match match = getById(idMatch);
+            if (!match.getDureePauseTotale().isZero()) {
+                Duration compens = match.getDureePauseTotale();
+                match.setDureePauseTotale(Duration.ZERO);
+                lancerScheduler(match, compens);
+                save(match);
+                return;
+            }
+            finirMatchSafe(match);
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package org.ultimateam.apiultimate.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.ultimateam.apiultimate.DTO.MatchEventDTO;
+import org.ultimateam.apiultimate.model.Match;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Diffusion en Server-Sent Events des évènements d'un match (scores, actions, pause, reprise, fin).
+ *
+ * Chaque abonné reçoit d'abord l'état courant du match, puis chaque évènement publié par {@link MatchService}.
+ * Les envois se font sur un thread dédié, dans l'ordre de publication : un spectateur lent ne ralentit pas
+ * l'enregistrement des points. Un abonné dont la connexion est fermée ou en erreur est retiré ; le navigateur
+ * ({@code EventSource}) se reconnecte de lui-même après l'expiration du flux ({@code app.live.sse-timeout-ms}).
+ */
+@Service
+public class MatchStreamService {
+
+    /** Durée de vie d'une connexion SSE ({@code app.live.sse-timeout-ms}). */
+    @Value("${app.live.sse-timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    private final Map<Long, List<SseEmitter>> abonnes = new ConcurrentHashMap<>();
+    private final ExecutorService envoi;
+
+    /**
+     * Constructeur utilisé par Spring : un seul thread d'envoi, qui conserve l'ordre des évènements.
+     */
+    public MatchStreamService() {
+        this(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "match-stream");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    MatchStreamService(ExecutorService envoi) {
+        this.envoi = envoi;
+    }
+
+    /**
+     * Abonne un client aux évènements d'un match et lui envoie l'état courant.
+     *
+     * @param match match suivi
+     * @return le flux SSE du client
+     */
+    public SseEmitter abonner(Match match) {
+        long idMatch = match.getIdMatch();
+        SseEmitter emitter = nouvelEmetteur();
+        abonnes.compute(idMatch, (id, emetteurs) -> {
+            if (emetteurs == null) emetteurs = new CopyOnWriteArrayList<>();
+            emetteurs.add(emitter);
+            return emetteurs;
+        });
+
+        Runnable retirer = () -> retirer(idMatch, emitter);
+        emitter.onCompletion(retirer);
+        emitter.onTimeout(retirer);
+        emitter.onError(e -> retirer.run());
+
+        MatchEventDTO etat = MatchEventDTO.etat("etat", match);
+        envoi.execute(() -> envoyer(idMatch, emitter, etat));
+        return emitter;
+    }
+
+    SseEmitter nouvelEmetteur() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /**
+     * Publie un évènement à tous les abonnés du match. Sans effet si personne ne suit le match.
+     *
+     * @param evenement évènement à diffuser (instantané de l'état du match)
+     */
+    public void publier(MatchEventDTO evenement) {
+        List<SseEmitter> emetteurs = abonnes.get(evenement.idMatch());
+        if (emetteurs == null || emetteurs.isEmpty()) return;
+        envoi.execute(() -> {
+            for (SseEmitter emitter : emetteurs) envoyer(evenement.idMatch(), emitter, evenement);
+        });
+    }
+
+    /**
+     * @return nombre de clients qui suivent le match
+     */
+    public int nbAbonnes(long idMatch) {
+        List<SseEmitter> emetteurs = abonnes.get(idMatch);
+        return emetteurs == null ? 0 : emetteurs.size();
+    }
+
+    private void envoyer(long idMatch, SseEmitter emitter, MatchEventDTO evenement) {
+        try {
+            emitter.send(SseEmitter.event().name(evenement.type()).data(evenement));
+        } catch (IOException | IllegalStateException e) {
+            // Client parti (ou flux déjà terminé) : on l'oublie
+            retirer(idMatch, emitter);
+        }
+    }
+
+    private void retirer(long idMatch, SseEmitter emitter) {
+        abonnes.computeIfPresent(idMatch, (id, emetteurs) -> {
+            emetteurs.remove(emitter);
+            return emetteurs.isEmpty() ? null : emetteurs;
+        });
+    }
+
+    /**
+     * Ferme tous les flux à l'arrêt de l'application.
+     */
+    @PreDestroy
+    void arreter() {
+        envoi.shutdown();
+        abonnes.values().forEach(emetteurs -> emetteurs.forEach(SseEmitter::complete));
+        abonnes.clear();
+    }
+}
@@ -0,0 +1,93 @@
+package org.ultimateam.apiultimate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recrée les minuteurs de fin de match à partir des échéances persistées ({@link Match#getDateFinPrevue()}).
+ *
+ * Au démarrage, un minuteur est planifié pour chaque match en cours : un redémarrage ou un redéploiement ne
+ * laisse plus de match sans fin automatique. Ensuite, un balayage toutes les {@code app.timer.sweep-ms}
+ * millisecondes planifie les échéances proches, y compris celles des matchs démarrés sur un autre nœud ;
+ * {@link MatchLeaseService} garantit qu'un seul nœud traite chaque échéance.
+ */
+@Slf4j
+@Service
+public class MatchTimerRecoveryService {
+
+    private final MatchRepository matchRepository;
+    private final MatchService matchService;
+
+    /** Intervalle entre deux balayages des échéances ({@code app.timer.sweep-ms}). */
+    @Value("${app.timer.sweep-ms:30000}")
+    private long balayageMs = 30_000;
+
+    private ScheduledExecutorService balayeur;
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public MatchTimerRecoveryService(MatchRepository matchRepository, MatchService matchService) {
+        this.matchRepository = matchRepository;
+        this.matchService = matchService;
+    }
+
+    /**
+     * Recharge toutes les échéances des matchs en cours puis lance le balayage périodique.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void demarrer() {
+        int nb = recharger(matchRepository.findByStatusAndDateFinPrevueIsNotNull(Match.Status.ONGOING));
+        if (nb > 0) log.info("{} minuteur(s) de fin de match rechargé(s)", nb);
+
+        balayeur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "match-timer-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        balayeur.scheduleWithFixedDelay(this::balayerSafe, balayageMs, balayageMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Planifie les échéances qui tombent avant le prochain balayage (ou déjà passées, bail d'un nœud tombé).
+     *
+     * @return nombre de minuteurs planifiés
+     */
+    int balayer() {
+        LocalDateTime horizon = LocalDateTime.now().plusNanos(2 * balayageMs * 1_000_000);
+        return recharger(matchRepository.findByStatusAndDateFinPrevueBefore(Match.Status.ONGOING, horizon));
+    }
+
+    private void balayerSafe() {
+        try {
+            balayer();
+        } catch (RuntimeException e) {
+            log.error("Échec du balayage des échéances de match", e);
+        }
+    }
+
+    private int recharger(List<Match> matchs) {
+        matchs.forEach(matchService::planifierEcheance);
+        return matchs.size();
+    }
+
+    /**
+     * Arrête le balayage.
+     */
+    @PreDestroy
+    void arreter() {
+        if (balayeur != null) balayeur.shutdownNow();
+    }
+}
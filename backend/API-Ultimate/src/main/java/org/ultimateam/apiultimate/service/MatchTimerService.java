@@ -0,0 +1,308 @@
+package org.ultimateam.apiultimate.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Minuteurs de fin de match, sur une roue temporelle hiérarchique.
+ *
+ * Le temps est découpé en tics de {@code app.timer.tick-ms} millisecondes (1 s par défaut). Quatre roues de
+ * 64 emplacements se succèdent : la première couvre les 64 prochains tics, chacune des suivantes 64 fois plus que
+ * la précédente (environ 194 jours au total). Un minuteur est rangé dans la roue la plus fine qui contient son
+ * échéance ; quand la roue supérieure tourne d'un cran, ses minuteurs redescendent d'un niveau.
+ *
+ * Planifier et annuler coûtent O(1) quel que soit le nombre de minuteurs : l'appelant ne fait qu'une écriture
+ * dans une {@link ConcurrentHashMap} et une file, et seul le thread de la roue modifie les emplacements.
+ * Il y a au plus un minuteur par match : en planifier un nouveau remplace le précédent. Les tâches échues
+ * sont exécutées hors du thread de la roue, qui n'est jamais bloqué par un accès à la base.
+ *
+ * Métriques exposées (Micrometer) : {@code match.timers.pending}, {@code match.timers.scheduled},
+ * {@code match.timers.cancelled}, {@code match.timers.expired} et {@code match.timers.lag}
+ * (tics de retard de la roue sur l'horloge).
+ */
+@Slf4j
+@Service
+public class MatchTimerService implements MeterBinder {
+
+    private static final int BITS = 6;
+    private static final int TAILLE = 1 << BITS;
+    private static final int MASQUE = TAILLE - 1;
+    private static final int NIVEAUX = 4;
+
+    private static final int EN_ATTENTE = 0;
+    private static final int ANNULE = 1;
+    private static final int ECHU = 2;
+
+    /** Durée d'un tic de la roue ({@code app.timer.tick-ms}) : précision des échéances. */
+    @Value("${app.timer.tick-ms:1000}")
+    private long tickMs = 1000;
+
+    private final LongSupplier horloge;
+    private final Executor execution;
+    private final long origine;
+
+    private final Map<Long, Minuteur> minuteurs = new ConcurrentHashMap<>();
+    private final Queue<Minuteur> aPlacer = new ConcurrentLinkedQueue<>();
+    private final Queue<Minuteur> aRetirer = new ConcurrentLinkedQueue<>();
+
+    /** Emplacements des roues, modifiés uniquement par le thread de la roue (ou par {@link #avancer()}). */
+    private final Emplacement[][] roues = new Emplacement[NIVEAUX][TAILLE];
+    /** Dernier tic traité. */
+    private volatile long tic;
+
+    private final AtomicLong planifies = new AtomicLong();
+    private final AtomicLong annules = new AtomicLong();
+    private final AtomicLong echus = new AtomicLong();
+
+    private ScheduledExecutorService roue;
+
+    /**
+     * Constructeur utilisé par Spring : horloge système, tâches échues exécutées par quatre threads dédiés.
+     */
+    public MatchTimerService() {
+        this(System::currentTimeMillis, Executors.newFixedThreadPool(4, r -> {
+            Thread thread = new Thread(r, "match-timer-task");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    MatchTimerService(LongSupplier horloge, Executor execution) {
+        this.horloge = horloge;
+        this.execution = execution;
+        this.origine = horloge.getAsLong();
+        for (Emplacement[] niveau : roues) {
+            for (int i = 0; i < TAILLE; i++) niveau[i] = new Emplacement();
+        }
+    }
+
+    /**
+     * Lance le thread de la roue.
+     */
+    @PostConstruct
+    void demarrer() {
+        roue = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "match-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        roue.scheduleAtFixedRate(this::avancerSafe, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Planifie une tâche pour un match, en remplaçant le minuteur déjà planifié pour ce match s'il y en a un.
+     *
+     * @param idMatch identifiant du match
+     * @param delai   délai avant exécution (arrondi au tic supérieur)
+     * @param tache   tâche à exécuter à l'échéance
+     */
+    public void planifier(long idMatch, Duration delai, Runnable tache) {
+        long echeance = Math.ceilDiv(horloge.getAsLong() - origine + Math.max(0, delai.toMillis()), tickMs);
+        Minuteur minuteur = new Minuteur(idMatch, echeance, tache);
+        Minuteur precedent = minuteurs.put(idMatch, minuteur);
+        if (precedent != null) annuler(precedent);
+        planifies.incrementAndGet();
+        aPlacer.add(minuteur);
+    }
+
+    /**
+     * Annule le minuteur d'un match.
+     *
+     * @param idMatch identifiant du match
+     * @return {@code true} si un minuteur en attente a été annulé
+     */
+    public boolean annuler(long idMatch) {
+        Minuteur minuteur = minuteurs.remove(idMatch);
+        return minuteur != null && annuler(minuteur);
+    }
+
+    private boolean annuler(Minuteur minuteur) {
+        if (!minuteur.etat.compareAndSet(EN_ATTENTE, ANNULE)) return false;
+        annules.incrementAndGet();
+        aRetirer.add(minuteur);
+        return true;
+    }
+
+    /**
+     * @return nombre de minuteurs en attente
+     */
+    public int nbEnAttente() {
+        return minuteurs.size();
+    }
+
+    /**
+     * Traite les tics écoulés depuis le dernier passage : range les nouveaux minuteurs, retire les annulés,
+     * fait redescendre les minuteurs des roues supérieures et lance les tâches échues.
+     */
+    void avancer() {
+        long cible = (horloge.getAsLong() - origine) / tickMs;
+        ranger();
+        while (tic < cible) {
+            long suivant = tic + 1;
+            tic = suivant;
+            // Un tour complet d'une roue : l'emplacement courant de la roue supérieure redescend d'un niveau,
+            // en commençant par la roue la plus haute pour que ses minuteurs soient redistribués jusqu'en bas
+            int haut = 0;
+            while (haut < NIVEAUX - 1 && (suivant & ((1L << (BITS * (haut + 1))) - 1)) == 0) haut++;
+            for (int niveau = haut; niveau >= 1; niveau--) {
+                Emplacement emplacement = roues[niveau][(int) (suivant >>> (BITS * niveau)) & MASQUE];
+                for (Minuteur m = emplacement.vider(); m != null; ) {
+                    Minuteur next = m.suivant;
+                    m.suivant = null;
+                    placer(m);
+                    m = next;
+                }
+            }
+            Emplacement emplacement = roues[0][(int) (suivant & MASQUE)];
+            for (Minuteur m = emplacement.vider(); m != null; ) {
+                Minuteur next = m.suivant;
+                m.suivant = null;
+                if (m.echeance <= suivant) expirer(m);
+                else placer(m);
+                m = next;
+            }
+        }
+    }
+
+    private void avancerSafe() {
+        try {
+            avancer();
+        } catch (RuntimeException e) {
+            log.error("Échec du traitement des minuteurs de match", e);
+        }
+    }
+
+    private void ranger() {
+        for (Minuteur m; (m = aRetirer.poll()) != null; ) {
+            if (m.emplacement != null) m.emplacement.retirer(m);
+        }
+        for (Minuteur m; (m = aPlacer.poll()) != null; ) {
+            if (m.etat.get() == EN_ATTENTE) placer(m);
+        }
+    }
+
+    /**
+     * Range un minuteur dans la roue la plus fine qui contient son échéance : le niveau est celui du premier
+     * groupe de bits (en partant du haut) où l'échéance diffère du tic courant. Une échéance déjà passée
+     * est exécutée immédiatement.
+     */
+    private void placer(Minuteur m) {
+        if (m.etat.get() != EN_ATTENTE) return;
+        if (m.echeance <= tic) {
+            expirer(m);
+            return;
+        }
+        int niveau = 0;
+        while (niveau < NIVEAUX - 1 && (m.echeance >>> (BITS * (niveau + 1))) != (tic >>> (BITS * (niveau + 1)))) {
+            niveau++;
+        }
+        roues[niveau][(int) (m.echeance >>> (BITS * niveau)) & MASQUE].ajouter(m);
+    }
+
+    private void expirer(Minuteur m) {
+        if (!m.etat.compareAndSet(EN_ATTENTE, ECHU)) return;
+        minuteurs.remove(m.idMatch, m);
+        echus.incrementAndGet();
+        execution.execute(() -> {
+            try {
+                m.tache.run();
+            } catch (RuntimeException e) {
+                log.error("Échec de la tâche planifiée du match {}", m.idMatch, e);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("match.timers.pending", minuteurs, Map::size)
+                .description("Minuteurs de fin de match en attente")
+                .register(registry);
+        Gauge.builder("match.timers.lag", this, s -> Math.max(0, (s.horloge.getAsLong() - s.origine) / s.tickMs - s.tic))
+                .description("Tics de retard de la roue sur l'horloge")
+                .register(registry);
+        FunctionCounter.builder("match.timers.scheduled", planifies, AtomicLong::get).register(registry);
+        FunctionCounter.builder("match.timers.cancelled", annules, AtomicLong::get).register(registry);
+        FunctionCounter.builder("match.timers.expired", echus, AtomicLong::get).register(registry);
+    }
+
+    /**
+     * Arrête la roue ; les minuteurs en attente sont abandonnés.
+     */
+    @PreDestroy
+    void arreter() {
+        if (roue != null) roue.shutdownNow();
+        if (execution instanceof ExecutorService service) service.shutdown();
+    }
+
+    private static final class Minuteur {
+        final long idMatch;
+        final long echeance;
+        final Runnable tache;
+        final AtomicInteger etat = new AtomicInteger(EN_ATTENTE);
+        Minuteur precedent;
+        Minuteur suivant;
+        Emplacement emplacement;
+
+        Minuteur(long idMatch, long echeance, Runnable tache) {
+            this.idMatch = idMatch;
+            this.echeance = echeance;
+            this.tache = tache;
+        }
+    }
+
+    /** Liste doublement chaînée : ajout et retrait en O(1). */
+    private static final class Emplacement {
+        private Minuteur tete;
+
+        void ajouter(Minuteur m) {
+            m.emplacement = this;
+            m.precedent = null;
+            m.suivant = tete;
+            if (tete != null) tete.precedent = m;
+            tete = m;
+        }
+
+        void retirer(Minuteur m) {
+            if (m.precedent != null) m.precedent.suivant = m.suivant;
+            else tete = m.suivant;
+            if (m.suivant != null) m.suivant.precedent = m.precedent;
+            m.precedent = null;
+            m.suivant = null;
+            m.emplacement = null;
+        }
+
+        /**
+         * Détache toute la liste et la renvoie (chaînée par {@code suivant}).
+         */
+        Minuteur vider() {
+            Minuteur liste = tete;
+            tete = null;
+            for (Minuteur m = liste; m != null; m = m.suivant) {
+                m.emplacement = null;
+                m.precedent = null;
+            }
+            return liste;
+        }
+    }
+}
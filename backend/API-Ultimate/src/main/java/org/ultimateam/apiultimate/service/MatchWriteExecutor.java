@@ -0,0 +1,119 @@
+package org.ultimateam.apiultimate.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Écrivain unique par match : les modifications d'un même match (points, fautes, pause, reprise, fin, échéance)
+ * sont exécutées l'une après l'autre, dans l'ordre d'arrivée, tandis que des matchs différents avancent en parallèle.
+ *
+ * Chaque match a sa propre file, réduite à la dernière tâche soumise : une nouvelle tâche s'exécute quand la
+ * précédente du même match est terminée. Les tâches tournent sur des threads virtuels, il n'y a ni verrou global
+ * ni attente de verrou en base, et la file d'un match disparaît dès qu'elle est vide. Une tâche qui modifie à
+ * nouveau le même match (appel imbriqué) est exécutée directement.
+ *
+ * Cette file ne protège que les écritures passant par ce nœud ; le {@code @Version} de {@link
+ * org.ultimateam.apiultimate.model.Match} détecte celles d'un autre nœud.
+ */
+@Service
+public class MatchWriteExecutor {
+
+    private static final CompletableFuture<Void> LIBRE = CompletableFuture.completedFuture(null);
+
+    private final Executor execution;
+
+    /** Dernière tâche soumise pour chaque match ayant des tâches en cours. */
+    private final Map<Long, CompletableFuture<Void>> files = new ConcurrentHashMap<>();
+
+    /** Match en cours de modification par le thread courant (appels imbriqués). */
+    private final ThreadLocal<Long> matchCourant = new ThreadLocal<>();
+
+    /**
+     * Constructeur utilisé par Spring : un thread virtuel par tâche.
+     */
+    public MatchWriteExecutor() {
+        this(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    MatchWriteExecutor(Executor execution) {
+        this.execution = execution;
+    }
+
+    /**
+     * Arrête l'exécution des tâches.
+     */
+    @PreDestroy
+    void arreter() {
+        if (execution instanceof ExecutorService service) service.shutdown();
+    }
+
+    /**
+     * Exécute une modification d'un match après celles déjà soumises pour ce match, et attend son résultat.
+     *
+     * @param idMatch  identifiant du match modifié
+     * @param mutation modification à exécuter
+     * @return le résultat de la modification
+     * @throws RuntimeException l'exception levée par la modification, telle quelle
+     */
+    public <T> T executer(long idMatch, Supplier<T> mutation) {
+        Long courant = matchCourant.get();
+        if (courant != null && courant == idMatch) return mutation.get();
+
+        CompletableFuture<T> resultat = new CompletableFuture<>();
+        CompletableFuture<Void> fin = new CompletableFuture<>();
+        CompletableFuture<Void> precedente = files.put(idMatch, fin);
+
+        (precedente == null ? LIBRE : precedente).whenCompleteAsync((r, e) -> {
+            matchCourant.set(idMatch);
+            T valeur = null;
+            Throwable erreur = null;
+            try {
+                valeur = mutation.get();
+            } catch (Throwable t) {
+                erreur = t;
+            }
+            matchCourant.remove();
+            files.remove(idMatch, fin);
+            fin.complete(null);
+            // Résultat rendu après le retrait de la file : au retour de l'appelant, elle n'est plus comptée
+            if (erreur == null) resultat.complete(valeur);
+            else resultat.completeExceptionally(erreur);
+        }, execution);
+
+        try {
+            return resultat.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Exécute une modification d'un match sans résultat.
+     *
+     * @see #executer(long, Supplier)
+     */
+    public void executer(long idMatch, Runnable mutation) {
+        executer(idMatch, () -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return le nombre de matchs ayant une modification en cours ou en attente
+     */
+    public int nbFilesActives() {
+        return files.size();
+    }
+}
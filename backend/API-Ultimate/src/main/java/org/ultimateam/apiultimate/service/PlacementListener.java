@@ -0,0 +1,24 @@
+package org.ultimateam.apiultimate.service;
+
+import org.ultimateam.apiultimate.model.Match;
+
+/**
+ * Observateur notifié par {@link RoundRobinSchedulerService} à chaque match placé.
+ *
+ * Permet de restituer un planning au fur et à mesure de sa construction (prévisualisation en flux)
+ * plutôt qu'une fois la génération terminée. Lorsque l'optimisation par recherche locale est active,
+ * les notifications ont lieu à la fin, pour les matchs du planning optimisé.
+ *
+ * Les notifications sont émises depuis le thread qui a appelé {@code generateSchedule}.
+ */
+@FunctionalInterface
+public interface PlacementListener {
+
+    /** Observateur qui ignore les notifications. */
+    PlacementListener NONE = match -> {};
+
+    /**
+     * @param match match qui vient d'être placé (non persisté)
+     */
+    void onMatchPlaced(Match match);
+}
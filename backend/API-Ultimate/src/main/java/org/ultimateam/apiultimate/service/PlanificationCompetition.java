@@ -0,0 +1,124 @@
+package org.ultimateam.apiultimate.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.ScheduleResult;
+import org.ultimateam.apiultimate.model.*;
+import org.ultimateam.apiultimate.repository.IndisponibiliteRepository;
+import org.ultimateam.apiultimate.repository.IndisponibiliteTerrainRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Placement incrémental de matchs dans une compétition déjà générée (tour suivant d'un tableau,
+ * ronde suivante d'un système suisse).
+ *
+ * Les indisponibilités des terrains de la compétition et des équipes concernées sont chargées une fois, puis
+ * complétées au fil des placements : deux matchs placés avec la même instance ne peuvent pas se chevaucher.
+ * Une instance sert à un seul appel de service et n'est pas thread-safe.
+ */
+final class PlanificationCompetition {
+
+    /** Nombre de prolongations de la période tentées lorsqu'un match ne trouve pas de créneau. */
+    private static final int PROLONGATIONS_MAX = 4;
+
+    /** Première prolongation (en jours), doublée à chaque tentative. */
+    private static final int PROLONGATION_JOURS = 7;
+
+    private final Competition competition;
+    private final MatchRepository matchRepository;
+    private final IndisponibiliteRepository indisponibiliteRepository;
+    private final IndisponibiliteTerrainRepository indisponibiliteTerrainRepository;
+    private final RoundRobinSchedulerService scheduler;
+
+    private final List<Terrain> terrains;
+    private final List<IndisponibiliteTerrain> indisponibilitesTerrains = new ArrayList<>();
+    private final Map<Long, List<Indisponibilite>> indisponibilitesEquipes = new HashMap<>();
+
+    /**
+     * @throws ResponseStatusException si la compétition n'a pas de terrain
+     */
+    PlanificationCompetition(Competition competition,
+                             MatchRepository matchRepository,
+                             IndisponibiliteRepository indisponibiliteRepository,
+                             IndisponibiliteTerrainRepository indisponibiliteTerrainRepository,
+                             RoundRobinSchedulerService scheduler) {
+        this.competition = competition;
+        this.matchRepository = matchRepository;
+        this.indisponibiliteRepository = indisponibiliteRepository;
+        this.indisponibiliteTerrainRepository = indisponibiliteTerrainRepository;
+        this.scheduler = scheduler;
+
+        this.terrains = competition.getTerrains();
+        if (terrains.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Impossible de générer la compétition : aucun terrain trouvé");
+        }
+        for (Terrain terrain : terrains) {
+            indisponibilitesTerrains.addAll(indisponibiliteTerrainRepository.findByTerrain_IdTerrain(terrain.getIdTerrain()));
+        }
+    }
+
+    private List<Indisponibilite> indisponibilites(Equipe equipe) {
+        return indisponibilitesEquipes.computeIfAbsent(equipe.getIdEquipe(),
+                id -> new ArrayList<>(indisponibiliteRepository.findAllByEquipe_IdEquipe(id)));
+    }
+
+    /**
+     * Place un round robin simple entre les équipes (une seule rencontre pour deux équipes), à partir du
+     * premier créneau à venir de la période de la compétition. Si des rencontres restent sans créneau, la période
+     * est prolongée.
+     *
+     * @return les matchs placés et les seules indisponibilités qu'ils génèrent
+     * @throws ResponseStatusException si aucune prolongation ne suffit
+     */
+    ScheduleResult placer(List<Equipe> equipes) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDate debut = competition.getDateDebut().isAfter(maintenant.toLocalDate()) ? competition.getDateDebut() : maintenant.toLocalDate();
+        LocalDate fin = competition.getDateFin().isBefore(debut) ? debut : competition.getDateFin();
+
+        List<Indisponibilite> indispos = new ArrayList<>();
+        for (Equipe equipe : equipes) {
+            indispos.addAll(indisponibilites(equipe));
+            // Pas de match sur un créneau déjà passé
+            if (maintenant.isAfter(debut.atStartOfDay())) {
+                indispos.add(new Indisponibilite(debut.atStartOfDay(), maintenant, equipe));
+            }
+        }
+
+        long attendus = (long) equipes.size() * (equipes.size() - 1) / 2;
+        ScheduleResult result = scheduler.generateSchedule(equipes, terrains, debut, fin, false,
+                indispos, indisponibilitesTerrains, RoundRobinSchedulerService.Mode.BITSET);
+        for (int essai = 0; result.getMatchs().size() < attendus && essai < PROLONGATIONS_MAX; essai++) {
+            fin = fin.plusDays((long) PROLONGATION_JOURS << essai);
+            result = scheduler.generateSchedule(equipes, terrains, debut, fin, false,
+                    indispos, indisponibilitesTerrains, RoundRobinSchedulerService.Mode.BITSET);
+        }
+        if (result.getMatchs().size() < attendus) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Les équipes ou terrains ne sont pas disponibles pour cette date.");
+        }
+
+        for (Match match : result.getMatchs()) match.setIdCompetition(competition);
+        return new ScheduleResult(
+                result.getMatchs(),
+                result.getIndisponibilites().stream().filter(i -> i.getMatch() != null).toList(),
+                result.getIndisponibiliteTerrains().stream().filter(i -> i.getMatch() != null).toList());
+    }
+
+    /**
+     * Persiste des matchs placés et leurs indisponibilités, et en tient compte pour les placements suivants.
+     */
+    void enregistrer(ScheduleResult result) {
+        matchRepository.saveAll(result.getMatchs());
+        indisponibiliteRepository.saveAll(result.getIndisponibilites());
+        indisponibiliteTerrainRepository.saveAll(result.getIndisponibiliteTerrains());
+
+        for (Indisponibilite ind : result.getIndisponibilites()) indisponibilites(ind.getEquipe()).add(ind);
+        indisponibilitesTerrains.addAll(result.getIndisponibiliteTerrains());
+    }
+}
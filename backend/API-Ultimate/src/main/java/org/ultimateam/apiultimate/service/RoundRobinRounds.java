@@ -0,0 +1,129 @@
+package org.ultimateam.apiultimate.service;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Parcours paresseux des rencontres d'un round robin, ronde par ronde (méthode du cercle).
+ *
+ * Avec n équipes (n pair, une équipe « fantôme » étant ajoutée sinon), chaque ronde oppose la i-ème position
+ * du cercle à la (n-1-i)-ème ; la première position reste fixe et les autres tournent d'un cran entre deux
+ * rondes. Chaque équipe joue au plus une fois par ronde et chaque paire apparaît dans exactement une ronde.
+ *
+ * Seul le cercle (n entiers) est conservé : les rencontres sont produites à la demande, dans le même ordre que
+ * l'ancienne liste matérialisée (avec le match retour juste après le match aller en mode aller-retour).
+ *
+ * Les rondes ne fixent que l'ordre des rencontres : les placements ne les traduisent pas en journées, et une équipe
+ * peut jouer plusieurs matchs le même jour si ses disponibilités le permettent.
+ *
+ * Utilisation : {@code while (rounds.next()) { ... rounds.equipe1(), rounds.equipe2() ... }}.
+ * Cette classe n'est pas thread-safe : une instance sert à un seul parcours.
+ */
+final class RoundRobinRounds {
+
+    private final int nbEquipes;
+    private final boolean homeAndAway;
+
+    /** Cercle des positions ; -1 = équipe fantôme. */
+    private final int[] rot;
+
+    private int ronde = 0;
+    private int position = -1;
+    private boolean retour = false;
+
+    private int equipe1 = -1;
+    private int equipe2 = -1;
+
+    /**
+     * @param nbEquipes   nombre d'équipes (indices de 0 à nbEquipes - 1)
+     * @param homeAndAway vrai pour produire aussi chaque match retour
+     */
+    RoundRobinRounds(int nbEquipes, boolean homeAndAway) {
+        this.nbEquipes = nbEquipes;
+        this.homeAndAway = homeAndAway;
+        int n = nbEquipes % 2 == 1 ? nbEquipes + 1 : nbEquipes;
+        this.rot = new int[n];
+        for (int i = 0; i < n; i++) rot[i] = i < nbEquipes ? i : -1;
+    }
+
+    /**
+     * @return nombre total de rencontres produites par le parcours
+     */
+    int nbMatchs() {
+        return nbEquipes * (nbEquipes - 1) / 2 * (homeAndAway ? 2 : 1);
+    }
+
+    /**
+     * Passe à la rencontre suivante.
+     *
+     * @return faux lorsque toutes les rencontres ont été produites
+     */
+    boolean next() {
+        if (retour) {
+            // Match retour de la rencontre courante
+            retour = false;
+            int a = equipe1;
+            equipe1 = equipe2;
+            equipe2 = a;
+            return true;
+        }
+        int n = rot.length;
+        while (ronde < n - 1) {
+            position++;
+            if (position >= n / 2) {
+                // Rotation : fixe la première équipe et tourne les autres
+                int last = rot[n - 1];
+                System.arraycopy(rot, 1, rot, 2, n - 2);
+                rot[1] = last;
+                ronde++;
+                position = -1;
+                continue;
+            }
+            int a = rot[position];
+            int b = rot[n - 1 - position];
+            if (a >= 0 && b >= 0) {
+                equipe1 = a;
+                equipe2 = b;
+                retour = homeAndAway;
+                return true;
+            }
+        }
+        equipe1 = -1;
+        equipe2 = -1;
+        return false;
+    }
+
+    /**
+     * @return indice de l'équipe 1 (qui reçoit) de la rencontre courante
+     */
+    int equipe1() {
+        verifierCourante();
+        return equipe1;
+    }
+
+    /**
+     * @return indice de l'équipe 2 de la rencontre courante
+     */
+    int equipe2() {
+        verifierCourante();
+        return equipe2;
+    }
+
+    private void verifierCourante() {
+        if (equipe1 < 0) throw new NoSuchElementException("Aucune rencontre courante");
+    }
+
+    /**
+     * Matérialise toutes les rencontres dans un tableau plat {@code [a0, b0, a1, b1, ...]}, pour les placements
+     * qui ont besoin d'un accès aléatoire aux paires (portfolio, packing, optimiseur).
+     */
+    static int[] toArray(int nbEquipes, boolean homeAndAway) {
+        RoundRobinRounds rounds = new RoundRobinRounds(nbEquipes, homeAndAway);
+        int[] pairs = new int[2 * rounds.nbMatchs()];
+        int k = 0;
+        while (rounds.next()) {
+            pairs[k++] = rounds.equipe1;
+            pairs[k++] = rounds.equipe2;
+        }
+        return pairs;
+    }
+}
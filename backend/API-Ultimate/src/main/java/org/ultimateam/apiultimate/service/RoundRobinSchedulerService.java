@@ -1,26 +1,30 @@
 package org.ultimateam.apiultimate.service;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.ultimateam.apiultimate.DTO.ScheduleResult;
 import org.ultimateam.apiultimate.model.*;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-
+import java.util.stream.IntStream;
+
+/**
+ * Service de génération des calendriers de matchs (round robin).
+ *
+ * Le service est sans état : chaque génération travaille sur son propre {@link SchedulingContext},
+ * de sorte que plusieurs compétitions peuvent être générées simultanément.
+ */
 @Service
 public class RoundRobinSchedulerService {
 
-    /**
-     * Petite record interne représentant un bloc de temps (début et fin)
-     */
-    public record Interval(LocalDateTime start, LocalDateTime end) {}
-
     // Constantes de configuration pour la génération du planning
     private static final int START_HOUR = 9;   // Début des matchs
     private static final int END_HOUR = 18;    // Fin des matchs
@@ -28,13 +32,59 @@ public class RoundRobinSchedulerService {
     private static final int MATCH_DURATION_MIN = 100;  // Durée d'un match
     private static final int BREAK_DURATION_BETWEEN_MATCHES_MIN = 10;  // Pause entre deux matchs
     protected static final int SLOT_DURATION_MIN = MATCH_DURATION_MIN + BREAK_DURATION_BETWEEN_MATCHES_MIN;
+    private static final long OPTIMIZER_SEED = 42L;  // Graine de l'optimiseur (générations reproductibles)
+
+    /**
+     * Mode de placement des matchs.
+     *
+     * INTERVAL : parcours jour par jour des créneaux et terrains, disponibilités testées sur des {@link LocalDateTime}
+     *            via les index d'intervalles.
+     * BITSET   : chaque (jour, créneau) reçoit un indice entier et les calendriers des équipes et terrains sont des
+     *            {@link BitSet} ; le placement d'une paire se résume à un ET logique entre trois bitsets.
+     * SLOT_PACKING : parcours créneau par créneau sur la même grille ; pour chaque créneau, le plus grand ensemble
+     *            de rencontres en attente deux à deux compatibles est placé sur les terrains libres
+     *            (couplage maximum, voir {@link CompatiblePairMatcher}).
+     * PORTFOLIO : plusieurs variantes aléatoires du placement BITSET (ordre des rencontres et priorité des terrains
+     *            mélangés) exécutées en parallèle sur un pool fork-join ; la meilleure selon {@link ScheduleScore}
+     *            est conservée. Le résultat ne dépend que de la graine, pas du nombre de cœurs.
+     */
+    public enum Mode {INTERVAL, BITSET, SLOT_PACKING, PORTFOLIO}
+
+    /**
+     * Mode utilisé par {@link #generateSchedule(List, List, LocalDate, LocalDate, boolean, List, List)}.
+     * Configurable via la propriété {@code app.scheduler.mode}. Par défaut {@link Mode#SLOT_PACKING} : sur une
+     * période serrée, le parcours jour par jour du mode INTERVAL laisse de nombreuses rencontres sans créneau.
+     */
+    @Value("${app.scheduler.mode:SLOT_PACKING}")
+    private Mode mode = Mode.SLOT_PACKING;
+
+    /**
+     * Budget de temps, en millisecondes, de l'optimisation par recherche locale lancée après le placement
+     * (voir {@link ScheduleOptimizer}). 0 désactive l'optimisation. Propriété {@code app.scheduler.optimizer.budget-ms}.
+     */
+    @Value("${app.scheduler.optimizer.budget-ms:0}")
+    private long optimizerBudgetMs = 0;
+
+    /** Nombre de variantes essayées par le mode {@link Mode#PORTFOLIO} ({@code app.scheduler.portfolio.variants}). */
+    @Value("${app.scheduler.portfolio.variants:16}")
+    private int portfolioVariants = 16;
+
+    /** Graine du mode {@link Mode#PORTFOLIO} ({@code app.scheduler.portfolio.seed}). */
+    @Value("${app.scheduler.portfolio.seed:42}")
+    private long portfolioSeed = 42L;
 
     /**
-     * autoBlocks garde la liste des créneaux où chaque équipe est automatiquement bloquée
-     * (parce qu'un match lui a déjà été attribué).
+     * Index des indisponibilités construits pour une génération :
+     * - {@code equipes} regroupe, par équipe, les indisponibilités déclarées et les blocs automatiques
+     *   (matchs déjà attribués) ; les conflits y sont testés bornes incluses,
+     * - {@code terrainsDeclares} contient les indisponibilités déclarées des terrains (bornes incluses),
+     * - {@code terrainsOccupes} contient les matchs déjà placés sur chaque terrain (chevauchement strict).
      */
-    Map<Equipe, List<Interval>> autoBlocks = new HashMap<>();
-    Map<Terrain, List<Interval>> terrainAutoBlocks = new HashMap<>();
+    record AvailabilityIndex(
+            Map<Object, IntervalIndex> equipes,
+            Map<Object, IntervalIndex> terrainsDeclares,
+            Map<Object, IntervalIndex> terrainsOccupes
+    ) {}
 
 
     /**
@@ -47,11 +97,16 @@ public class RoundRobinSchedulerService {
      * - respecte les indisponibilités déclarées et les blocages automatiques déjà créés pour chaque équipe,
      * - ajoute les matchs au ScheduleResult ainsi que les indisponibilités générées par l'attribution d'un match.
      *
+     * Le service ne conserve aucun état entre deux appels : tout l'état d'une génération est porté par un
+     * {@link SchedulingContext} propre à l'appel, et les listes fournies ne sont jamais modifiées.
+     * Plusieurs générations peuvent donc s'exécuter en parallèle sur le même bean.
+     *
      * @param equipes           liste des équipes participantes (doit contenir au moins 2 équipes)
      * @param startDate         date de début de la période de planification (incluse)
      * @param endDate           date de fin de la période de planification (incluse)
      * @param homeAndAway       vrai pour générer des rencontres aller-retour (A vs B et B vs A)
      * @param indisponibilites  liste des indisponibilités pré-déclarées des équipes (sera conservée dans le résultat)
+     * @param indisponibilitesTerrains liste des indisponibilités pré-déclarées des terrains (sera conservée dans le résultat)
      * @return ScheduleResult contenant la liste des matchs planifiés et la liste d'indisponibilités (y compris celles ajoutées automatiquement)
      * @throws ResponseStatusException si moins de 2 équipes sont fournies ou si la période ne contient pas assez de créneaux pour planifier tous les matchs
      */
@@ -64,28 +119,95 @@ public class RoundRobinSchedulerService {
             List<Indisponibilite> indisponibilites,
             List<IndisponibiliteTerrain> indisponibilitesTerrains
     ) {
-        terrainAutoBlocks.clear();
-        //autoBlocks.clear();
-        // Objet qui contiendra les matchs + indisponibilités renvoyés
-        ScheduleResult result =
-                new ScheduleResult(new ArrayList<Match>(), indisponibilites, indisponibilitesTerrains);
+        return generateSchedule(equipes, terrainsDisponibles, startDate, endDate, homeAndAway, indisponibilites, indisponibilitesTerrains,
+                mode, Duration.ofMillis(optimizerBudgetMs));
+    }
 
-        if (equipes.size() < 2) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Il faut au moins 2 équipes.");
-        }
+    /**
+     * Variante de {@link #generateSchedule(List, List, LocalDate, LocalDate, boolean, List, List)} permettant
+     * de choisir explicitement le mode de placement.
+     *
+     * @param mode mode de placement des matchs (voir {@link Mode})
+     */
+    public ScheduleResult generateSchedule(
+            List<Equipe> equipes,
+            List<Terrain> terrainsDisponibles,
+            LocalDate startDate,
+            LocalDate endDate,
+            boolean homeAndAway,
+            List<Indisponibilite> indisponibilites,
+            List<IndisponibiliteTerrain> indisponibilitesTerrains,
+            Mode mode
+    ) {
+        return generateSchedule(equipes, terrainsDisponibles, startDate, endDate, homeAndAway, indisponibilites, indisponibilitesTerrains,
+                mode, Duration.ZERO);
+    }
 
-        // Génère toutes les paires de matchs selon le round robin
-        List<Pair<Equipe, Equipe>> pairs = generateRoundRobinPairs(equipes, homeAndAway);
+    /**
+     * Variante complète : placement selon {@code mode}, puis optimisation par recherche locale pendant
+     * {@code budgetOptimisation} (voir {@link ScheduleOptimizer}). Le planning renvoyé est le meilleur trouvé
+     * à l'expiration du budget ; il n'est jamais moins bon que celui issu du placement.
+     *
+     * @param mode               mode de placement des matchs (voir {@link Mode})
+     * @param budgetOptimisation temps accordé à l'optimisation ; nul ou négatif pour ne pas optimiser
+     */
+    public ScheduleResult generateSchedule(
+            List<Equipe> equipes,
+            List<Terrain> terrainsDisponibles,
+            LocalDate startDate,
+            LocalDate endDate,
+            boolean homeAndAway,
+            List<Indisponibilite> indisponibilites,
+            List<IndisponibiliteTerrain> indisponibilitesTerrains,
+            Mode mode,
+            Duration budgetOptimisation
+    ) {
+        return schedule(equipes, terrainsDisponibles, startDate, endDate, homeAndAway, indisponibilites, indisponibilitesTerrains,
+                mode, budgetOptimisation, PlacementListener.NONE);
+    }
 
-        // Créneaux horaires dans la journée
-        List<LocalTime> timeSlots = generateTimeSlots();
+    /**
+     * Variante de {@link #generateSchedule(List, List, LocalDate, LocalDate, boolean, List, List)} qui signale
+     * chaque match à {@code listener} dès qu'il est placé (mode et optimisation configurés).
+     *
+     * @param listener observateur des placements
+     */
+    public ScheduleResult generateSchedule(
+            List<Equipe> equipes,
+            List<Terrain> terrainsDisponibles,
+            LocalDate startDate,
+            LocalDate endDate,
+            boolean homeAndAway,
+            List<Indisponibilite> indisponibilites,
+            List<IndisponibiliteTerrain> indisponibilitesTerrains,
+            PlacementListener listener
+    ) {
+        return schedule(equipes, terrainsDisponibles, startDate, endDate, homeAndAway, indisponibilites, indisponibilitesTerrains,
+                mode, Duration.ofMillis(optimizerBudgetMs), listener);
+    }
+
+    /**
+     * Vérifications préalables à la génération d'un round robin, sans rien placer : au moins 2 équipes, et pas plus
+     * de matchs à jouer que de créneaux dans la période.
+     *
+     * @param nbEquipes   nombre d'équipes participantes
+     * @param nbTerrains  nombre de terrains de la compétition
+     * @param startDate   premier jour de la période (inclus)
+     * @param endDate     dernier jour de la période (inclus)
+     * @param homeAndAway vrai pour des rencontres aller-retour
+     * @throws ResponseStatusException si moins de 2 équipes ou si la période ne contient pas assez de créneaux
+     */
+    public static void verifierPeriode(int nbEquipes, int nbTerrains, LocalDate startDate, LocalDate endDate, boolean homeAndAway) {
+        if (nbEquipes < 2) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Il faut au moins 2 équipes.");
+        }
 
         // Calcul du nombre total de matchs et de créneaux disponibles
-        int nbTerrains = terrainsDisponibles.size();
-        long totalMatches = pairs.size();
+        long n = nbEquipes;
+        long totalMatches = n * (n - 1) / 2 * (homeAndAway ? 2 : 1);
         long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
 
-        long slotsPerDay = (long) timeSlots.size() * nbTerrains;
+        long slotsPerDay = (long) generateTimeSlots().size() * nbTerrains;
         long totalPossibleSlots = slotsPerDay * totalDays;
 
         // Vérification que la période est suffisante
@@ -97,36 +219,84 @@ public class RoundRobinSchedulerService {
                             totalPossibleSlots + " créneaux disponibles."
             );
         }
+    }
+
+    private ScheduleResult schedule(
+            List<Equipe> equipes,
+            List<Terrain> terrainsDisponibles,
+            LocalDate startDate,
+            LocalDate endDate,
+            boolean homeAndAway,
+            List<Indisponibilite> indisponibilites,
+            List<IndisponibiliteTerrain> indisponibilitesTerrains,
+            Mode mode,
+            Duration budgetOptimisation,
+            PlacementListener listener
+    ) {
+        verifierPeriode(equipes.size(), terrainsDisponibles.size(), startDate, endDate, homeAndAway);
+
+        // Créneaux horaires dans la journée
+        List<LocalTime> timeSlots = generateTimeSlots();
+
+        // Tout l'état de la génération vit dans ce contexte : le service reste sans état
+        // Avec optimisation, les matchs ne sont signalés qu'une fois le planning définitif connu
+        boolean optimiser = budgetOptimisation != null && budgetOptimisation.isPositive();
+        SchedulingContext ctx = SchedulingContext.of(equipes, terrainsDisponibles, startDate, endDate, homeAndAway,
+                timeSlots, indisponibilites, indisponibilitesTerrains, optimiser ? PlacementListener.NONE : listener);
+
+        switch (mode) {
+            case BITSET -> placeWithSlotGrid(ctx);
+            case SLOT_PACKING -> placeWithSlotPacking(ctx);
+            case PORTFOLIO -> placeWithPortfolio(ctx);
+            default -> placeWithIntervals(ctx);
+        }
+
+        if (optimiser) {
+            ScheduleResult optimise = new ScheduleOptimizer(ctx, buildSlotGrid(ctx), OPTIMIZER_SEED).optimize(ctx.result(), budgetOptimisation);
+            if (listener != null) optimise.getMatchs().forEach(listener::onMatchPlaced);
+            return optimise;
+        }
+        return ctx.result();
+    }
+
+    /**
+     * Placement en mode {@link Mode#INTERVAL} : parcourt les jours, créneaux et terrains dans l'ordre et y place
+     * les paires du round robin l'une après l'autre.
+     */
+    private void placeWithIntervals(SchedulingContext ctx) {
+        ScheduleResult result = ctx.result();
+        List<Terrain> terrainsDisponibles = ctx.terrains();
 
-        int matchIndex = 0;
-        LocalDate currentDay = startDate;
+        // Rencontres du round robin, produites ronde par ronde au fil des placements
+        RoundRobinRounds rounds = new RoundRobinRounds(ctx.equipes().size(), ctx.homeAndAway());
+        boolean reste = rounds.next();
+
+        // Index des indisponibilités, construit une seule fois pour toute la génération
+        AvailabilityIndex index = buildIndex(ctx.indisponibilites(), ctx.indisponibilitesTerrains());
+
+        LocalDate currentDay = ctx.startDate();
 
         // Boucle principale qui tente de placer tous les matchs
-        while (matchIndex < totalMatches) {
+        while (reste) {
 
-            for (LocalTime time : timeSlots) {
+            for (LocalTime time : ctx.timeSlots()) {
                 for (Terrain terrain : terrainsDisponibles) {
 
-                    if (matchIndex >= totalMatches) break;
+                    if (!reste) break;
 
                     LocalDateTime dateMatch = LocalDateTime.of(currentDay, time);
 
-                    if (!isTerrainAvailable(terrain, dateMatch, indisponibilitesTerrains)) {
+                    if (!isTerrainAvailable(terrain, dateMatch, index)) {
                         continue; // Le terrain est occupé ou indisponible, on passe au suivant
                     }
 
                     // On récupère la paire A vs B
-                    Pair<Equipe, Equipe> pair = pairs.get(matchIndex);
-                    Equipe A = pair.getLeft();
-                    Equipe B = pair.getRight();
-                    if (A == null || B == null) break;
-
+                    Equipe A = ctx.equipes().get(rounds.equipe1());
+                    Equipe B = ctx.equipes().get(rounds.equipe2());
 
-                    //System.out.println(dateMatch);
-
-                    // Vérifie si A et B sont disponibles (indispos déclarées + autoBlocks)
-                    boolean Aok = isAvailable(A, dateMatch, autoBlocks, indisponibilites);
-                    boolean Bok = isAvailable(B, dateMatch, autoBlocks, indisponibilites);
+                    // Vérifie si A et B sont disponibles (indispos déclarées + matchs déjà placés)
+                    boolean Aok = isAvailable(A, dateMatch, index);
+                    boolean Bok = isAvailable(B, dateMatch, index);
 
                     if (!Aok || !Bok) {
                         continue; // on prend le prochain créneau
@@ -140,108 +310,476 @@ public class RoundRobinSchedulerService {
                     match.setTerrain(terrain);
 
                     result.addMatch(match);
+                    ctx.listener().onMatchPlaced(match);
 
                     // On bloque les équipes pendant ce créneau
-                    blockEquipe(A, dateMatch, autoBlocks, result, match);
-                    blockEquipe(B, dateMatch, autoBlocks, result, match);
+                    blockEquipe(A, dateMatch, index, result, match);
+                    blockEquipe(B, dateMatch, index, result, match);
 
-                    blockTerrain(terrain, dateMatch, result, match);
+                    blockTerrain(terrain, dateMatch, index, result, match);
 
-                    matchIndex++;
+                    reste = rounds.next();
                 }
             }
 
             // Passage au jour suivant
             currentDay = currentDay.plusDays(1);
 
-            if (currentDay.isAfter(endDate)) {
+            if (currentDay.isAfter(ctx.endDate())) {
                 break;
             }
         }
+    }
+
+    /**
+     * Placement en mode {@link Mode#BITSET}.
+     *
+     * Les équipes et terrains sont convertis en indices denses, leurs indisponibilités déclarées sont projetées une
+     * seule fois sur la {@link SlotGrid}, puis chaque paire (dans l'ordre du round robin) est placée sur le premier
+     * créneau où les deux équipes et un terrain sont libres. Aucune date n'est manipulée pendant la recherche :
+     * les {@link Match} et indisponibilités ne sont construits qu'une fois le créneau trouvé.
+     */
+    private void placeWithSlotGrid(SchedulingContext ctx) {
+        List<Equipe> equipes = ctx.equipes();
 
-        return result;
+        SlotGrid grid = buildSlotGrid(ctx);
+
+        RoundRobinRounds rounds = new RoundRobinRounds(equipes.size(), ctx.homeAndAway());
+        while (rounds.next()) {
+            int a = rounds.equipe1();
+            int b = rounds.equipe2();
+
+            int slot = grid.findSlot(a, b, 0);
+            if (slot < 0) continue; // aucune place pour cette paire dans la période
+
+            int terrain = grid.freeTerrain(slot);
+            bookMatch(ctx, grid, a, b, terrain, slot);
+        }
     }
 
-    private boolean isTerrainAvailable(Terrain terrain, LocalDateTime dateMatch, List<IndisponibiliteTerrain> declaredBlocks) {
-        LocalDateTime start = dateMatch;
-        LocalDateTime end = dateMatch.plusMinutes(SLOT_DURATION_MIN);
+    /**
+     * Variante du placement BITSET calculée par le mode {@link Mode#PORTFOLIO} : créneau et terrain de chaque
+     * rencontre (dans l'ordre du round robin, -1 si non placée) et score obtenu.
+     */
+    private record PortfolioVariant(int index, int[] slots, int[] terrains, ScheduleScore score) {}
 
-        if (declaredBlocks != null) {
-            for (IndisponibiliteTerrain ind : declaredBlocks) {
-                if (ind.getTerrain() != null &&
-                        java.util.Objects.equals(ind.getTerrain().getIdTerrain(), terrain.getIdTerrain())) {
+    /**
+     * Placement en mode {@link Mode#PORTFOLIO}.
+     *
+     * Les graines des variantes sont tirées séquentiellement à partir de {@code portfolioSeed}, puis les variantes
+     * sont calculées en parallèle sur le pool fork-join commun, chacune sur sa propre {@link SlotGrid}. La variante 0
+     * garde l'ordre du round robin et la priorité naturelle des terrains (elle reproduit le mode BITSET) : le
+     * portfolio n'est donc jamais moins bon. En cas d'égalité de score, la variante de plus petit indice l'emporte,
+     * ce qui rend le résultat indépendant de l'ordre d'exécution.
+     */
+    private void placeWithPortfolio(SchedulingContext ctx) {
+        int nbEquipes = ctx.equipes().size();
+        int[] pairs = RoundRobinRounds.toArray(nbEquipes, ctx.homeAndAway());
+
+        SplittableRandom racine = new SplittableRandom(portfolioSeed);
+        long[] graines = new long[Math.max(1, portfolioVariants)];
+        for (int i = 0; i < graines.length; i++) graines[i] = racine.nextLong();
+
+        PortfolioVariant meilleure = IntStream.range(0, graines.length)
+                .parallel()
+                .mapToObj(i -> runVariant(ctx, pairs, i, graines[i]))
+                .min(Comparator.comparingLong((PortfolioVariant v) -> v.score().cout()).thenComparingInt(PortfolioVariant::index))
+                .orElseThrow();
+
+        SlotGrid grid = buildSlotGrid(ctx);
+        for (int p = 0; p < meilleure.slots().length; p++) {
+            int slot = meilleure.slots()[p];
+            if (slot >= 0) bookMatch(ctx, grid, pairs[2 * p], pairs[2 * p + 1], meilleure.terrains()[p], slot);
+        }
+    }
 
-                    boolean isOverlapping = end.isBefore(ind.getDateDebutIndisponibilite());
-                    isOverlapping = isOverlapping || start.isAfter(ind.getDateFinIndisponibilite());
-                    System.out.println("Chevauchement :" + !isOverlapping + " \n date fin indispo : " + ind.getDateFinIndisponibilite() + "date debut match : " + start
-                    + "\n date debut indispo : " + ind.getDateDebutIndisponibilite() + "date fin match : " + end + "\n \n ");
+    /**
+     * Calcule une variante du portfolio : placement glouton sur la grille, les rencontres étant prises dans un ordre
+     * mélangé et les terrains essayés dans un ordre de priorité mélangé (sauf pour la variante 0).
+     */
+    private PortfolioVariant runVariant(SchedulingContext ctx, int[] pairs, int index, long graine) {
+        SlotGrid grid = buildSlotGrid(ctx);
+        int nbPairs = pairs.length / 2;
+        Random random = new Random(graine);
+
+        int[] ordre = new int[nbPairs];
+        for (int p = 0; p < nbPairs; p++) ordre[p] = p;
+        int[] ordreTerrains = new int[grid.terrainCount()];
+        for (int t = 0; t < ordreTerrains.length; t++) ordreTerrains[t] = t;
+        if (index > 0) {
+            shuffle(ordre, random);
+            shuffle(ordreTerrains, random);
+        }
 
+        int[] slots = new int[nbPairs];
+        int[] terrains = new int[nbPairs];
+        Arrays.fill(slots, -1);
+        for (int p : ordre) {
+            int a = pairs[2 * p];
+            int b = pairs[2 * p + 1];
+            int slot = grid.findSlot(a, b, 0);
+            if (slot < 0) continue;
+            int terrain = grid.freeTerrain(slot, ordreTerrains);
+            grid.book(a, b, terrain, slot);
+            slots[p] = slot;
+            terrains[p] = terrain;
+        }
 
-                    if (!isOverlapping) {
-                        System.out.println("Terrain " + terrain.getIdTerrain() + " bloqué par indispo le " + dateMatch);
-                        return false;
-                    }
+        return new PortfolioVariant(index, slots, terrains, ScheduleScore.evaluate(grid, ctx.equipes().size(), pairs, slots, terrains));
+    }
+
+    /** Mélange de Fisher-Yates. */
+    private static void shuffle(int[] valeurs, Random random) {
+        for (int i = valeurs.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = valeurs[i];
+            valeurs[i] = valeurs[j];
+            valeurs[j] = tmp;
+        }
+    }
+
+    /**
+     * Placement en mode {@link Mode#SLOT_PACKING}.
+     *
+     * Contrairement aux autres modes, qui prennent les rencontres une à une, celui-ci parcourt les créneaux dans
+     * l'ordre et remplit chacun au maximum : parmi les rencontres en attente dont les deux équipes sont libres,
+     * il choisit le plus grand ensemble sans équipe commune, dans la limite des terrains libres. Le choix part
+     * d'un couplage glouton dans l'ordre du round robin, complété par des chemins augmentants ; les rencontres
+     * restantes restent en attente pour les créneaux suivants au lieu de bloquer le terrain.
+     */
+    private void placeWithSlotPacking(SchedulingContext ctx) {
+        SlotGrid grid = buildSlotGrid(ctx);
+        int nbEquipes = ctx.equipes().size();
+        int nbTerrains = ctx.terrains().size();
+
+        int[] pairs = RoundRobinRounds.toArray(nbEquipes, ctx.homeAndAway());
+        int nbPairs = pairs.length / 2;
+
+        // En aller-retour, la rencontre retour suit immédiatement la rencontre aller
+        int[] twin = new int[nbPairs];
+        Arrays.fill(twin, -1);
+        if (ctx.homeAndAway()) {
+            for (int p = 0; p + 1 < nbPairs; p += 2) {
+                twin[p] = p + 1;
+                twin[p + 1] = p;
+            }
+        }
+
+        int[] pending = new int[nbPairs];
+        for (int p = 0; p < nbPairs; p++) pending[p] = p;
+        int pendingCount = nbPairs;
+        boolean[] done = new boolean[nbPairs];
+
+        int[] terrainsLibres = new int[nbTerrains];
+        int[] busy = new int[nbEquipes];      // busy[e] == slot + 1 : équipe déjà prise sur ce créneau
+        int[] local = new int[nbEquipes];     // indice du sommet de l'équipe dans le graphe du créneau
+        int[] localStamp = new int[nbEquipes];
+        int[] equipeOf = new int[nbEquipes];
+        int[] chosen = new int[Math.max(1, nbTerrains)];
+        int[] edgeU = new int[nbPairs];
+        int[] edgeV = new int[nbPairs];
+        int[] edgePair = new int[nbPairs];
+        CompatiblePairMatcher matcher = new CompatiblePairMatcher();
+
+        for (int slot = 0; slot < grid.slotCount() && pendingCount > 0; slot++) {
+            int k = 0;
+            for (int t = 0; t < nbTerrains; t++) {
+                if (grid.isTerrainFree(t, slot)) terrainsLibres[k++] = t;
+            }
+            if (k == 0) continue;
+
+            // 1. Couplage glouton dans l'ordre du round robin
+            int count = 0;
+            for (int i = 0; i < pendingCount && count < k; i++) {
+                int p = pending[i];
+                int a = pairs[2 * p], b = pairs[2 * p + 1];
+                if (busy[a] == slot + 1 || busy[b] == slot + 1) continue;
+                if (!grid.isEquipeFree(a, slot) || !grid.isEquipeFree(b, slot)) continue;
+                busy[a] = slot + 1;
+                busy[b] = slot + 1;
+                chosen[count++] = p;
+            }
+
+            // 2. Complément par chemins augmentants si des terrains restent libres
+            if (count < k) {
+                count = augmentSlot(grid, slot, pairs, twin, done, pending, pendingCount, chosen, count, k,
+                        local, localStamp, equipeOf, edgeU, edgeV, edgePair, matcher);
+            }
+
+            // 3. Réservation, rencontres prioritaires sur les premiers terrains
+            Arrays.sort(chosen, 0, count);
+            for (int i = 0; i < count; i++) {
+                int p = chosen[i];
+                bookMatch(ctx, grid, pairs[2 * p], pairs[2 * p + 1], terrainsLibres[i], slot);
+                done[p] = true;
+            }
+
+            if (count > 0) {
+                int w = 0;
+                for (int i = 0; i < pendingCount; i++) {
+                    if (!done[pending[i]]) pending[w++] = pending[i];
                 }
+                pendingCount = w;
             }
         }
+    }
+
+    /**
+     * Construit le graphe des rencontres jouables sur un créneau et agrandit le couplage glouton
+     * {@code chosen[0..count)} jusqu'à {@code limit} rencontres si possible.
+     *
+     * @return nombre de rencontres retenues ; {@code chosen} est réécrit avec leurs indices
+     */
+    private int augmentSlot(SlotGrid grid, int slot, int[] pairs, int[] twin, boolean[] done,
+                            int[] pending, int pendingCount, int[] chosen, int count, int limit,
+                            int[] local, int[] localStamp, int[] equipeOf,
+                            int[] edgeU, int[] edgeV, int[] edgePair, CompatiblePairMatcher matcher) {
+        int stamp = slot + 1;
+        int vertices = 0;
+        int edges = 0;
+
+        for (int i = 0; i < pendingCount; i++) {
+            int p = pending[i];
+            int a = pairs[2 * p], b = pairs[2 * p + 1];
+            if (!grid.isEquipeFree(a, slot) || !grid.isEquipeFree(b, slot)) continue;
+            // Une seule arête par couple d'équipes : celle de la rencontre la plus prioritaire
+            if (twin[p] >= 0 && twin[p] < p && !done[twin[p]]) continue;
+
+            if (localStamp[a] != stamp) { localStamp[a] = stamp; local[a] = vertices; equipeOf[vertices++] = a; }
+            if (localStamp[b] != stamp) { localStamp[b] = stamp; local[b] = vertices; equipeOf[vertices++] = b; }
+            edgeU[edges] = local[a];
+            edgeV[edges] = local[b];
+            edgePair[edges] = p;
+            edges++;
+        }
 
-        // 2. Vérification des indisponibilités automatiques (Matchs qu'on vient de placer)
-        List<Interval> blocks = terrainAutoBlocks.getOrDefault(terrain, new ArrayList<>());
-        for (Interval b : blocks) {
-            // Même logique de chevauchement
-            boolean isOverlapping = start.isBefore(b.end()) && end.isAfter(b.start());
-            if (isOverlapping) {
-                return false;
+        int[] degree = new int[vertices];
+        for (int e = 0; e < edges; e++) {
+            degree[edgeU[e]]++;
+            degree[edgeV[e]]++;
+        }
+        int[][] adj = new int[vertices][];
+        int[][] adjPair = new int[vertices][];
+        for (int v = 0; v < vertices; v++) {
+            adj[v] = new int[degree[v]];
+            adjPair[v] = new int[degree[v]];
+            degree[v] = 0;
+        }
+        for (int e = 0; e < edges; e++) {
+            int u = edgeU[e], v = edgeV[e];
+            adj[u][degree[u]] = v;
+            adjPair[u][degree[u]++] = edgePair[e];
+            adj[v][degree[v]] = u;
+            adjPair[v][degree[v]++] = edgePair[e];
+        }
+
+        int[] mate = new int[vertices];
+        Arrays.fill(mate, -1);
+        for (int i = 0; i < count; i++) {
+            int p = chosen[i];
+            int u = local[pairs[2 * p]], v = local[pairs[2 * p + 1]];
+            mate[u] = v;
+            mate[v] = u;
+        }
+
+        int matched = matcher.augment(adj, mate, count, limit);
+        if (matched == count) return count;
+
+        int n = 0;
+        for (int u = 0; u < vertices && n < limit; u++) {
+            int v = mate[u];
+            if (v <= u) continue;
+            for (int j = 0; j < adj[u].length; j++) {
+                if (adj[u][j] == v) {
+                    chosen[n++] = adjPair[u][j];
+                    break;
+                }
             }
         }
+        return n;
+    }
 
-        return true;
+    /**
+     * Réserve un créneau de la grille pour la rencontre (a, b) et ajoute au résultat le {@link Match}
+     * ainsi que les indisponibilités qu'il génère pour les deux équipes et le terrain.
+     */
+    private void bookMatch(SchedulingContext ctx, SlotGrid grid, int a, int b, int terrain, int slot) {
+        grid.book(a, b, terrain, slot);
+        Match match = addMatch(ctx.result(), ctx.equipes().get(a), ctx.equipes().get(b), ctx.terrains().get(terrain), grid.dateOf(slot));
+        ctx.listener().onMatchPlaced(match);
     }
 
-    private void blockTerrain(Terrain terrain, LocalDateTime dateMatch, ScheduleResult result, Match match) {
-        terrainAutoBlocks.putIfAbsent(terrain, new ArrayList<>());
-        terrainAutoBlocks.get(terrain).add(new Interval(dateMatch, dateMatch.plusMinutes(SLOT_DURATION_MIN)));
-        result.addIndisponibiliteTerrain(new IndisponibiliteTerrain(dateMatch,dateMatch.plusMinutes(SLOT_DURATION_MIN),terrain, match));
+    /**
+     * Ajoute au résultat un {@link Match} entre A et B ainsi que les indisponibilités qu'il génère
+     * pour les deux équipes et le terrain sur [dateMatch, dateMatch + SLOT_DURATION_MIN].
+     *
+     * @return le match ajouté
+     */
+    static Match addMatch(ScheduleResult result, Equipe A, Equipe B, Terrain T, LocalDateTime dateMatch) {
+        Match match = new Match();
+        match.setEquipe1(A);
+        match.setEquipe2(B);
+        match.setDateMatch(dateMatch);
+        match.setTerrain(T);
+        result.addMatch(match);
+
+        LocalDateTime fin = dateMatch.plusMinutes(SLOT_DURATION_MIN);
+        result.addIndisponibilite(new Indisponibilite(dateMatch, fin, A, match));
+        result.addIndisponibilite(new Indisponibilite(dateMatch, fin, B, match));
+        result.addIndisponibiliteTerrain(new IndisponibiliteTerrain(dateMatch, fin, T, match));
+        return match;
+    }
+
+    /**
+     * Rencontres du round robin qui n'apparaissent pas dans {@code matchs} (mêmes équipes, même sens).
+     *
+     * @param equipes     équipes de la génération
+     * @param homeAndAway vrai pour des rencontres aller-retour
+     * @param matchs      matchs effectivement placés
+     * @return les paires (équipe 1, équipe 2) restées sans créneau, dans l'ordre du round robin
+     */
+    public static List<Pair<Equipe, Equipe>> findUnplacedPairs(List<Equipe> equipes, boolean homeAndAway, List<Match> matchs) {
+        int n = equipes.size();
+        Map<Equipe, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < n; i++) indexes.put(equipes.get(i), i);
+
+        Map<Integer, Integer> places = new HashMap<>();
+        for (Match match : matchs) {
+            Integer a = indexes.get(match.getEquipe1());
+            Integer b = indexes.get(match.getEquipe2());
+            if (a != null && b != null) places.merge(a * n + b, 1, Integer::sum);
+        }
+
+        List<Pair<Equipe, Equipe>> nonPlaces = new ArrayList<>();
+        RoundRobinRounds rounds = new RoundRobinRounds(n, homeAndAway);
+        while (rounds.next()) {
+            int cle = rounds.equipe1() * n + rounds.equipe2();
+            if (places.getOrDefault(cle, 0) > 0) {
+                places.merge(cle, -1, Integer::sum);
+            } else {
+                nonPlaces.add(Pair.of(equipes.get(rounds.equipe1()), equipes.get(rounds.equipe2())));
+            }
+        }
+        return nonPlaces;
     }
 
+    /**
+     * Construit la grille de créneaux d'une génération et y projette les indisponibilités déclarées.
+     *
+     * Les indisponibilités d'équipes ou de terrains qui ne participent pas à la génération sont ignorées.
+     */
+    SlotGrid buildSlotGrid(SchedulingContext ctx) {
+        List<Equipe> equipes = ctx.equipes();
+        List<Terrain> terrains = ctx.terrains();
+        List<Indisponibilite> indisponibilites = ctx.indisponibilites();
+        List<IndisponibiliteTerrain> indisponibilitesTerrains = ctx.indisponibilitesTerrains();
+        SlotGrid grid = new SlotGrid(ctx.startDate(), ctx.endDate(), ctx.timeSlots(), SLOT_DURATION_MIN, equipes.size(), terrains.size());
+
+        Map<Object, Integer> equipeIndexes = new HashMap<>();
+        for (int i = 0; i < equipes.size(); i++) equipeIndexes.put(equipeKey(equipes.get(i)), i);
+        Map<Object, Integer> terrainIndexes = new HashMap<>();
+        for (int i = 0; i < terrains.size(); i++) terrainIndexes.put(terrainKey(terrains.get(i)), i);
+
+        if (indisponibilites != null) {
+            for (Indisponibilite ind : indisponibilites) {
+                if (ind.getEquipe() == null) continue;
+                Integer e = equipeIndexes.get(equipeKey(ind.getEquipe()));
+                if (e != null) grid.blockEquipe(e, ind.getDateDebutIndisponibilite(), ind.getDateFinIndisponibilite());
+            }
+        }
+        if (indisponibilitesTerrains != null) {
+            for (IndisponibiliteTerrain ind : indisponibilitesTerrains) {
+                if (ind.getTerrain() == null) continue;
+                Integer t = terrainIndexes.get(terrainKey(ind.getTerrain()));
+                if (t != null) grid.blockTerrain(t, ind.getDateDebutIndisponibilite(), ind.getDateFinIndisponibilite());
+            }
+        }
+        return grid;
+    }
 
     /**
-     * Construit la liste des paires de rencontres selon l'algorithme Round Robin classique.
+     * Construit les index d'indisponibilités utilisés pendant une génération.
      *
-     * L'algorithme :
-     * - si le nombre d'équipes est impair, ajoute une entrée "fantôme" (null) pour permettre la rotation,
-     * - pour chaque round, paire la i-ème équipe avec la n-1-i-ème équipe,
-     * - si l'option {@code homeAndAway} est vraie, ajoute également le match inverse (domicile/extérieur inversé).
+     * Chaque indisponibilité déclarée est rangée dans l'index de son équipe (ou de son terrain) ;
+     * les tests de disponibilité n'ont ensuite plus à parcourir la liste complète des indisponibilités.
      *
-     * @param equipes      liste des équipes à pairer
-     * @param homeAndAway  vrai pour inclure les matchs aller-retour
-     * @return liste ordonnée de paires (Equipe, Equipe) représentant les rencontres à planifier
+     * @param indisponibilites         indisponibilités déclarées des équipes
+     * @param indisponibilitesTerrains indisponibilités déclarées des terrains
+     * @return les index prêts à être interrogés et complétés au fil du placement des matchs
      */
-    private List<Pair<Equipe, Equipe>> generateRoundRobinPairs(List<Equipe> equipes, boolean homeAndAway) {
-        List<Pair<Equipe, Equipe>> matches = new ArrayList<>();
-        List<Equipe> rot = new ArrayList<>(equipes);
+    AvailabilityIndex buildIndex(List<Indisponibilite> indisponibilites, List<IndisponibiliteTerrain> indisponibilitesTerrains) {
+        AvailabilityIndex index = new AvailabilityIndex(new HashMap<>(), new HashMap<>(), new HashMap<>());
+
+        if (indisponibilites != null) {
+            for (Indisponibilite ind : indisponibilites) {
+                if (ind.getEquipe() == null) continue;
+                index.equipes()
+                        .computeIfAbsent(equipeKey(ind.getEquipe()), k -> new IntervalIndex())
+                        .add(ind.getDateDebutIndisponibilite(), ind.getDateFinIndisponibilite());
+            }
+        }
 
-        // Si nombre impair d'équipes, ajoute une "fantôme" (null)
-        if (rot.size() % 2 == 1) rot.add(null);
+        if (indisponibilitesTerrains != null) {
+            for (IndisponibiliteTerrain ind : indisponibilitesTerrains) {
+                if (ind.getTerrain() == null) continue;
+                index.terrainsDeclares()
+                        .computeIfAbsent(terrainKey(ind.getTerrain()), k -> new IntervalIndex())
+                        .add(ind.getDateDebutIndisponibilite(), ind.getDateFinIndisponibilite());
+            }
+        }
+
+        return index;
+    }
 
-        int n = rot.size();
+    /**
+     * Clé d'indexation d'une équipe : son identifiant s'il existe, sinon l'instance elle-même
+     * (équipes non persistées, par exemple dans les tests).
+     */
+    static Object equipeKey(Equipe equipe) {
+        return equipe.getIdEquipe() != null ? equipe.getIdEquipe() : equipe;
+    }
 
-        for (int round = 0; round < n - 1; round++) {
-            for (int i = 0; i < n / 2; i++) {
-                Equipe a = rot.get(i);
-                Equipe b = rot.get(n - 1 - i);
+    /**
+     * Clé d'indexation d'un terrain : son identifiant s'il existe, sinon l'instance elle-même.
+     */
+    static Object terrainKey(Terrain terrain) {
+        return terrain.getIdTerrain() != null ? terrain.getIdTerrain() : terrain;
+    }
 
-                if (a != null && b != null) {
-                    matches.add(Pair.of(a, b));
-                    if (homeAndAway) matches.add(Pair.of(b, a));
-                }
-            }
-            // Rotation : fixe la première équipe et tourne les autres
-            Equipe last = rot.remove(rot.size() - 1);
-            rot.add(1, last);
+    /**
+     * Vérifie si un terrain est libre pour le créneau [dateMatch, dateMatch + SLOT_DURATION_MIN].
+     *
+     * Les indisponibilités déclarées bloquent le créneau dès qu'elles le touchent ;
+     * les matchs déjà placés ne le bloquent que s'ils le chevauchent réellement.
+     *
+     * @param terrain   le terrain à vérifier
+     * @param dateMatch date et heure de début du créneau
+     * @param index     index des indisponibilités de la génération en cours
+     * @return true si le terrain est disponible
+     */
+    private boolean isTerrainAvailable(Terrain terrain, LocalDateTime dateMatch, AvailabilityIndex index) {
+        LocalDateTime start = dateMatch;
+        LocalDateTime end = dateMatch.plusMinutes(SLOT_DURATION_MIN);
+        Object key = terrainKey(terrain);
+
+        IntervalIndex declares = index.terrainsDeclares().get(key);
+        if (declares != null && declares.touches(start, end)) {
+            return false;
         }
 
-        return matches;
+        IntervalIndex occupes = index.terrainsOccupes().get(key);
+        return occupes == null || !occupes.overlaps(start, end);
+    }
+
+    /**
+     * Bloque un terrain pour le créneau du match qui vient de lui être attribué et ajoute
+     * l'{@link IndisponibiliteTerrain} correspondante au résultat.
+     */
+    private void blockTerrain(Terrain terrain, LocalDateTime dateMatch, AvailabilityIndex index, ScheduleResult result, Match match) {
+        index.terrainsOccupes()
+                .computeIfAbsent(terrainKey(terrain), k -> new IntervalIndex())
+                .add(dateMatch, dateMatch.plusMinutes(SLOT_DURATION_MIN));
+        result.addIndisponibiliteTerrain(new IndisponibiliteTerrain(dateMatch,dateMatch.plusMinutes(SLOT_DURATION_MIN),terrain, match));
     }
 
 
@@ -253,7 +791,7 @@ public class RoundRobinSchedulerService {
      *
      * @return liste de LocalTime représentant le début de chaque créneau journalier disponible
      */
-    private List<LocalTime> generateTimeSlots() {
+    static List<LocalTime> generateTimeSlots() {
         List<LocalTime> slots = new ArrayList<>();
 
         LocalTime current = LocalTime.of(START_HOUR, 0);
@@ -270,74 +808,40 @@ public class RoundRobinSchedulerService {
     /**
      * Vérifie si une équipe est disponible pour un créneau donné.
      *
-     * La vérification consiste en deux étapes :
-     * 1) Parcours des indisponibilités déclarées (liste fournie) et vérification qu'aucune ne chevauche
-     *    le créneau [dateMatch, dateMatch + SLOT_DURATION_MIN). Si un chevauchement est détecté, retourne false.
-     * 2) Parcours des blocs automatiques ({@code autoBlocks}) déjà assignés à l'équipe (matchs planifiés précédemment)
-     *    et vérification qu'aucun ne chevauche le créneau. Si un chevauchement est détecté, retourne false.
+     * L'index de l'équipe regroupe ses indisponibilités déclarées et les créneaux des matchs
+     * qui lui ont déjà été attribués : une seule recherche O(log n) suffit. Un bloc qui touche
+     * le créneau [dateMatch, dateMatch + SLOT_DURATION_MIN] (bornes incluses) le rend indisponible.
      *
-     * @param equipe           l'équipe à vérifier
-     * @param dateMatch        date et heure de début du créneau à tester
-     * @param autoBlocks       map des blocs automatiques déjà réservés par équipe
-     * @param declaredBlocks   liste des indisponibilités déclarées par les équipes
+     * @param equipe    l'équipe à vérifier
+     * @param dateMatch date et heure de début du créneau à tester
+     * @param index     index des indisponibilités de la génération en cours
      * @return true si l'équipe est complètement disponible pour le créneau, false sinon
      */
-    private boolean isAvailable(
-            Equipe equipe,
-            LocalDateTime dateMatch,
-            Map<Equipe, List<Interval>> autoBlocks,
-            List<Indisponibilite> declaredBlocks
-    ) {
-        LocalDateTime start = dateMatch;
-        LocalDateTime end = dateMatch.plusMinutes(SLOT_DURATION_MIN);
-
-        // Vérification indisponibilités déclarées
-        for (Indisponibilite ind : declaredBlocks) {
-            if (ind.getEquipe() != null) {
-                if (ind.getEquipe().equals(equipe)) {
-                    boolean noOverlap =
-                            end.isBefore(ind.getDateDebutIndisponibilite()) ||
-                                    start.isAfter(ind.getDateFinIndisponibilite());
-
-                    if (!noOverlap) return false;
-                }
-            }
-        }
-
-        // Vérification indispos générées par les matchs déjà placés
-        List<Interval> blocks = autoBlocks.getOrDefault(equipe, new ArrayList<>());
-        for (Interval b : blocks) {
-            boolean noOverlap =
-                    end.isBefore(b.start()) ||
-                            start.isAfter(b.end());
-
-            if (!noOverlap) return false;
-        }
-
-        return true;
+    private boolean isAvailable(Equipe equipe, LocalDateTime dateMatch, AvailabilityIndex index) {
+        IntervalIndex blocs = index.equipes().get(equipeKey(equipe));
+        return blocs == null || !blocs.touches(dateMatch, dateMatch.plusMinutes(SLOT_DURATION_MIN));
     }
 
     /**
      * Bloque automatiquement une équipe pour un créneau donné lorsque le match lui est attribué.
      *
      * Actions effectuées :
-     * - ajoute un Interval [dateMatch, dateMatch + SLOT_DURATION_MIN) dans la map {@code autoBlocks} pour l'équipe,
+     * - ajoute le bloc [dateMatch, dateMatch + SLOT_DURATION_MIN] dans l'index de l'équipe,
      * - crée et ajoute une {@link Indisponibilite} correspondante dans le {@code ScheduleResult} fourni.
      *
      * @param equipe       l'équipe à bloquer
      * @param dateMatch    date et heure de début du match (le bloc est créé jusqu'à dateMatch + SLOT_DURATION_MIN)
-     * @param autoBlocks   map des blocs automatiques à mettre à jour
+     * @param index        index des indisponibilités à mettre à jour
      * @param result       objet ScheduleResult dans lequel ajouter l'indisponibilite générée
+     * @param match        match à l'origine du blocage
      */
-    private void blockEquipe(Equipe equipe, LocalDateTime dateMatch, Map<Equipe, List<Interval>> autoBlocks, ScheduleResult result, Match match) {
-        autoBlocks.putIfAbsent(equipe, new ArrayList<>());
-        autoBlocks.get(equipe).add(new Interval(dateMatch, dateMatch.plusMinutes(SLOT_DURATION_MIN)));
+    private void blockEquipe(Equipe equipe, LocalDateTime dateMatch, AvailabilityIndex index, ScheduleResult result, Match match) {
+        index.equipes()
+                .computeIfAbsent(equipeKey(equipe), k -> new IntervalIndex())
+                .add(dateMatch, dateMatch.plusMinutes(SLOT_DURATION_MIN));
 
         // Ajoute directement dans le résultat
-        //System.out.println(dateMatch);
         result.addIndisponibilite(new Indisponibilite(dateMatch, dateMatch.plusMinutes(SLOT_DURATION_MIN), equipe, match));
-        //System.out.println(result.getIndisponibilites().get(0).getDateDebutIndisponibilite());
-
     }
 
 }
@@ -0,0 +1,377 @@
+package org.ultimateam.apiultimate.service;
+
+import org.ultimateam.apiultimate.DTO.ScheduleResult;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.model.Terrain;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Optimisation par recherche locale d'un planning produit par {@link RoundRobinSchedulerService}.
+ *
+ * Le planning est représenté sur la {@link SlotGrid} de la génération (indisponibilités déclarées uniquement) :
+ * chaque rencontre du round robin possède un créneau et un terrain, ou aucun si elle n'est pas placée.
+ * Un recuit simulé enchaîne deux types de mouvements :
+ * - déplacement d'une rencontre (placée ou non) vers un couple (créneau, terrain) libre,
+ * - échange des créneaux et terrains de deux rencontres placées.
+ * Un mouvement n'est tenté que s'il respecte les mêmes règles que le placement initial (indisponibilités
+ * déclarées, un match par terrain et par créneau, pas de match sur deux créneaux qui se touchent pour une équipe) ;
+ * il est accepté selon le critère de Metropolis sur le coût du {@link ScheduleScore}.
+ *
+ * L'algorithme est "anytime" : la meilleure solution rencontrée est conservée et renvoyée à l'expiration
+ * du budget de temps. Elle n'est jamais moins bonne que le planning de départ.
+ *
+ * Une instance sert à une seule optimisation et n'est pas thread-safe.
+ */
+class ScheduleOptimizer {
+
+    /** Nombre d'itérations entre deux lectures de l'horloge. */
+    private static final int CHECK_INTERVAL = 256;
+
+    private static final double TEMPERATURE_INITIALE = 2.0 * ScheduleScore.POIDS_TERRAIN_JOUR;
+    private static final double TEMPERATURE_FINALE = 0.5 * ScheduleScore.POIDS_TEMPS_MORT;
+
+    private final SchedulingContext ctx;
+    private final SlotGrid grid;
+    private final Random random;
+
+    private final int nbEquipes;
+    private final int nbTerrains;
+    private final int slotCount;
+    private final int slotsPerDay;
+    private final int dayCount;
+
+    /** Équipes de chaque rencontre du round robin. */
+    private final int[] pairA;
+    private final int[] pairB;
+    /** Rencontres de chaque équipe. */
+    private final int[][] pairsOfEquipe;
+
+    // État courant : créneau et terrain de chaque rencontre (-1 = non placée)
+    private final int[] slotOf;
+    private final int[] terrainOf;
+    /** equipeAt[e * slotCount + s] = rencontre jouée par e sur s, ou -1. */
+    private final int[] equipeAt;
+    /** terrainAt[t * slotCount + s] = rencontre jouée sur t au créneau s, ou -1. */
+    private final int[] terrainAt;
+
+    // Compteurs maintenus incrémentalement pour évaluer un mouvement sans tout recalculer
+    private final int[] matchsParJour;
+    private final int[] matchsParTerrainJour;
+    private final int[] tempsMortsEquipe;
+    private int nonPlaces;
+    private int terrainsJours;
+    private int tempsMorts;
+
+    /**
+     * @param ctx  contexte de la génération à optimiser
+     * @param grid grille de la génération ne contenant que les indisponibilités déclarées (aucun match réservé)
+     * @param seed graine du générateur aléatoire : à budget d'itérations égal, deux optimisations de même graine
+     *             explorent les mêmes mouvements
+     */
+    ScheduleOptimizer(SchedulingContext ctx, SlotGrid grid, long seed) {
+        this.ctx = ctx;
+        this.grid = grid;
+        this.random = new Random(seed);
+
+        this.nbEquipes = ctx.equipes().size();
+        this.nbTerrains = ctx.terrains().size();
+        this.slotCount = grid.slotCount();
+        this.slotsPerDay = grid.slotsPerDay();
+        this.dayCount = grid.dayCount();
+
+        int[] pairs = RoundRobinRounds.toArray(nbEquipes, ctx.homeAndAway());
+        int nbPairs = pairs.length / 2;
+        this.pairA = new int[nbPairs];
+        this.pairB = new int[nbPairs];
+        int[] degre = new int[nbEquipes];
+        for (int p = 0; p < nbPairs; p++) {
+            pairA[p] = pairs[2 * p];
+            pairB[p] = pairs[2 * p + 1];
+            degre[pairA[p]]++;
+            degre[pairB[p]]++;
+        }
+        this.pairsOfEquipe = new int[nbEquipes][];
+        for (int e = 0; e < nbEquipes; e++) {
+            pairsOfEquipe[e] = new int[degre[e]];
+            degre[e] = 0;
+        }
+        for (int p = 0; p < nbPairs; p++) {
+            pairsOfEquipe[pairA[p]][degre[pairA[p]]++] = p;
+            pairsOfEquipe[pairB[p]][degre[pairB[p]]++] = p;
+        }
+
+        this.slotOf = new int[nbPairs];
+        this.terrainOf = new int[nbPairs];
+        Arrays.fill(slotOf, -1);
+        Arrays.fill(terrainOf, -1);
+        this.equipeAt = new int[nbEquipes * slotCount];
+        this.terrainAt = new int[nbTerrains * slotCount];
+        Arrays.fill(equipeAt, -1);
+        Arrays.fill(terrainAt, -1);
+
+        this.matchsParJour = new int[dayCount];
+        this.matchsParTerrainJour = new int[nbTerrains * dayCount];
+        this.tempsMortsEquipe = new int[nbEquipes];
+        this.nonPlaces = nbPairs;
+    }
+
+    /**
+     * Améliore le planning {@code initial} pendant au plus {@code budget}.
+     *
+     * @param initial planning produit par l'un des modes de placement pour ce contexte
+     * @param budget  temps maximal consacré à la recherche
+     * @return le meilleur planning trouvé, ou {@code initial} lui-même si aucune amélioration n'a été trouvée
+     */
+    ScheduleResult optimize(ScheduleResult initial, Duration budget) {
+        load(initial);
+        int nbPairs = pairA.length;
+        if (nbPairs == 0 || slotCount == 0 || nbTerrains == 0) return initial;
+
+        ScheduleScore initialScore = score();
+        long coutCourant = initialScore.cout();
+        long meilleurCout = coutCourant;
+        int[] meilleursSlots = slotOf.clone();
+        int[] meilleursTerrains = terrainOf.clone();
+        boolean ameliore = false;
+
+        long debut = System.nanoTime();
+        long dureeNs = Math.max(1, budget.toNanos());
+        double temperature = TEMPERATURE_INITIALE;
+        int[] undoPairs = new int[2];
+        int[] undoSlots = new int[2];
+        int[] undoTerrains = new int[2];
+
+        for (long iteration = 0; ; iteration++) {
+            if (iteration % CHECK_INTERVAL == 0) {
+                double avancement = (double) (System.nanoTime() - debut) / dureeNs;
+                if (avancement >= 1.0) break;
+                temperature = TEMPERATURE_INITIALE * Math.pow(TEMPERATURE_FINALE / TEMPERATURE_INITIALE, avancement);
+            }
+
+            int nbModifies = random.nextInt(3) == 0 ? trySwap(undoPairs, undoSlots, undoTerrains)
+                    : tryMove(undoPairs, undoSlots, undoTerrains);
+            if (nbModifies == 0) continue;
+
+            long cout = score().cout();
+            long delta = cout - coutCourant;
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                coutCourant = cout;
+                if (cout < meilleurCout) {
+                    meilleurCout = cout;
+                    System.arraycopy(slotOf, 0, meilleursSlots, 0, nbPairs);
+                    System.arraycopy(terrainOf, 0, meilleursTerrains, 0, nbPairs);
+                    ameliore = true;
+                }
+            } else {
+                undo(nbModifies, undoPairs, undoSlots, undoTerrains);
+            }
+        }
+
+        return ameliore ? build(meilleursSlots, meilleursTerrains) : initial;
+    }
+
+    /**
+     * Évalue le planning courant.
+     */
+    ScheduleScore score() {
+        int premier = -1, dernier = -1;
+        for (int d = 0; d < dayCount; d++) {
+            if (matchsParJour[d] > 0) {
+                if (premier < 0) premier = d;
+                dernier = d;
+            }
+        }
+        int etendue = premier < 0 ? 0 : dernier - premier + 1;
+        return new ScheduleScore(nonPlaces, etendue, terrainsJours, tempsMorts);
+    }
+
+    /**
+     * Charge un planning existant : chaque match est rattaché à une rencontre du round robin de mêmes équipes
+     * (dans le même sens), les rencontres restantes sont considérées comme non placées.
+     */
+    void load(ScheduleResult initial) {
+        Map<Equipe, Integer> equipes = new IdentityHashMap<>();
+        for (int e = 0; e < nbEquipes; e++) equipes.put(ctx.equipes().get(e), e);
+        Map<Terrain, Integer> terrains = new IdentityHashMap<>();
+        for (int t = 0; t < nbTerrains; t++) terrains.put(ctx.terrains().get(t), t);
+
+        Map<Integer, Deque<Integer>> rencontres = new HashMap<>();
+        for (int p = 0; p < pairA.length; p++) {
+            rencontres.computeIfAbsent(pairA[p] * nbEquipes + pairB[p], k -> new ArrayDeque<>()).add(p);
+        }
+
+        for (Match match : initial.getMatchs()) {
+            Integer a = equipes.get(match.getEquipe1());
+            Integer b = equipes.get(match.getEquipe2());
+            Integer t = terrains.get(match.getTerrain());
+            if (a == null || b == null || t == null) continue;
+            int slot = grid.slotOf(match.getDateMatch());
+            Deque<Integer> candidats = rencontres.get(a * nbEquipes + b);
+            if (slot < 0 || candidats == null || candidats.isEmpty()) continue;
+            place(candidats.poll(), slot, t);
+        }
+    }
+
+    private int tryMove(int[] undoPairs, int[] undoSlots, int[] undoTerrains) {
+        int p = random.nextInt(pairA.length);
+        int slot = randomSlot();
+        int terrain = random.nextInt(nbTerrains);
+        if (slotOf[p] == slot && terrainOf[p] == terrain) return 0;
+
+        undoPairs[0] = p;
+        undoSlots[0] = slotOf[p];
+        undoTerrains[0] = terrainOf[p];
+
+        if (slotOf[p] >= 0) unplace(p);
+        if (canPlace(p, slot, terrain)) {
+            place(p, slot, terrain);
+            return 1;
+        }
+        if (undoSlots[0] >= 0) place(p, undoSlots[0], undoTerrains[0]);
+        return 0;
+    }
+
+    private int trySwap(int[] undoPairs, int[] undoSlots, int[] undoTerrains) {
+        int p = random.nextInt(pairA.length);
+        int q = random.nextInt(pairA.length);
+        if (p == q || slotOf[p] < 0 || slotOf[q] < 0) return 0;
+        if (slotOf[p] == slotOf[q] && terrainOf[p] == terrainOf[q]) return 0;
+
+        int slotP = slotOf[p], terrainP = terrainOf[p];
+        int slotQ = slotOf[q], terrainQ = terrainOf[q];
+        undoPairs[0] = p;
+        undoSlots[0] = slotP;
+        undoTerrains[0] = terrainP;
+        undoPairs[1] = q;
+        undoSlots[1] = slotQ;
+        undoTerrains[1] = terrainQ;
+
+        unplace(p);
+        unplace(q);
+        if (canPlace(p, slotQ, terrainQ)) {
+            place(p, slotQ, terrainQ);
+            if (canPlace(q, slotP, terrainP)) {
+                place(q, slotP, terrainP);
+                return 2;
+            }
+            unplace(p);
+        }
+        place(p, slotP, terrainP);
+        place(q, slotQ, terrainQ);
+        return 0;
+    }
+
+    private void undo(int nbModifies, int[] undoPairs, int[] undoSlots, int[] undoTerrains) {
+        for (int i = 0; i < nbModifies; i++) {
+            if (slotOf[undoPairs[i]] >= 0) unplace(undoPairs[i]);
+        }
+        for (int i = 0; i < nbModifies; i++) {
+            if (undoSlots[i] >= 0) place(undoPairs[i], undoSlots[i], undoTerrains[i]);
+        }
+    }
+
+    /**
+     * Tire un créneau, une fois sur deux dans l'étendue actuelle de la compétition pour favoriser la compaction.
+     */
+    private int randomSlot() {
+        if (random.nextBoolean()) {
+            ScheduleScore score = score();
+            if (score.etendueJours() > 0) {
+                int premier = 0;
+                while (matchsParJour[premier] == 0) premier++;
+                return premier * slotsPerDay + random.nextInt(score.etendueJours() * slotsPerDay);
+            }
+        }
+        return random.nextInt(slotCount);
+    }
+
+    private boolean canPlace(int p, int slot, int terrain) {
+        return grid.isTerrainFree(terrain, slot)
+                && terrainAt[terrain * slotCount + slot] < 0
+                && isEquipeFree(pairA[p], slot)
+                && isEquipeFree(pairB[p], slot);
+    }
+
+    private boolean isEquipeFree(int equipe, int slot) {
+        if (!grid.isEquipeFree(equipe, slot)) return false;
+        int base = equipe * slotCount;
+        for (int s = grid.touchFrom(slot); s <= grid.touchTo(slot); s++) {
+            if (equipeAt[base + s] >= 0) return false;
+        }
+        return true;
+    }
+
+    private void place(int p, int slot, int terrain) {
+        slotOf[p] = slot;
+        terrainOf[p] = terrain;
+        equipeAt[pairA[p] * slotCount + slot] = p;
+        equipeAt[pairB[p] * slotCount + slot] = p;
+        terrainAt[terrain * slotCount + slot] = p;
+        nonPlaces--;
+
+        int jour = grid.dayOf(slot);
+        matchsParJour[jour]++;
+        if (matchsParTerrainJour[terrain * dayCount + jour]++ == 0) terrainsJours++;
+        refreshTempsMorts(pairA[p]);
+        refreshTempsMorts(pairB[p]);
+    }
+
+    private void unplace(int p) {
+        int slot = slotOf[p];
+        int terrain = terrainOf[p];
+        slotOf[p] = -1;
+        terrainOf[p] = -1;
+        equipeAt[pairA[p] * slotCount + slot] = -1;
+        equipeAt[pairB[p] * slotCount + slot] = -1;
+        terrainAt[terrain * slotCount + slot] = -1;
+        nonPlaces++;
+
+        int jour = grid.dayOf(slot);
+        matchsParJour[jour]--;
+        if (--matchsParTerrainJour[terrain * dayCount + jour] == 0) terrainsJours--;
+        refreshTempsMorts(pairA[p]);
+        refreshTempsMorts(pairB[p]);
+    }
+
+    /**
+     * Temps morts d'une équipe : écart entre son premier et son dernier match, moins le repos obligatoire
+     * de deux créneaux entre deux matchs consécutifs.
+     */
+    private void refreshTempsMorts(int equipe) {
+        int premier = Integer.MAX_VALUE, dernier = -1, nb = 0;
+        for (int p : pairsOfEquipe[equipe]) {
+            int slot = slotOf[p];
+            if (slot < 0) continue;
+            premier = Math.min(premier, slot);
+            dernier = Math.max(dernier, slot);
+            nb++;
+        }
+        int valeur = nb < 2 ? 0 : Math.max(0, dernier - premier - 2 * (nb - 1));
+        tempsMorts += valeur - tempsMortsEquipe[equipe];
+        tempsMortsEquipe[equipe] = valeur;
+    }
+
+    /**
+     * Construit le {@link ScheduleResult} d'une solution : indisponibilités déclarées du contexte,
+     * puis les matchs triés par date et terrain avec les indisponibilités qu'ils génèrent.
+     */
+    private ScheduleResult build(int[] slots, int[] terrains) {
+        ScheduleResult result = new ScheduleResult(new ArrayList<>(), new ArrayList<>(ctx.indisponibilites()),
+                new ArrayList<>(ctx.indisponibilitesTerrains()));
+
+        List<Integer> places = new ArrayList<>();
+        for (int p = 0; p < slots.length; p++) {
+            if (slots[p] >= 0) places.add(p);
+        }
+        places.sort(Comparator.<Integer>comparingInt(p -> slots[p]).thenComparingInt(p -> terrains[p]));
+
+        for (int p : places) {
+            RoundRobinSchedulerService.addMatch(result, ctx.equipes().get(pairA[p]), ctx.equipes().get(pairB[p]),
+                    ctx.terrains().get(terrains[p]), grid.dateOf(slots[p]));
+        }
+        return result;
+    }
+}
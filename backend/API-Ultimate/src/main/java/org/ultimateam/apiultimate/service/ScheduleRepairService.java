@@ -0,0 +1,316 @@
+package org.ultimateam.apiultimate.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.ultimateam.apiultimate.DTO.RepairResult;
+import org.ultimateam.apiultimate.model.*;
+import org.ultimateam.apiultimate.repository.IndisponibiliteRepository;
+import org.ultimateam.apiultimate.repository.IndisponibiliteTerrainRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Réparation incrémentale d'un planning déjà généré.
+ *
+ * Lorsqu'une indisponibilité (d'équipe ou de terrain) est déclarée après la génération, seuls les matchs
+ * encore en attente ({@link Match.Status#WAITING}) qui entrent en conflit avec elle sont déplacés : chacun est
+ * reprogrammé sur le créneau libre le plus proche de sa date initiale, dans la période de la compétition.
+ * Le reste du planning et les lignes correspondantes en base ne sont pas modifiés, et la réparation reste
+ * possible sur une compétition commencée (contrairement à une régénération complète).
+ *
+ * Les règles de disponibilité sont celles de {@link RoundRobinSchedulerService} : un bloc d'équipe ou une
+ * indisponibilité déclarée d'un terrain est en conflit dès qu'il touche le créneau, un match déjà placé sur
+ * un terrain seulement s'il le chevauche. Seules les indisponibilités des ressources concernées (deux équipes,
+ * terrains de la compétition) sont chargées, une seule fois par réparation.
+ */
+@Service
+public class ScheduleRepairService {
+
+    private static final int SLOT_DURATION_MIN = RoundRobinSchedulerService.SLOT_DURATION_MIN;
+
+    private final MatchRepository matchRepository;
+    private final IndisponibiliteRepository indisponibiliteRepository;
+    private final IndisponibiliteTerrainRepository indisponibiliteTerrainRepository;
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public ScheduleRepairService(MatchRepository matchRepository,
+                                 IndisponibiliteRepository indisponibiliteRepository,
+                                 IndisponibiliteTerrainRepository indisponibiliteTerrainRepository) {
+        this.matchRepository = matchRepository;
+        this.indisponibiliteRepository = indisponibiliteRepository;
+        this.indisponibiliteTerrainRepository = indisponibiliteTerrainRepository;
+    }
+
+    /**
+     * Déplace les matchs en attente de l'équipe qui touchent la nouvelle indisponibilité.
+     *
+     * @param indisponibilite indisponibilité d'équipe qui vient d'être enregistrée
+     * @return les matchs déplacés et ceux qui n'ont pas pu l'être
+     */
+    @Transactional
+    public RepairResult reparerPourIndisponibilite(Indisponibilite indisponibilite) {
+        if (indisponibilite.getEquipe() == null || indisponibilite.getEquipe().getIdEquipe() == null) {
+            return new RepairResult(List.of(), List.of());
+        }
+        LocalDateTime debut = indisponibilite.getDateDebutIndisponibilite();
+        LocalDateTime fin = indisponibilite.getDateFinIndisponibilite();
+
+        List<Match> conflits = matchRepository.findMatchesByEquipe(indisponibilite.getEquipe().getIdEquipe()).stream()
+                .filter(this::isDeplacable)
+                .filter(m -> touches(m.getDateMatch(), debut, fin))
+                .sorted(Comparator.comparing(Match::getDateMatch))
+                .toList();
+        return reparer(conflits);
+    }
+
+    /**
+     * Déplace les matchs en attente programmés sur le terrain pendant sa nouvelle indisponibilité.
+     *
+     * @param indisponibilite indisponibilité de terrain qui vient d'être enregistrée
+     * @return les matchs déplacés et ceux qui n'ont pas pu l'être
+     */
+    @Transactional
+    public RepairResult reparerPourIndisponibiliteTerrain(IndisponibiliteTerrain indisponibilite) {
+        if (indisponibilite.getTerrain() == null || indisponibilite.getTerrain().getIdTerrain() == null) {
+            return new RepairResult(List.of(), List.of());
+        }
+        LocalDateTime debut = indisponibilite.getDateDebutIndisponibilite();
+        LocalDateTime fin = indisponibilite.getDateFinIndisponibilite();
+
+        List<Match> conflits = matchRepository.findByTerrain_Id_terrain(indisponibilite.getTerrain().getIdTerrain()).stream()
+                .filter(this::isDeplacable)
+                .filter(m -> touches(m.getDateMatch(), debut, fin))
+                .sorted(Comparator.comparing(Match::getDateMatch))
+                .toList();
+        return reparer(conflits);
+    }
+
+    private RepairResult reparer(List<Match> conflits) {
+        Reparation reparation = new Reparation(conflits);
+        List<Match> deplaces = new ArrayList<>();
+        List<Match> nonResolus = new ArrayList<>();
+        for (Match match : conflits) {
+            reparation.enAttente.remove(match);
+            if (deplacer(match, reparation)) {
+                deplaces.add(match);
+            } else {
+                nonResolus.add(match);
+            }
+            // Créneau définitif du match (nouveau ou d'origine) : les matchs suivants doivent l'éviter
+            reparation.reserver(match);
+        }
+        return new RepairResult(deplaces, nonResolus);
+    }
+
+    private boolean isDeplacable(Match match) {
+        return match.getStatus() == Match.Status.WAITING && match.getDateDebut() == null && match.getDateMatch() != null;
+    }
+
+    /**
+     * Cherche le créneau libre le plus proche de la date actuelle du match et y déplace le match,
+     * ses deux indisponibilités d'équipe et son indisponibilité de terrain.
+     *
+     * Les créneaux sont parcourus dans la grille de la compétition en s'éloignant de la date du match
+     * (à distance égale, le créneau le plus tôt d'abord), à partir de maintenant. Le créneau d'origine est
+     * inclus : après une indisponibilité de terrain, le match peut rester à la même heure sur un autre terrain.
+     *
+     * @return vrai si le match a été déplacé
+     */
+    private boolean deplacer(Match match, Reparation reparation) {
+        Competition competition = match.getIdCompetition();
+        if (competition == null || competition.getDateDebut() == null || competition.getDateFin() == null) return false;
+
+        IntervalIndex equipe1 = reparation.equipe(match.getEquipe1());
+        IntervalIndex equipe2 = reparation.equipe(match.getEquipe2());
+
+        // Terrain actuel en premier pour limiter les changements
+        List<Terrain> terrains = new ArrayList<>();
+        if (match.getTerrain() != null) terrains.add(match.getTerrain());
+        for (Terrain t : competition.getTerrains()) {
+            if (!terrains.contains(t)) terrains.add(t);
+        }
+
+        SlotGrid grille = reparation.grille(competition);
+        int premier = grille.slotAtOrAfter(reparation.maintenant);
+        if (premier < 0) return false;
+        if (!grille.dateOf(premier).isAfter(reparation.maintenant)) premier++;
+
+        LocalDateTime origine = match.getDateMatch();
+        int depart = grille.slotAtOrAfter(origine);
+        if (depart < 0) depart = grille.slotCount();
+        int avant = depart - 1;
+        int apres = Math.max(depart, premier);
+
+        while (avant >= premier || apres < grille.slotCount()) {
+            int slot;
+            if (avant < premier) {
+                slot = apres++;
+            } else if (apres >= grille.slotCount()) {
+                slot = avant--;
+            } else {
+                long distanceAvant = Duration.between(grille.dateOf(avant), origine).toMinutes();
+                long distanceApres = Duration.between(origine, grille.dateOf(apres)).toMinutes();
+                slot = distanceApres < distanceAvant ? apres++ : avant--;
+            }
+
+            LocalDateTime candidat = grille.dateOf(slot);
+            LocalDateTime fin = candidat.plusMinutes(SLOT_DURATION_MIN);
+            if (equipe1.touches(candidat, fin) || equipe2.touches(candidat, fin)) continue;
+            if (reparation.bloqueEquipe(match, candidat, fin)) continue;
+
+            for (Terrain terrain : terrains) {
+                IntervalIndex[] index = reparation.terrain(terrain);
+                if (index[0].touches(candidat, fin) || index[1].overlaps(candidat, fin)) continue;
+                if (reparation.bloqueTerrain(match, terrain, candidat, fin)) continue;
+
+                appliquer(match, candidat, terrain);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * État d'une réparation, construit une seule fois pour l'ensemble des matchs en conflit : grille des créneaux
+     * de chaque compétition et index des blocs de chaque équipe et de chaque terrain, chargés au premier besoin.
+     *
+     * Les index ne contiennent pas les créneaux des matchs en conflit, puisqu'ils vont être déplacés.
+     * Tant qu'un de ces matchs n'a pas été traité, son créneau d'origine est vérifié à part ({@link #enAttente}) ;
+     * une fois traité, son créneau définitif est ajouté aux index par {@link #reserver(Match)}.
+     */
+    private final class Reparation {
+
+        private final LocalDateTime maintenant = LocalDateTime.now();
+        private final Set<Long> idsConflits = new HashSet<>();
+        private final List<Match> enAttente;
+        private final Map<Competition, SlotGrid> grilles = new HashMap<>();
+        private final Map<Long, IntervalIndex> equipes = new HashMap<>();
+        private final Map<Long, IntervalIndex[]> terrains = new HashMap<>();
+
+        private Reparation(List<Match> conflits) {
+            for (Match match : conflits) idsConflits.add(match.getIdMatch());
+            this.enAttente = new ArrayList<>(conflits);
+        }
+
+        private SlotGrid grille(Competition competition) {
+            return grilles.computeIfAbsent(competition, c -> new SlotGrid(c.getDateDebut(), c.getDateFin(),
+                    RoundRobinSchedulerService.generateTimeSlots(), SLOT_DURATION_MIN, 0, 0));
+        }
+
+        /**
+         * Index des blocs d'une équipe (indisponibilités déclarées et matchs attribués), hors matchs en conflit.
+         */
+        private IntervalIndex equipe(Equipe equipe) {
+            if (equipe == null || equipe.getIdEquipe() == null) return new IntervalIndex();
+            return equipes.computeIfAbsent(equipe.getIdEquipe(), id -> {
+                IntervalIndex index = new IntervalIndex();
+                for (Indisponibilite ind : indisponibiliteRepository.findAllByEquipe_IdEquipe(id)) {
+                    if (ind.getMatch() != null && idsConflits.contains(ind.getMatch().getIdMatch())) continue;
+                    index.add(ind.getDateDebutIndisponibilite(), ind.getDateFinIndisponibilite());
+                }
+                return index;
+            });
+        }
+
+        /**
+         * Index d'un terrain : [0] indisponibilités déclarées, [1] créneaux des autres matchs.
+         */
+        private IntervalIndex[] terrain(Terrain terrain) {
+            return terrains.computeIfAbsent(terrain.getIdTerrain(), id -> {
+                IntervalIndex declares = new IntervalIndex();
+                IntervalIndex occupes = new IntervalIndex();
+                for (IndisponibiliteTerrain ind : indisponibiliteTerrainRepository.findByTerrain_IdTerrain(id)) {
+                    if (ind.getMatch() == null) {
+                        declares.add(ind.getDateDebutIndisponibilite(), ind.getDateFinIndisponibilite());
+                    } else if (!idsConflits.contains(ind.getMatch().getIdMatch())) {
+                        occupes.add(ind.getDateDebutIndisponibilite(), ind.getDateFinIndisponibilite());
+                    }
+                }
+                return new IntervalIndex[]{declares, occupes};
+            });
+        }
+
+        /**
+         * Vrai si le créneau touche un match en conflit pas encore traité d'une des deux équipes du match.
+         */
+        private boolean bloqueEquipe(Match match, LocalDateTime debut, LocalDateTime fin) {
+            for (Match autre : enAttente) {
+                if (partageEquipe(match, autre) && touches(autre.getDateMatch(), debut, fin)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Vrai si le créneau chevauche, sur ce terrain, un match en conflit pas encore traité.
+         */
+        private boolean bloqueTerrain(Match match, Terrain terrain, LocalDateTime debut, LocalDateTime fin) {
+            for (Match autre : enAttente) {
+                if (autre == match || autre.getTerrain() == null) continue;
+                if (!Objects.equals(autre.getTerrain().getIdTerrain(), terrain.getIdTerrain())) continue;
+                LocalDateTime finAutre = autre.getDateMatch().plusMinutes(SLOT_DURATION_MIN);
+                if (autre.getDateMatch().isBefore(fin) && finAutre.isAfter(debut)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Ajoute le créneau actuel du match aux index de ses équipes et de son terrain.
+         */
+        private void reserver(Match match) {
+            LocalDateTime debut = match.getDateMatch();
+            LocalDateTime fin = debut.plusMinutes(SLOT_DURATION_MIN);
+            if (match.getEquipe1() != null && match.getEquipe1().getIdEquipe() != null) equipe(match.getEquipe1()).add(debut, fin);
+            if (match.getEquipe2() != null && match.getEquipe2().getIdEquipe() != null) equipe(match.getEquipe2()).add(debut, fin);
+            if (match.getTerrain() != null) terrain(match.getTerrain())[1].add(debut, fin);
+        }
+    }
+
+    private static boolean partageEquipe(Match a, Match b) {
+        return a != b && (memeEquipe(a.getEquipe1(), b.getEquipe1()) || memeEquipe(a.getEquipe1(), b.getEquipe2())
+                || memeEquipe(a.getEquipe2(), b.getEquipe1()) || memeEquipe(a.getEquipe2(), b.getEquipe2()));
+    }
+
+    private static boolean memeEquipe(Equipe a, Equipe b) {
+        return a != null && b != null && a.getIdEquipe() != null && a.getIdEquipe().equals(b.getIdEquipe());
+    }
+
+    /**
+     * Enregistre le nouveau créneau du match et met à jour en place les indisponibilités qu'il génère.
+     */
+    private void appliquer(Match match, LocalDateTime date, Terrain terrain) {
+        LocalDateTime fin = date.plusMinutes(SLOT_DURATION_MIN);
+
+        List<Indisponibilite> blocsEquipes = indisponibiliteRepository.findByMatch(match);
+        for (Indisponibilite ind : blocsEquipes) {
+            ind.setDateDebutIndisponibilite(date);
+            ind.setDateFinIndisponibilite(fin);
+        }
+
+        IndisponibiliteTerrain blocTerrain = indisponibiliteTerrainRepository.findByMatch(match);
+        if (blocTerrain == null) {
+            blocTerrain = new IndisponibiliteTerrain(date, fin, terrain, match);
+        } else {
+            blocTerrain.setDateDebutIndisponibilite(date);
+            blocTerrain.setDateFinIndisponibilite(fin);
+            blocTerrain.setTerrain(terrain);
+        }
+
+        match.setDateMatch(date);
+        match.setTerrain(terrain);
+
+        matchRepository.save(match);
+        indisponibiliteRepository.saveAll(blocsEquipes);
+        indisponibiliteTerrainRepository.save(blocTerrain);
+    }
+
+    private static boolean touches(LocalDateTime dateMatch, LocalDateTime debut, LocalDateTime fin) {
+        if (debut == null || fin == null) return false;
+        LocalDateTime finMatch = dateMatch.plusMinutes(SLOT_DURATION_MIN);
+        return !fin.isBefore(dateMatch) && !debut.isAfter(finMatch);
+    }
+}
@@ -0,0 +1,87 @@
+package org.ultimateam.apiultimate.service;
+
+import java.util.Arrays;
+
+/**
+ * Évaluation d'un planning par l'optimiseur ({@link ScheduleOptimizer}).
+ *
+ * Les critères sont combinés en un coût unique, à minimiser, par ordre d'importance :
+ * une rencontre non placée coûte plus cher que n'importe quel gain de compacité, puis viennent
+ * l'étendue de la compétition et le nombre de réservations terrain-jour, enfin les temps morts des équipes.
+ *
+ * @param nonPlaces    nombre de rencontres du round robin qui n'ont pas de créneau
+ * @param etendueJours nombre de jours entre le premier et le dernier match (inclus)
+ * @param terrainsJours nombre de couples (terrain, jour) portant au moins un match
+ * @param tempsMorts   somme, pour chaque équipe, des créneaux d'attente au-delà du repos obligatoire entre deux matchs
+ */
+record ScheduleScore(int nonPlaces, int etendueJours, int terrainsJours, int tempsMorts) {
+
+    static final long POIDS_NON_PLACE = 1_000_000L;
+    static final long POIDS_JOUR = 1_000L;
+    static final long POIDS_TERRAIN_JOUR = 100L;
+    static final long POIDS_TEMPS_MORT = 1L;
+
+    /**
+     * @return coût pondéré du planning (plus petit = meilleur)
+     */
+    long cout() {
+        return nonPlaces * POIDS_NON_PLACE
+                + etendueJours * POIDS_JOUR
+                + terrainsJours * POIDS_TERRAIN_JOUR
+                + tempsMorts * POIDS_TEMPS_MORT;
+    }
+
+    /**
+     * Évalue une affectation complète des rencontres sur une grille.
+     *
+     * @param grid      grille de la génération (seules ses dimensions sont utilisées)
+     * @param nbEquipes nombre d'équipes
+     * @param pairs     rencontres à plat {@code [a0, b0, a1, b1, ...]}
+     * @param slots     créneau de chaque rencontre, -1 si non placée
+     * @param terrains  terrain de chaque rencontre (ignoré si non placée)
+     */
+    static ScheduleScore evaluate(SlotGrid grid, int nbEquipes, int[] pairs, int[] slots, int[] terrains) {
+        int dayCount = grid.dayCount();
+        boolean[] terrainJour = new boolean[grid.terrainCount() * dayCount];
+        int[] premier = new int[nbEquipes];
+        int[] dernier = new int[nbEquipes];
+        int[] nb = new int[nbEquipes];
+        Arrays.fill(premier, Integer.MAX_VALUE);
+
+        int nonPlaces = 0, terrainsJours = 0, premierJour = Integer.MAX_VALUE, dernierJour = -1;
+        for (int p = 0; p < slots.length; p++) {
+            int slot = slots[p];
+            if (slot < 0) {
+                nonPlaces++;
+                continue;
+            }
+            int jour = grid.dayOf(slot);
+            premierJour = Math.min(premierJour, jour);
+            dernierJour = Math.max(dernierJour, jour);
+            if (!terrainJour[terrains[p] * dayCount + jour]) {
+                terrainJour[terrains[p] * dayCount + jour] = true;
+                terrainsJours++;
+            }
+            for (int i = 2 * p; i <= 2 * p + 1; i++) {
+                int e = pairs[i];
+                premier[e] = Math.min(premier[e], slot);
+                dernier[e] = Math.max(dernier[e], slot);
+                nb[e]++;
+            }
+        }
+
+        int tempsMorts = 0;
+        for (int e = 0; e < nbEquipes; e++) {
+            if (nb[e] >= 2) tempsMorts += Math.max(0, dernier[e] - premier[e] - 2 * (nb[e] - 1));
+        }
+        int etendue = dernierJour < 0 ? 0 : dernierJour - premierJour + 1;
+        return new ScheduleScore(nonPlaces, etendue, terrainsJours, tempsMorts);
+    }
+
+    /**
+     * @return vrai si ce planning est strictement meilleur que {@code autre}
+     */
+    boolean isBetterThan(ScheduleScore autre) {
+        return cout() < autre.cout();
+    }
+}
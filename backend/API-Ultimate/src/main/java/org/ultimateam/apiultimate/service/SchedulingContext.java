@@ -0,0 +1,87 @@
+package org.ultimateam.apiultimate.service;
+
+import org.ultimateam.apiultimate.DTO.ScheduleResult;
+import org.ultimateam.apiultimate.model.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * État complet d'une génération de planning.
+ *
+ * Un contexte est créé à chaque appel de {@link RoundRobinSchedulerService#generateSchedule} et n'est jamais
+ * partagé : le service lui-même ne conserve aucun état entre deux générations, ce qui permet de générer
+ * plusieurs compétitions en parallèle avec le même bean.
+ *
+ * Les listes d'entrée sont copiées : le planificateur ne modifie jamais les listes fournies par l'appelant.
+ * Le {@link ScheduleResult} démarre avec les indisponibilités déclarées et reçoit au fil du placement
+ * les matchs et les indisponibilités générées.
+ *
+ * @param equipes                  équipes participantes (leur position sert d'indice dense)
+ * @param terrains                 terrains disponibles (leur position sert d'indice dense)
+ * @param startDate                premier jour de la période (inclus)
+ * @param endDate                  dernier jour de la période (inclus)
+ * @param homeAndAway              vrai pour des rencontres aller-retour
+ * @param timeSlots                heures de début des créneaux d'une journée
+ * @param indisponibilites         indisponibilités déclarées des équipes
+ * @param indisponibilitesTerrains indisponibilités déclarées des terrains
+ * @param result                   résultat propre à cette génération
+ * @param listener                 observateur notifié à chaque match placé
+ */
+record SchedulingContext(
+        List<Equipe> equipes,
+        List<Terrain> terrains,
+        LocalDate startDate,
+        LocalDate endDate,
+        boolean homeAndAway,
+        List<LocalTime> timeSlots,
+        List<Indisponibilite> indisponibilites,
+        List<IndisponibiliteTerrain> indisponibilitesTerrains,
+        ScheduleResult result,
+        PlacementListener listener
+) {
+
+    /**
+     * Crée le contexte d'une génération à partir des paramètres reçus par le planificateur.
+     */
+    static SchedulingContext of(
+            List<Equipe> equipes,
+            List<Terrain> terrains,
+            LocalDate startDate,
+            LocalDate endDate,
+            boolean homeAndAway,
+            List<LocalTime> timeSlots,
+            List<Indisponibilite> indisponibilites,
+            List<IndisponibiliteTerrain> indisponibilitesTerrains
+    ) {
+        return of(equipes, terrains, startDate, endDate, homeAndAway, timeSlots, indisponibilites, indisponibilitesTerrains, PlacementListener.NONE);
+    }
+
+    /**
+     * Crée le contexte d'une génération dont chaque match placé est signalé à {@code listener}.
+     */
+    static SchedulingContext of(
+            List<Equipe> equipes,
+            List<Terrain> terrains,
+            LocalDate startDate,
+            LocalDate endDate,
+            boolean homeAndAway,
+            List<LocalTime> timeSlots,
+            List<Indisponibilite> indisponibilites,
+            List<IndisponibiliteTerrain> indisponibilitesTerrains,
+            PlacementListener listener
+    ) {
+        List<Indisponibilite> indispos = indisponibilites == null ? List.of() : List.copyOf(indisponibilites);
+        List<IndisponibiliteTerrain> indisposTerrains = indisponibilitesTerrains == null ? List.of() : List.copyOf(indisponibilitesTerrains);
+
+        ScheduleResult result = new ScheduleResult(new ArrayList<>(), new ArrayList<>(indispos), new ArrayList<>(indisposTerrains));
+
+        return new SchedulingContext(
+                List.copyOf(equipes), List.copyOf(terrains), startDate, endDate, homeAndAway,
+                List.copyOf(timeSlots), indispos, indisposTerrains, result,
+                listener == null ? PlacementListener.NONE : listener
+        );
+    }
+}
@@ -0,0 +1,270 @@
+package org.ultimateam.apiultimate.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Grille discrète des créneaux d'une compétition, utilisée par le mode {@code BITSET} du planificateur.
+ *
+ * Chaque couple (jour, créneau horaire) de la période reçoit un indice entier :
+ * {@code slot = jour * slotsPerDay + indiceCreneau}. Le calendrier de chaque équipe et de chaque
+ * terrain est un {@link BitSet} dont le bit {@code slot} vaut 1 si la ressource est libre.
+ * Équipes et terrains sont adressés par des indices denses (leur position dans les listes
+ * fournies au planificateur), jamais par les entités elles-mêmes.
+ *
+ * Trouver un créneau pour une paire revient alors à un ET logique entre les calendriers des deux équipes
+ * et l'ensemble des créneaux ayant encore au moins un terrain libre.
+ *
+ * Cette classe n'est pas thread-safe : une instance est construite pour une seule génération.
+ */
+class SlotGrid {
+
+    private final LocalDate startDate;
+    private final List<LocalTime> timeSlots;
+    private final int slotDurationMin;
+    private final int slotsPerDay;
+    private final int dayCount;
+    private final int slotCount;
+
+    /** Calendrier de chaque équipe : bit à 1 = équipe libre. */
+    private final BitSet[] equipesLibres;
+
+    /** Calendrier de chaque terrain : bit à 1 = terrain libre. */
+    private final BitSet[] terrainsLibres;
+
+    /** Créneaux pour lesquels au moins un terrain est encore libre. */
+    private final BitSet slotsAvecTerrain;
+
+    /**
+     * Pour chaque créneau horaire i d'une journée, plage [touchLo[i], touchHi[i]] des créneaux de la même journée
+     * qui touchent le créneau i. Précalculée une fois pour que {@link #book(int, int, int, int)} ne manipule que des entiers.
+     */
+    private final int[] touchLo;
+    private final int[] touchHi;
+
+    /** Bitset de travail réutilisé par {@link #findSlot(int, int, int)} pour éviter les allocations. */
+    private final BitSet scratch;
+
+    /**
+     * Construit une grille où toutes les équipes et tous les terrains sont libres sur toute la période.
+     *
+     * @param startDate       premier jour de la période (inclus)
+     * @param endDate         dernier jour de la période (inclus)
+     * @param timeSlots       heures de début des créneaux d'une journée
+     * @param slotDurationMin durée d'un créneau (match + pause) en minutes
+     * @param nbEquipes       nombre d'équipes
+     * @param nbTerrains      nombre de terrains
+     */
+    SlotGrid(LocalDate startDate, LocalDate endDate, List<LocalTime> timeSlots, int slotDurationMin, int nbEquipes, int nbTerrains) {
+        this.startDate = startDate;
+        this.timeSlots = List.copyOf(timeSlots);
+        this.slotDurationMin = slotDurationMin;
+        this.slotsPerDay = timeSlots.size();
+        this.dayCount = (int) Math.max(0, ChronoUnit.DAYS.between(startDate, endDate) + 1);
+        this.slotCount = dayCount * slotsPerDay;
+
+        this.equipesLibres = new BitSet[nbEquipes];
+        for (int e = 0; e < nbEquipes; e++) {
+            equipesLibres[e] = new BitSet(slotCount);
+            equipesLibres[e].set(0, slotCount);
+        }
+
+        this.terrainsLibres = new BitSet[nbTerrains];
+        for (int t = 0; t < nbTerrains; t++) {
+            terrainsLibres[t] = new BitSet(slotCount);
+            terrainsLibres[t].set(0, slotCount);
+        }
+
+        this.slotsAvecTerrain = new BitSet(slotCount);
+        if (nbTerrains > 0) slotsAvecTerrain.set(0, slotCount);
+
+        this.scratch = new BitSet(slotCount);
+
+        this.touchLo = new int[slotsPerDay];
+        this.touchHi = new int[slotsPerDay];
+        for (int i = 0; i < slotsPerDay; i++) {
+            LocalTime debut = timeSlots.get(i);
+            LocalTime fin = debut.plusMinutes(slotDurationMin);
+            touchLo[i] = i;
+            touchHi[i] = i;
+            for (int j = 0; j < slotsPerDay; j++) {
+                LocalTime autreDebut = timeSlots.get(j);
+                LocalTime autreFin = autreDebut.plusMinutes(slotDurationMin);
+                boolean touche = !autreFin.isBefore(debut) && !autreDebut.isAfter(fin);
+                if (touche) {
+                    touchLo[i] = Math.min(touchLo[i], j);
+                    touchHi[i] = Math.max(touchHi[i], j);
+                }
+            }
+        }
+    }
+
+    int slotCount() { return slotCount; }
+
+    int slotsPerDay() { return slotsPerDay; }
+
+    int dayCount() { return dayCount; }
+
+    int equipeCount() { return equipesLibres.length; }
+
+    int terrainCount() { return terrainsLibres.length; }
+
+    /**
+     * @param slot indice de créneau
+     * @return date et heure de début du créneau
+     */
+    LocalDateTime dateOf(int slot) {
+        return LocalDateTime.of(startDate.plusDays(slot / slotsPerDay), timeSlots.get(slot % slotsPerDay));
+    }
+
+    /**
+     * @param slot indice de créneau
+     * @return indice du jour (0 = premier jour de la période)
+     */
+    int dayOf(int slot) {
+        return slot / slotsPerDay;
+    }
+
+    /**
+     * @param date date et heure de début d'un créneau
+     * @return l'indice du créneau commençant exactement à {@code date}, ou -1 s'il n'existe pas dans la grille
+     */
+    int slotOf(LocalDateTime date) {
+        int slot = slotAtOrAfter(date);
+        return slot >= 0 && slot < slotCount && dateOf(slot).equals(date) ? slot : -1;
+    }
+
+    /**
+     * @return premier créneau de la même journée qui touche le créneau {@code slot}
+     */
+    int touchFrom(int slot) {
+        return slot - slot % slotsPerDay + touchLo[slot % slotsPerDay];
+    }
+
+    /**
+     * @return dernier créneau (inclus) de la même journée qui touche le créneau {@code slot}
+     */
+    int touchTo(int slot) {
+        return slot - slot % slotsPerDay + touchHi[slot % slotsPerDay];
+    }
+
+    boolean isEquipeFree(int equipe, int slot) { return equipesLibres[equipe].get(slot); }
+
+    boolean isTerrainFree(int terrain, int slot) { return terrainsLibres[terrain].get(slot); }
+
+    /**
+     * Marque une équipe indisponible sur tous les créneaux qui touchent l'intervalle [debut, fin] (bornes incluses).
+     */
+    void blockEquipe(int equipe, LocalDateTime debut, LocalDateTime fin) {
+        clearTouching(equipesLibres[equipe], debut, fin);
+    }
+
+    /**
+     * Marque un terrain indisponible sur tous les créneaux qui touchent l'intervalle [debut, fin] (bornes incluses).
+     */
+    void blockTerrain(int terrain, LocalDateTime debut, LocalDateTime fin) {
+        clearTouching(terrainsLibres[terrain], debut, fin);
+        for (int slot = slotAtOrAfter(debut.minusMinutes(slotDurationMin)); slot >= 0 && slot < slotCount && !dateOf(slot).isAfter(fin); slot++) {
+            refreshSlot(slot);
+        }
+    }
+
+    /**
+     * Cherche le premier créneau {@code >= from} où les deux équipes et au moins un terrain sont libres.
+     *
+     * @return l'indice du créneau, ou -1 s'il n'y en a pas
+     */
+    int findSlot(int a, int b, int from) {
+        scratch.clear();
+        scratch.or(equipesLibres[a]);
+        scratch.and(equipesLibres[b]);
+        scratch.and(slotsAvecTerrain);
+        return from < slotCount ? scratch.nextSetBit(from) : -1;
+    }
+
+    /**
+     * @return nombre de créneaux d'indice {@code < toSlot} où les deux équipes sont libres
+     */
+    int commonFreeSlots(int a, int b, int toSlot) {
+        scratch.clear();
+        scratch.or(equipesLibres[a]);
+        scratch.and(equipesLibres[b]);
+        if (toSlot < slotCount) scratch.clear(Math.max(0, toSlot), slotCount);
+        return scratch.cardinality();
+    }
+
+    /**
+     * @return le premier terrain libre sur le créneau, ou -1 si aucun
+     */
+    int freeTerrain(int slot) {
+        for (int t = 0; t < terrainsLibres.length; t++) {
+            if (terrainsLibres[t].get(slot)) return t;
+        }
+        return -1;
+    }
+
+    /**
+     * @param ordre ordre de priorité des terrains (permutation de 0..terrainCount-1)
+     * @return le premier terrain libre sur le créneau dans cet ordre, ou -1 si aucun
+     */
+    int freeTerrain(int slot, int[] ordre) {
+        for (int t : ordre) {
+            if (terrainsLibres[t].get(slot)) return t;
+        }
+        return -1;
+    }
+
+    /**
+     * Réserve le créneau pour un match : le terrain n'est occupé que sur ce créneau,
+     * les équipes sont bloquées sur tous les créneaux qui touchent le match (même règle que le mode par intervalles).
+     */
+    void book(int a, int b, int terrain, int slot) {
+        int base = slot - slot % slotsPerDay;
+        int i = slot % slotsPerDay;
+        equipesLibres[a].clear(base + touchLo[i], base + touchHi[i] + 1);
+        equipesLibres[b].clear(base + touchLo[i], base + touchHi[i] + 1);
+        terrainsLibres[terrain].clear(slot);
+        refreshSlot(slot);
+    }
+
+    private void refreshSlot(int slot) {
+        for (BitSet terrain : terrainsLibres) {
+            if (terrain.get(slot)) {
+                slotsAvecTerrain.set(slot);
+                return;
+            }
+        }
+        slotsAvecTerrain.clear(slot);
+    }
+
+    /**
+     * Met à 0 les bits des créneaux [s, s + durée] qui touchent l'intervalle [debut, fin].
+     */
+    private void clearTouching(BitSet calendrier, LocalDateTime debut, LocalDateTime fin) {
+        if (debut == null || fin == null || slotCount == 0) return;
+        for (int slot = slotAtOrAfter(debut.minusMinutes(slotDurationMin)); slot >= 0 && slot < slotCount; slot++) {
+            LocalDateTime slotDebut = dateOf(slot);
+            if (slotDebut.isAfter(fin)) break;
+            if (!slotDebut.plusMinutes(slotDurationMin).isBefore(debut)) {
+                calendrier.clear(slot);
+            }
+        }
+    }
+
+    /**
+     * @return l'indice du premier créneau commençant à {@code date} ou après, -1 si aucun
+     */
+    int slotAtOrAfter(LocalDateTime date) {
+        long day = ChronoUnit.DAYS.between(startDate, date.toLocalDate());
+        if (day < 0) return 0;
+        if (day >= dayCount) return -1;
+        for (int i = 0; i < slotsPerDay; i++) {
+            if (!timeSlots.get(i).isBefore(date.toLocalTime())) return (int) day * slotsPerDay + i;
+        }
+        return day + 1 < dayCount ? (int) (day + 1) * slotsPerDay : -1;
+    }
+}
@@ -0,0 +1,128 @@
+package org.ultimateam.apiultimate.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Appariement d'une ronde de système suisse.
+ *
+ * Les équipes sont fournies triées par classement (meilleure d'abord) et découpées en groupes de même score.
+ * Dans chaque groupe, la moitié haute rencontre la moitié basse (1re contre (k/2+1)e, etc.) ; si une rencontre
+ * a déjà eu lieu, l'adversaire suivant de la moitié basse est essayé. Les équipes qui restent sans adversaire
+ * « flottent » vers le groupe de score inférieur. Les dernières équipes sont appariées entre elles, en acceptant
+ * une revanche seulement s'il n'y a plus d'autre choix.
+ *
+ * Le coût est O(n) par groupe dans le cas courant (décalage de quelques places au plus), sans recherche
+ * sur toutes les paires ; il reste quadratique dans la taille d'un groupe dans le pire cas.
+ */
+final class SwissPairing {
+
+    private SwissPairing() {}
+
+    /**
+     * Résultat d'un appariement.
+     *
+     * @param paires rencontres à plat {@code [a0, b0, a1, b1, ...]}, l'équipe la mieux classée en premier
+     * @param exempt indice de l'équipe exemptée (nombre impair d'équipes), -1 sinon
+     */
+    record Appariement(int[] paires, int exempt) {}
+
+    /**
+     * Calcule les rencontres d'une ronde.
+     *
+     * @param scores      score de chaque équipe, dans l'ordre du classement
+     * @param adversaires pour chaque équipe, indices des équipes déjà rencontrées
+     * @param dejaExempte pour chaque équipe, vrai si elle a déjà été exemptée
+     * @return les rencontres et l'équipe exemptée
+     */
+    static Appariement apparier(long[] scores, List<Set<Integer>> adversaires, boolean[] dejaExempte) {
+        int n = scores.length;
+
+        // L'exempt est l'équipe la moins bien classée qui ne l'a pas encore été
+        int exempt = -1;
+        if (n % 2 == 1) {
+            exempt = n - 1;
+            for (int i = n - 1; i >= 0; i--) {
+                if (!dejaExempte[i]) {
+                    exempt = i;
+                    break;
+                }
+            }
+        }
+
+        List<Integer> paires = new ArrayList<>(n);
+        List<Integer> flottants = new ArrayList<>();
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j < n && scores[j] == scores[i]) j++;
+
+            List<Integer> groupe = new ArrayList<>(flottants);
+            for (int k = i; k < j; k++) {
+                if (k != exempt) groupe.add(k);
+            }
+            flottants = apparierGroupe(groupe, adversaires, paires);
+            i = j;
+        }
+        apparierReste(flottants, adversaires, paires);
+
+        return new Appariement(paires.stream().mapToInt(Integer::intValue).toArray(), exempt);
+    }
+
+    /**
+     * Apparie la moitié haute du groupe avec sa moitié basse.
+     *
+     * @return les équipes restées sans adversaire, dans l'ordre du classement
+     */
+    private static List<Integer> apparierGroupe(List<Integer> groupe, List<Set<Integer>> adversaires, List<Integer> paires) {
+        int moitie = groupe.size() / 2;
+        boolean[] hautApparie = new boolean[moitie];
+        boolean[] basPris = new boolean[moitie];
+
+        for (int h = 0; h < moitie; h++) {
+            int haut = groupe.get(h);
+            for (int d = 0; d < moitie; d++) {
+                int b = (h + d) % moitie;
+                int bas = groupe.get(moitie + b);
+                if (!basPris[b] && !adversaires.get(haut).contains(bas)) {
+                    basPris[b] = true;
+                    hautApparie[h] = true;
+                    paires.add(haut);
+                    paires.add(bas);
+                    break;
+                }
+            }
+        }
+
+        List<Integer> restes = new ArrayList<>();
+        for (int h = 0; h < moitie; h++) {
+            if (!hautApparie[h]) restes.add(groupe.get(h));
+        }
+        for (int b = 0; b < moitie; b++) {
+            if (!basPris[b]) restes.add(groupe.get(moitie + b));
+        }
+        // Un groupe impair laisse sa dernière équipe au groupe suivant
+        if (groupe.size() % 2 == 1) restes.add(groupe.get(groupe.size() - 1));
+        restes.sort(null);
+        return restes;
+    }
+
+    /**
+     * Apparie les dernières équipes dans l'ordre, en évitant les revanches tant que possible.
+     */
+    private static void apparierReste(List<Integer> restes, List<Set<Integer>> adversaires, List<Integer> paires) {
+        List<Integer> libres = new ArrayList<>(restes);
+        while (libres.size() >= 2) {
+            int a = libres.remove(0);
+            int choix = 0;
+            for (int k = 0; k < libres.size(); k++) {
+                if (!adversaires.get(a).contains(libres.get(k))) {
+                    choix = k;
+                    break;
+                }
+            }
+            paires.add(a);
+            paires.add(libres.remove(choix));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.ultimateam.apiultimate.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.ScheduleResult;
+import org.ultimateam.apiultimate.model.*;
+import org.ultimateam.apiultimate.repository.ClassementRepository;
+import org.ultimateam.apiultimate.repository.CompetitionRepository;
+import org.ultimateam.apiultimate.repository.IndisponibiliteRepository;
+import org.ultimateam.apiultimate.repository.IndisponibiliteTerrainRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+import org.ultimateam.apiultimate.repository.ParticipationRepository;
+
+import java.util.*;
+
+/**
+ * Génération et progression des championnats en système suisse.
+ *
+ * À la génération, seule la première ronde est créée (têtes de série par identifiant, moitié haute contre
+ * moitié basse). Chaque ronde suivante est appariée quand tous les matchs de la ronde courante sont terminés
+ * ({@link MatchService#finirMatch(long)}), à partir du {@link Classement} (score, différence de points, points
+ * marqués) et sans revanche tant que c'est possible ({@link SwissPairing}).
+ *
+ * Avec un nombre impair d'équipes, l'équipe la moins bien classée qui n'a pas encore été exemptée ne joue pas
+ * la ronde ; l'exemption ne rapporte pas de points.
+ *
+ * Les matchs d'une ronde n'appartiennent à aucun tableau : la contrainte {@code uk_match_tableau_position} ne les
+ * protège pas des doublons. La ronde suivante est donc appariée sous le verrou de la ligne du championnat, pour
+ * que deux derniers matchs terminés en même temps ne la créent pas deux fois.
+ */
+@Service
+public class SwissSystemService {
+
+    private final MatchRepository matchRepository;
+    private final ParticipationRepository participationRepository;
+    private final EquipeService equipeService;
+    private final ClassementRepository classementRepository;
+    private final IndisponibiliteRepository indisponibiliteRepository;
+    private final IndisponibiliteTerrainRepository indisponibiliteTerrainRepository;
+    private final RoundRobinSchedulerService scheduler;
+    private final CompetitionRepository competitionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Constructeur pour l'injection des dépendances.
+     */
+    public SwissSystemService(MatchRepository matchRepository,
+                              ParticipationRepository participationRepository,
+                              EquipeService equipeService,
+                              ClassementRepository classementRepository,
+                              IndisponibiliteRepository indisponibiliteRepository,
+                              IndisponibiliteTerrainRepository indisponibiliteTerrainRepository,
+                              RoundRobinSchedulerService scheduler,
+                              CompetitionRepository competitionRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.matchRepository = matchRepository;
+        this.participationRepository = participationRepository;
+        this.equipeService = equipeService;
+        this.classementRepository = classementRepository;
+        this.indisponibiliteRepository = indisponibiliteRepository;
+        this.indisponibiliteTerrainRepository = indisponibiliteTerrainRepository;
+        this.scheduler = scheduler;
+        this.competitionRepository = competitionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return vrai si la compétition est un championnat en système suisse
+     */
+    public static boolean estSuisse(Competition competition) {
+        return competition instanceof Championnat championnat
+                && championnat.getFormatChampionnat() == Championnat.FormatChampionnat.SUISSE;
+    }
+
+    /**
+     * Nombre de rondes à jouer : la valeur configurée, sinon log2(n) arrondi au supérieur, sans dépasser
+     * le nombre de rondes d'un round robin complet.
+     */
+    static int nombreRondes(Championnat championnat, int nbEquipes) {
+        int maximum = nbEquipes % 2 == 0 ? nbEquipes - 1 : nbEquipes;
+        int rondes = championnat.getNombreRondes() != null
+                ? championnat.getNombreRondes()
+                : 32 - Integer.numberOfLeadingZeros(Math.max(nbEquipes - 1, 1));
+        return Math.max(1, Math.min(rondes, maximum));
+    }
+
+    /**
+     * Matchs d'un championnat en système suisse, pour l'estimation de faisabilité : {@link #nombreRondes} rondes
+     * de n/2 matchs (l'équipe exemptée ne joue pas), dont les paires dépendent des résultats.
+     *
+     * @param championnat championnat en système suisse
+     * @param nbEquipes   nombre d'équipes inscrites
+     * @return le nombre de matchs et le nombre maximal de matchs d'une équipe
+     */
+    static FeasibilityEstimatorService.Charge charge(Championnat championnat, int nbEquipes) {
+        int rondes = nombreRondes(championnat, nbEquipes);
+        return new FeasibilityEstimatorService.Charge((long) rondes * (nbEquipes / 2), rondes, 0);
+    }
+
+    /**
+     * Crée et place la première ronde d'un championnat en système suisse.
+     *
+     * Les anciens matchs du championnat doivent avoir été supprimés au préalable.
+     *
+     * @param championnat championnat à générer
+     * @return les matchs créés
+     * @throws ResponseStatusException si moins de 2 équipes sont inscrites
+     */
+    public List<Match> genererPremiereRonde(Championnat championnat) {
+        List<Equipe> equipes = participationRepository.findById_idCompetition(championnat.getIdCompetition()).stream()
+                .map(p -> equipeService.getById(p.getId().getIdEquipe()))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(Equipe::getIdEquipe))
+                .toList();
+        if (equipes.size() < 2) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Il faut au moins 2 équipes.");
+        }
+
+        List<Set<Integer>> adversaires = new ArrayList<>();
+        for (int i = 0; i < equipes.size(); i++) adversaires.add(Set.of());
+        SwissPairing.Appariement appariement = SwissPairing.apparier(
+                new long[equipes.size()], adversaires, new boolean[equipes.size()]);
+        return placer(championnat, 1, equipes, appariement);
+    }
+
+    /**
+     * Crée la ronde suivante lorsque le match terminé était le dernier de la ronde courante.
+     * Sans effet pour un match hors système suisse, une ronde incomplète ou un championnat terminé.
+     *
+     * La vérification de la ronde et la création de la suivante se font dans une transaction qui verrouille
+     * le championnat : un second appel attend la fin du premier, puis voit la nouvelle ronde et s'arrête.
+     *
+     * @param match match qui vient de se terminer
+     * @return les matchs créés (éventuellement aucun)
+     */
+    public List<Match> avancer(Match match) {
+        if (match.getTour() == null || !estSuisse(match.getIdCompetition())) return List.of();
+        Championnat championnat = (Championnat) match.getIdCompetition();
+        return transactionTemplate.execute(statut -> {
+            competitionRepository.verrouiller(championnat.getIdCompetition());
+            return apparierRondeSuivante(championnat, match);
+        });
+    }
+
+    /**
+     * Apparie et place la ronde suivante si le match terminé était le dernier de la ronde courante.
+     * Appelée sous le verrou du championnat.
+     */
+    private List<Match> apparierRondeSuivante(Championnat championnat, Match match) {
+        List<Match> existants = matchRepository.findByIdCompetition_IdCompetition(championnat.getIdCompetition());
+        int ronde = existants.stream().map(Match::getTour).filter(Objects::nonNull).max(Integer::compare).orElse(0);
+        if (match.getTour() != ronde) return List.of();
+        if (existants.stream().anyMatch(m -> Objects.equals(m.getTour(), ronde) && m.getStatus() != Match.Status.FINISHED)) {
+            return List.of();
+        }
+
+        // Ordre du classement ; à égalité parfaite, la tête de série (identifiant) départage
+        List<Classement> classements = new ArrayList<>(classementRepository.findAllByCompetition_IdCompetition(championnat.getIdCompetition()));
+        classements.sort(Comparator.comparingLong(Classement::getScore).reversed()
+                .thenComparing(Comparator.comparingLong(Classement::getDifference_points).reversed())
+                .thenComparing(Comparator.comparingLong(Classement::getPoint_marque).reversed())
+                .thenComparing(c -> c.getEquipe().getIdEquipe()));
+        int n = classements.size();
+        if (ronde >= nombreRondes(championnat, n)) return List.of();
+
+        List<Equipe> equipes = new ArrayList<>(n);
+        Map<Long, Integer> indices = new HashMap<>();
+        long[] scores = new long[n];
+        for (int i = 0; i < n; i++) {
+            Equipe equipe = classements.get(i).getEquipe();
+            equipes.add(equipe);
+            indices.put(equipe.getIdEquipe(), i);
+            scores[i] = classements.get(i).getScore();
+        }
+
+        List<Set<Integer>> adversaires = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) adversaires.add(new HashSet<>());
+        int[] joues = new int[n];
+        for (Match m : existants) {
+            Integer i1 = indices.get(m.getEquipe1().getIdEquipe());
+            Integer i2 = indices.get(m.getEquipe2().getIdEquipe());
+            if (i1 == null || i2 == null) continue;
+            adversaires.get(i1).add(i2);
+            adversaires.get(i2).add(i1);
+            joues[i1]++;
+            joues[i2]++;
+        }
+        boolean[] dejaExempte = new boolean[n];
+        for (int i = 0; i < n; i++) dejaExempte[i] = joues[i] < ronde;
+
+        return placer(championnat, ronde + 1, equipes, SwissPairing.apparier(scores, adversaires, dejaExempte));
+    }
+
+    /**
+     * Place et enregistre les rencontres d'une ronde, l'une après l'autre sur les premiers créneaux libres.
+     */
+    private List<Match> placer(Championnat championnat, int ronde, List<Equipe> equipes, SwissPairing.Appariement appariement) {
+        PlanificationCompetition planification = new PlanificationCompetition(championnat, matchRepository,
+                indisponibiliteRepository, indisponibiliteTerrainRepository, scheduler);
+        int[] paires = appariement.paires();
+        List<Match> crees = new ArrayList<>(paires.length / 2);
+        for (int p = 0; p < paires.length; p += 2) {
+            ScheduleResult result = planification.placer(List.of(equipes.get(paires[p]), equipes.get(paires[p + 1])));
+            for (Match m : result.getMatchs()) {
+                m.setTour(ronde);
+                m.setPosition(p / 2);
+                crees.add(m);
+            }
+            planification.enregistrer(result);
+        }
+        return crees;
+    }
+}
@@ -16,7 +16,9 @@ import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
 import org.ultimateam.apiultimate.DTO.MatchFauteDTO;
 import org.ultimateam.apiultimate.DTO.MatchPointDTO;
 import org.ultimateam.apiultimate.model.ActionMatch;
+import org.ultimateam.apiultimate.model.Match;
 import org.ultimateam.apiultimate.service.ActionMatchService;
+import org.ultimateam.apiultimate.service.MatchService;
 
 import java.util.Arrays;
 
@@ -36,6 +38,9 @@ class ActionMatchControllerTest {
     @Mock
     private ActionMatchService actionMatchService;
 
+    @Mock
+    private MatchService matchService;
+
     @InjectMocks
     private ActionMatchController actionMatchController;
 
@@ -82,8 +87,8 @@ class ActionMatchControllerTest {
     @Test
     void addPoint_ShouldUseRequestParams() throws Exception {
         // CORRECTION : Ajout de any(java.time.LocalDateTime.class) car le controller appelle LocalDateTime.now()
-        when(actionMatchService.addPoint(eq(1L), eq(2L), any(MatchPointDTO.class)))
-                .thenReturn(new ActionMatch());
+        when(matchService.ajouterPoint(eq(1L), eq(2L), any(MatchPointDTO.class)))
+                .thenReturn(new Match());
 
         mockMvc.perform(post("/api/action-match/1/equipe/2/point")
                         .param("idJoueurPoint", "10")
@@ -95,8 +100,8 @@ class ActionMatchControllerTest {
     void addFaute_ShouldUseRequestBody() throws Exception {
         // CORRECTION : Ajout de any(java.time.LocalDateTime.class) pour correspondre au 4ème paramètre
         MatchFauteDTO dto = new MatchFauteDTO();
-        when(actionMatchService.addFaute(eq(1L), eq(2L), any(MatchFauteDTO.class)))
-                .thenReturn(new ActionMatch());
+        when(matchService.ajouterFaute(eq(1L), eq(2L), any(MatchFauteDTO.class)))
+                .thenReturn(new Match());
 
         mockMvc.perform(post("/api/action-match/1/equipe/2/faute")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -10,15 +10,21 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.ultimateam.apiultimate.DTO.ActionBatchResult;
 import org.ultimateam.apiultimate.DTO.MatchDTO;
 import org.ultimateam.apiultimate.DTO.MatchFauteDTO;
 import org.ultimateam.apiultimate.DTO.MatchPointDTO;
 import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.model.MatchSnapshot;
+import org.ultimateam.apiultimate.service.MatchEventLogService;
 import org.ultimateam.apiultimate.service.MatchService;
 
 import java.util.Arrays;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -33,6 +39,9 @@ class MatchControllerTest {
     @Mock
     private MatchService matchService;
 
+    @Mock
+    private MatchEventLogService matchEventLogService;
+
     @InjectMocks
     private MatchController matchController;
 
@@ -59,6 +68,14 @@ class MatchControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void suivreMatch_ShouldOpenEventStream() throws Exception {
+        when(matchService.suivreMatch(1L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/match/1/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
     @Test
     void getMatchStarted_ShouldReturnList() throws Exception {
         when(matchService.getStarted()).thenReturn(Arrays.asList(new Match()));
@@ -118,6 +135,45 @@ class MatchControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void addActions_ShouldReturnBatchResult() throws Exception {
+        when(matchService.ajouterActions(eq(1L), anyList())).thenReturn(new ActionBatchResult(new Match(), 2, 1));
+
+        mockMvc.perform(post("/api/match/1/actions:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"cle": "tablette-3:1", "type": "POINT", "idEquipe": 2, "idJoueur": 5, "point": 1},
+                                 {"cle": "tablette-3:2", "type": "FAUTE", "idEquipe": 2, "idJoueur": 5}]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enregistrees").value(2))
+                .andExpect(jsonPath("$.doublons").value(1));
+        verify(matchService).ajouterActions(eq(1L), argThat(lot -> lot.size() == 2 && lot.get(1).getCle().equals("tablette-3:2")));
+    }
+
+    @Test
+    void replayMatch_ShouldReturnStateFromLog() throws Exception {
+        MatchSnapshot etat = new MatchSnapshot();
+        etat.setScoreEquipe1(7);
+        etat.setStatus(Match.Status.PAUSED);
+        when(matchEventLogService.rejouer(1L)).thenReturn(etat);
+
+        mockMvc.perform(get("/api/match/1/replay"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scoreEquipe1").value(7))
+                .andExpect(jsonPath("$.status").value("PAUSED"));
+    }
+
+    @Test
+    void rebuildMatch_ShouldCallEventLog() throws Exception {
+        when(matchEventLogService.reconstruire(1L)).thenReturn(new Match());
+
+        mockMvc.perform(post("/api/match/1/rebuild"))
+                .andExpect(status().isOk());
+
+        verify(matchEventLogService).reconstruire(1L);
+    }
+
     @Test
     void deleteMatch_ShouldCallService() throws Exception {
         doNothing().when(matchService).deleteById(1L);
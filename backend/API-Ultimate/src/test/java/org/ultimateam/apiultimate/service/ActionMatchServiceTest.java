@@ -9,11 +9,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
+import org.ultimateam.apiultimate.DTO.MatchActionDTO;
 import org.ultimateam.apiultimate.DTO.MatchPointDTO;
 import org.ultimateam.apiultimate.model.ActionMatch;
 import org.ultimateam.apiultimate.model.Equipe;
 import org.ultimateam.apiultimate.model.Joueur;
 import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.repository.ActionMatchBatchRepository;
 import org.ultimateam.apiultimate.repository.ActionMatchRepository;
 import org.ultimateam.apiultimate.repository.MatchRepository;
 
@@ -21,9 +23,10 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +36,7 @@ class ActionMatchServiceTest {
     @Mock private MatchRepository matchRepository;
     @Mock private EquipeService equipeService;
     @Mock private JoueurService joueurService;
+    @Mock private ActionMatchBatchRepository actionMatchBatchRepository;
 
     @InjectMocks
     private ActionMatchService actionMatchService;
@@ -140,4 +144,82 @@ class ActionMatchServiceTest {
         assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
         assertEquals("Cette équipe ne fait pas partie du match", ex.getReason());
     }
-}
\ No newline at end of file
+
+    private static MatchActionDTO action(String cle, ActionTypeDTO type, long idEquipe, long idJoueur, long point) {
+        MatchActionDTO dto = new MatchActionDTO();
+        dto.setCle(cle);
+        dto.setType(type);
+        dto.setIdEquipe(idEquipe);
+        dto.setIdJoueur(idJoueur);
+        dto.setPoint(point);
+        return dto;
+    }
+
+    @Test
+    void enregistrerLot_ShouldInsertNewActionsOnceAndSkipKnownKeys() {
+        Joueur joueurE2 = new Joueur();
+        joueurE2.setIdJoueur(200L);
+        when(joueurService.getJoueurByEquipe(10L)).thenReturn(List.of(joueurE1));
+        when(joueurService.getJoueurByEquipe(20L)).thenReturn(List.of(joueurE2));
+        // "a:1" a déjà été reçu lors d'un envoi précédent interrompu
+        when(actionMatchRepository.findClesClient(eq(1L), anyCollection())).thenReturn(Set.of("a:1"));
+
+        ActionMatchService.Lot lot = actionMatchService.enregistrerLot(match, List.of(
+                action("a:1", ActionTypeDTO.POINT, 10L, 100L, 1),
+                action("a:2", ActionTypeDTO.POINT, 10L, 100L, 1),
+                action("a:3", ActionTypeDTO.FAUTE, 20L, 200L, 0),
+                action("a:4", ActionTypeDTO.POINT, 20L, 200L, 2),
+                action("a:4", ActionTypeDTO.POINT, 20L, 200L, 2)));
+
+        assertEquals(new ActionMatchService.Lot(3, 2, 1, 2), lot);
+        verify(actionMatchBatchRepository).enregistrerLot(eq(1L), argThat(actions -> actions.size() == 3
+                && actions.get(0).getCleClient().equals("a:2")
+                && actions.get(1).getType() == ActionTypeDTO.FAUTE), eq(1L), eq(2L));
+        verify(joueurService, times(2)).getJoueurByEquipe(anyLong());
+        verifyNoInteractions(matchRepository);
+    }
+
+    @Test
+    void enregistrerLot_ShouldDoNothingWhenBatchAlreadyReceived() {
+        when(actionMatchRepository.findClesClient(eq(1L), anyCollection())).thenReturn(Set.of("a:1", "a:2"));
+
+        ActionMatchService.Lot lot = actionMatchService.enregistrerLot(match, List.of(
+                action("a:1", ActionTypeDTO.POINT, 10L, 100L, 1),
+                action("a:2", ActionTypeDTO.POINT, 10L, 100L, 1)));
+
+        assertEquals(new ActionMatchService.Lot(0, 2, 0, 0), lot);
+        verifyNoInteractions(actionMatchBatchRepository);
+    }
+
+    @Test
+    void enregistrerLot_ShouldRejectWholeBatchWhenOnePlayerIsNotInMatch() {
+        when(joueurService.getJoueurByEquipe(10L)).thenReturn(List.of(joueurE1));
+        when(joueurService.getJoueurByEquipe(20L)).thenReturn(List.of());
+        when(actionMatchRepository.findClesClient(eq(1L), anyCollection())).thenReturn(Set.of());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> actionMatchService.enregistrerLot(match, List.of(
+                action("a:1", ActionTypeDTO.POINT, 10L, 100L, 1),
+                action("a:2", ActionTypeDTO.POINT, 20L, 999L, 1))));
+
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatusCode());
+        verifyNoInteractions(actionMatchBatchRepository);
+    }
+
+    @Test
+    void enregistrerLot_ShouldRejectActionWithoutKey() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> actionMatchService.enregistrerLot(match, List.of(
+                action(" ", ActionTypeDTO.POINT, 10L, 100L, 1))));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
+    @Test
+    void enregistrerLot_ShouldRejectStateChangeSentByClient() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> actionMatchService.enregistrerLot(match, List.of(
+                action("a:1", ActionTypeDTO.POINT, 10L, 100L, 1),
+                action("a:2", ActionTypeDTO.FIN, 10L, 100L, 0))));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(actionMatchRepository, actionMatchBatchRepository);
+    }
+}
@@ -0,0 +1,246 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.ultimateam.apiultimate.model.*;
+import org.ultimateam.apiultimate.repository.IndisponibiliteRepository;
+import org.ultimateam.apiultimate.repository.IndisponibiliteTerrainRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+import org.ultimateam.apiultimate.repository.ParticipationRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BracketServiceTest {
+
+    @Mock private MatchRepository matchRepository;
+    @Mock private ParticipationRepository participationRepository;
+    @Mock private EquipeService equipeService;
+    @Mock private IndisponibiliteRepository indisponibiliteRepository;
+    @Mock private IndisponibiliteTerrainRepository indisponibiliteTerrainRepository;
+    @Spy private RoundRobinSchedulerService scheduler = new RoundRobinSchedulerService();
+
+    @InjectMocks
+    private BracketService bracketService;
+
+    private Tournoi tournoi;
+    private List<Equipe> equipes;
+
+    @BeforeEach
+    void setUp() {
+        tournoi = new Tournoi();
+        tournoi.setIdCompetition(1L);
+        tournoi.setDateDebut(LocalDate.now().plusDays(10));
+        tournoi.setDateFin(LocalDate.now().plusDays(12));
+        for (long i = 1; i <= 2; i++) {
+            Terrain t = new Terrain();
+            t.setIdTerrain(i);
+            tournoi.getTerrains().add(t);
+        }
+    }
+
+    private void inscrire(int n) {
+        equipes = new ArrayList<>();
+        List<Participation> participations = new ArrayList<>();
+        for (long i = 1; i <= n; i++) {
+            Equipe e = new Equipe("E" + i);
+            e.setIdEquipe(i);
+            equipes.add(e);
+            participations.add(new Participation(e, tournoi));
+        }
+        when(participationRepository.findById_idCompetition(1L)).thenReturn(participations);
+        when(equipeService.getById(anyLong())).thenAnswer(i -> equipes.get(i.<Long>getArgument(0).intValue() - 1));
+    }
+
+    private void sansIndisponibilites() {
+        when(indisponibiliteTerrainRepository.findByTerrain_IdTerrain(anyLong())).thenReturn(List.of());
+        when(indisponibiliteRepository.findAllByEquipe_IdEquipe(anyLong())).thenReturn(List.of());
+    }
+
+    private static Match termine(Match match, Equipe gagnant) {
+        match.setStatus(Match.Status.FINISHED);
+        match.setWinner(gagnant);
+        return match;
+    }
+
+    private static Match matchTableau(Equipe e1, Equipe e2, Match.Tableau tableau, int tour, int position) {
+        Match m = new Match();
+        m.setEquipe1(e1);
+        m.setEquipe2(e2);
+        m.setTableau(tableau);
+        m.setTour(tour);
+        m.setPosition(position);
+        return m;
+    }
+
+    @Test
+    void plan_ShouldProduceLinearNumberOfMatches() {
+        for (int n = 2; n <= 40; n++) {
+            assertEquals(n - 1, BracketPlan.eliminationDirecte(n).nbMatchs(), "élimination directe, n=" + n);
+            assertEquals(2 * n - 2, BracketPlan.doubleElimination(n).nbMatchs(), "double élimination, n=" + n);
+        }
+    }
+
+    @Test
+    void charge_ShouldCountWholeBracketAndLongestRunOfOneTeam() {
+        tournoi.setFormatTournoi(Tournoi.FormatTournoi.ELIMINATION_DIRECTE);
+        assertEquals(new FeasibilityEstimatorService.Charge(4, 3, 0), BracketService.charge(tournoi, 5));
+
+        // Perdant au premier tour : deux tours du tableau des perdants, puis la finale
+        tournoi.setFormatTournoi(Tournoi.FormatTournoi.DOUBLE_ELIMINATION);
+        assertEquals(new FeasibilityEstimatorService.Charge(6, 4, 0), BracketService.charge(tournoi, 4));
+
+        // Deux poules de 4 (6 matchs chacune), puis 4 qualifiés en élimination directe
+        tournoi.setFormatTournoi(Tournoi.FormatTournoi.POULES_ELIMINATION);
+        assertEquals(new FeasibilityEstimatorService.Charge(15, 5, 0), BracketService.charge(tournoi, 8));
+    }
+
+    @Test
+    void genererTableau_ShouldCreateOnlyPlayableMatchesAndGiveByesToTopSeeds() {
+        tournoi.setFormatTournoi(Tournoi.FormatTournoi.ELIMINATION_DIRECTE);
+        inscrire(5);
+        sansIndisponibilites();
+
+        List<Match> matchs = bracketService.genererTableau(tournoi);
+
+        // Tableau de 8 : seules les têtes de série 4 et 5 jouent le premier tour,
+        // les têtes de série 2 et 3, toutes deux exemptes, se rencontrent directement au deuxième tour
+        assertEquals(2, matchs.size());
+        Match premierTour = matchs.get(0);
+        assertEquals(Match.Tableau.PRINCIPAL, premierTour.getTableau());
+        assertEquals(1, premierTour.getTour());
+        assertEquals(1, premierTour.getPosition());
+        assertEquals(4L, premierTour.getEquipe1().getIdEquipe());
+        assertEquals(5L, premierTour.getEquipe2().getIdEquipe());
+
+        Match deuxiemeTour = matchs.get(1);
+        assertEquals(2, deuxiemeTour.getTour());
+        assertEquals(1, deuxiemeTour.getPosition());
+        assertEquals(2L, deuxiemeTour.getEquipe1().getIdEquipe());
+        assertEquals(3L, deuxiemeTour.getEquipe2().getIdEquipe());
+
+        // Équipes distinctes et deux terrains : les deux matchs partagent le premier créneau
+        assertEquals(tournoi.getDateDebut().atTime(9, 0), premierTour.getDateMatch());
+        assertEquals(premierTour.getDateMatch(), deuxiemeTour.getDateMatch());
+        assertNotSame(premierTour.getTerrain(), deuxiemeTour.getTerrain());
+        assertSame(tournoi, premierTour.getIdCompetition());
+        verify(matchRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void avancer_ShouldCreateNextMatchOnceBothEntrantsAreKnown() {
+        tournoi.setFormatTournoi(Tournoi.FormatTournoi.ELIMINATION_DIRECTE);
+        inscrire(5);
+        sansIndisponibilites();
+
+        Match premierTour = termine(matchTableau(equipes.get(3), equipes.get(4), Match.Tableau.PRINCIPAL, 1, 1), equipes.get(4));
+        premierTour.setIdCompetition(tournoi);
+        Match deuxiemeTour = matchTableau(equipes.get(1), equipes.get(2), Match.Tableau.PRINCIPAL, 2, 1);
+        when(matchRepository.findByIdCompetition_IdCompetition(1L)).thenReturn(List.of(premierTour, deuxiemeTour));
+
+        List<Match> crees = bracketService.avancer(premierTour);
+
+        assertEquals(1, crees.size());
+        Match demi = crees.get(0);
+        assertEquals(2, demi.getTour());
+        assertEquals(0, demi.getPosition());
+        assertEquals(1L, demi.getEquipe1().getIdEquipe());
+        assertEquals(5L, demi.getEquipe2().getIdEquipe());
+        assertNotNull(demi.getDateMatch());
+        assertNotNull(demi.getTerrain());
+    }
+
+    @Test
+    void avancer_ShouldSkipMatchAlreadyCreatedByConcurrentFinish() {
+        tournoi.setFormatTournoi(Tournoi.FormatTournoi.ELIMINATION_DIRECTE);
+        inscrire(5);
+        sansIndisponibilites();
+
+        Match premierTour = termine(matchTableau(equipes.get(3), equipes.get(4), Match.Tableau.PRINCIPAL, 1, 1), equipes.get(4));
+        premierTour.setIdCompetition(tournoi);
+        Match deuxiemeTour = matchTableau(equipes.get(1), equipes.get(2), Match.Tableau.PRINCIPAL, 2, 1);
+        when(matchRepository.findByIdCompetition_IdCompetition(1L)).thenReturn(List.of(premierTour, deuxiemeTour));
+        // L'autre fin de match a déjà créé la demi-finale : la contrainte unique refuse le doublon
+        when(matchRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("uk_match_tableau_position"));
+
+        List<Match> crees = assertDoesNotThrow(() -> bracketService.avancer(premierTour));
+
+        assertTrue(crees.isEmpty());
+        verify(indisponibiliteRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void avancer_ShouldSendLoserToLosersBracketInDoubleElimination() {
+        tournoi.setFormatTournoi(Tournoi.FormatTournoi.DOUBLE_ELIMINATION);
+        inscrire(4);
+        sansIndisponibilites();
+
+        Equipe e1 = equipes.get(0), e2 = equipes.get(1), e3 = equipes.get(2), e4 = equipes.get(3);
+        Match m1 = termine(matchTableau(e1, e4, Match.Tableau.PRINCIPAL, 1, 0), e1);
+        m1.setIdCompetition(tournoi);
+        Match m2 = termine(matchTableau(e2, e3, Match.Tableau.PRINCIPAL, 1, 1), e3);
+        when(matchRepository.findByIdCompetition_IdCompetition(1L)).thenReturn(List.of(m1, m2));
+
+        List<Match> crees = bracketService.avancer(m1);
+
+        assertEquals(2, crees.size());
+        Match finalePrincipale = crees.get(0);
+        assertEquals(Match.Tableau.PRINCIPAL, finalePrincipale.getTableau());
+        assertEquals(List.of(1L, 3L), List.of(finalePrincipale.getEquipe1().getIdEquipe(), finalePrincipale.getEquipe2().getIdEquipe()));
+        Match consolante = crees.get(1);
+        assertEquals(Match.Tableau.CONSOLANTE, consolante.getTableau());
+        assertEquals(List.of(4L, 2L), List.of(consolante.getEquipe1().getIdEquipe(), consolante.getEquipe2().getIdEquipe()));
+    }
+
+    @Test
+    void poules_ShouldStartPlayoffsOnlyWhenAllPoolMatchesAreFinished() {
+        tournoi.setFormatTournoi(Tournoi.FormatTournoi.POULES_ELIMINATION);
+        tournoi.setTailleGroupe(3);
+        tournoi.setQualifiesParGroupe(2);
+        inscrire(6);
+        sansIndisponibilites();
+
+        List<Match> poules = bracketService.genererTableau(tournoi);
+        assertEquals(6, poules.size());
+        assertTrue(poules.stream().allMatch(m -> m.getTableau() == Match.Tableau.POULE));
+
+        // Serpentin : poule 1 = {1, 4, 5}, poule 2 = {2, 3, 6} ; 1 et 2 gagnent tout, puis 4 et 3
+        for (Match m : poules) {
+            long id1 = m.getEquipe1().getIdEquipe(), id2 = m.getEquipe2().getIdEquipe();
+            long meilleur = List.of(1L, 2L, 4L, 3L).stream().filter(id -> id == id1 || id == id2).findFirst().orElse(Math.min(id1, id2));
+            termine(m, equipes.get((int) meilleur - 1));
+        }
+        poules.get(5).setStatus(Match.Status.ONGOING);
+        when(matchRepository.findByIdCompetition_IdCompetition(1L)).thenReturn(poules);
+
+        assertTrue(bracketService.avancer(poules.get(0)).isEmpty());
+
+        poules.get(5).setStatus(Match.Status.FINISHED);
+        List<Match> phaseFinale = bracketService.avancer(poules.get(0));
+
+        assertEquals(2, phaseFinale.size());
+        assertEquals(List.of(1L, 3L), List.of(phaseFinale.get(0).getEquipe1().getIdEquipe(), phaseFinale.get(0).getEquipe2().getIdEquipe()));
+        assertEquals(List.of(2L, 4L), List.of(phaseFinale.get(1).getEquipe1().getIdEquipe(), phaseFinale.get(1).getEquipe2().getIdEquipe()));
+    }
+
+    @Test
+    void avancer_ShouldIgnoreRoundRobinMatches() {
+        Match match = new Match();
+        match.setIdCompetition(tournoi);
+
+        assertTrue(bracketService.avancer(match).isEmpty());
+        verifyNoInteractions(matchRepository);
+    }
+}
@@ -0,0 +1,120 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.ultimateam.apiultimate.model.Competition;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.model.Tournoi;
+import org.ultimateam.apiultimate.repository.ClassementRepository;
+import org.ultimateam.apiultimate.repository.ClassementStatsRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Fin simultanée de centaines de matchs sur une vraie base (H2 en mémoire) : aucune mise à jour de classement
+ * ne doit être perdue.
+ */
+class ClassementConcurrencyTest {
+
+    private static final int EQUIPES = 8;
+    private static final int MATCHS = 400;
+
+    private JdbcTemplate jdbcTemplate;
+    private ClassementService classementService;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:classement-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE classement (id_competition BIGINT, id_equipe BIGINT,
+                    point_marque BIGINT DEFAULT 0, point_encaisse BIGINT DEFAULT 0, difference_points BIGINT DEFAULT 0,
+                    victoires BIGINT DEFAULT 0, egalites BIGINT DEFAULT 0, defaites BIGINT DEFAULT 0,
+                    score BIGINT DEFAULT 0, rang BIGINT DEFAULT 0, PRIMARY KEY (id_competition, id_equipe))
+                """);
+        for (long equipe = 1; equipe <= EQUIPES; equipe++) {
+            jdbcTemplate.update("INSERT INTO classement (id_competition, id_equipe) VALUES (1, ?)", equipe);
+        }
+        classementService = new ClassementService(mock(ClassementRepository.class), new ClassementStatsRepository(jdbcTemplate));
+        pool = Executors.newFixedThreadPool(32);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void mettreAJourClassement_ShouldNotLoseUpdates_WhenMatchesFinishInParallel() {
+        Competition competition = new Tournoi();
+        competition.setIdCompetition(1L);
+        Random random = new Random(42);
+        long[] attendusScore = new long[EQUIPES + 1];
+        long[] attendusMarques = new long[EQUIPES + 1];
+        long[] attendusRencontres = new long[EQUIPES + 1];
+
+        List<Match> matchs = new ArrayList<>();
+        for (int i = 0; i < MATCHS; i++) {
+            long e1 = 1 + random.nextInt(EQUIPES);
+            long e2 = 1 + (e1 + random.nextInt(EQUIPES - 1)) % EQUIPES;
+            long s1 = random.nextInt(16);
+            long s2 = random.nextInt(16);
+            matchs.add(match(competition, e1, e2, s1, s2));
+            attendusScore[(int) e1] += s1 > s2 ? 3 : s1 == s2 ? 1 : 0;
+            attendusScore[(int) e2] += s2 > s1 ? 3 : s1 == s2 ? 1 : 0;
+            attendusMarques[(int) e1] += s1;
+            attendusMarques[(int) e2] += s2;
+            attendusRencontres[(int) e1]++;
+            attendusRencontres[(int) e2]++;
+        }
+
+        CompletableFuture.allOf(matchs.stream()
+                .map(match -> CompletableFuture.runAsync(() -> classementService.mettreAJourClassement(match), pool))
+                .toArray(CompletableFuture[]::new)).join();
+
+        long totalDifference = 0;
+        for (Map<String, Object> ligne : jdbcTemplate.queryForList("SELECT * FROM classement")) {
+            int equipe = ((Number) ligne.get("ID_EQUIPE")).intValue();
+            long rencontres = ((Number) ligne.get("VICTOIRES")).longValue() + ((Number) ligne.get("EGALITES")).longValue()
+                    + ((Number) ligne.get("DEFAITES")).longValue();
+            assertEquals(attendusScore[equipe], ((Number) ligne.get("SCORE")).longValue(), "score de l'équipe " + equipe);
+            assertEquals(attendusMarques[equipe], ((Number) ligne.get("POINT_MARQUE")).longValue(), "points marqués de l'équipe " + equipe);
+            assertEquals(attendusRencontres[equipe], rencontres, "rencontres de l'équipe " + equipe);
+            assertEquals(((Number) ligne.get("POINT_MARQUE")).longValue() - ((Number) ligne.get("POINT_ENCAISSE")).longValue(),
+                    ((Number) ligne.get("DIFFERENCE_POINTS")).longValue());
+            totalDifference += ((Number) ligne.get("DIFFERENCE_POINTS")).longValue();
+        }
+        assertEquals(0, totalDifference);
+    }
+
+    private static Match match(Competition competition, long idEquipe1, long idEquipe2, long score1, long score2) {
+        Equipe equipe1 = new Equipe();
+        equipe1.setIdEquipe(idEquipe1);
+        Equipe equipe2 = new Equipe();
+        equipe2.setIdEquipe(idEquipe2);
+        Match match = new Match();
+        match.setIdCompetition(competition);
+        match.setEquipe1(equipe1);
+        match.setEquipe2(equipe2);
+        match.setScoreEquipe1(score1);
+        match.setScoreEquipe2(score2);
+        match.setStatus(Match.Status.FINISHED);
+        return match;
+    }
+}
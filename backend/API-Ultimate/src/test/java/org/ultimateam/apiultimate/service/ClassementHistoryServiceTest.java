@@ -0,0 +1,239 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.ultimateam.apiultimate.DTO.ClassementHistoryDTO;
+import org.ultimateam.apiultimate.model.*;
+import org.ultimateam.apiultimate.repository.ClassementSnapshotRepository;
+import org.ultimateam.apiultimate.repository.EquipeRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClassementHistoryServiceTest {
+
+    private static final LocalDateTime JOUR1 = LocalDateTime.of(2026, 5, 9, 10, 0);
+    private static final LocalDateTime JOUR2 = LocalDateTime.of(2026, 5, 10, 10, 0);
+
+    @Mock
+    private ClassementSnapshotRepository classementSnapshotRepository;
+
+    @Mock
+    private MatchRepository matchRepository;
+
+    @Mock
+    private EquipeRepository equipeRepository;
+
+    @Mock
+    private ClassementService classementService;
+
+    @InjectMocks
+    private ClassementHistoryService classementHistoryService;
+
+    // --- ENCODAGE ---
+
+    @Test
+    void encoder_ShouldRoundTripColumns() {
+        ClassementSnapshot snapshot = new ClassementSnapshot();
+        snapshot.encoder(List.of(classement(1L, 42L, 9, 31), classement(1L, 7L, 6, -4), classement(1L, 3_000_000_000L, 0, -27)));
+
+        ClassementSnapshot.Colonnes colonnes = snapshot.decoder();
+
+        assertEquals(3, snapshot.getNbEquipes());
+        assertArrayEquals(new long[]{42L, 7L, 3_000_000_000L}, colonnes.equipes());
+        assertArrayEquals(new long[]{9, 6, 0}, colonnes.scores());
+        assertArrayEquals(new long[]{31, -4, -27}, colonnes.differences());
+        // Une seule ligne, quelques octets par équipe
+        assertTrue(snapshot.getDonnees().length <= 3 * 3 + 4, "taille " + snapshot.getDonnees().length);
+    }
+
+    // --- ENREGISTREMENT EN FIN DE PERIODE ---
+
+    @Test
+    void apresMatch_ShouldSnapshot_WhenLastMatchOfTheDayFinishes() {
+        Tournoi tournoi = tournoi();
+        Match match = match(tournoi, 1L, JOUR1, Match.Status.FINISHED);
+        // Une seule requête d'existence sur la journée, sans charger les matchs de la compétition
+        when(matchRepository.existsNonTermineDansJournee(1L, JOUR1.toLocalDate().atStartOfDay(),
+                JOUR2.toLocalDate().atStartOfDay(), 1L)).thenReturn(false);
+        when(classementSnapshotRepository.findByIdCompetitionAndPeriode(1L, "2026-05-09")).thenReturn(Optional.empty());
+        when(classementService.triClassement(1L)).thenReturn(List.of(classement(1L, 10L, 3, 10), classement(1L, 20L, 0, -10)));
+
+        classementHistoryService.apresMatch(match);
+
+        ArgumentCaptor<ClassementSnapshot> captor = ArgumentCaptor.forClass(ClassementSnapshot.class);
+        verify(classementSnapshotRepository).save(captor.capture());
+        ClassementSnapshot snapshot = captor.getValue();
+        assertEquals(1L, snapshot.getIdCompetition());
+        assertEquals("2026-05-09", snapshot.getPeriode());
+        assertEquals(JOUR1.toLocalDate().toEpochDay(), snapshot.getOrdre());
+        assertArrayEquals(new long[]{10L, 20L}, snapshot.decoder().equipes());
+        verify(matchRepository, never()).findByIdCompetition_IdCompetition(anyLong());
+    }
+
+    @Test
+    void apresMatch_ShouldNotSnapshot_WhenDayStillHasMatches() {
+        Tournoi tournoi = tournoi();
+        Match match = match(tournoi, 1L, JOUR1, Match.Status.FINISHED);
+        when(matchRepository.existsNonTermineDansJournee(eq(1L), any(), any(), eq(1L))).thenReturn(true);
+
+        classementHistoryService.apresMatch(match);
+
+        verify(classementSnapshotRepository, never()).save(any());
+        verify(classementService, never()).triClassement(anyLong());
+    }
+
+    @Test
+    void apresMatch_ShouldUseRound_ForChampionnat() {
+        Championnat championnat = new Championnat();
+        championnat.setIdCompetition(1L);
+        Match match = match(championnat, 1L, JOUR1, Match.Status.FINISHED);
+        match.setTour(2);
+        // Ronde 2 terminée, quels que soient les autres matchs de la journée
+        when(matchRepository.existsNonTermineDansRonde(1L, 2, 1L)).thenReturn(false);
+        when(classementSnapshotRepository.findByIdCompetitionAndPeriode(1L, "Ronde 2")).thenReturn(Optional.empty());
+        when(classementService.triClassement(1L)).thenReturn(List.of(classement(1L, 10L, 3, 10)));
+
+        classementHistoryService.apresMatch(match);
+
+        ArgumentCaptor<ClassementSnapshot> captor = ArgumentCaptor.forClass(ClassementSnapshot.class);
+        verify(classementSnapshotRepository).save(captor.capture());
+        assertEquals("Ronde 2", captor.getValue().getPeriode());
+        assertEquals(2, captor.getValue().getOrdre());
+        verify(matchRepository, never()).existsNonTermineDansJournee(anyLong(), any(), any(), anyLong());
+    }
+
+    @Test
+    void apresMatch_ShouldReplaceExistingSnapshotOfThePeriod() {
+        Tournoi tournoi = tournoi();
+        Match match = match(tournoi, 1L, JOUR1, Match.Status.FINISHED);
+        ClassementSnapshot existant = new ClassementSnapshot();
+        existant.setId(5L);
+        when(classementSnapshotRepository.findByIdCompetitionAndPeriode(1L, "2026-05-09")).thenReturn(Optional.of(existant));
+        when(classementService.triClassement(1L)).thenReturn(List.of(classement(1L, 10L, 3, 10)));
+
+        classementHistoryService.apresMatch(match);
+
+        verify(classementSnapshotRepository).save(existant);
+        assertEquals(1, existant.getNbEquipes());
+    }
+
+    @Test
+    void apresMatch_ShouldNotThrow_WhenSnapshotFails() {
+        Tournoi tournoi = tournoi();
+        Match match = match(tournoi, 1L, JOUR1, Match.Status.FINISHED);
+        when(classementSnapshotRepository.findByIdCompetitionAndPeriode(anyLong(), anyString())).thenThrow(new IllegalStateException("base"));
+
+        assertDoesNotThrow(() -> classementHistoryService.apresMatch(match));
+    }
+
+    @Test
+    void enregistrer_ShouldRewriteSnapshotCreatedConcurrently() {
+        ClassementSnapshot concurrent = new ClassementSnapshot();
+        concurrent.setId(5L);
+        // Une autre fin de match crée l'instantané de la période entre la lecture et l'insertion
+        when(classementSnapshotRepository.findByIdCompetitionAndPeriode(1L, "2026-05-09"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(concurrent));
+        when(classementService.triClassement(1L)).thenReturn(List.of(classement(1L, 10L, 3, 10)));
+        when(classementSnapshotRepository.save(any())).thenAnswer(i -> {
+            ClassementSnapshot snapshot = i.getArgument(0);
+            if (snapshot.getId() == null) throw new DataIntegrityViolationException("uk_classement_snapshot_periode");
+            return snapshot;
+        });
+
+        ClassementSnapshot enregistre = classementHistoryService.enregistrer(1L, "2026-05-09", 20582L);
+
+        assertSame(concurrent, enregistre);
+        assertEquals(1, concurrent.getNbEquipes());
+        assertEquals(20582L, concurrent.getOrdre());
+    }
+
+    @Test
+    void apresMatch_ShouldIgnoreUndatedMatch() {
+        Match match = match(tournoi(), 1L, null, Match.Status.FINISHED);
+
+        classementHistoryService.apresMatch(match);
+
+        verifyNoInteractions(matchRepository, classementSnapshotRepository);
+    }
+
+    // --- HISTORIQUE ---
+
+    @Test
+    void historique_ShouldBuildRankSeriesPerTeam() {
+        ClassementSnapshot jour1 = snapshot("2026-05-09", classement(1L, 10L, 3, 5), classement(1L, 20L, 0, -5));
+        ClassementSnapshot jour2 = snapshot("2026-05-10", classement(1L, 20L, 3, 2), classement(1L, 10L, 3, 1), classement(1L, 30L, 0, -3));
+        when(classementSnapshotRepository.findByIdCompetitionOrderByOrdreAsc(1L)).thenReturn(List.of(jour1, jour2));
+        when(equipeRepository.findAllById(any())).thenReturn(List.of(equipe(10L, "Disc"), equipe(20L, "Frisbee"), equipe(30L, "Layout")));
+
+        ClassementHistoryDTO historique = classementHistoryService.historique(1L);
+
+        assertEquals(List.of("2026-05-09", "2026-05-10"), historique.periodes());
+        assertEquals(3, historique.series().size());
+        ClassementHistoryDTO.Serie equipe10 = historique.series().get(0);
+        assertEquals(10L, equipe10.idEquipe());
+        assertEquals("Disc", equipe10.nomEquipe());
+        assertEquals(List.of(1L, 2L), equipe10.rangs());
+        assertEquals(List.of(3L, 3L), equipe10.scores());
+        assertEquals(List.of(5L, 1L), equipe10.differences());
+        assertEquals(List.of(2L, 1L), historique.series().get(1).rangs());
+        // Équipe absente de la première journée
+        assertEquals(Arrays.asList(null, 3L), historique.series().get(2).rangs());
+    }
+
+    // --- UTILITAIRES ---
+
+    private static Tournoi tournoi() {
+        Tournoi tournoi = new Tournoi();
+        tournoi.setIdCompetition(1L);
+        return tournoi;
+    }
+
+    private static Match match(Competition competition, long idMatch, LocalDateTime dateMatch, Match.Status status) {
+        Match match = new Match();
+        match.setIdMatch(idMatch);
+        match.setIdCompetition(competition);
+        match.setDateMatch(dateMatch);
+        match.setStatus(status);
+        return match;
+    }
+
+    private static Classement classement(long idCompetition, long idEquipe, long score, long difference) {
+        Classement classement = new Classement(new ParticipationId(idEquipe, idCompetition));
+        classement.setScore(score);
+        classement.setDifference_points(difference);
+        return classement;
+    }
+
+    private static ClassementSnapshot snapshot(String periode, Classement... classements) {
+        ClassementSnapshot snapshot = new ClassementSnapshot();
+        snapshot.setIdCompetition(1L);
+        snapshot.setPeriode(periode);
+        snapshot.encoder(List.of(classements));
+        return snapshot;
+    }
+
+    private static Equipe equipe(long idEquipe, String nom) {
+        Equipe equipe = new Equipe();
+        equipe.setIdEquipe(idEquipe);
+        equipe.setNomEquipe(nom);
+        return equipe;
+    }
+}
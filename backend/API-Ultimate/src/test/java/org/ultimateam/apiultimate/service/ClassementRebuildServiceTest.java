@@ -0,0 +1,200 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.ClassementRebuildResult;
+import org.ultimateam.apiultimate.model.*;
+import org.ultimateam.apiultimate.repository.ClassementRepository;
+import org.ultimateam.apiultimate.repository.ClassementStatsRepository;
+import org.ultimateam.apiultimate.repository.CompetitionRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClassementRebuildServiceTest {
+
+    @Mock
+    private CompetitionRepository competitionRepository;
+
+    @Mock
+    private MatchRepository matchRepository;
+
+    @Mock
+    private ClassementRepository classementRepository;
+
+    @Mock
+    private ClassementStatsRepository classementStatsRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ClassementService classementService;
+
+    private ClassementRebuildService classementRebuildService;
+
+    @BeforeEach
+    void setUp() {
+        classementService = spy(new ClassementService(classementRepository, classementStatsRepository));
+        classementRebuildService = new ClassementRebuildService(competitionRepository, matchRepository,
+                classementRepository, classementStatsRepository, classementService, transactionManager);
+        ReflectionTestUtils.setField(classementRebuildService, "parallelisme", 2);
+    }
+
+    @Test
+    void reconstruire_ShouldRecomputeFromFinishedMatches() {
+        when(competitionRepository.existsById(1L)).thenReturn(true);
+        // Lignes existantes faussées : elles sont ignorées et repartent de zéro
+        Classement faux = classement(1L, 10L);
+        faux.setScore(99);
+        when(classementRepository.findAllByCompetition_IdCompetition(1L)).thenReturn(List.of(faux, classement(1L, 20L), classement(1L, 30L)));
+        when(matchRepository.findByIdCompetition_IdCompetitionAndStatus(1L, Match.Status.FINISHED)).thenReturn(List.of(
+                match(1L, 10L, 20L, 15, 5),
+                match(1L, 20L, 30L, 7, 7),
+                match(1L, 30L, 10L, 12, 3)));
+
+        ClassementRebuildResult resultat = classementRebuildService.reconstruire(1L);
+
+        assertEquals(1, resultat.competitions());
+        assertEquals(3, resultat.equipes());
+        assertEquals(3, resultat.matchs());
+        assertTrue(resultat.echecs().isEmpty());
+
+        List<Classement> lignes = remplaces(1L);
+        Classement equipe10 = lignes.get(0);
+        assertEquals(18, equipe10.getPoint_marque());
+        assertEquals(17, equipe10.getPoint_encaisse());
+        assertEquals(1, equipe10.getDifference_points());
+        assertEquals(1, equipe10.getVictoires());
+        assertEquals(1, equipe10.getDefaites());
+        assertEquals(3, equipe10.getScore());
+        assertEquals(1, lignes.get(1).getScore());
+        assertEquals(4, lignes.get(2).getScore());
+        assertNotSame(faux, equipe10);
+
+        // Verrouillage avant lecture des matchs, puis invalidation du classement en mémoire
+        var ordre = inOrder(classementStatsRepository, matchRepository, classementService);
+        ordre.verify(classementStatsRepository).verrouiller(1L);
+        ordre.verify(matchRepository).findByIdCompetition_IdCompetitionAndStatus(1L, Match.Status.FINISHED);
+        ordre.verify(classementStatsRepository).remplacer(eq(1L), anyList());
+        ordre.verify(classementService).invalider(1L);
+    }
+
+    @Test
+    void reconstruire_ShouldApplyConfiguredPointsRules() {
+        ReflectionTestUtils.setField(classementService, "pointsVictoire", 2L);
+        ReflectionTestUtils.setField(classementService, "pointsEgalite", 1L);
+        ReflectionTestUtils.setField(classementService, "pointsDefaite", 1L);
+        when(competitionRepository.existsById(1L)).thenReturn(true);
+        when(classementRepository.findAllByCompetition_IdCompetition(1L)).thenReturn(List.of(classement(1L, 10L), classement(1L, 20L)));
+        when(matchRepository.findByIdCompetition_IdCompetitionAndStatus(1L, Match.Status.FINISHED)).thenReturn(List.of(
+                match(1L, 10L, 20L, 15, 5),
+                match(1L, 10L, 20L, 8, 8)));
+
+        classementRebuildService.reconstruire(1L);
+
+        List<Classement> lignes = remplaces(1L);
+        assertEquals(3, lignes.get(0).getScore());
+        assertEquals(2, lignes.get(1).getScore());
+    }
+
+    @Test
+    void reconstruire_ShouldIgnoreMatchOfTeamWithoutClassement() {
+        when(competitionRepository.existsById(1L)).thenReturn(true);
+        when(classementRepository.findAllByCompetition_IdCompetition(1L)).thenReturn(List.of(classement(1L, 10L)));
+        when(matchRepository.findByIdCompetition_IdCompetitionAndStatus(1L, Match.Status.FINISHED))
+                .thenReturn(List.of(match(1L, 10L, 99L, 15, 5)));
+
+        classementRebuildService.reconstruire(1L);
+
+        List<Classement> lignes = remplaces(1L);
+        assertEquals(1, lignes.size());
+        assertEquals(3, lignes.get(0).getScore());
+    }
+
+    @Test
+    void reconstruire_ShouldThrow_WhenCompetitionNotFound() {
+        when(competitionRepository.existsById(1L)).thenReturn(false);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> classementRebuildService.reconstruire(1L));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+        verify(classementStatsRepository, never()).remplacer(anyLong(), anyList());
+    }
+
+    @Test
+    void reconstruireTout_ShouldRebuildEveryCompetition_AndReportFailures() {
+        when(competitionRepository.findAll()).thenReturn(List.of(competition(1L), competition(2L), competition(3L)));
+        when(classementRepository.findAllByCompetition_IdCompetition(anyLong()))
+                .thenAnswer(invocation -> {
+                    long id = invocation.getArgument(0);
+                    return List.of(classement(id, 10L), classement(id, 20L));
+                });
+        when(matchRepository.findByIdCompetition_IdCompetitionAndStatus(anyLong(), eq(Match.Status.FINISHED)))
+                .thenAnswer(invocation -> List.of(match(invocation.getArgument(0), 10L, 20L, 15, 5)));
+        lenient().doThrow(new IllegalStateException("verrou")).when(classementStatsRepository).verrouiller(2L);
+
+        ClassementRebuildResult resultat = classementRebuildService.reconstruireTout();
+
+        assertEquals(2, resultat.competitions());
+        assertEquals(4, resultat.equipes());
+        assertEquals(2, resultat.matchs());
+        assertEquals(List.of(2L), resultat.echecs());
+        verify(classementStatsRepository).remplacer(eq(1L), anyList());
+        verify(classementStatsRepository).remplacer(eq(3L), anyList());
+        verify(classementStatsRepository, never()).remplacer(eq(2L), anyList());
+        verify(transactionManager).rollback(any());
+    }
+
+    // --- UTILITAIRES ---
+
+    /** Lignes réécrites pour une compétition, triées par équipe. */
+    @SuppressWarnings("unchecked")
+    private List<Classement> remplaces(long idCompetition) {
+        ArgumentCaptor<List<Classement>> captor = ArgumentCaptor.forClass(List.class);
+        verify(classementStatsRepository).remplacer(eq(idCompetition), captor.capture());
+        return captor.getValue().stream()
+                .sorted(Comparator.comparingLong(c -> c.getIdClassement().getIdEquipe()))
+                .toList();
+    }
+
+    private static Competition competition(long idCompetition) {
+        Competition competition = new Tournoi();
+        competition.setIdCompetition(idCompetition);
+        return competition;
+    }
+
+    private static Classement classement(long idCompetition, long idEquipe) {
+        return new Classement(new ParticipationId(idEquipe, idCompetition));
+    }
+
+    private static Match match(long idCompetition, long idEquipe1, long idEquipe2, long score1, long score2) {
+        Equipe equipe1 = new Equipe();
+        equipe1.setIdEquipe(idEquipe1);
+        Equipe equipe2 = new Equipe();
+        equipe2.setIdEquipe(idEquipe2);
+        Match match = new Match();
+        match.setIdCompetition(competition(idCompetition));
+        match.setEquipe1(equipe1);
+        match.setEquipe2(equipe2);
+        match.setScoreEquipe1(score1);
+        match.setScoreEquipe2(score2);
+        match.setStatus(Match.Status.FINISHED);
+        return match;
+    }
+}
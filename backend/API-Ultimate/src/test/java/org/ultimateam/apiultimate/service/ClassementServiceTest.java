@@ -5,9 +5,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 import org.ultimateam.apiultimate.model.*;
 import org.ultimateam.apiultimate.repository.ClassementRepository;
+import org.ultimateam.apiultimate.repository.ClassementStatsRepository;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -15,6 +19,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,67 +28,54 @@ class ClassementServiceTest {
     @Mock
     private ClassementRepository classementRepository;
 
+    @Mock
+    private ClassementStatsRepository classementStatsRepository;
+
     @InjectMocks
     private ClassementService classementService;
 
     // --- TESTS MISE A JOUR CLASSEMENT (LOGIQUE PRINCIPALE) ---
 
     @Test
-    void mettreAJourClassement_ShouldUpdateStats_WhenWin() {
+    void mettreAJourClassement_ShouldIncrementStats_WhenWin() {
         // Arrange : Match fini, 15-5 pour Equipe 1
         Match match = createMatch(15, 5);
 
-        // Classements existants (vierges)
-        Classement c1 = new Classement(); c1.setEquipe(match.getEquipe1());
-        Classement c2 = new Classement(); c2.setEquipe(match.getEquipe2());
-
-        when(classementRepository.findClassementByCompetition_IdCompetitionAndEquipe_IdEquipe(1L, 10L))
-                .thenReturn(c1);
-        when(classementRepository.findClassementByCompetition_IdCompetitionAndEquipe_IdEquipe(1L, 20L))
-                .thenReturn(c2);
-
         // Act
         classementService.mettreAJourClassement(match);
 
-        // Assert : Equipe 1 (Vainqueur)
-        assertEquals(3, c1.getScore(), "3 points pour la victoire");
-        assertEquals(1, c1.getVictoires());
-        assertEquals(15, c1.getPoint_marque());
-        assertEquals(5, c1.getPoint_encaisse());
-        assertEquals(10, c1.getDifference_points()); // 15 - 5
-
-        // Assert : Equipe 2 (Perdant)
-        assertEquals(0, c2.getScore(), "0 point pour la défaite");
-        assertEquals(1, c2.getDefaites());
-        assertEquals(5, c2.getPoint_marque());
-        assertEquals(15, c2.getPoint_encaisse());
-        assertEquals(-10, c2.getDifference_points()); // 5 - 15
-
-        // On vérifie que save a été appelé 2 fois (une par équipe)
-        verify(classementRepository, times(2)).save(any(Classement.class));
+        // Assert : victoire (+3) pour l'équipe 1, défaite (+0) pour l'équipe 2, en un seul appel
+        verify(classementStatsRepository).ajouter(1L, List.of(
+                new ClassementStatsRepository.Increment(10L, 15, 5, 1, 0, 0, 3),
+                new ClassementStatsRepository.Increment(20L, 5, 15, 0, 0, 1, 0)));
+        // Aucune lecture ni réécriture complète des lignes
+        verify(classementRepository, never()).findClassementByCompetition_IdCompetitionAndEquipe_IdEquipe(anyLong(), anyLong());
+        verify(classementRepository, never()).save(any(Classement.class));
     }
 
     @Test
-    void mettreAJourClassement_ShouldUpdateStats_WhenDraw() {
+    void mettreAJourClassement_ShouldIncrementStats_WhenDraw() {
         // Arrange : Match nul 10-10
         Match match = createMatch(10, 10);
 
-        Classement c1 = new Classement();
-        Classement c2 = new Classement();
-
-        when(classementRepository.findClassementByCompetition_IdCompetitionAndEquipe_IdEquipe(1L, 10L)).thenReturn(c1);
-        when(classementRepository.findClassementByCompetition_IdCompetitionAndEquipe_IdEquipe(1L, 20L)).thenReturn(c2);
-
         // Act
         classementService.mettreAJourClassement(match);
 
-        // Assert
-        assertEquals(1, c1.getScore(), "1 point pour le nul");
-        assertEquals(1, c1.getEgalites());
-        assertEquals(0, c1.getDifference_points());
+        // Assert : 1 point pour le nul, de chaque côté
+        verify(classementStatsRepository).ajouter(1L, List.of(
+                new ClassementStatsRepository.Increment(10L, 10, 10, 0, 1, 0, 1),
+                new ClassementStatsRepository.Increment(20L, 10, 10, 0, 1, 0, 1)));
+    }
+
+    @Test
+    void mettreAJourClassement_ShouldThrow_WhenClassementMissing() {
+        doThrow(new JdbcUpdateAffectedIncorrectNumberOfRowsException("UPDATE classement", 1, 0))
+                .when(classementStatsRepository).ajouter(eq(1L), anyList());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> classementService.mettreAJourClassement(createMatch(15, 5)));
 
-        assertEquals(1, c2.getScore());
-        assertEquals(1, c2.getEgalites());
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
     }
 
     @Test
@@ -94,31 +86,80 @@ class ClassementServiceTest {
         classementService.mettreAJourClassement(match);
 
         // Rien ne doit se passer, aucun appel au repo
-        verify(classementRepository, never()).findClassementByCompetition_IdCompetitionAndEquipe_IdEquipe(anyLong(), anyLong());
+        verifyNoInteractions(classementStatsRepository);
     }
 
     // --- TESTS TRI ET RANG ---
 
     @Test
-    void triClassement_ShouldAssignRanks() {
-        // Arrange : Une liste simulée qui revient déjà triée par la requête SQL (OrderByRank)
-        Classement premier = new Classement(); premier.setScore(9);
-        Classement deuxieme = new Classement(); deuxieme.setScore(6);
-        Classement troisieme = new Classement(); troisieme.setScore(3);
-
-        List<Classement> listeTriee = new ArrayList<>(List.of(premier, deuxieme, troisieme));
+    void triClassement_ShouldAssignRanksAndWriteOnlyChangedOnes() {
+        // Arrange : le rang du premier est déjà à jour en base
+        Classement premier = ligne(1L, 10L, 9); premier.setRang(1);
+        Classement deuxieme = ligne(1L, 20L, 6);
+        Classement troisieme = ligne(1L, 30L, 3);
 
-        when(classementRepository.findAllByCompetitionIdOrderByRank(1L)).thenReturn(listeTriee);
+        when(classementRepository.findAllByCompetitionIdOrderByRank(1L)).thenReturn(List.of(troisieme, premier, deuxieme));
 
         // Act
         List<Classement> result = classementService.triClassement(1L);
 
         // Assert
+        assertEquals(List.of(premier, deuxieme, troisieme), result);
         assertEquals(1, result.get(0).getRang());
         assertEquals(2, result.get(1).getRang());
         assertEquals(3, result.get(2).getRang());
 
-        verify(classementRepository).saveAll(listeTriee);
+        verify(classementRepository, never()).updateRang(1L, 10L, 1L);
+        verify(classementRepository).updateRang(1L, 20L, 2L);
+        verify(classementRepository).updateRang(1L, 30L, 3L);
+        verify(classementRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void triClassement_ShouldServeFromMemoryWithoutWrites() {
+        when(classementRepository.findAllByCompetitionIdOrderByRank(1L))
+                .thenReturn(List.of(ligne(1L, 10L, 9), ligne(1L, 20L, 6), ligne(1L, 30L, 3)));
+        classementService.triClassement(1L);
+        clearInvocations(classementRepository);
+
+        List<Classement> top2 = classementService.triClassement(1L, 2);
+
+        assertEquals(2, top2.size());
+        assertEquals(10L, top2.get(0).getIdClassement().getIdEquipe());
+        verifyNoInteractions(classementRepository);
+    }
+
+    @Test
+    void triClassement_ShouldReloadAfterExpiry() {
+        ReflectionTestUtils.setField(classementService, "dureeCacheMs", 0L);
+        when(classementRepository.findAllByCompetitionIdOrderByRank(1L)).thenReturn(List.of(ligne(1L, 10L, 9)));
+
+        classementService.triClassement(1L);
+        classementService.triClassement(1L);
+
+        verify(classementRepository, times(2)).findAllByCompetitionIdOrderByRank(1L);
+    }
+
+    @Test
+    void mettreAJourClassement_ShouldMoveTeamsInLoadedLeaderboard() {
+        // Classement chargé : 10 (6 pts), 30 (3 pts), 20 (0 pt)
+        when(classementRepository.findAllByCompetitionIdOrderByRank(1L))
+                .thenReturn(List.of(ligne(1L, 10L, 6), ligne(1L, 30L, 3), ligne(1L, 20L, 0)));
+        classementService.triClassement(1L);
+        clearInvocations(classementRepository);
+
+        // L'équipe 20 bat l'équipe 10
+        classementService.mettreAJourClassement(createMatch(5, 15));
+
+        // 10 : 6 pts, 1 défaite ; 20 : 3 pts, 1 victoire, +10 ; 30 : 3 pts, aucune rencontre
+        List<Classement> apres = classementService.triClassement(1L);
+        assertEquals(List.of(10L, 20L, 30L), apres.stream().map(c -> c.getIdClassement().getIdEquipe()).toList());
+        assertEquals(3, apres.get(1).getScore());
+        assertEquals(10, apres.get(1).getDifference_points());
+        assertEquals(1, apres.get(0).getDefaites());
+        verify(classementRepository).updateRang(1L, 20L, 2L);
+        verify(classementRepository).updateRang(1L, 30L, 3L);
+        verify(classementRepository, never()).updateRang(eq(1L), eq(10L), anyLong());
     }
 
     // --- TESTS SUPPRESSION ---
@@ -155,6 +196,12 @@ class ClassementServiceTest {
 
     // --- Helpers ---
 
+    private static Classement ligne(long idCompetition, long idEquipe, long score) {
+        Classement classement = new Classement(new ParticipationId(idEquipe, idCompetition));
+        classement.setScore(score);
+        return classement;
+    }
+
     private Match createMatch(int s1, int s2) {
         Match m = new Match();
         m.setStatus(Match.Status.FINISHED);
@@ -0,0 +1,77 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompatiblePairMatcherTest {
+
+    private static int[][] graphe(int n, int[]... aretes) {
+        List<List<Integer>> voisins = new ArrayList<>();
+        for (int i = 0; i < n; i++) voisins.add(new ArrayList<>());
+        for (int[] e : aretes) {
+            voisins.get(e[0]).add(e[1]);
+            voisins.get(e[1]).add(e[0]);
+        }
+        int[][] adj = new int[n][];
+        for (int i = 0; i < n; i++) adj[i] = voisins.get(i).stream().mapToInt(Integer::intValue).toArray();
+        return adj;
+    }
+
+    private static int[] vide(int n) {
+        int[] mate = new int[n];
+        Arrays.fill(mate, -1);
+        return mate;
+    }
+
+    @Test
+    void augment_ShouldRepairBadGreedyChoice() {
+        // Chemin 0-1-2-3 : le glouton prend (1,2), le maximum est {(0,1), (2,3)}
+        int[][] adj = graphe(4, new int[]{0, 1}, new int[]{1, 2}, new int[]{2, 3});
+        int[] mate = vide(4);
+        mate[1] = 2;
+        mate[2] = 1;
+
+        int matched = new CompatiblePairMatcher().augment(adj, mate, 1, 2);
+
+        assertEquals(2, matched);
+        assertArrayEquals(new int[]{1, 0, 3, 2}, mate);
+    }
+
+    @Test
+    void augment_ShouldHandleOddCycle() {
+        // Triangle 0-1-2 relié à 3 par 2 puis à 4 par 3 et à 5 par 0 : couplage parfait via une fleur
+        int[][] adj = graphe(6,
+                new int[]{0, 1}, new int[]{1, 2}, new int[]{2, 0},
+                new int[]{2, 3}, new int[]{3, 4}, new int[]{0, 5});
+        int[] mate = vide(6);
+        mate[1] = 2;
+        mate[2] = 1;
+        mate[3] = 4;
+        mate[4] = 3;
+
+        int matched = new CompatiblePairMatcher().augment(adj, mate, 2, 3);
+
+        assertEquals(3, matched);
+        for (int v = 0; v < 6; v++) {
+            assertNotEquals(-1, mate[v]);
+            assertEquals(v, mate[mate[v]]);
+        }
+    }
+
+    @Test
+    void augment_ShouldStopAtLimit() {
+        int[][] adj = graphe(6, new int[]{0, 1}, new int[]{2, 3}, new int[]{4, 5});
+        int[] mate = vide(6);
+
+        int matched = new CompatiblePairMatcher().augment(adj, mate, 0, 2);
+
+        assertEquals(2, matched);
+        assertEquals(-1, mate[4]);
+        assertEquals(-1, mate[5]);
+    }
+}
@@ -1,10 +1,13 @@
 package org.ultimateam.apiultimate.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
@@ -12,6 +15,8 @@ import org.ultimateam.apiultimate.DTO.ScheduleResult;
 import org.ultimateam.apiultimate.model.*;
 import org.ultimateam.apiultimate.repository.*;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -21,6 +26,8 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +41,14 @@ class CompetitionServiceTest {
     @Mock private IndisponibiliteRepository indisponibiliteRepository;
     @Mock private ClassementRepository classementRepository;
     @Mock private TerrainService terrainService;
+    @Mock private IndisponibiliteTerrainRepository indisponibiliteTerrainRepository;
+    @Mock private BracketService bracketService;
+    @Mock private SwissSystemService swissSystemService;
+    @Mock private LiveMatchRegistry liveMatchRegistry;
+    @Mock private CompetitionStreamService competitionStreamService;
+    @Mock private ClassementService classementService;
+    @Mock private FeasibilityEstimatorService feasibilityEstimator;
+    @Spy private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
     @InjectMocks
     private CompetitionService competitionService;
@@ -98,6 +113,107 @@ class CompetitionServiceTest {
     }
 
 
+    @Test
+    void previsualiserCompetition_ShouldStreamMatchesThenSummaryWithoutPersisting() throws Exception {
+        Equipe tigres = new Equipe();
+        tigres.setIdEquipe(200L);
+        tigres.setNomEquipe("Tigres");
+
+        when(competitionRepository.findById(1L)).thenReturn(Optional.of(competition));
+        when(terrainService.getById(10L)).thenReturn(terrain);
+        when(participationRepository.findById_idCompetition(1L)).thenReturn(List.of(
+                new Participation(equipe, competition), new Participation(tigres, competition)));
+        when(equipeService.getById(100L)).thenReturn(equipe);
+        when(equipeService.getById(200L)).thenReturn(tigres);
+        when(equipeService.getIndisponibilites(anyLong())).thenReturn(List.of());
+        when(indisponibiliteTerrainRepository.findAll()).thenReturn(List.of());
+
+        // Le planificateur ne place que le match aller
+        when(scheduler.generateSchedule(anyList(), anyList(), any(), any(), anyBoolean(), anyList(), anyList(), any(PlacementListener.class)))
+                .thenAnswer(invocation -> {
+                    ScheduleResult result = new ScheduleResult(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+                    Match aller = RoundRobinSchedulerService.addMatch(result, equipe, tigres, terrain,
+                            competition.getDateDebut().atTime(9, 0));
+                    invocation.<PlacementListener>getArgument(7).onMatchPlaced(aller);
+                    return result;
+                });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        competitionService.previsualiserCompetition(1L).writeTo(out);
+
+        String[] lignes = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lignes.length);
+
+        JsonNode match = objectMapper.readTree(lignes[0]);
+        assertEquals("match", match.get("type").asText());
+        assertEquals("Lions", match.get("nomEquipe1").asText());
+        assertEquals(10L, match.get("idTerrain").asLong());
+
+        JsonNode resume = objectMapper.readTree(lignes[1]);
+        assertEquals("resume", resume.get("type").asText());
+        assertEquals(1, resume.get("matchsPlaces").asInt());
+        assertEquals(1, resume.get("nonPlaces").size());
+        assertEquals("Tigres", resume.get("nonPlaces").get(0).get("nomEquipe1").asText());
+
+        verify(matchRepository, never()).saveAll(any());
+        verify(matchRepository, never()).deleteAll(any());
+        verify(classementRepository, never()).save(any());
+    }
+
+    @Test
+    void previsualiserCompetition_ShouldRejectTooFewTeamsBeforeStreaming() {
+        when(competitionRepository.findById(1L)).thenReturn(Optional.of(competition));
+        when(terrainService.getById(10L)).thenReturn(terrain);
+        when(participationRepository.findById_idCompetition(1L)).thenReturn(List.of(new Participation(equipe, competition)));
+        when(equipeService.getById(100L)).thenReturn(equipe);
+        when(equipeService.getIndisponibilites(anyLong())).thenReturn(List.of());
+        when(indisponibiliteTerrainRepository.findAll()).thenReturn(List.of());
+
+        // L'erreur sort de l'appel lui-même, pas de l'écriture du flux (statut 200 déjà envoyé)
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> competitionService.previsualiserCompetition(1L));
+
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatusCode());
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    void previsualiserCompetition_ShouldRejectEliminationTournament() {
+        ((Tournoi) competition).setFormatTournoi(Tournoi.FormatTournoi.ELIMINATION_DIRECTE);
+        when(competitionRepository.findById(1L)).thenReturn(Optional.of(competition));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> competitionService.previsualiserCompetition(1L));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    void estimerFaisabilite_ShouldCountBracketMatchesForEliminationTournament() {
+        ((Tournoi) competition).setFormatTournoi(Tournoi.FormatTournoi.ELIMINATION_DIRECTE);
+        List<Equipe> equipes = new ArrayList<>();
+        List<Participation> participations = new ArrayList<>();
+        for (long i = 1; i <= 8; i++) {
+            Equipe e = new Equipe("E" + i);
+            e.setIdEquipe(i);
+            equipes.add(e);
+            participations.add(new Participation(e, competition));
+        }
+        when(competitionRepository.findById(1L)).thenReturn(Optional.of(competition));
+        when(terrainService.getById(10L)).thenReturn(terrain);
+        when(participationRepository.findById_idCompetition(1L)).thenReturn(participations);
+        when(equipeService.getById(anyLong())).thenAnswer(i -> equipes.get(i.<Long>getArgument(0).intValue() - 1));
+        when(equipeService.getIndisponibilites(anyLong())).thenReturn(List.of());
+        when(indisponibiliteTerrainRepository.findAll()).thenReturn(List.of());
+
+        competitionService.estimerFaisabilite(1L);
+
+        // 7 matchs (et non les 56 d'un round robin aller-retour), au plus 3 par équipe
+        verify(feasibilityEstimator).estimer(eq(equipes), anyList(), any(), any(),
+                eq(new FeasibilityEstimatorService.Charge(7, 3, 0)), anyList(), anyList());
+    }
+
     // --- TESTS GESTION TERRAINS ---
 
     @Test
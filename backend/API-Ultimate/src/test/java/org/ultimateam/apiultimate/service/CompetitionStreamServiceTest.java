@@ -0,0 +1,195 @@
+package org.ultimateam.apiultimate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.ultimateam.apiultimate.DTO.MatchEventDTO;
+import org.ultimateam.apiultimate.model.Competition;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.model.Tournoi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CompetitionStreamServiceTest {
+
+    /** Flux qui retient les évènements envoyés (nom et données), éventuellement bloqué comme un client lent. */
+    private static class FluxCapture extends SseEmitter {
+        private final List<String> envoyes = new CopyOnWriteArrayList<>();
+        private final List<Object> donnees = new CopyOnWriteArrayList<>();
+        private CountDownLatch bloque;
+        private volatile boolean termine;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (bloque != null) {
+                try {
+                    bloque.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder texte = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType d : builder.build()) {
+                texte.append(d.getData());
+                if (MediaType.APPLICATION_JSON.equals(d.getMediaType())) donnees.add(d.getData());
+            }
+            envoyes.add(texte.toString());
+        }
+
+        @Override
+        public void complete() {
+            termine = true;
+        }
+    }
+
+    private final ObjectMapper objectMapper = spy(new ObjectMapper().findAndRegisterModules());
+    private final List<FluxCapture> flux = new ArrayList<>();
+
+    private CountDownLatch prochainBloque;
+
+    // Envois exécutés sur le thread appelant : chaque test lit les flux juste après diffuser()
+    private final CompetitionStreamService service = service(Runnable::run);
+
+    private CompetitionStreamService service(Executor envoi) {
+        return new CompetitionStreamService(objectMapper, envoi) {
+            @Override
+            SseEmitter nouvelEmetteur() {
+                FluxCapture capture = new FluxCapture();
+                capture.bloque = prochainBloque;
+                flux.add(capture);
+                return capture;
+            }
+        };
+    }
+
+    private static Match match(long idMatch, Competition competition) {
+        Match match = new Match();
+        match.setIdMatch(idMatch);
+        match.setIdCompetition(competition);
+        match.setStatus(Match.Status.ONGOING);
+        return match;
+    }
+
+    private static Competition competition(long id) {
+        Tournoi tournoi = new Tournoi();
+        tournoi.setIdCompetition(id);
+        return tournoi;
+    }
+
+    @Test
+    void diffuser_ShouldCoalesceUpdatesPerMatchAndSerializeOncePerTick() throws Exception {
+        Competition finale = competition(1L);
+        for (int i = 0; i < 1000; i++) service.abonner(1L, List::of);
+        clearInvocations(objectMapper);
+
+        Match m1 = match(10L, finale);
+        Match m2 = match(20L, finale);
+        for (int point = 1; point <= 5; point++) {
+            m1.setScoreEquipe1(point);
+            service.publier(MatchEventDTO.point(m1, 1L, 1L, 1));
+        }
+        m2.setScoreEquipe2(3);
+        service.publier(MatchEventDTO.point(m2, 2L, 2L, 1));
+
+        service.diffuser();
+
+        // Une seule sérialisation pour 1000 spectateurs, seul le dernier état de chaque match est envoyé
+        verify(objectMapper, times(1)).writeValueAsString(any());
+        String json = (String) flux.get(999).donnees.get(1);
+        List<?> etats = objectMapper.readValue(json, List.class);
+        assertEquals(2, etats.size());
+        assertTrue(json.contains("\"scoreEquipe1\":5"));
+        assertTrue(flux.get(0).envoyes.get(1).contains("event:scores"));
+        assertSame(flux.get(0).donnees.get(1), flux.get(999).donnees.get(1));
+
+        // Rien de nouveau : aucun envoi au tick suivant
+        service.diffuser();
+        assertEquals(2, flux.get(0).envoyes.size());
+    }
+
+    @Test
+    void abonner_ShouldSendOngoingMatchesFirst() {
+        Match m1 = match(10L, competition(1L));
+        m1.setScoreEquipe1(7);
+
+        service.abonner(1L, () -> List.of(MatchEventDTO.etat("etat", m1)));
+
+        assertEquals(1, flux.get(0).envoyes.size());
+        assertTrue(flux.get(0).envoyes.get(0).contains("event:etat"));
+        assertTrue(flux.get(0).envoyes.get(0).contains("\"scoreEquipe1\":7"));
+    }
+
+    @Test
+    void publier_ShouldIgnoreCompetitionWithoutSpectator() throws Exception {
+        service.abonner(2L, List::of);
+        clearInvocations(objectMapper);
+
+        service.publier(MatchEventDTO.point(match(10L, competition(1L)), 1L, 1L, 1));
+        service.diffuser();
+
+        verify(objectMapper, never()).writeValueAsString(any());
+        assertEquals(1, flux.get(0).envoyes.size());
+    }
+
+    @Test
+    void abonner_ShouldRegisterSpectatorBeforeReadingOngoingMatches() {
+        Match m1 = match(10L, competition(1L));
+
+        // Un point marqué pendant la lecture de l'état initial part avec l'envoi suivant
+        service.abonner(1L, () -> {
+            assertEquals(1, service.nbAbonnes(1L));
+            m1.setScoreEquipe1(1);
+            service.publier(MatchEventDTO.point(m1, 1L, 1L, 1));
+            return List.of();
+        });
+        service.diffuser();
+
+        assertEquals(2, flux.get(0).envoyes.size());
+        assertTrue(flux.get(0).envoyes.get(1).contains("\"scoreEquipe1\":1"));
+    }
+
+    @Test
+    void diffuser_ShouldDisconnectSlowSpectatorWithoutDelayingOthers() throws Exception {
+        ExecutorService envoi = Executors.newVirtualThreadPerTaskExecutor();
+        CompetitionStreamService diffusion = service(envoi);
+        CountDownLatch liberer = new CountDownLatch(1);
+        diffusion.abonner(1L, List::of);
+        prochainBloque = liberer;
+        diffusion.abonner(1L, List::of);
+        FluxCapture rapide = flux.get(0);
+        FluxCapture lent = flux.get(1);
+
+        // Le spectateur lent reste bloqué sur son état initial : sa file (8 envois) déborde au 9e
+        Match m1 = match(10L, competition(1L));
+        for (int point = 1; point <= 9; point++) {
+            m1.setScoreEquipe1(point);
+            diffusion.publier(MatchEventDTO.point(m1, 1L, 1L, 1));
+            diffusion.diffuser();
+        }
+
+        assertEquals(1, diffusion.nbAbonnes(1L));
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((rapide.envoyes.size() < 10 || !lent.termine) && System.nanoTime() < limite) Thread.sleep(10);
+        assertEquals(10, rapide.envoyes.size());
+        assertTrue(lent.termine);
+        assertTrue(lent.envoyes.isEmpty());
+
+        liberer.countDown();
+        envoi.shutdown();
+        assertTrue(envoi.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
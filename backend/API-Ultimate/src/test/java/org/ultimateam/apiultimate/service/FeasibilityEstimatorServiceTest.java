@@ -0,0 +1,109 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.FaisabiliteDTO;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Indisponibilite;
+import org.ultimateam.apiultimate.model.IndisponibiliteTerrain;
+import org.ultimateam.apiultimate.model.Terrain;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeasibilityEstimatorServiceTest {
+
+    private static final LocalDate DEBUT = LocalDate.of(2025, 6, 2);
+
+    private RoundRobinSchedulerService scheduler;
+    private FeasibilityEstimatorService estimator;
+    private Terrain terrain;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new RoundRobinSchedulerService();
+        estimator = new FeasibilityEstimatorService(scheduler);
+        terrain = new Terrain();
+        terrain.setIdTerrain(1L);
+        terrain.setNom("Terrain 1");
+    }
+
+    private static List<Equipe> equipes(int n) {
+        List<Equipe> equipes = new ArrayList<>();
+        for (long i = 1; i <= n; i++) {
+            Equipe e = new Equipe("E" + i);
+            e.setIdEquipe(i);
+            equipes.add(e);
+        }
+        return equipes;
+    }
+
+    @Test
+    void estimer_ShouldReportLimitingTeamsWhenPeriodIsTooShort() {
+        // 4 équipes, 6 matchs : une équipe joue au plus 2 matchs par jour, il en faut 3
+        FaisabiliteDTO dto = estimator.estimer(equipes(4), List.of(terrain), DEBUT, DEBUT, false, List.of(), List.of());
+
+        assertFalse(dto.faisable());
+        assertEquals(6, dto.matchsAJouer());
+        assertEquals(4, dto.capaciteMatchs());
+        assertEquals(4, dto.equipesLimitantes().size());
+        assertEquals(2, dto.equipesLimitantes().get(0).matchsJouables());
+        assertEquals(DEBUT.plusDays(1), dto.dateFinMinimale());
+        assertNull(dto.terrainsMinimum(), "Aucun nombre de terrains ne compense le manque de jours");
+    }
+
+    @Test
+    void estimer_ShouldAgreeWithSchedulerOnFeasiblePeriod() {
+        List<Equipe> equipes = equipes(4);
+        LocalDate fin = DEBUT.plusDays(2);
+
+        FaisabiliteDTO dto = estimator.estimer(equipes, List.of(terrain), DEBUT, fin, false, List.of(), List.of());
+
+        assertTrue(dto.faisable());
+        assertEquals(12, dto.capaciteMatchs());
+        assertEquals(1, dto.terrainsMinimum());
+        assertEquals(0, dto.pairesSansCreneauCommun());
+        assertEquals(6, scheduler.generateSchedule(equipes, List.of(terrain), DEBUT, fin, false, List.of(), List.of())
+                .getMatchs().size());
+    }
+
+    @Test
+    void estimer_ShouldCountHypotheticalTerrainsBeyondRegisteredOnes() {
+        // 6 équipes, 15 matchs sur 3 jours : un terrain offre 12 créneaux, deux terrains suffisent
+        FaisabiliteDTO dto = estimator.estimer(equipes(6), List.of(terrain), DEBUT, DEBUT.plusDays(2), false, List.of(), List.of());
+
+        assertFalse(dto.faisable());
+        assertTrue(dto.equipesLimitantes().isEmpty());
+        assertEquals(2, dto.terrainsMinimum());
+        assertEquals(DEBUT.plusDays(3), dto.dateFinMinimale());
+    }
+
+    @Test
+    void estimer_ShouldTakeUnavailabilitiesIntoAccount() {
+        List<Equipe> equipes = equipes(4);
+        List<Indisponibilite> indispos = List.of(
+                new Indisponibilite(DEBUT.atTime(0, 0), DEBUT.atTime(23, 59), equipes.get(0)));
+        List<IndisponibiliteTerrain> indisposTerrain = List.of(
+                new IndisponibiliteTerrain(DEBUT.plusDays(1).atTime(0, 0), DEBUT.plusDays(1).atTime(11, 0), terrain, null));
+
+        FaisabiliteDTO unJour = estimator.estimer(equipes, List.of(terrain), DEBUT, DEBUT, false, indispos, indisposTerrain);
+        assertEquals(3, unJour.pairesSansCreneauCommun());
+        assertEquals(0, unJour.equipesLimitantes().get(0).matchsJouables());
+
+        // E1 ne joue pas le premier jour, le terrain n'est libre que l'après-midi du deuxième
+        FaisabiliteDTO dto = estimator.estimer(equipes, List.of(terrain), DEBUT, DEBUT.plusDays(3), false, indispos, indisposTerrain);
+        assertTrue(dto.faisable());
+        assertEquals(3 + 2 + 4 + 4, dto.capaciteMatchs());
+        assertEquals(DEBUT.plusDays(2), dto.dateFinMinimale());
+    }
+
+    @Test
+    void estimer_ShouldRejectLessThanTwoTeams() {
+        assertThrows(ResponseStatusException.class,
+                () -> estimator.estimer(equipes(1), List.of(terrain), DEBUT, DEBUT, false, List.of(), List.of()));
+    }
+}
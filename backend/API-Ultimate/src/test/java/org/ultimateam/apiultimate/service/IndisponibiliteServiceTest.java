@@ -25,6 +25,7 @@ class IndisponibiliteServiceTest {
 
     @Mock private IndisponibiliteRepository indisponibiliteRepository;
     @Mock private EquipeService equipeService;
+    @Mock private ScheduleRepairService scheduleRepairService;
 
     @InjectMocks
     private IndisponibiliteService indisponibiliteService;
@@ -58,6 +59,7 @@ class IndisponibiliteServiceTest {
         assertEquals(start, result.getDateDebut());
         assertEquals(end, result.getDateFin());
         verify(indisponibiliteRepository).save(any(Indisponibilite.class));
+        verify(scheduleRepairService).reparerPourIndisponibilite(any(Indisponibilite.class));
     }
 
     @Test
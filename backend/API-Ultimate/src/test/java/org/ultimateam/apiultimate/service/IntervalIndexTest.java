@@ -0,0 +1,56 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalIndexTest {
+
+    private static LocalDateTime h(int heure, int minute) {
+        return LocalDateTime.of(2025, 1, 1, heure, minute);
+    }
+
+    @Test
+    void add_ShouldMergeTouchingAndOverlappingIntervals() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(h(9, 0), h(10, 0));
+        index.add(h(10, 0), h(11, 0));   // touche le premier
+        index.add(h(10, 30), h(12, 0));  // chevauche le second
+        index.add(h(14, 0), h(15, 0));   // disjoint
+
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void touches_ShouldIncludeBounds() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(h(9, 0), h(10, 50));
+
+        assertTrue(index.touches(h(10, 50), h(12, 40)), "Un bloc qui finit au début du créneau est conflictuel");
+        assertTrue(index.touches(h(8, 0), h(9, 0)));
+        assertFalse(index.touches(h(10, 51), h(12, 40)));
+        assertFalse(index.touches(h(7, 0), h(8, 59)));
+    }
+
+    @Test
+    void overlaps_ShouldIgnoreSharedBound() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(h(9, 0), h(10, 50));
+
+        assertFalse(index.overlaps(h(10, 50), h(12, 40)), "Deux créneaux consécutifs ne se chevauchent pas");
+        assertTrue(index.overlaps(h(10, 0), h(11, 0)));
+        assertTrue(index.overlaps(h(8, 0), h(12, 0)));
+    }
+
+    @Test
+    void touches_ShouldFindIntervalCoveringWholeSlot() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(h(8, 0), h(9, 0));
+        index.add(h(12, 0), h(18, 0));
+
+        assertTrue(index.touches(h(14, 30), h(16, 20)));
+        assertFalse(index.touches(h(9, 30), h(11, 0)));
+    }
+}
@@ -0,0 +1,285 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
+import org.ultimateam.apiultimate.model.ActionMatch;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Joueur;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.repository.ActionMatchRepository;
+import org.ultimateam.apiultimate.repository.JoueurRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveMatchRegistryTest {
+
+    @Mock private MatchRepository matchRepository;
+    @Mock private ActionMatchRepository actionMatchRepository;
+    @Mock private JoueurRepository joueurRepository;
+
+    @InjectMocks
+    private LiveMatchRegistry registry;
+
+    private Match match;
+
+    @BeforeEach
+    void setUp() {
+        Equipe e1 = new Equipe(); e1.setIdEquipe(10L);
+        Equipe e2 = new Equipe(); e2.setIdEquipe(20L);
+        match = new Match();
+        match.setIdMatch(1L);
+        match.setEquipe1(e1);
+        match.setEquipe2(e2);
+        match.setStatus(Match.Status.ONGOING);
+        match.setVersion(0L);
+
+        lenient().when(joueurRepository.findAllByEquipe_IdEquipe(10L)).thenReturn(List.of(joueur(100L)));
+        lenient().when(joueurRepository.findAllByEquipe_IdEquipe(20L)).thenReturn(List.of(joueur(200L)));
+    }
+
+    private static Joueur joueur(long id) {
+        Joueur j = new Joueur();
+        j.setIdJoueur(id);
+        return j;
+    }
+
+    @Test
+    void ajouterPoint_ShouldApplyInMemoryAndWriteOnlyOnFlush() {
+        registry.ouvrir(match);
+        when(matchRepository.updateScores(1L, 0L, 1, 2)).thenReturn(1);
+
+        Match result = registry.ajouterPoint(1L, 10L, 100L, 1);
+        registry.ajouterPoint(1L, 20L, 200L, 2);
+
+        assertSame(match, result);
+        assertEquals(1, match.getScoreEquipe1());
+        assertEquals(2, match.getScoreEquipe2());
+        verify(matchRepository, never()).findById(anyLong());
+        verifyNoInteractions(actionMatchRepository);
+
+        registry.flush();
+
+        verify(actionMatchRepository).saveAll(argThat(actions -> ((List<?>) actions).size() == 2));
+        verify(matchRepository).updateScores(1L, 0L, 1, 2);
+        // Même règle qu'une sauvegarde de l'entité : la version avance avec l'écriture
+        assertEquals(1L, match.getVersion());
+        assertSame(match, registry.enCours(1L));
+    }
+
+    @Test
+    void flush_ShouldWriteActionsInBatches() {
+        ReflectionTestUtils.setField(registry, "batchSize", 2);
+        registry.ouvrir(match);
+        List<Integer> tailles = new ArrayList<>();
+        when(actionMatchRepository.saveAll(anyList())).thenAnswer(i -> {
+            tailles.add(i.<List<ActionMatch>>getArgument(0).size());
+            return i.getArgument(0);
+        });
+
+        for (int i = 0; i < 5; i++) registry.ajouterPoint(1L, 10L, 100L, 1);
+        registry.ajouterFaute(1L, 20L, 200L);
+        registry.flush();
+
+        assertEquals(List.of(2, 2, 2), tailles);
+        verify(matchRepository, times(1)).updateScores(1L, 0L, 5, 0);
+    }
+
+    @Test
+    void flush_ShouldKeepActionsPendingWhenWriteFails() {
+        registry.ouvrir(match);
+        registry.ajouterFaute(1L, 10L, 100L);
+        when(actionMatchRepository.saveAll(anyList()))
+                .thenThrow(new IllegalStateException("base indisponible"))
+                .thenAnswer(i -> i.getArgument(0));
+
+        assertThrows(IllegalStateException.class, registry::flush);
+        registry.flush();
+
+        verify(actionMatchRepository, times(2)).saveAll(argThat(actions -> {
+            List<?> liste = (List<?>) actions;
+            return liste.size() == 1 && ((ActionMatch) liste.get(0)).getType() == ActionTypeDTO.FAUTE;
+        }));
+    }
+
+    @Test
+    void ajouterPoint_ShouldRejectPlayerOutsideBothRosters() {
+        registry.ouvrir(match);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> registry.ajouterPoint(1L, 10L, 999L, 1));
+
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatusCode());
+        assertEquals(0, match.getScoreEquipe1());
+    }
+
+    @Test
+    void ajouterPoint_ShouldRejectPausedMatch() {
+        registry.ouvrir(match);
+        match.setStatus(Match.Status.PAUSED);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> registry.ajouterPoint(1L, 10L, 100L, 1));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+    }
+
+    @Test
+    void ajouterPoint_ShouldLoadOngoingMatchFromDatabaseOnce() {
+        when(matchRepository.findById(1L)).thenReturn(Optional.of(match));
+
+        registry.ajouterPoint(1L, 10L, 100L, 1);
+        registry.ajouterPoint(1L, 10L, 100L, 1);
+
+        assertEquals(2, match.getScoreEquipe1());
+        assertSame(match, registry.enCours(1L));
+        verify(matchRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void ajouterPoint_ShouldReturnNullForMatchNotInProgress() {
+        match.setStatus(Match.Status.WAITING);
+        when(matchRepository.findById(1L)).thenReturn(Optional.of(match));
+
+        assertNull(registry.ajouterPoint(1L, 10L, 100L, 1));
+        assertNull(registry.enCours(1L));
+    }
+
+    @Test
+    void fermer_ShouldFlushAndForgetMatch() {
+        registry.ouvrir(match);
+        registry.ajouterPoint(1L, 10L, 100L, 1);
+
+        registry.fermer(1L);
+
+        verify(actionMatchRepository).saveAll(anyList());
+        // Le score final est enregistré avec le match par MatchService
+        verify(matchRepository, never()).updateScores(anyLong(), anyLong(), anyLong(), anyLong());
+        assertNull(registry.enCours(1L));
+    }
+
+    @Test
+    void flush_ShouldEvictMatchFinishedByAnotherNode() {
+        registry.ouvrir(match);
+        registry.ajouterPoint(1L, 10L, 100L, 1);
+        // Le match n'est plus en cours en base, ou à une autre version : aucune ligne mise à jour
+        when(matchRepository.updateScores(1L, 0L, 1, 0)).thenReturn(0);
+
+        registry.flush();
+
+        assertNull(registry.enCours(1L));
+        Match termine = new Match();
+        termine.setIdMatch(1L);
+        termine.setStatus(Match.Status.FINISHED);
+        when(matchRepository.findById(1L)).thenReturn(Optional.of(termine));
+        assertNull(registry.ajouterPoint(1L, 10L, 100L, 1));
+    }
+
+    @Test
+    void verifier_ShouldEvictMatchesFinishedOrModifiedElsewhere() {
+        Match modifie = ouvert(2L, 3L);
+        Match aJour = ouvert(3L, 5L);
+        registry.ouvrir(match);
+        registry.ouvrir(modifie);
+        registry.ouvrir(aJour);
+        // 1 : terminé ailleurs ; 2 : version plus récente en base ; 3 : écriture locale validée après la lecture
+        when(matchRepository.findVersionsEnCours(anyCollection())).thenReturn(List.of(version(2L, 4L), version(3L, 4L)));
+
+        registry.verifier();
+
+        assertNull(registry.enCours(1L));
+        assertNull(registry.enCours(2L));
+        assertSame(aJour, registry.enCours(3L));
+    }
+
+    @Test
+    void ajouterScores_ShouldFollowVersionIncrementedByBatch() {
+        registry.ouvrir(match);
+
+        registry.ajouterScores(1L, 2, 0);
+        registry.ajouterScores(1L, 0, 0);
+
+        assertEquals(2, match.getScoreEquipe1());
+        assertEquals(1L, match.getVersion());
+    }
+
+    @Test
+    void sousVerrou_ShouldRunWriteForOpenOrUnknownMatch() {
+        registry.ouvrir(match);
+
+        assertEquals("ouvert", registry.sousVerrou(1L, () -> "ouvert"));
+        assertEquals("inconnu", registry.sousVerrou(9L, () -> "inconnu"));
+    }
+
+    private Match ouvert(long idMatch, long version) {
+        Match autre = new Match();
+        autre.setIdMatch(idMatch);
+        autre.setStatus(Match.Status.ONGOING);
+        autre.setVersion(version);
+        autre.setEquipe1(match.getEquipe1());
+        autre.setEquipe2(match.getEquipe2());
+        return autre;
+    }
+
+    private static MatchRepository.VersionEnCours version(long idMatch, long version) {
+        return new MatchRepository.VersionEnCours() {
+            @Override
+            public Long getIdMatch() {
+                return idMatch;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+
+    @Test
+    void flush_ShouldWaitForBatchHoldingMatchLock() throws Exception {
+        registry.ouvrir(match);
+        registry.ajouterPoint(1L, 10L, 100L, 1);
+        when(matchRepository.updateScores(1L, 1L, 3, 0)).thenReturn(1);
+        CountDownLatch dansLot = new CountDownLatch(1);
+        CountDownLatch flushLance = new CountDownLatch(1);
+
+        // Lot hors ligne : incrément de 2 points et de la version en base, puis prise en compte en mémoire
+        CompletableFuture<Match> lot = CompletableFuture.supplyAsync(() -> registry.sousVerrou(1L, () -> {
+            dansLot.countDown();
+            try {
+                flushLance.await(5, TimeUnit.SECONDS);
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return registry.ajouterScores(1L, 2, 0);
+        }));
+        assertTrue(dansLot.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(registry::flush);
+        flushLance.countDown();
+        lot.get(5, TimeUnit.SECONDS);
+        flush.get(5, TimeUnit.SECONDS);
+
+        // L'écriture différée attend le lot et écrit avec la version qui le suit : la copie reste ouverte
+        verify(matchRepository).updateScores(1L, 1L, 3, 0);
+        verify(matchRepository, never()).updateScores(eq(1L), eq(0L), anyLong(), anyLong());
+        assertSame(match, registry.enCours(1L));
+        assertEquals(2L, match.getVersion());
+    }
+}
@@ -0,0 +1,240 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
+import org.ultimateam.apiultimate.model.ActionMatch;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Joueur;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.model.MatchSnapshot;
+import org.ultimateam.apiultimate.repository.ActionMatchRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+import org.ultimateam.apiultimate.repository.MatchSnapshotRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MatchEventLogServiceTest {
+
+    @Mock private ActionMatchRepository actionMatchRepository;
+    @Mock private MatchSnapshotRepository matchSnapshotRepository;
+    @Mock private MatchRepository matchRepository;
+    @Mock private LiveMatchRegistry liveMatchRegistry;
+
+    @InjectMocks
+    private MatchEventLogService service;
+
+    private Match match;
+    private Equipe equipe1;
+    private Equipe equipe2;
+    private long prochainId;
+
+    @BeforeEach
+    void setUp() {
+        equipe1 = new Equipe();
+        equipe1.setIdEquipe(10L);
+        equipe2 = new Equipe();
+        equipe2.setIdEquipe(20L);
+        match = new Match();
+        match.setIdMatch(1L);
+        match.setEquipe1(equipe1);
+        match.setEquipe2(equipe2);
+        prochainId = 1;
+        ReflectionTestUtils.setField(service, "intervalleSnapshot", 3);
+        lenient().when(matchRepository.findById(1L)).thenReturn(Optional.of(match));
+    }
+
+    private ActionMatch action(ActionTypeDTO type, Long idEquipe, Long points, LocalDateTime enregistrement) {
+        ActionMatch action = new ActionMatch();
+        action.setId(prochainId++);
+        action.setMatch(match);
+        action.setType(type);
+        action.setIdEquipe(idEquipe);
+        action.setPoints(points);
+        action.setDateEnregistrement(enregistrement);
+        return action;
+    }
+
+    private ActionMatch ancienne(ActionTypeDTO type, Long idEquipe, Long points) {
+        return action(type, idEquipe, points, LocalDateTime.now().minusHours(1));
+    }
+
+    @Test
+    void rejouer_ShouldDeriveScoresStatusAndWinner() {
+        List<ActionMatch> journal = List.of(
+                ancienne(ActionTypeDTO.DEBUT, null, null),
+                ancienne(ActionTypeDTO.POINT, 10L, 1L),
+                ancienne(ActionTypeDTO.FAUTE, 20L, null),
+                ancienne(ActionTypeDTO.POINT, 20L, 2L),
+                ancienne(ActionTypeDTO.PAUSE, null, null),
+                ancienne(ActionTypeDTO.REPRISE, null, null),
+                ancienne(ActionTypeDTO.POINT, 20L, 1L),
+                ancienne(ActionTypeDTO.FIN, 20L, null));
+        when(matchSnapshotRepository.findFirstByIdMatchOrderByDerniereActionDesc(1L)).thenReturn(Optional.empty());
+        when(actionMatchRepository.findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(1L, 0L)).thenReturn(journal);
+
+        MatchSnapshot etat = service.rejouer(1L);
+
+        assertEquals(1, etat.getScoreEquipe1());
+        assertEquals(3, etat.getScoreEquipe2());
+        assertEquals(Match.Status.FINISHED, etat.getStatus());
+        assertEquals(20L, etat.getIdWinner());
+        assertEquals(8, etat.getNbActions());
+        assertEquals(8, etat.getDerniereAction());
+    }
+
+    @Test
+    void rejouer_ShouldStartFromLatestSnapshot() {
+        MatchSnapshot instantane = new MatchSnapshot();
+        instantane.setIdMatch(1L);
+        instantane.setDerniereAction(40);
+        instantane.setNbActions(40);
+        instantane.setScoreEquipe1(12);
+        instantane.setScoreEquipe2(9);
+        instantane.setStatus(Match.Status.ONGOING);
+        prochainId = 41;
+        when(matchSnapshotRepository.findFirstByIdMatchOrderByDerniereActionDesc(1L)).thenReturn(Optional.of(instantane));
+        when(actionMatchRepository.findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(1L, 40L))
+                .thenReturn(List.of(ancienne(ActionTypeDTO.POINT, 10L, 1L)));
+
+        MatchSnapshot etat = service.rejouer(1L);
+
+        assertEquals(13, etat.getScoreEquipe1());
+        assertEquals(9, etat.getScoreEquipe2());
+        assertEquals(41, etat.getDerniereAction());
+        assertEquals(12, instantane.getScoreEquipe1(), "l'instantané d'origine n'est pas modifié");
+        verify(matchSnapshotRepository, never()).save(any());
+    }
+
+    @Test
+    void rejouer_ShouldIgnorePointsLoggedAfterFinish() {
+        // Point écrit par la copie périmée d'un autre nœud après la fin du match
+        List<ActionMatch> journal = List.of(
+                ancienne(ActionTypeDTO.DEBUT, null, null),
+                ancienne(ActionTypeDTO.POINT, 10L, 1L),
+                ancienne(ActionTypeDTO.FIN, 10L, null),
+                ancienne(ActionTypeDTO.POINT, 20L, 1L));
+        when(matchSnapshotRepository.findFirstByIdMatchOrderByDerniereActionDesc(1L)).thenReturn(Optional.empty());
+        when(actionMatchRepository.findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(1L, 0L)).thenReturn(journal);
+
+        MatchSnapshot etat = service.rejouer(1L);
+
+        assertEquals(1, etat.getScoreEquipe1());
+        assertEquals(0, etat.getScoreEquipe2());
+        assertEquals(4, etat.getNbActions());
+    }
+
+    @Test
+    void rejouer_ShouldCountLegacyPointsForThePlayersTeam() {
+        Joueur joueur = new Joueur();
+        joueur.setEquipe(equipe2);
+        ActionMatch ancienPoint = ancienne(ActionTypeDTO.POINT, null, null);
+        ancienPoint.setJoueur(joueur);
+        when(matchSnapshotRepository.findFirstByIdMatchOrderByDerniereActionDesc(1L)).thenReturn(Optional.empty());
+        when(actionMatchRepository.findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(1L, 0L)).thenReturn(List.of(ancienPoint));
+
+        MatchSnapshot etat = service.rejouer(1L);
+
+        assertEquals(0, etat.getScoreEquipe1());
+        assertEquals(1, etat.getScoreEquipe2());
+    }
+
+    @Test
+    void rejouer_ShouldNeverWriteSnapshot() {
+        List<ActionMatch> journal = new ArrayList<>();
+        for (int i = 0; i < 5; i++) journal.add(ancienne(ActionTypeDTO.POINT, 10L, 1L));
+        when(matchSnapshotRepository.findFirstByIdMatchOrderByDerniereActionDesc(1L)).thenReturn(Optional.empty());
+        when(actionMatchRepository.findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(1L, 0L)).thenReturn(journal);
+
+        MatchSnapshot etat = service.rejouer(1L);
+
+        assertEquals(5, etat.getScoreEquipe1());
+        verify(matchSnapshotRepository, never()).save(any());
+    }
+
+    @Test
+    void instantaner_ShouldSnapshotOnlySettledActions() {
+        List<ActionMatch> journal = new ArrayList<>();
+        for (int i = 0; i < 4; i++) journal.add(ancienne(ActionTypeDTO.POINT, 10L, 1L));
+        journal.add(action(ActionTypeDTO.POINT, 20L, 1L, LocalDateTime.now()));
+        when(matchSnapshotRepository.findFirstByIdMatchOrderByDerniereActionDesc(1L)).thenReturn(Optional.empty());
+        when(actionMatchRepository.findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(1L, 0L)).thenReturn(journal);
+
+        service.instantaner(match);
+
+        verify(matchSnapshotRepository).save(argThat(s -> s.getDerniereAction() == 4 && s.getNbActions() == 4
+                && s.getScoreEquipe1() == 4 && s.getScoreEquipe2() == 0 && s.getDateSnapshot() != null));
+    }
+
+    @Test
+    void instantaner_ShouldNotSnapshotBelowInterval() {
+        when(matchSnapshotRepository.findFirstByIdMatchOrderByDerniereActionDesc(1L)).thenReturn(Optional.empty());
+        when(actionMatchRepository.findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(1L, 0L))
+                .thenReturn(List.of(ancienne(ActionTypeDTO.POINT, 10L, 1L), ancienne(ActionTypeDTO.POINT, 10L, 1L)));
+
+        service.instantaner(match);
+
+        verify(matchSnapshotRepository, never()).save(any());
+    }
+
+    @Test
+    void instantaner_ShouldNotThrowWhenSnapshotFails() {
+        when(matchSnapshotRepository.findFirstByIdMatchOrderByDerniereActionDesc(1L)).thenThrow(new IllegalStateException("base"));
+
+        assertDoesNotThrow(() -> service.instantaner(match));
+    }
+
+    @Test
+    void reconstruire_ShouldRewriteMatchFromFullLog() {
+        match.setScoreEquipe1(99);
+        match.setStatus(Match.Status.ONGOING);
+        when(actionMatchRepository.findByMatch_IdMatchAndIdGreaterThanOrderByIdAsc(1L, 0L)).thenReturn(List.of(
+                ancienne(ActionTypeDTO.DEBUT, null, null),
+                ancienne(ActionTypeDTO.POINT, 10L, 2L),
+                ancienne(ActionTypeDTO.FIN, 10L, null)));
+        when(matchRepository.save(match)).thenReturn(match);
+
+        Match reconstruit = service.reconstruire(1L);
+
+        verify(matchSnapshotRepository).deleteByIdMatch(1L);
+        verify(matchSnapshotRepository, never()).findFirstByIdMatchOrderByDerniereActionDesc(any());
+        assertEquals(2, reconstruit.getScoreEquipe1());
+        assertEquals(0, reconstruit.getScoreEquipe2());
+        assertEquals(Match.Status.FINISHED, reconstruit.getStatus());
+        assertSame(equipe1, reconstruit.getWinner());
+    }
+
+    @Test
+    void reconstruire_ShouldRefuseLiveMatch() {
+        when(liveMatchRegistry.enCours(1L)).thenReturn(match);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.reconstruire(1L));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        verify(matchSnapshotRepository, never()).deleteByIdMatch(any());
+    }
+
+    @Test
+    void rejouer_ShouldFailForUnknownMatch() {
+        when(matchRepository.findById(2L)).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.rejouer(2L));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    }
+}
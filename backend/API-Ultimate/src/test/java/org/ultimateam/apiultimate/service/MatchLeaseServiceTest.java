@@ -0,0 +1,193 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.model.Terrain;
+import org.ultimateam.apiultimate.repository.EquipeRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+import org.ultimateam.apiultimate.repository.TerrainRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Deux nœuds de l'API (deux contextes Spring, chacun avec son pool de connexions) sur la même base H2 : l'échéance
+ * d'un match n'est traitée que par le nœud qui obtient le bail par l'UPDATE conditionnel de
+ * {@link MatchRepository#acquerirEcheance}.
+ */
+class MatchLeaseServiceTest {
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EnableJpaRepositories(basePackageClasses = MatchRepository.class)
+    @EntityScan(basePackageClasses = Match.class)
+    @Import({MatchLeaseService.class, LiveMatchRegistry.class})
+    static class Noeud {
+    }
+
+    private final LocalDateTime echeance = LocalDateTime.now().withNano(0);
+
+    private ConfigurableApplicationContext contexteA;
+    private ConfigurableApplicationContext contexteB;
+    private MatchRepository matchRepository;
+    private long idMatch;
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:h2:mem:bail-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        contexteA = noeud(url, "A", "create-drop");
+        contexteB = noeud(url, "B", "none");
+        matchRepository = contexteA.getBean(MatchRepository.class);
+
+        Terrain terrain = new Terrain();
+        terrain.setNom("Terrain 1");
+        Match match = new Match();
+        match.setTerrain(contexteA.getBean(TerrainRepository.class).save(terrain));
+        match.setEquipe1(equipe("Disc"));
+        match.setEquipe2(equipe("Layout"));
+        match.setStatus(Match.Status.ONGOING);
+        match.setDateFinPrevue(echeance);
+        idMatch = matchRepository.save(match).getIdMatch();
+    }
+
+    @AfterEach
+    void tearDown() {
+        contexteB.close();
+        contexteA.close();
+    }
+
+    private static ConfigurableApplicationContext noeud(String url, String id, String ddl) {
+        return new SpringApplicationBuilder(Noeud.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.jpa.hibernate.ddl-auto=" + ddl,
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.sql.init.mode=never",
+                        "--app.timer.node-id=" + id,
+                        // Écriture différée et vérification déclenchées à la main par les tests
+                        "--app.live.flush-interval-ms=3600000",
+                        "--app.live.verify-interval-ms=3600000");
+    }
+
+    private Equipe equipe(String nom) {
+        Equipe equipe = new Equipe();
+        equipe.setNomEquipe(nom);
+        return contexteA.getBean(EquipeRepository.class).save(equipe);
+    }
+
+    private Match ligne() {
+        return matchRepository.findById(idMatch).orElseThrow();
+    }
+
+    @Test
+    void acquerir_ShouldGrantDeadlineToExactlyOneNode() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<Boolean>> resultats = new ArrayList<>();
+        for (ConfigurableApplicationContext contexte : List.of(contexteA, contexteB)) {
+            MatchLeaseService noeud = contexte.getBean(MatchLeaseService.class);
+            Callable<Boolean> tentative = () -> {
+                depart.await();
+                return noeud.acquerir(idMatch, echeance);
+            };
+            resultats.add(pool.submit(tentative));
+        }
+        depart.countDown();
+
+        List<String> gagnants = new ArrayList<>();
+        for (int i = 0; i < resultats.size(); i++) if (resultats.get(i).get()) gagnants.add(i == 0 ? "A" : "B");
+        pool.shutdown();
+
+        assertEquals(1, gagnants.size());
+        assertEquals(gagnants.get(0), ligne().getBailProprietaire());
+    }
+
+    @Test
+    void acquerir_ShouldLetAnotherNodeTakeOverExpiredLease() {
+        MatchLeaseService noeudA = contexteA.getBean(MatchLeaseService.class);
+        MatchLeaseService noeudB = contexteB.getBean(MatchLeaseService.class);
+        assertTrue(noeudA.acquerir(idMatch, echeance));
+        assertFalse(noeudB.acquerir(idMatch, echeance));
+
+        // Le nœud A est tombé sans traiter l'échéance : son bail a expiré
+        Match match = ligne();
+        match.setBailExpiration(LocalDateTime.now().minusSeconds(1));
+        matchRepository.save(match);
+
+        assertTrue(noeudB.acquerir(idMatch, echeance));
+        assertEquals("B", ligne().getBailProprietaire());
+        assertFalse(noeudA.acquerir(idMatch, echeance));
+    }
+
+    @Test
+    void acquerir_ShouldFailWhenDeadlineChanged() {
+        // Pause puis reprise sur un autre nœud : l'ancienne échéance n'est plus valable
+        Match match = ligne();
+        match.setDateFinPrevue(echeance.plusMinutes(3));
+        matchRepository.save(match);
+
+        assertFalse(contexteA.getBean(MatchLeaseService.class).acquerir(idMatch, echeance));
+        assertNull(ligne().getBailProprietaire());
+    }
+
+    @Test
+    void updateScores_ShouldRespectOptimisticLock() {
+        MatchRepository repositoryB = contexteB.getBean(MatchRepository.class);
+        long version = repositoryB.findById(idMatch).orElseThrow().getVersion();
+
+        // Le nœud A modifie le match après la lecture de B
+        Match match = ligne();
+        match.setScoreEquipe1(3);
+        matchRepository.save(match);
+
+        assertEquals(0, repositoryB.updateScores(idMatch, version, 0, 9));
+        assertEquals(3, ligne().getScoreEquipe1());
+        assertEquals(1, repositoryB.updateScores(idMatch, version + 1, 4, 9));
+        assertEquals(4, ligne().getScoreEquipe1());
+        assertEquals(version + 2, ligne().getVersion());
+    }
+
+    @Test
+    void registre_ShouldDropCopyOfMatchFinishedByAnotherNode() {
+        LiveMatchRegistry registreB = contexteB.getBean(LiveMatchRegistry.class);
+        Match copie = contexteB.getBean(MatchRepository.class).findById(idMatch).orElseThrow();
+        registreB.ouvrir(copie);
+
+        // Le nœud A obtient l'échéance et termine le match
+        assertTrue(contexteA.getBean(MatchLeaseService.class).acquerir(idMatch, echeance));
+        Match match = ligne();
+        match.setStatus(Match.Status.FINISHED);
+        match.setScoreEquipe1(7);
+        matchRepository.save(match);
+
+        // La copie de B ne peut plus écrire ses scores, et disparaît à la vérification suivante
+        assertEquals(0, contexteB.getBean(MatchRepository.class).updateScores(idMatch, copie.getVersion() + 1, 0, 9));
+        registreB.verifier();
+
+        assertNull(registreB.enCours(idMatch));
+        assertEquals(7, ligne().getScoreEquipe1());
+        assertEquals(0, ligne().getScoreEquipe2());
+    }
+}
@@ -1,25 +1,39 @@
 package org.ultimateam.apiultimate.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.server.ResponseStatusException;
+import org.ultimateam.apiultimate.DTO.ActionTypeDTO;
+import org.ultimateam.apiultimate.DTO.ActionBatchResult;
+import org.ultimateam.apiultimate.DTO.MatchActionDTO;
 import org.ultimateam.apiultimate.DTO.MatchPointDTO;
 import org.ultimateam.apiultimate.model.Equipe;
 import org.ultimateam.apiultimate.model.Match;
 import org.ultimateam.apiultimate.model.Terrain;
+import org.ultimateam.apiultimate.model.Tournoi;
 import org.ultimateam.apiultimate.repository.MatchRepository;
 import org.ultimateam.apiultimate.repository.JoueurRepository;
 import org.ultimateam.apiultimate.repository.TerrainRepository;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,10 +49,27 @@ class MatchServiceTest {
     @Mock private JoueurService joueurService;
     @Mock private TerrainRepository terrainRepository;
     @Mock private TerrainService terrainService;
+    @Mock private BracketService bracketService;
+    @Mock private SwissSystemService swissSystemService;
+    @Mock private LiveMatchRegistry liveMatchRegistry;
+    @Mock private MatchStreamService matchStreamService;
+    @Mock private CompetitionStreamService competitionStreamService;
+    @Mock private MatchTimerService matchTimerService;
+    @Mock private MatchLeaseService matchLeaseService;
+    @Spy private MatchWriteExecutor matchWriteExecutor = new MatchWriteExecutor(Runnable::run);
+    @Mock private ClassementHistoryService classementHistoryService;
+    @Mock private MatchEventLogService matchEventLogService;
+    @Mock private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private MatchService matchService;
 
+    @BeforeEach
+    void setUp() {
+        // Sauvegarde sous le verrou de la copie en mémoire : exécutée directement
+        lenient().when(liveMatchRegistry.sousVerrou(anyLong(), any())).thenAnswer(i -> i.<Supplier<?>>getArgument(1).get());
+    }
+
     // --- TESTS DU CYCLE DE VIE (COMMENCER / PAUSE / FINIR) ---
 
     @Test
@@ -58,6 +89,9 @@ class MatchServiceTest {
         assertEquals(Match.Status.ONGOING, result.getStatus()); //
         assertNotNull(result.getDateDebut()); //
         verify(matchRepository).save(match);
+        verify(matchTimerService).planifier(eq(1L), any(Duration.class), any(Runnable.class));
+        assertTrue(result.getDateFinPrevue().isAfter(LocalDateTime.now().plusMinutes(99)));
+        verify(actionMatchService).journaliser(match, ActionTypeDTO.DEBUT, null);
     }
 
     @Test
@@ -83,6 +117,51 @@ class MatchServiceTest {
 
         assertEquals(Match.Status.PAUSED, result.getStatus()); //
         assertNotNull(result.getDatePause());
+        verify(matchTimerService).annuler(1L);
+        assertNull(result.getDateFinPrevue());
+        verify(actionMatchService).journaliser(match, ActionTypeDTO.PAUSE, null);
+    }
+
+    @Test
+    void mettreEnPause_ShouldRunInMatchWriteQueue() {
+        Match match = new Match();
+        match.setIdMatch(1L);
+        match.setStatus(Match.Status.ONGOING);
+        when(matchRepository.findById(1L)).thenReturn(Optional.of(match));
+        when(matchRepository.save(any(Match.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        matchService.mettreEnPause(1L);
+
+        verify(matchWriteExecutor).executer(eq(1L), any(Supplier.class));
+    }
+
+    @Test
+    void mettreEnPause_ShouldReturnConflictAndDropLiveCopy_WhenRowChangedElsewhere() {
+        Match perime = new Match();
+        perime.setIdMatch(1L);
+        perime.setStatus(Match.Status.ONGOING);
+        perime.setVersion(3L);
+        when(liveMatchRegistry.enCours(1L)).thenReturn(perime);
+        when(matchRepository.save(perime)).thenThrow(new ObjectOptimisticLockingFailureException(Match.class, 1L));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> matchService.mettreEnPause(1L));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        verify(liveMatchRegistry).fermer(1L);
+    }
+
+    @Test
+    void save_ShouldCopyNewVersionOntoLiveEntity() {
+        Match live = new Match();
+        live.setIdMatch(1L);
+        live.setVersion(3L);
+        Match enregistre = new Match();
+        enregistre.setIdMatch(1L);
+        enregistre.setVersion(4L);
+        when(matchRepository.save(live)).thenReturn(enregistre);
+
+        assertSame(enregistre, matchService.save(live));
+        assertEquals(4L, live.getVersion());
     }
 
     @Test
@@ -101,6 +180,75 @@ class MatchServiceTest {
         assertNotNull(match.getDateFin()); //
         // Vérifie qu'on appelle bien le service de classement pour mettre à jour les points
         verify(classementService).mettreAJourClassement(match); //
+        // Puis l'historique, une fois le classement à jour
+        var ordre = inOrder(classementService, classementHistoryService);
+        ordre.verify(classementService).mettreAJourClassement(match);
+        ordre.verify(classementHistoryService).apresMatch(match);
+        // Instantané du journal sur le chemin d'écriture, pas à la relecture
+        verify(matchEventLogService).instantaner(match);
+        // Classement et statut FINISHED validés ensemble
+        var transaction = inOrder(transactionManager, classementService, matchRepository);
+        transaction.verify(transactionManager).getTransaction(any());
+        transaction.verify(classementService).mettreAJourClassement(match);
+        transaction.verify(matchRepository).save(match);
+        transaction.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void finirMatch_ShouldRollBackClassement_WhenMatchSaveFails() {
+        Tournoi tournoi = new Tournoi();
+        tournoi.setIdCompetition(7L);
+        Match match = new Match();
+        match.setIdMatch(1L);
+        match.setIdCompetition(tournoi);
+        match.setStatus(Match.Status.ONGOING);
+        when(matchRepository.findById(1L)).thenReturn(Optional.of(match));
+        when(matchRepository.save(match)).thenThrow(new ObjectOptimisticLockingFailureException(Match.class, 1L));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> matchService.finirMatch(1L));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        // Le classement en mémoire, déjà modifié, est relu en base
+        verify(classementService).invalider(7L);
+        verify(classementHistoryService, never()).apresMatch(any());
+    }
+
+    @Test
+    void declencherEcheance_ShouldFinishMatchOnlyWithLease() {
+        LocalDateTime echeance = LocalDateTime.now().withNano(0);
+        Match match = new Match();
+        match.setIdMatch(1L);
+        match.setStatus(Match.Status.ONGOING);
+        match.setDureePauseTotale(Duration.ZERO);
+        match.setDateFinPrevue(echeance);
+
+        // Un autre nœud tient le bail : rien à faire ici
+        when(matchLeaseService.acquerir(1L, echeance)).thenReturn(false);
+        matchService.declencherEcheance(1L, echeance);
+        assertEquals(Match.Status.ONGOING, match.getStatus());
+        verify(matchRepository, never()).findById(1L);
+
+        when(matchLeaseService.acquerir(1L, echeance)).thenReturn(true);
+        when(matchRepository.findById(1L)).thenReturn(Optional.of(match));
+        when(matchRepository.save(any(Match.class))).thenAnswer(i -> i.getArguments()[0]);
+        matchService.declencherEcheance(1L, echeance);
+
+        assertEquals(Match.Status.FINISHED, match.getStatus());
+        assertNull(match.getDateFinPrevue());
+    }
+
+    @Test
+    void planifierEcheance_ShouldRescheduleOverdueDeadlineImmediately() {
+        Match match = new Match();
+        match.setIdMatch(1L);
+        match.setStatus(Match.Status.ONGOING);
+        match.setDateFinPrevue(LocalDateTime.now().minusMinutes(5));
+
+        matchService.planifierEcheance(match);
+
+        verify(matchTimerService).planifier(eq(1L), eq(Duration.ZERO), any(Runnable.class));
     }
 
     // --- TESTS DES POINTS ET VICTOIRE ---
@@ -165,6 +313,10 @@ class MatchServiceTest {
         assertEquals(Match.Status.FINISHED, result.getStatus(), "Le match doit finir à 15 points"); //
         assertEquals(e1, result.getWinner()); // L'équipe 1 doit être déclarée vainqueur
         verify(classementService).mettreAJourClassement(match); // Le classement doit être mis à jour
+        // Les spectateurs reçoivent le point puis la fin du match, dans cet ordre
+        var ordre = inOrder(matchStreamService);
+        ordre.verify(matchStreamService).publier(argThat(e -> e.type().equals("point")));
+        ordre.verify(matchStreamService).publier(argThat(e -> e.type().equals("fin") && e.idWinner() == 10L));
     }
 
     @Test
@@ -201,4 +353,100 @@ class MatchServiceTest {
             matchService.ajouterPoint(1L, 99L, new MatchPointDTO()); //
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void ajouterPoint_ShouldUseLiveRegistry_WhenMatchIsInProgress() {
+        Match match = new Match();
+        match.setIdMatch(1L);
+        match.setStatus(Match.Status.ONGOING);
+        match.setScoreEquipe1(3);
+
+        MatchPointDTO dto = new MatchPointDTO();
+        dto.setPoint(1);
+        dto.setIdJoueur(100L);
+
+        when(liveMatchRegistry.ajouterPoint(1L, 10L, 100L, 1L)).thenReturn(match);
+
+        Match result = matchService.ajouterPoint(1L, 10L, dto);
+
+        // Aucune lecture ni écriture en base : le registre enregistrera le point par écriture différée
+        assertSame(match, result);
+        verifyNoInteractions(matchRepository, actionMatchService, equipeService);
+        verify(matchStreamService).publier(argThat(e -> e.type().equals("point") && e.scoreEquipe1() == 3 && e.idJoueur() == 100L));
+    }
+
+    @Test
+    void ajouterActions_ShouldApplyBatchScoreOnceAndPublishOneEvent() {
+        Equipe e1 = new Equipe(); e1.setIdEquipe(10L);
+        Equipe e2 = new Equipe(); e2.setIdEquipe(20L);
+        Match match = new Match();
+        match.setIdMatch(1L);
+        match.setStatus(Match.Status.ONGOING);
+        match.setEquipe1(e1);
+        match.setEquipe2(e2);
+        match.setScoreEquipe1(13);
+        match.setDureePauseTotale(Duration.ZERO);
+        List<MatchActionDTO> lot = List.of(new MatchActionDTO(), new MatchActionDTO(), new MatchActionDTO());
+
+        when(matchRepository.findById(1L)).thenReturn(Optional.of(match));
+        when(matchRepository.save(any(Match.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(actionMatchService.enregistrerLot(match, lot)).thenReturn(new ActionMatchService.Lot(3, 0, 2, 1));
+
+        ActionBatchResult result = matchService.ajouterActions(1L, lot);
+
+        assertEquals(3, result.enregistrees());
+        assertEquals(15, match.getScoreEquipe1());
+        assertEquals(1, match.getScoreEquipe2());
+        // Le lot fait gagner l'équipe 1 : le match est terminé
+        assertEquals(Match.Status.FINISHED, match.getStatus());
+        verify(matchStreamService).publier(argThat(e -> e.type().equals("etat") && e.scoreEquipe1() == 15));
+        verify(matchRepository, never()).updateScores(anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void ajouterActions_ShouldInsertBatchAndUpdateLiveCopyUnderItsLock() {
+        Equipe e1 = new Equipe(); e1.setIdEquipe(10L);
+        Equipe e2 = new Equipe(); e2.setIdEquipe(20L);
+        Match match = new Match();
+        match.setIdMatch(1L);
+        match.setStatus(Match.Status.ONGOING);
+        match.setEquipe1(e1);
+        match.setEquipe2(e2);
+        List<MatchActionDTO> lot = List.of(new MatchActionDTO());
+        boolean[] verrouille = {false};
+        when(liveMatchRegistry.enCours(1L)).thenReturn(match);
+        doAnswer(i -> {
+            verrouille[0] = true;
+            try {
+                return i.<Supplier<?>>getArgument(1).get();
+            } finally {
+                verrouille[0] = false;
+            }
+        }).when(liveMatchRegistry).sousVerrou(eq(1L), any());
+        when(actionMatchService.enregistrerLot(match, lot)).thenAnswer(i -> {
+            assertTrue(verrouille[0], "lot inséré hors du verrou de la copie");
+            return new ActionMatchService.Lot(1, 0, 1, 0);
+        });
+        when(liveMatchRegistry.ajouterScores(1L, 1, 0)).thenAnswer(i -> {
+            assertTrue(verrouille[0], "copie mise à jour hors de son verrou");
+            return match;
+        });
+
+        matchService.ajouterActions(1L, lot);
+
+        verify(liveMatchRegistry).ajouterScores(1L, 1, 0);
+    }
+
+    @Test
+    void ajouterActions_ShouldRejectMatchNotInProgress() {
+        Match match = new Match();
+        match.setIdMatch(1L);
+        match.setStatus(Match.Status.PAUSED);
+        when(matchRepository.findById(1L)).thenReturn(Optional.of(match));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> matchService.ajouterActions(1L, List.of(new MatchActionDTO())));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        verifyNoInteractions(actionMatchService);
+    }
+}
@@ -0,0 +1,106 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.ultimateam.apiultimate.DTO.MatchEventDTO;
+import org.ultimateam.apiultimate.model.Match;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchStreamServiceTest {
+
+    /** Flux qui retient les évènements envoyés, ou échoue comme une connexion fermée. */
+    private static class FluxCapture extends SseEmitter {
+        private final List<String> envoyes = new ArrayList<>();
+        private final boolean ferme;
+
+        FluxCapture(boolean ferme) {
+            this.ferme = ferme;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (ferme) throw new IOException("connexion fermée");
+            StringBuilder texte = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType d : builder.build()) {
+                if (d.getData() instanceof String partie) texte.append(partie);
+            }
+            envoyes.add(texte.toString());
+        }
+    }
+
+    private final ExecutorService envoi = Executors.newSingleThreadExecutor();
+    private final List<FluxCapture> flux = new ArrayList<>();
+    private boolean prochainFerme = false;
+
+    private final MatchStreamService service = new MatchStreamService(envoi) {
+        @Override
+        SseEmitter nouvelEmetteur() {
+            FluxCapture capture = new FluxCapture(prochainFerme);
+            flux.add(capture);
+            return capture;
+        }
+    };
+
+    private static Match match(long id, long score1) {
+        Match match = new Match();
+        match.setIdMatch(id);
+        match.setStatus(Match.Status.ONGOING);
+        match.setScoreEquipe1(score1);
+        return match;
+    }
+
+    private void attendreEnvois() throws InterruptedException {
+        envoi.shutdown();
+        assertTrue(envoi.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void abonner_ShouldSendCurrentStateThenPublishedEventsInOrder() throws InterruptedException {
+        Match match = match(1L, 4);
+        service.abonner(match);
+        service.abonner(match(2L, 0));
+
+        match.setScoreEquipe1(5);
+        service.publier(MatchEventDTO.point(match, 10L, 100L, 1));
+        match.setStatus(Match.Status.PAUSED);
+        service.publier(MatchEventDTO.etat("pause", match));
+        attendreEnvois();
+
+        List<String> envoyes = flux.get(0).envoyes;
+        assertEquals(3, envoyes.size());
+        assertTrue(envoyes.get(0).contains("event:etat"));
+        assertTrue(envoyes.get(1).contains("event:point"));
+        assertTrue(envoyes.get(2).contains("event:pause"));
+        // L'autre match ne reçoit que son état initial
+        assertEquals(1, flux.get(1).envoyes.size());
+    }
+
+    @Test
+    void publier_ShouldForgetClientsWhoseConnectionIsClosed() throws InterruptedException {
+        prochainFerme = true;
+        service.abonner(match(1L, 0));
+        prochainFerme = false;
+        service.abonner(match(1L, 0));
+        service.publier(MatchEventDTO.etat("pause", match(1L, 0)));
+        attendreEnvois();
+
+        assertEquals(1, service.nbAbonnes(1L));
+        assertEquals(2, flux.get(1).envoyes.size());
+    }
+
+    @Test
+    void publier_ShouldIgnoreMatchWithoutClient() {
+        service.publier(MatchEventDTO.etat("debut", match(3L, 0)));
+
+        assertEquals(0, service.nbAbonnes(3L));
+    }
+}
@@ -0,0 +1,67 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MatchTimerRecoveryServiceTest {
+
+    @Mock private MatchRepository matchRepository;
+    @Mock private MatchService matchService;
+
+    @InjectMocks
+    private MatchTimerRecoveryService recovery;
+
+    @AfterEach
+    void tearDown() {
+        recovery.arreter();
+    }
+
+    private static Match enCours(long id, LocalDateTime echeance) {
+        Match match = new Match();
+        match.setIdMatch(id);
+        match.setStatus(Match.Status.ONGOING);
+        match.setDateFinPrevue(echeance);
+        return match;
+    }
+
+    @Test
+    void demarrer_ShouldRescheduleEveryOngoingMatch() {
+        Match proche = enCours(1L, LocalDateTime.now().plusMinutes(2));
+        Match lointain = enCours(2L, LocalDateTime.now().plusMinutes(90));
+        when(matchRepository.findByStatusAndDateFinPrevueIsNotNull(Match.Status.ONGOING)).thenReturn(List.of(proche, lointain));
+
+        recovery.demarrer();
+
+        verify(matchService).planifierEcheance(proche);
+        verify(matchService).planifierEcheance(lointain);
+    }
+
+    @Test
+    void balayer_ShouldOnlyPickDeadlinesBeforeNextSweep() {
+        Match depasse = enCours(3L, LocalDateTime.now().minusMinutes(1));
+        when(matchRepository.findByStatusAndDateFinPrevueBefore(eq(Match.Status.ONGOING), any())).thenReturn(List.of(depasse));
+
+        assertEquals(1, recovery.balayer());
+
+        verify(matchService).planifierEcheance(depasse);
+        verify(matchRepository).findByStatusAndDateFinPrevueBefore(eq(Match.Status.ONGOING),
+                argThat(horizon -> horizon.isAfter(LocalDateTime.now().plusSeconds(30))
+                        && horizon.isBefore(LocalDateTime.now().plusSeconds(61))));
+    }
+}
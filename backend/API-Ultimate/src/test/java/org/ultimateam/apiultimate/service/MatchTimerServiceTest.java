@@ -0,0 +1,123 @@
+package org.ultimateam.apiultimate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchTimerServiceTest {
+
+    private final AtomicLong maintenant = new AtomicLong(0);
+    private final List<Long> executes = new ArrayList<>();
+    private final MatchTimerService timers = new MatchTimerService(maintenant::get, Runnable::run);
+
+    /** Fait avancer l'horloge (tic de 1 s) puis la roue. */
+    private void attendre(Duration duree) {
+        maintenant.addAndGet(duree.toMillis());
+        timers.avancer();
+    }
+
+    private void planifier(long idMatch, Duration delai) {
+        timers.planifier(idMatch, delai, () -> executes.add(idMatch));
+    }
+
+    @Test
+    void planifier_ShouldFireAtDeadlineAcrossWheelLevels() {
+        planifier(1L, Duration.ofSeconds(5));
+        planifier(2L, Duration.ofMinutes(100));
+        planifier(3L, Duration.ofHours(30));
+
+        attendre(Duration.ofSeconds(4));
+        assertEquals(List.of(), executes);
+        attendre(Duration.ofSeconds(1));
+        assertEquals(List.of(1L), executes);
+
+        attendre(Duration.ofMinutes(100).minusSeconds(6));
+        assertEquals(List.of(1L), executes);
+        attendre(Duration.ofSeconds(1));
+        assertEquals(List.of(1L, 2L), executes);
+
+        attendre(Duration.ofHours(30).minusMinutes(100).minusSeconds(1));
+        assertEquals(List.of(1L, 2L), executes);
+        attendre(Duration.ofSeconds(1));
+        assertEquals(List.of(1L, 2L, 3L), executes);
+        assertEquals(0, timers.nbEnAttente());
+    }
+
+    @Test
+    void annuler_ShouldPreventExecution() {
+        planifier(1L, Duration.ofSeconds(90));
+        attendre(Duration.ofSeconds(10));
+
+        assertTrue(timers.annuler(1L));
+        assertFalse(timers.annuler(1L));
+        attendre(Duration.ofMinutes(5));
+
+        assertEquals(List.of(), executes);
+        assertEquals(0, timers.nbEnAttente());
+    }
+
+    @Test
+    void planifier_ShouldReplacePreviousTimerOfSameMatch() {
+        // Pause puis reprise : la nouvelle échéance remplace l'ancienne
+        planifier(1L, Duration.ofSeconds(30));
+        planifier(1L, Duration.ofSeconds(60));
+
+        attendre(Duration.ofSeconds(45));
+        assertEquals(List.of(), executes);
+        attendre(Duration.ofSeconds(15));
+        assertEquals(List.of(1L), executes);
+    }
+
+    @Test
+    void avancer_ShouldHandleManyTimersAndExposeMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        timers.bindTo(registry);
+        for (long id = 0; id < 50_000; id++) planifier(id, Duration.ofSeconds(1 + id % 7200));
+        for (long id = 0; id < 50_000; id += 2) timers.annuler(id);
+
+        attendre(Duration.ofMinutes(1));
+        // Échus pendant la première minute : ids impairs tels que id % 7200 < 60, soit 30 par tranche de 7200 (7 tranches)
+        assertEquals(25_000 - 7 * 30, registry.get("match.timers.pending").gauge().value());
+
+        attendre(Duration.ofHours(2));
+        assertEquals(25_000, executes.size());
+        assertTrue(executes.stream().allMatch(id -> id % 2 == 1));
+        assertEquals(50_000, registry.get("match.timers.scheduled").functionCounter().count());
+        assertEquals(25_000, registry.get("match.timers.cancelled").functionCounter().count());
+        assertEquals(25_000, registry.get("match.timers.expired").functionCounter().count());
+        assertEquals(0, registry.get("match.timers.pending").gauge().value());
+        assertEquals(0, registry.get("match.timers.lag").gauge().value());
+    }
+
+    @Test
+    void planifier_ShouldBeSafeFromConcurrentCallers() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch fin = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            long base = t * 1000L;
+            pool.execute(() -> {
+                for (long id = base; id < base + 1000; id++) {
+                    timers.planifier(id, Duration.ofSeconds(10), () -> {});
+                    if (id % 4 == 0) timers.annuler(id);
+                }
+                fin.countDown();
+            });
+        }
+        assertTrue(fin.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(6000, timers.nbEnAttente());
+        attendre(Duration.ofSeconds(10));
+        assertEquals(0, timers.nbEnAttente());
+    }
+}
@@ -0,0 +1,85 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchWriteExecutorTest {
+
+    private final MatchWriteExecutor executor = new MatchWriteExecutor();
+    private final ExecutorService appelants = Executors.newFixedThreadPool(16);
+
+    @AfterEach
+    void tearDown() {
+        appelants.shutdownNow();
+        executor.arreter();
+    }
+
+    /** Lecture-modification-écriture non atomique : sans file par match, des incréments seraient perdus. */
+    private static final class Score {
+        long valeur;
+    }
+
+    @Test
+    void executer_ShouldSerializeConcurrentWritesOfSameMatch() {
+        Score score = new Score();
+        List<CompletableFuture<Long>> appels = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            appels.add(CompletableFuture.supplyAsync(() -> executor.executer(1L, () -> {
+                long lu = score.valeur;
+                Thread.yield();
+                score.valeur = lu + 1;
+                return score.valeur;
+            }), appelants));
+        }
+        appels.forEach(CompletableFuture::join);
+
+        assertEquals(500, score.valeur);
+        assertEquals(500, appels.stream().map(CompletableFuture::join).distinct().count());
+        assertEquals(0, executor.nbFilesActives());
+    }
+
+    @Test
+    void executer_ShouldRunDifferentMatchesInParallel() throws Exception {
+        CountDownLatch match2Demarre = new CountDownLatch(1);
+        // Le match 1 attend une modification du match 2 : avec un verrou global, cet appel ne se terminerait pas
+        CompletableFuture<Boolean> match1 = CompletableFuture.supplyAsync(() -> executor.executer(1L, () -> {
+            try {
+                return match2Demarre.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }), appelants);
+        executor.executer(2L, match2Demarre::countDown);
+
+        assertTrue(match1.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void executer_ShouldRunNestedWriteOfSameMatchDirectly() {
+        long resultat = executor.executer(1L, () -> executor.executer(1L, () -> 42L) + 1);
+
+        assertEquals(43L, resultat);
+    }
+
+    @Test
+    void executer_ShouldRethrowAndKeepQueueUsable() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> executor.executer(1L, () -> {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Match n'est pas en jeu");
+        }));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+
+        assertEquals("ok", executor.executer(1L, () -> "ok"));
+    }
+}
@@ -0,0 +1,61 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoundRobinRoundsTest {
+
+    @Test
+    void next_ShouldProduceEachPairOnceAndEachTeamOncePerRound() {
+        for (int n = 2; n <= 11; n++) {
+            RoundRobinRounds rounds = new RoundRobinRounds(n, false);
+            // Une ronde = n/2 rencontres consécutives (une équipe exempte si n est impair)
+            int matchsParRonde = n / 2;
+            Set<Long> paires = new HashSet<>();
+            Set<Integer> equipesDeLaRonde = new HashSet<>();
+            int count = 0;
+            while (rounds.next()) {
+                if (count % matchsParRonde == 0) equipesDeLaRonde.clear();
+                int a = rounds.equipe1(), b = rounds.equipe2();
+                assertTrue(equipesDeLaRonde.add(a) && equipesDeLaRonde.add(b), "équipe deux fois dans la ronde, n=" + n);
+                assertTrue(paires.add((long) Math.min(a, b) * n + Math.max(a, b)), "paire en double, n=" + n);
+                count++;
+            }
+            assertEquals(n * (n - 1) / 2, count);
+            assertEquals(rounds.nbMatchs(), count);
+        }
+    }
+
+    @Test
+    void next_ShouldFollowFirstLegWithReturnLegInSameRound() {
+        RoundRobinRounds rounds = new RoundRobinRounds(4, true);
+
+        assertTrue(rounds.next());
+        int a = rounds.equipe1(), b = rounds.equipe2();
+        assertTrue(rounds.next());
+        assertEquals(b, rounds.equipe1());
+        assertEquals(a, rounds.equipe2());
+
+        int count = 2;
+        while (rounds.next()) count++;
+        assertEquals(12, count);
+        assertThrows(NoSuchElementException.class, rounds::equipe1);
+    }
+
+    @Test
+    void toArray_ShouldMatchLazyOrder() {
+        int[] pairs = RoundRobinRounds.toArray(7, true);
+        RoundRobinRounds rounds = new RoundRobinRounds(7, true);
+        int k = 0;
+        while (rounds.next()) {
+            assertEquals(pairs[k++], rounds.equipe1());
+            assertEquals(pairs[k++], rounds.equipe2());
+        }
+        assertEquals(pairs.length, k);
+    }
+}
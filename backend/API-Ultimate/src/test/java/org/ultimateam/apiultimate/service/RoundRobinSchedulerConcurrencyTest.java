@@ -0,0 +1,115 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.Test;
+import org.ultimateam.apiultimate.DTO.ScheduleResult;
+import org.ultimateam.apiultimate.model.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie qu'un même bean {@link RoundRobinSchedulerService} peut générer plusieurs compétitions en parallèle
+ * sans qu'elles ne se perturbent.
+ */
+class RoundRobinSchedulerConcurrencyTest {
+
+    private static final int GENERATIONS = 64;
+
+    private final RoundRobinSchedulerService scheduler = new RoundRobinSchedulerService();
+
+    /**
+     * Compétition de test : le nombre d'équipes et les indisponibilités dépendent de la graine,
+     * pour que chaque génération parallèle travaille sur des données différentes.
+     */
+    private record Competition(List<Equipe> equipes, List<Terrain> terrains, List<Indisponibilite> indispos,
+                               List<IndisponibiliteTerrain> indisposTerrains, boolean homeAndAway) {}
+
+    private Competition competition(int seed) {
+        List<Equipe> equipes = new ArrayList<>();
+        for (long i = 0; i < 6 + seed % 7; i++) {
+            Equipe e = new Equipe("E" + seed + "-" + i);
+            e.setIdEquipe(seed * 1000L + i);
+            equipes.add(e);
+        }
+        List<Terrain> terrains = new ArrayList<>();
+        for (long i = 0; i < 2 + seed % 3; i++) {
+            Terrain t = new Terrain();
+            t.setIdTerrain(seed * 1000L + i);
+            terrains.add(t);
+        }
+        List<Indisponibilite> indispos = new ArrayList<>();
+        indispos.add(new Indisponibilite(LocalDateTime.of(2025, 5, 1 + seed % 3, 9, 0),
+                LocalDateTime.of(2025, 5, 1 + seed % 3, 13, 0), equipes.get(seed % equipes.size())));
+        List<IndisponibiliteTerrain> indisposTerrains = new ArrayList<>();
+        indisposTerrains.add(new IndisponibiliteTerrain(LocalDateTime.of(2025, 5, 2, 9, 0),
+                LocalDateTime.of(2025, 5, 2, 18, 0), terrains.get(0), null));
+        return new Competition(equipes, terrains, indispos, indisposTerrains, seed % 2 == 0);
+    }
+
+    private ScheduleResult generate(Competition c, RoundRobinSchedulerService.Mode mode) {
+        return scheduler.generateSchedule(c.equipes(), c.terrains(), LocalDate.of(2025, 5, 1), LocalDate.of(2025, 6, 30),
+                c.homeAndAway(), c.indispos(), c.indisposTerrains(), mode);
+    }
+
+    private static String signature(ScheduleResult result) {
+        StringBuilder sb = new StringBuilder();
+        for (Match m : result.getMatchs()) {
+            sb.append(m.getEquipe1().getIdEquipe()).append('-').append(m.getEquipe2().getIdEquipe())
+                    .append('@').append(m.getDateMatch()).append('#').append(m.getTerrain().getIdTerrain()).append(';');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void parallelGenerations_ShouldMatchSequentialResults() throws Exception {
+        for (RoundRobinSchedulerService.Mode mode : RoundRobinSchedulerService.Mode.values()) {
+            List<Competition> competitions = new ArrayList<>();
+            List<String> attendus = new ArrayList<>();
+            for (int seed = 0; seed < GENERATIONS; seed++) {
+                Competition c = competition(seed);
+                competitions.add(c);
+                attendus.add(signature(generate(c, mode)));
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            CountDownLatch depart = new CountDownLatch(1);
+            try {
+                List<Future<String>> futures = new ArrayList<>();
+                for (Competition c : competitions) {
+                    futures.add(pool.submit(() -> {
+                        depart.await();
+                        return signature(generate(c, mode));
+                    }));
+                }
+                depart.countDown();
+
+                for (int i = 0; i < GENERATIONS; i++) {
+                    assertEquals(attendus.get(i), futures.get(i).get(30, TimeUnit.SECONDS),
+                            "Génération " + i + " perturbée par une génération concurrente (mode " + mode + ")");
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void generateSchedule_ShouldNotModifyCallerLists() {
+        Competition c = competition(3);
+        int indispos = c.indispos().size();
+        int indisposTerrains = c.indisposTerrains().size();
+
+        ScheduleResult result = generate(c, RoundRobinSchedulerService.Mode.INTERVAL);
+
+        assertFalse(result.getMatchs().isEmpty());
+        assertEquals(indispos, c.indispos().size(), "La liste d'indisponibilités de l'appelant ne doit pas être modifiée");
+        assertEquals(indisposTerrains, c.indisposTerrains().size());
+        assertEquals(indispos + 2 * result.getMatchs().size(), result.getIndisponibilites().size());
+        assertEquals(indisposTerrains + result.getMatchs().size(), result.getIndisponibiliteTerrains().size());
+    }
+}
@@ -115,4 +115,152 @@ public class RoundRobinSchedulerServiceTest {
 
         assertEquals(6, matchs.size(), "3 équipes AR = 6 matchs");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBitsetModeMatchesIntervalCount() {
+        List<Equipe> equipes = new ArrayList<>();
+        for (int i = 0; i < 9; i++) equipes.add(new Equipe("E" + i));
+
+        LocalDate start = LocalDate.of(2025, 3, 1);
+        LocalDate end = LocalDate.of(2025, 3, 10);
+
+        ScheduleResult result = scheduler.generateSchedule(equipes, terrainsDeTest, start, end, true,
+                new ArrayList<>(), new ArrayList<>(), RoundRobinSchedulerService.Mode.BITSET);
+
+        assertEquals(72, result.getMatchs().size(), "9 équipes AR = 72 matchs");
+        assertNoConflicts(result.getMatchs());
+    }
+
+    @Test
+    void testBitsetModeRespectsUnavailabilities() {
+        List<Equipe> equipes = List.of(new Equipe("A"), new Equipe("B"), new Equipe("C"), new Equipe("D"));
+        Terrain terrain = terrainsDeTest.get(0);
+
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 5);
+
+        List<Indisponibilite> indispo = new ArrayList<>();
+        indispo.add(new Indisponibilite(LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 2, 23, 59), equipes.get(0)));
+        List<IndisponibiliteTerrain> indispoTerrains = new ArrayList<>();
+        indispoTerrains.add(new IndisponibiliteTerrain(LocalDateTime.of(2025, 1, 3, 9, 0), LocalDateTime.of(2025, 1, 3, 12, 0), terrain, null));
+
+        ScheduleResult result = scheduler.generateSchedule(equipes, List.of(terrain), start, end, false,
+                indispo, indispoTerrains, RoundRobinSchedulerService.Mode.BITSET);
+
+        assertEquals(6, result.getMatchs().size());
+        for (Match m : result.getMatchs()) {
+            LocalDateTime dt = m.getDateMatch();
+            if (m.getEquipe1() == equipes.get(0) || m.getEquipe2() == equipes.get(0)) {
+                assertTrue(dt.toLocalDate().isAfter(LocalDate.of(2025, 1, 2)), "A est indisponible les deux premiers jours");
+            }
+            boolean pendantIndispoTerrain = dt.toLocalDate().equals(LocalDate.of(2025, 1, 3)) && dt.toLocalTime().isBefore(LocalTime.of(12, 1));
+            assertFalse(pendantIndispoTerrain, "Le terrain est indisponible le 3 au matin");
+        }
+        assertNoConflicts(result.getMatchs());
+    }
+
+    @Test
+    void testDefaultModePlacesEveryMatchWhenCapacityIsTight() {
+        List<Equipe> equipes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) equipes.add(new Equipe("E" + i));
+        List<Terrain> deuxTerrains = terrainsDeTest.subList(0, 2);
+
+        // 56 matchs aller-retour pour 70 créneaux : le parcours jour par jour (INTERVAL) n'en place que 27
+        LocalDate start = LocalDate.of(2025, 4, 1);
+        LocalDate end = LocalDate.of(2025, 4, 7);
+
+        ScheduleResult interval = scheduler.generateSchedule(equipes, deuxTerrains, start, end, true,
+                new ArrayList<>(), new ArrayList<>(), RoundRobinSchedulerService.Mode.INTERVAL);
+        ScheduleResult parDefaut = scheduler.generateSchedule(equipes, deuxTerrains, start, end, true,
+                new ArrayList<>(), new ArrayList<>());
+
+        assertTrue(interval.getMatchs().size() < 56);
+        assertEquals(56, parDefaut.getMatchs().size(), "8 équipes AR = 56 matchs, tous placés");
+        assertEquals(56 * 2, parDefaut.getIndisponibilites().size());
+        assertNoConflicts(parDefaut.getMatchs());
+    }
+
+    @Test
+    void testSlotPackingPlacesEveryMatchWhenCapacityAllows() {
+        List<Equipe> equipes = new ArrayList<>();
+        for (int i = 0; i < 9; i++) equipes.add(new Equipe("E" + i));
+
+        LocalDate start = LocalDate.of(2025, 3, 1);
+        LocalDate end = LocalDate.of(2025, 3, 10);
+
+        ScheduleResult result = scheduler.generateSchedule(equipes, terrainsDeTest, start, end, true,
+                new ArrayList<>(), new ArrayList<>(), RoundRobinSchedulerService.Mode.SLOT_PACKING);
+
+        assertEquals(72, result.getMatchs().size(), "9 équipes AR = 72 matchs");
+        assertNoConflicts(result.getMatchs());
+
+        // Chaque couple d'équipes se rencontre exactement deux fois
+        Map<String, Integer> rencontres = new HashMap<>();
+        for (Match m : result.getMatchs()) {
+            String a = m.getEquipe1().getNomEquipe(), b = m.getEquipe2().getNomEquipe();
+            rencontres.merge(a.compareTo(b) < 0 ? a + "-" + b : b + "-" + a, 1, Integer::sum);
+        }
+        assertEquals(36, rencontres.size());
+        assertTrue(rencontres.values().stream().allMatch(n -> n == 2));
+    }
+
+    @Test
+    void testPortfolioIsDeterministicAndNotWorseThanBitset() {
+        List<Equipe> equipes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) equipes.add(new Equipe("E" + i));
+        List<Terrain> deuxTerrains = terrainsDeTest.subList(0, 2);
+        List<Indisponibilite> indispo = List.of(
+                new Indisponibilite(LocalDateTime.of(2025, 4, 2, 9, 0), LocalDateTime.of(2025, 4, 3, 12, 0), equipes.get(2)));
+
+        LocalDate start = LocalDate.of(2025, 4, 1);
+        LocalDate end = LocalDate.of(2025, 4, 8);
+
+        ScheduleResult bitset = scheduler.generateSchedule(equipes, deuxTerrains, start, end, true,
+                indispo, List.of(), RoundRobinSchedulerService.Mode.BITSET);
+        ScheduleResult premier = scheduler.generateSchedule(equipes, deuxTerrains, start, end, true,
+                indispo, List.of(), RoundRobinSchedulerService.Mode.PORTFOLIO);
+        ScheduleResult second = scheduler.generateSchedule(equipes, deuxTerrains, start, end, true,
+                indispo, List.of(), RoundRobinSchedulerService.Mode.PORTFOLIO);
+
+        assertTrue(premier.getMatchs().size() >= bitset.getMatchs().size());
+        assertEquals(premier.getMatchs().size(), second.getMatchs().size());
+        for (int i = 0; i < premier.getMatchs().size(); i++) {
+            Match m1 = premier.getMatchs().get(i), m2 = second.getMatchs().get(i);
+            assertSame(m1.getEquipe1(), m2.getEquipe1());
+            assertSame(m1.getEquipe2(), m2.getEquipe2());
+            assertEquals(m1.getDateMatch(), m2.getDateMatch());
+            assertSame(m1.getTerrain(), m2.getTerrain());
+        }
+        assertNoConflicts(premier.getMatchs());
+    }
+
+    @Test
+    void testListenerIsNotifiedOfEachPlacedMatch() {
+        List<Equipe> equipes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) equipes.add(new Equipe("E" + i));
+        List<Match> notifies = new ArrayList<>();
+
+        ScheduleResult result = scheduler.generateSchedule(equipes, terrainsDeTest.subList(0, 1),
+                LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 3), false, List.of(), List.of(), notifies::add);
+
+        assertEquals(result.getMatchs(), notifies);
+        List<?> nonPlaces = RoundRobinSchedulerService.findUnplacedPairs(equipes, false, result.getMatchs());
+        assertEquals(10 - result.getMatchs().size(), nonPlaces.size());
+    }
+
+    private void assertNoConflicts(List<Match> matchs) {
+        for (int i = 0; i < matchs.size(); i++) {
+            for (int j = i + 1; j < matchs.size(); j++) {
+                Match m1 = matchs.get(i);
+                Match m2 = matchs.get(j);
+                if (!m1.getDateMatch().equals(m2.getDateMatch())) continue;
+                assertNotEquals(m1.getTerrain(), m2.getTerrain(), "Deux matchs sur le même terrain au même créneau");
+                Set<Equipe> equipes1 = Collections.newSetFromMap(new IdentityHashMap<>());
+                equipes1.add(m1.getEquipe1());
+                equipes1.add(m1.getEquipe2());
+                assertFalse(equipes1.contains(m2.getEquipe1()) || equipes1.contains(m2.getEquipe2()),
+                        "Une équipe joue deux matchs au même créneau");
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ultimateam.apiultimate.DTO.ScheduleResult;
+import org.ultimateam.apiultimate.model.Equipe;
+import org.ultimateam.apiultimate.model.Indisponibilite;
+import org.ultimateam.apiultimate.model.IndisponibiliteTerrain;
+import org.ultimateam.apiultimate.model.Match;
+import org.ultimateam.apiultimate.model.Terrain;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleOptimizerTest {
+
+    private static final List<LocalTime> CRENEAUX = List.of(
+            LocalTime.of(9, 0), LocalTime.of(10, 50), LocalTime.of(12, 40), LocalTime.of(14, 30));
+
+    private RoundRobinSchedulerService scheduler;
+    private List<Terrain> terrains;
+    private List<Equipe> equipes;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new RoundRobinSchedulerService();
+        terrains = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            Terrain t = new Terrain();
+            t.setIdTerrain(i);
+            t.setNom("Terrain " + i);
+            terrains.add(t);
+        }
+        equipes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) equipes.add(new Equipe("E" + i));
+    }
+
+    private ScheduleScore score(ScheduleResult result, LocalDate start, LocalDate end, boolean homeAndAway,
+                                List<Indisponibilite> indispos) {
+        SchedulingContext ctx = SchedulingContext.of(equipes, terrains, start, end, homeAndAway, CRENEAUX, indispos, List.of());
+        ScheduleOptimizer optimizer = new ScheduleOptimizer(ctx, scheduler.buildSlotGrid(ctx), 0);
+        optimizer.load(result);
+        return optimizer.score();
+    }
+
+    @Test
+    void optimize_ShouldNeverReturnWorseSchedule() {
+        LocalDate start = LocalDate.of(2025, 5, 1);
+        LocalDate end = LocalDate.of(2025, 5, 20);
+
+        ScheduleResult initial = scheduler.generateSchedule(equipes, terrains, start, end, true,
+                List.of(), List.of(), RoundRobinSchedulerService.Mode.INTERVAL);
+        ScheduleResult optimise = scheduler.generateSchedule(equipes, terrains, start, end, true,
+                List.of(), List.of(), RoundRobinSchedulerService.Mode.INTERVAL, Duration.ofMillis(200));
+
+        ScheduleScore avant = score(initial, start, end, true, List.of());
+        ScheduleScore apres = score(optimise, start, end, true, List.of());
+
+        assertEquals(0, apres.nonPlaces());
+        assertEquals(30, optimise.getMatchs().size());
+        assertTrue(apres.cout() <= avant.cout(), "avant=" + avant + " après=" + apres);
+        assertEquals(60, optimise.getIndisponibilites().size());
+        assertEquals(30, optimise.getIndisponibiliteTerrains().size());
+        assertValid(optimise, List.of());
+    }
+
+    @Test
+    void optimize_ShouldRespectDeclaredUnavailabilities() {
+        LocalDate start = LocalDate.of(2025, 5, 1);
+        LocalDate end = LocalDate.of(2025, 5, 12);
+        List<Indisponibilite> indispos = List.of(
+                new Indisponibilite(LocalDateTime.of(2025, 5, 1, 0, 0), LocalDateTime.of(2025, 5, 3, 23, 59), equipes.get(0)),
+                new Indisponibilite(LocalDateTime.of(2025, 5, 4, 9, 0), LocalDateTime.of(2025, 5, 4, 12, 0), equipes.get(3)));
+
+        ScheduleResult optimise = scheduler.generateSchedule(equipes, terrains, start, end, false,
+                indispos, List.of(), RoundRobinSchedulerService.Mode.BITSET, Duration.ofMillis(150));
+
+        assertEquals(15, optimise.getMatchs().size());
+        assertTrue(optimise.getIndisponibilites().containsAll(indispos), "Les indisponibilités déclarées sont conservées");
+        assertValid(optimise, indispos);
+    }
+
+    @Test
+    void optimize_ShouldStopWhenBudgetExpires() {
+        LocalDate start = LocalDate.of(2025, 5, 1);
+        LocalDate end = LocalDate.of(2025, 8, 1);
+
+        long debut = System.nanoTime();
+        scheduler.generateSchedule(equipes, terrains, start, end, true,
+                List.of(), List.of(), RoundRobinSchedulerService.Mode.BITSET, Duration.ofMillis(50));
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+
+        assertTrue(dureeMs < 2_000, "L'optimisation doit rendre la main à l'expiration du budget (" + dureeMs + " ms)");
+    }
+
+    @Test
+    void score_ShouldCountUnplacedMatchesAndTerrainDays() {
+        LocalDate start = LocalDate.of(2025, 5, 1);
+        LocalDate end = LocalDate.of(2025, 5, 10);
+        ScheduleResult partiel = new ScheduleResult(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        RoundRobinSchedulerService.addMatch(partiel, equipes.get(0), equipes.get(5), terrains.get(0), LocalDateTime.of(2025, 5, 1, 9, 0));
+        RoundRobinSchedulerService.addMatch(partiel, equipes.get(1), equipes.get(4), terrains.get(1), LocalDateTime.of(2025, 5, 3, 9, 0));
+
+        ScheduleScore score = score(partiel, start, end, false, List.of());
+
+        assertEquals(13, score.nonPlaces());
+        assertEquals(3, score.etendueJours());
+        assertEquals(2, score.terrainsJours());
+    }
+
+    private void assertValid(ScheduleResult result, List<Indisponibilite> indispos) {
+        List<Match> matchs = result.getMatchs();
+        for (Match m : matchs) {
+            assertTrue(CRENEAUX.contains(m.getDateMatch().toLocalTime()));
+            LocalDateTime fin = m.getDateMatch().plusMinutes(RoundRobinSchedulerService.SLOT_DURATION_MIN);
+            for (Indisponibilite ind : indispos) {
+                boolean concerne = ind.getEquipe() == m.getEquipe1() || ind.getEquipe() == m.getEquipe2();
+                boolean touche = !ind.getDateFinIndisponibilite().isBefore(m.getDateMatch())
+                        && !ind.getDateDebutIndisponibilite().isAfter(fin);
+                assertFalse(concerne && touche, "Match placé pendant une indisponibilité déclarée");
+            }
+        }
+        for (int i = 0; i < matchs.size(); i++) {
+            for (int j = i + 1; j < matchs.size(); j++) {
+                Match m1 = matchs.get(i), m2 = matchs.get(j);
+                long ecart = Math.abs(Duration.between(m1.getDateMatch(), m2.getDateMatch()).toMinutes());
+                if (ecart == 0) assertNotSame(m1.getTerrain(), m2.getTerrain());
+                boolean equipeCommune = m1.getEquipe1() == m2.getEquipe1() || m1.getEquipe1() == m2.getEquipe2()
+                        || m1.getEquipe2() == m2.getEquipe1() || m1.getEquipe2() == m2.getEquipe2();
+                if (equipeCommune) {
+                    assertTrue(ecart > RoundRobinSchedulerService.SLOT_DURATION_MIN, "Une équipe joue deux créneaux consécutifs");
+                }
+            }
+        }
+    }
+}
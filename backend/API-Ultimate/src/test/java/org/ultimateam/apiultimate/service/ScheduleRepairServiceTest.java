@@ -0,0 +1,201 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ultimateam.apiultimate.DTO.RepairResult;
+import org.ultimateam.apiultimate.model.*;
+import org.ultimateam.apiultimate.repository.IndisponibiliteRepository;
+import org.ultimateam.apiultimate.repository.IndisponibiliteTerrainRepository;
+import org.ultimateam.apiultimate.repository.MatchRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduleRepairServiceTest {
+
+    @Mock private MatchRepository matchRepository;
+    @Mock private IndisponibiliteRepository indisponibiliteRepository;
+    @Mock private IndisponibiliteTerrainRepository indisponibiliteTerrainRepository;
+
+    @InjectMocks
+    private ScheduleRepairService repairService;
+
+    private LocalDate jour;
+    private Competition competition;
+    private Equipe a, b, c;
+    private Terrain t1, t2;
+
+    @BeforeEach
+    void setUp() {
+        jour = LocalDate.now().plusDays(30);
+        a = equipe(1L);
+        b = equipe(2L);
+        c = equipe(3L);
+        t1 = terrain(1L);
+        t2 = terrain(2L);
+
+        competition = new Championnat();
+        competition.setDateDebut(jour);
+        competition.setDateFin(jour.plusDays(2));
+        competition.setTerrains(new ArrayList<>(List.of(t1, t2)));
+    }
+
+    private static Equipe equipe(long id) {
+        Equipe e = new Equipe("E" + id);
+        e.setIdEquipe(id);
+        return e;
+    }
+
+    private static Terrain terrain(long id) {
+        Terrain t = new Terrain();
+        t.setIdTerrain(id);
+        return t;
+    }
+
+    private Match match(long id, Equipe e1, Equipe e2, LocalDateTime date, Terrain terrain) {
+        Match m = new Match();
+        m.setIdMatch(id);
+        m.setEquipe1(e1);
+        m.setEquipe2(e2);
+        m.setDateMatch(date);
+        m.setTerrain(terrain);
+        m.setIdCompetition(competition);
+        return m;
+    }
+
+    private static LocalDateTime fin(LocalDateTime debut) {
+        return debut.plusMinutes(RoundRobinSchedulerService.SLOT_DURATION_MIN);
+    }
+
+    @Test
+    void reparerPourIndisponibilite_ShouldMoveOnlyConflictingMatchToNearestFreeSlot() {
+        LocalDateTime neufHeures = jour.atTime(9, 0);
+        LocalDateTime midi = jour.atTime(12, 40);
+        Match m1 = match(10L, a, b, neufHeures, t1);
+        Match m2 = match(11L, a, c, midi, t1);
+
+        Indisponibilite blocA1 = new Indisponibilite(neufHeures, fin(neufHeures), a, m1);
+        Indisponibilite blocB1 = new Indisponibilite(neufHeures, fin(neufHeures), b, m1);
+        Indisponibilite blocA2 = new Indisponibilite(midi, fin(midi), a, m2);
+        Indisponibilite nouvelle = new Indisponibilite(jour.atTime(8, 0), jour.atTime(10, 0), b);
+        IndisponibiliteTerrain terrainM1 = new IndisponibiliteTerrain(neufHeures, fin(neufHeures), t1, m1);
+        IndisponibiliteTerrain terrainM2 = new IndisponibiliteTerrain(midi, fin(midi), t1, m2);
+
+        when(matchRepository.findMatchesByEquipe(2L)).thenReturn(List.of(m1));
+        when(indisponibiliteRepository.findAllByEquipe_IdEquipe(1L)).thenReturn(List.of(blocA1, blocA2));
+        when(indisponibiliteRepository.findAllByEquipe_IdEquipe(2L)).thenReturn(List.of(blocB1, nouvelle));
+        when(indisponibiliteTerrainRepository.findByTerrain_IdTerrain(1L)).thenReturn(List.of(terrainM1, terrainM2));
+        when(indisponibiliteRepository.findByMatch(m1)).thenReturn(List.of(blocA1, blocB1));
+        when(indisponibiliteTerrainRepository.findByMatch(m1)).thenReturn(terrainM1);
+
+        RepairResult result = repairService.reparerPourIndisponibilite(nouvelle);
+
+        // 10h50 et 14h30 touchent le match de A à 12h40 : le créneau libre le plus proche est le lendemain 9h
+        LocalDateTime attendu = jour.plusDays(1).atTime(9, 0);
+        assertEquals(List.of(m1), result.deplaces());
+        assertTrue(result.isComplete());
+        assertEquals(attendu, m1.getDateMatch());
+        assertEquals(t1, m1.getTerrain());
+        assertEquals(attendu, blocA1.getDateDebutIndisponibilite());
+        assertEquals(fin(attendu), blocB1.getDateFinIndisponibilite());
+        assertEquals(attendu, terrainM1.getDateDebutIndisponibilite());
+        assertEquals(midi, m2.getDateMatch());
+
+        verify(matchRepository).save(m1);
+        verify(matchRepository, never()).save(m2);
+        verify(indisponibiliteTerrainRepository).save(terrainM1);
+    }
+
+    @Test
+    void reparerPourIndisponibiliteTerrain_ShouldKeepTimeOnAnotherTerrain() {
+        LocalDateTime neufHeures = jour.atTime(9, 0);
+        Match m1 = match(10L, a, b, neufHeures, t1);
+        IndisponibiliteTerrain terrainM1 = new IndisponibiliteTerrain(neufHeures, fin(neufHeures), t1, m1);
+        IndisponibiliteTerrain fermeture = new IndisponibiliteTerrain(jour.atTime(0, 0), jour.atTime(23, 59), t1, null);
+
+        when(matchRepository.findByTerrain_Id_terrain(1L)).thenReturn(List.of(m1));
+        when(indisponibiliteRepository.findAllByEquipe_IdEquipe(anyLong())).thenReturn(List.of());
+        when(indisponibiliteTerrainRepository.findByTerrain_IdTerrain(1L)).thenReturn(List.of(terrainM1, fermeture));
+        when(indisponibiliteTerrainRepository.findByTerrain_IdTerrain(2L)).thenReturn(List.of());
+        when(indisponibiliteRepository.findByMatch(m1)).thenReturn(List.of());
+        when(indisponibiliteTerrainRepository.findByMatch(m1)).thenReturn(terrainM1);
+
+        RepairResult result = repairService.reparerPourIndisponibiliteTerrain(fermeture);
+
+        assertEquals(1, result.deplaces().size());
+        assertEquals(neufHeures, m1.getDateMatch());
+        assertEquals(t2, m1.getTerrain());
+        assertEquals(t2, terrainM1.getTerrain());
+    }
+
+    @Test
+    void reparer_ShouldLoadEachTeamOnceAndKeepMovedMatchesApart() {
+        LocalDateTime neufHeures = jour.atTime(9, 0);
+        LocalDateTime midi = jour.atTime(12, 40);
+        Match m1 = match(10L, a, b, neufHeures, t1);
+        Match m2 = match(11L, a, c, midi, t1);
+        Indisponibilite journee = new Indisponibilite(jour.atTime(0, 0), jour.atTime(23, 59), a);
+
+        when(matchRepository.findMatchesByEquipe(1L)).thenReturn(List.of(m2, m1));
+        when(indisponibiliteRepository.findAllByEquipe_IdEquipe(1L)).thenReturn(List.of(journee,
+                new Indisponibilite(neufHeures, fin(neufHeures), a, m1), new Indisponibilite(midi, fin(midi), a, m2)));
+        when(indisponibiliteRepository.findAllByEquipe_IdEquipe(2L)).thenReturn(List.of());
+        when(indisponibiliteRepository.findAllByEquipe_IdEquipe(3L)).thenReturn(List.of());
+
+        RepairResult result = repairService.reparerPourIndisponibilite(journee);
+
+        // m1 prend le lendemain 9h ; m2 doit éviter ce match de A (9h et 10h50 le touchent)
+        assertEquals(List.of(m1, m2), result.deplaces());
+        assertEquals(jour.plusDays(1).atTime(9, 0), m1.getDateMatch());
+        assertEquals(jour.plusDays(1).atTime(12, 40), m2.getDateMatch());
+        verify(indisponibiliteRepository, times(1)).findAllByEquipe_IdEquipe(1L);
+        verify(indisponibiliteTerrainRepository, times(1)).findByTerrain_IdTerrain(1L);
+    }
+
+    @Test
+    void reparer_ShouldIgnoreMatchesAlreadyStarted() {
+        LocalDateTime neufHeures = jour.atTime(9, 0);
+        Match enCours = match(10L, a, b, neufHeures, t1);
+        enCours.setStatus(Match.Status.ONGOING);
+        Indisponibilite nouvelle = new Indisponibilite(jour.atTime(8, 0), jour.atTime(10, 0), a);
+
+        when(matchRepository.findMatchesByEquipe(1L)).thenReturn(List.of(enCours));
+
+        RepairResult result = repairService.reparerPourIndisponibilite(nouvelle);
+
+        assertTrue(result.deplaces().isEmpty());
+        assertTrue(result.nonResolus().isEmpty());
+        verify(matchRepository, never()).save(any());
+    }
+
+    @Test
+    void reparer_ShouldReportMatchWhenNoSlotIsFree() {
+        competition.setDateFin(jour);
+        competition.setTerrains(new ArrayList<>(List.of(t1)));
+        LocalDateTime neufHeures = jour.atTime(9, 0);
+        Match m1 = match(10L, a, b, neufHeures, t1);
+        Indisponibilite journee = new Indisponibilite(jour.atTime(0, 0), jour.atTime(23, 59), a);
+
+        when(matchRepository.findMatchesByEquipe(1L)).thenReturn(List.of(m1));
+        when(indisponibiliteRepository.findAllByEquipe_IdEquipe(1L)).thenReturn(List.of(journee));
+        when(indisponibiliteRepository.findAllByEquipe_IdEquipe(2L)).thenReturn(List.of());
+
+        RepairResult result = repairService.reparerPourIndisponibilite(journee);
+
+        assertEquals(List.of(m1), result.nonResolus());
+        assertFalse(result.isComplete());
+        assertEquals(neufHeures, m1.getDateMatch());
+        verify(matchRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,308 @@
+package org.ultimateam.apiultimate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.ultimateam.apiultimate.model.*;
+import org.ultimateam.apiultimate.repository.*;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SwissSystemServiceTest {
+
+    @Mock private MatchRepository matchRepository;
+    @Mock private ParticipationRepository participationRepository;
+    @Mock private EquipeService equipeService;
+    @Mock private ClassementRepository classementRepository;
+    @Mock private IndisponibiliteRepository indisponibiliteRepository;
+    @Mock private IndisponibiliteTerrainRepository indisponibiliteTerrainRepository;
+    @Mock private CompetitionRepository competitionRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Spy private RoundRobinSchedulerService scheduler = new RoundRobinSchedulerService();
+
+    @InjectMocks
+    private SwissSystemService swissSystemService;
+
+    private Championnat championnat;
+    private List<Equipe> equipes;
+
+    @BeforeEach
+    void setUp() {
+        championnat = new Championnat();
+        championnat.setIdCompetition(1L);
+        championnat.setFormatChampionnat(Championnat.FormatChampionnat.SUISSE);
+        championnat.setDateDebut(LocalDate.now().plusDays(10));
+        championnat.setDateFin(LocalDate.now().plusDays(12));
+        for (long i = 1; i <= 2; i++) {
+            Terrain t = new Terrain();
+            t.setIdTerrain(i);
+            championnat.getTerrains().add(t);
+        }
+    }
+
+    private void creerEquipes(int n) {
+        equipes = new ArrayList<>();
+        for (long i = 1; i <= n; i++) {
+            Equipe e = new Equipe("E" + i);
+            e.setIdEquipe(i);
+            equipes.add(e);
+        }
+    }
+
+    private void sansIndisponibilites() {
+        when(indisponibiliteTerrainRepository.findByTerrain_IdTerrain(anyLong())).thenReturn(List.of());
+        when(indisponibiliteRepository.findAllByEquipe_IdEquipe(anyLong())).thenReturn(List.of());
+    }
+
+    private Classement classement(Equipe equipe, long score, long difference) {
+        Classement c = new Classement(new ParticipationId(equipe.getIdEquipe(), 1L));
+        c.setEquipe(equipe);
+        c.setCompetition(championnat);
+        c.setScore(score);
+        c.setDifference_points(difference);
+        return c;
+    }
+
+    private Match termine(Equipe e1, Equipe e2, int ronde) {
+        Match m = new Match();
+        m.setEquipe1(e1);
+        m.setEquipe2(e2);
+        m.setIdCompetition(championnat);
+        m.setTour(ronde);
+        m.setStatus(Match.Status.FINISHED);
+        return m;
+    }
+
+    private static List<Long> ids(Match m) {
+        return List.of(m.getEquipe1().getIdEquipe(), m.getEquipe2().getIdEquipe());
+    }
+
+    @Test
+    void apparier_ShouldPairTopHalfAgainstBottomHalfOfEachScoreGroup() {
+        List<Set<Integer>> adversaires = new ArrayList<>();
+        for (int i = 0; i < 8; i++) adversaires.add(new HashSet<>());
+
+        SwissPairing.Appariement appariement = SwissPairing.apparier(
+                new long[]{3, 3, 3, 3, 0, 0, 0, 0}, adversaires, new boolean[8]);
+
+        assertArrayEquals(new int[]{0, 2, 1, 3, 4, 6, 5, 7}, appariement.paires());
+        assertEquals(-1, appariement.exempt());
+    }
+
+    @Test
+    void apparier_ShouldAvoidRematchesAndFloatOddTeamDown() {
+        List<Set<Integer>> adversaires = new ArrayList<>();
+        for (int i = 0; i < 7; i++) adversaires.add(new HashSet<>());
+        adversaires.get(0).add(1);
+        adversaires.get(1).add(0);
+
+        // 0, 1, 2 à 3 points : 0 et 1 se sont déjà rencontrés, 2 descend dans le groupe suivant
+        boolean[] dejaExempte = new boolean[7];
+        dejaExempte[6] = true;
+        SwissPairing.Appariement appariement = SwissPairing.apparier(
+                new long[]{3, 3, 3, 0, 0, 0, 0}, adversaires, dejaExempte);
+
+        assertEquals(5, appariement.exempt());
+        int[] paires = appariement.paires();
+        assertEquals(6, paires.length);
+        Set<Integer> vues = new HashSet<>();
+        for (int p = 0; p < paires.length; p += 2) {
+            assertFalse(adversaires.get(paires[p]).contains(paires[p + 1]), "revanche " + paires[p] + "-" + paires[p + 1]);
+            vues.add(paires[p]);
+            vues.add(paires[p + 1]);
+        }
+        assertEquals(Set.of(0, 1, 2, 3, 4, 6), vues);
+    }
+
+    @Test
+    void apparier_ShouldHandleThousandTeamsOverSeveralRoundsWithoutRematch() {
+        int n = 1000;
+        Random random = new Random(42);
+        List<Set<Integer>> adversaires = new ArrayList<>();
+        for (int i = 0; i < n; i++) adversaires.add(new HashSet<>());
+        long[] points = new long[n];
+
+        long debut = System.nanoTime();
+        for (int ronde = 0; ronde < 10; ronde++) {
+            // Classement courant : score décroissant, puis indice
+            Integer[] ordre = new Integer[n];
+            for (int i = 0; i < n; i++) ordre[i] = i;
+            Arrays.sort(ordre, Comparator.<Integer>comparingLong(i -> -points[i]).thenComparingInt(i -> i));
+            Map<Integer, Integer> rang = new HashMap<>();
+            for (int r = 0; r < n; r++) rang.put(ordre[r], r);
+
+            long[] scores = new long[n];
+            List<Set<Integer>> adversairesRang = new ArrayList<>();
+            for (int r = 0; r < n; r++) {
+                scores[r] = points[ordre[r]];
+                Set<Integer> s = new HashSet<>();
+                for (int a : adversaires.get(ordre[r])) s.add(rang.get(a));
+                adversairesRang.add(s);
+            }
+
+            int[] paires = SwissPairing.apparier(scores, adversairesRang, new boolean[n]).paires();
+            assertEquals(n, paires.length);
+            for (int p = 0; p < paires.length; p += 2) {
+                int a = ordre[paires[p]], b = ordre[paires[p + 1]];
+                assertTrue(adversaires.get(a).add(b), "revanche à la ronde " + (ronde + 1));
+                adversaires.get(b).add(a);
+                points[random.nextBoolean() ? a : b] += 3;
+            }
+        }
+        assertTrue(System.nanoTime() - debut < 2_000_000_000L, "appariement trop lent");
+    }
+
+    @Test
+    void nombreRondes_ShouldDefaultToLog2AndBeCappedByRoundRobin() {
+        assertEquals(3, SwissSystemService.nombreRondes(championnat, 8));
+        assertEquals(4, SwissSystemService.nombreRondes(championnat, 9));
+        assertEquals(10, SwissSystemService.nombreRondes(championnat, 1000));
+        championnat.setNombreRondes(10);
+        assertEquals(5, SwissSystemService.nombreRondes(championnat, 6));
+    }
+
+    @Test
+    void genererPremiereRonde_ShouldPairSeedsAndScheduleEachMatch() {
+        creerEquipes(4);
+        List<Participation> participations = new ArrayList<>();
+        for (Equipe e : equipes) participations.add(new Participation(e, championnat));
+        when(participationRepository.findById_idCompetition(1L)).thenReturn(participations);
+        when(equipeService.getById(anyLong())).thenAnswer(i -> equipes.get(i.<Long>getArgument(0).intValue() - 1));
+        sansIndisponibilites();
+
+        List<Match> matchs = swissSystemService.genererPremiereRonde(championnat);
+
+        assertEquals(2, matchs.size());
+        assertEquals(Set.of(1L, 3L), new HashSet<>(ids(matchs.get(0))));
+        assertEquals(Set.of(2L, 4L), new HashSet<>(ids(matchs.get(1))));
+        for (int i = 0; i < 2; i++) {
+            assertEquals(1, matchs.get(i).getTour());
+            assertEquals(i, matchs.get(i).getPosition());
+            assertNull(matchs.get(i).getTableau());
+            assertSame(championnat, matchs.get(i).getIdCompetition());
+        }
+        assertEquals(championnat.getDateDebut().atTime(9, 0), matchs.get(0).getDateMatch());
+        assertEquals(matchs.get(0).getDateMatch(), matchs.get(1).getDateMatch());
+        verify(matchRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void charge_ShouldCountLog2RoundsOfHalfTheTeams() {
+        // 10 équipes : 4 rondes de 5 matchs, au lieu des 9 journées d'un round robin
+        assertEquals(new FeasibilityEstimatorService.Charge(20, 4, 0), SwissSystemService.charge(championnat, 10));
+        // Nombre impair : une équipe exemptée à chaque ronde
+        assertEquals(new FeasibilityEstimatorService.Charge(9, 3, 0), SwissSystemService.charge(championnat, 7));
+
+        championnat.setNombreRondes(5);
+        assertEquals(new FeasibilityEstimatorService.Charge(25, 5, 0), SwissSystemService.charge(championnat, 10));
+    }
+
+    @Test
+    void avancer_ShouldWaitForTheWholeRoundThenPairByStandings() {
+        creerEquipes(4);
+        Equipe e1 = equipes.get(0), e2 = equipes.get(1), e3 = equipes.get(2), e4 = equipes.get(3);
+        Match m1 = termine(e1, e3, 1);
+        Match m2 = termine(e2, e4, 1);
+        m2.setStatus(Match.Status.ONGOING);
+        when(matchRepository.findByIdCompetition_IdCompetition(1L)).thenReturn(List.of(m1, m2));
+
+        assertTrue(swissSystemService.avancer(m1).isEmpty());
+        verifyNoInteractions(classementRepository);
+
+        // Classement : 3 et 4 ont gagné ; 3 devant 4 à la différence de points
+        m2.setStatus(Match.Status.FINISHED);
+        when(classementRepository.findAllByCompetition_IdCompetition(1L)).thenReturn(List.of(
+                classement(e1, 0, -2), classement(e2, 0, -5), classement(e3, 3, 2), classement(e4, 3, 5)));
+        sansIndisponibilites();
+
+        List<Match> ronde2 = swissSystemService.avancer(m2);
+
+        assertEquals(2, ronde2.size());
+        assertEquals(Set.of(3L, 4L), new HashSet<>(ids(ronde2.get(0))));
+        assertEquals(Set.of(1L, 2L), new HashSet<>(ids(ronde2.get(1))));
+        assertEquals(2, ronde2.get(0).getTour());
+    }
+
+    @Test
+    void avancer_ShouldCreateNextRoundOnceWhenLastMatchesFinishTogether() throws Exception {
+        creerEquipes(4);
+        Equipe e1 = equipes.get(0), e2 = equipes.get(1), e3 = equipes.get(2), e4 = equipes.get(3);
+        Match m1 = termine(e1, e3, 1);
+        Match m2 = termine(e2, e4, 1);
+        when(classementRepository.findAllByCompetition_IdCompetition(1L)).thenReturn(List.of(
+                classement(e1, 0, -2), classement(e2, 0, -5), classement(e3, 3, 2), classement(e4, 3, 5)));
+        sansIndisponibilites();
+
+        // La base : les matchs enregistrés sont visibles des lectures suivantes ; le verrou de ligne du
+        // championnat est tenu jusqu'à la fin de la transaction
+        List<Match> enregistres = new CopyOnWriteArrayList<>(List.of(m1, m2));
+        when(matchRepository.findByIdCompetition_IdCompetition(1L)).thenAnswer(i -> new ArrayList<>(enregistres));
+        when(matchRepository.saveAll(anyList())).thenAnswer(i -> {
+            enregistres.addAll(i.getArgument(0));
+            return i.getArgument(0);
+        });
+        ReentrantLock ligne = new ReentrantLock();
+        when(competitionRepository.verrouiller(1L)).thenAnswer(i -> {
+            ligne.lock();
+            return Optional.of(championnat);
+        });
+        doAnswer(i -> {
+            ligne.unlock();
+            return null;
+        }).when(transactionManager).commit(any());
+
+        // Les deux derniers matchs de la ronde se terminent en même temps
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<List<Match>>> resultats = new ArrayList<>();
+        for (Match fini : List.of(m1, m2)) {
+            resultats.add(pool.submit(() -> {
+                depart.await();
+                return swissSystemService.avancer(fini);
+            }));
+        }
+        depart.countDown();
+        List<Integer> crees = new ArrayList<>();
+        for (Future<List<Match>> resultat : resultats) crees.add(resultat.get(10, TimeUnit.SECONDS).size());
+        pool.shutdown();
+
+        assertEquals(List.of(0, 2), crees.stream().sorted().toList());
+        assertEquals(2, enregistres.stream().filter(m -> Objects.equals(m.getTour(), 2)).count());
+        verify(competitionRepository, times(2)).verrouiller(1L);
+    }
+
+    @Test
+    void avancer_ShouldStopAfterLastRound() {
+        creerEquipes(2);
+        Match m1 = termine(equipes.get(0), equipes.get(1), 1);
+        when(matchRepository.findByIdCompetition_IdCompetition(1L)).thenReturn(List.of(m1));
+        when(classementRepository.findAllByCompetition_IdCompetition(1L)).thenReturn(List.of(
+                classement(equipes.get(0), 3, 1), classement(equipes.get(1), 0, -1)));
+
+        assertTrue(swissSystemService.avancer(m1).isEmpty());
+        verify(matchRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void avancer_ShouldIgnoreRoundRobinMatches() {
+        Match match = new Match();
+        match.setIdCompetition(championnat);
+
+        assertTrue(swissSystemService.avancer(match).isEmpty());
+        verifyNoInteractions(matchRepository);
+    }
+}